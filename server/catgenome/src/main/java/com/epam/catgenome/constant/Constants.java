@@ -171,6 +171,11 @@ public final class Constants {
      */
     public static final int KILO_BYTE_SIZE = 1024;
 
+    /**
+     * Load factor of access ordered {@code LinkedHashMap}s, that are used as LRU caches
+     */
+    public static final float LRU_LOAD_FACTOR = 0.75f;
+
     private Constants() {
         //No-op
     }
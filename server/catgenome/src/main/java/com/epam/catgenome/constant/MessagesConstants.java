@@ -215,6 +215,11 @@ public final class MessagesConstants {
     //BED
     public static final String ERROR_BED_PARSING = "error.bed.parsing.exception";
 
+    //REGISTRATION JOB
+    public static final String ERROR_REGISTRATION_JOB_NOT_FOUND = "error.registration.job.not.found";
+    public static final String ERROR_REGISTRATION_QUEUE_FULL = "error.registration.queue.full";
+    public static final String ERROR_REGISTRATION_JOB_INTERRUPTED = "error.registration.job.interrupted";
+
     //LOGGER
     public static final String ERROR_LOGGER_JSON_FILE_INVALID = "logger.error.json.file.invalid";
     private MessagesConstants() {
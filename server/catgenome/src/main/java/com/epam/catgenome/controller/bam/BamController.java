@@ -40,6 +40,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -53,8 +54,11 @@ import com.epam.catgenome.controller.vo.TrackQuery;
 import com.epam.catgenome.controller.vo.registration.IndexedFileRegistrationRequest;
 import com.epam.catgenome.entity.reference.Sequence;
 import com.epam.catgenome.entity.track.Track;
+import com.epam.catgenome.manager.bam.AbstractBamTrackEmitter;
 import com.epam.catgenome.manager.bam.BamFileManager;
 import com.epam.catgenome.manager.bam.BamManager;
+import com.epam.catgenome.manager.bam.BamTrackEmitter;
+import com.epam.catgenome.manager.bam.BinaryBamTrackEmitter;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiResponse;
@@ -155,27 +159,33 @@ public class BamController extends AbstractRESTController {
                     "6) <b>mode</b> controls BAM display mode: REGIONS - return only regions of possible read " +
                     "location; <br/>" +
                     "COVERAGE - return only BAM coverage;<br/>" +
-                    "FULL - return both reads and coverage",
-            produces = MediaType.APPLICATION_JSON_VALUE)
+                    "FULL - return both reads and coverage<br/><br/>" +
+                    "If Accept header contains '" + BinaryBamTrackEmitter.MEDIA_TYPE_VALUE + "', reads are " +
+                    "returned in a compact binary format, described in BinaryBamTrackEmitter",
+            produces = MediaType.APPLICATION_JSON_VALUE + ", " + BinaryBamTrackEmitter.MEDIA_TYPE_VALUE)
     @ApiResponses(
             value = {@ApiResponse(code = HTTP_STATUS_OK, message = API_STATUS_DESCRIPTION)
             })
     public final ResponseEntity<ResponseBodyEmitter> loadTrackStream(
             @RequestBody final TrackQuery query,
             @RequestParam(required = false) final String fileUrl,
-            @RequestParam(required = false) final String indexUrl)
+            @RequestParam(required = false) final String indexUrl,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept)
             throws IOException {
 
         final ResponseBodyEmitter emitter = new ResponseBodyEmitter(EMITTER_TIMEOUT);
+        final boolean binary = BinaryBamTrackEmitter.isAccepted(accept);
+        final AbstractBamTrackEmitter bamTrackEmitter = binary ? new BinaryBamTrackEmitter(emitter)
+                                                               : new BamTrackEmitter(emitter);
         if (fileUrl == null) {
-            bamManager.sendBamTrackToEmitter(convertToTrack(query), query.getOption(), emitter);
+            bamManager.sendBamTrackToEmitter(convertToTrack(query), query.getOption(), bamTrackEmitter);
         } else {
             bamManager.sendBamTrackToEmitterFromUrl(convertToTrack(query), query.getOption(), fileUrl,
-                    indexUrl, emitter);
+                    indexUrl, bamTrackEmitter);
         }
 
         HttpHeaders responseHeaders = new HttpHeaders();
-        responseHeaders.setContentType(MediaType.APPLICATION_JSON_UTF8);
+        responseHeaders.setContentType(binary ? BinaryBamTrackEmitter.MEDIA_TYPE : MediaType.APPLICATION_JSON_UTF8);
         return new ResponseEntity<>(emitter, responseHeaders, HttpStatus.OK);
     }
 
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.controller.job;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.epam.catgenome.controller.AbstractRESTController;
+import com.epam.catgenome.controller.Result;
+import com.epam.catgenome.controller.vo.registration.FeatureIndexedFileRegistrationRequest;
+import com.epam.catgenome.controller.vo.registration.ReferenceRegistrationRequest;
+import com.epam.catgenome.entity.BiologicalDataItemFormat;
+import com.epam.catgenome.entity.job.RegistrationJob;
+import com.epam.catgenome.manager.job.RegistrationJobService;
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+
+/**
+ * Controller to provide REST API for registration of files and references in the background
+ */
+@Controller
+@Api(value = "job", description = "Registration Jobs Management")
+public class RegistrationJobController extends AbstractRESTController {
+
+    @Autowired
+    private RegistrationJobService registrationJobService;
+
+    @ResponseBody
+    @RequestMapping(value = "/job/{format}/register", method = RequestMethod.POST)
+    @ApiOperation(
+            value = "Submits a registration of a file in the background.",
+            notes = "Supported formats are VCF, GENE, BED and MAF. Registration request is the same as for " +
+                    "a synchronous registration of a file of the format. Returns a queued job, the status and " +
+                    "progress of which can be polled by its ID. A registered file is returned with a completed job.",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(
+            value = {@ApiResponse(code = HTTP_STATUS_OK, message = API_STATUS_DESCRIPTION)
+            })
+    public Result<RegistrationJob> registerFile(@PathVariable(value = "format") final BiologicalDataItemFormat format,
+                                                @RequestBody final FeatureIndexedFileRegistrationRequest request) {
+        return Result.success(registrationJobService.submitFileRegistration(format, request));
+    }
+
+    @ResponseBody
+    @RequestMapping(value = "/secure/job/reference/register", method = RequestMethod.POST)
+    @ApiOperation(
+            value = "Submits a registration of a reference genome in the background.",
+            notes = "Registration request is the same as for a synchronous registration of a reference. Returns " +
+                    "a queued job, the status and progress of which can be polled by its ID.",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(
+            value = {@ApiResponse(code = HTTP_STATUS_OK, message = API_STATUS_DESCRIPTION)
+            })
+    public Result<RegistrationJob> registerReference(@RequestBody final ReferenceRegistrationRequest request) {
+        return Result.success(registrationJobService.submitReferenceRegistration(request));
+    }
+
+    @ResponseBody
+    @RequestMapping(value = "/job/{jobId}", method = RequestMethod.GET)
+    @ApiOperation(
+            value = "Returns a registration job by given ID.",
+            notes = "Provides the status of a job, number of parsed records and indexed chromosomes, an error " +
+                    "message of a failed job and a registered item of a completed job.",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(
+            value = {@ApiResponse(code = HTTP_STATUS_OK, message = API_STATUS_DESCRIPTION)
+            })
+    public Result<RegistrationJob> loadJob(@PathVariable(value = "jobId") final Long jobId) {
+        return Result.success(registrationJobService.loadJob(jobId));
+    }
+
+    @ResponseBody
+    @RequestMapping(value = "/job/status", method = RequestMethod.POST)
+    @ApiOperation(
+            value = "Returns registration jobs by given IDs.",
+            notes = "Allows to poll a batch of jobs with a single request. Jobs are ordered by ID, missing IDs " +
+                    "are skipped.",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(
+            value = {@ApiResponse(code = HTTP_STATUS_OK, message = API_STATUS_DESCRIPTION)
+            })
+    public Result<List<RegistrationJob>> loadJobs(@RequestBody final List<Long> jobIds) {
+        return Result.success(registrationJobService.loadJobs(jobIds));
+    }
+
+    @ResponseBody
+    @RequestMapping(value = "/secure/job/{jobId}", method = RequestMethod.DELETE)
+    @ApiOperation(
+            value = "Cancels a registration job by given ID.",
+            notes = "A queued job won't be started, a running job stops and cleans up registered data. " +
+                    "Finished jobs are not affected.",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(
+            value = {@ApiResponse(code = HTTP_STATUS_OK, message = API_STATUS_DESCRIPTION)
+            })
+    public Result<RegistrationJob> cancelJob(@PathVariable(value = "jobId") final Long jobId) {
+        return Result.success(registrationJobService.cancelJob(jobId));
+    }
+}
@@ -24,6 +24,7 @@
 
 package com.epam.catgenome.dao.index;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -86,7 +87,6 @@ import org.apache.lucene.search.grouping.GroupingSearch;
 import org.apache.lucene.search.grouping.TopGroups;
 import org.apache.lucene.search.grouping.term.TermGroupFacetCollector;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.SimpleFSDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -238,18 +238,65 @@ public class FeatureIndexDao {
      */
     public void writeLuceneIndexForFile(final FeatureFile featureFile,
                                         final List<? extends FeatureIndexEntry> entries) throws IOException {
-        try (
-            StandardAnalyzer analyzer = new StandardAnalyzer();
-            Directory index = fileManager.createIndexForFile(featureFile);
-            IndexWriter writer = new IndexWriter(index, new IndexWriterConfig(analyzer).setOpenMode(
-                IndexWriterConfig.OpenMode.CREATE_OR_APPEND))
-        ) {
-            FacetsConfig facetsConfig = new FacetsConfig();
+        try (FileIndexWriter writer = openIndexWriter(featureFile)) {
+            writer.addEntries(entries);
+        }
+    }
+
+    /**
+     * Opens a writer for a specified feature file's Lucene index. The writer may be shared by several threads and
+     * kept open while the whole file is indexed. Changes become visible to searches after the writer is closed.
+     *
+     * @param featureFile a FeatureFile, for which features to save
+     * @return a {@code FileIndexWriter} for the file's index
+     * @throws IOException if the index can't be opened for writing
+     */
+    public FileIndexWriter openIndexWriter(final FeatureFile featureFile) throws IOException {
+        return new FileIndexWriter(featureFile);
+    }
+
+    /**
+     * A long-lived writer of a feature file's index. {@code IndexWriter} is thread safe, so entries may be added
+     * concurrently. Closing the writer commits the changes and refreshes the cached index reader.
+     */
+    public final class FileIndexWriter implements Closeable {
+        private final FeatureFile featureFile;
+        private final StandardAnalyzer analyzer;
+        private final Directory index;
+        private final IndexWriter writer;
+        private final FacetsConfig facetsConfig;
+
+        private FileIndexWriter(final FeatureFile featureFile) throws IOException {
+            this.featureFile = featureFile;
+            this.analyzer = new StandardAnalyzer();
+            try {
+                this.index = fileManager.createIndexForFile(featureFile);
+                try {
+                    this.writer = new IndexWriter(index, new IndexWriterConfig(analyzer).setOpenMode(
+                        IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+                } catch (IOException e) {
+                    IOUtils.closeQuietly(index);
+                    throw e;
+                }
+            } catch (IOException e) {
+                analyzer.close();
+                throw e;
+            }
+
+            facetsConfig = new FacetsConfig();
             facetsConfig.setIndexFieldName(FeatureIndexFields.CHR_ID.getFieldName(),
                                            FeatureIndexFields.FACET_CHR_ID.getFieldName());
             facetsConfig.setIndexFieldName(FeatureIndexFields.F_UID.getFieldName(),
                                            FeatureIndexFields.FACET_UID.getFieldName());
+        }
 
+        /**
+         * Adds entries to the index
+         *
+         * @param entries a list of FeatureIndexEntry to write to index
+         * @throws IOException if error occurred while writing to file system
+         */
+        public void addEntries(final List<? extends FeatureIndexEntry> entries) throws IOException {
             for (FeatureIndexEntry entry : entries) {
                 Document document = new Document();
                 addCommonDocumentFields(document, entry, featureFile.getId());
@@ -261,6 +308,36 @@ public class FeatureIndexDao {
                 writer.addDocument(facetsConfig.build(document));
             }
         }
+
+        /**
+         * Discards all the entries, added since the writer was opened, and closes it
+         */
+        public void rollback() {
+            try {
+                writer.rollback();
+            } catch (IOException e) {
+                LOGGER.error("Unable to rollback feature index for file " + featureFile.getId(), e);
+            } finally {
+                IOUtils.closeQuietly(index);
+                analyzer.close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!writer.isOpen()) {
+                return;
+            }
+
+            try {
+                writer.close();
+            } finally {
+                IOUtils.closeQuietly(index);
+                analyzer.close();
+            }
+
+            fileManager.refreshIndexReader(featureFile);
+        }
     }
 
     /**
@@ -316,9 +393,8 @@ public class FeatureIndexDao {
         if (indexedFiles.isEmpty()) {
             return new IndexSearchResult<>(Collections.emptyList(), false, 0);
         }
-        SimpleFSDirectory[] indexes = fileManager.getIndexesForFiles(files);
 
-        try (MultiReader reader = openMultiReader(indexes)) {
+        try (MultiReader reader = openMultiReader(files)) {
             if (reader.numDocs() == 0) {
                 return new IndexSearchResult<>(Collections.emptyList(), false, 0);
             }
@@ -363,10 +439,6 @@ public class FeatureIndexDao {
             return searchFileIndexes(files, mainBuilder.build(), null,
                     reader.numDocs(), null);
 
-        } finally {
-            for (SimpleFSDirectory index : indexes) {
-                IOUtils.closeQuietly(index);
-            }
         }
     }
 
@@ -496,9 +568,7 @@ public class FeatureIndexDao {
 
         Map<Integer, FeatureIndexEntry> entryMap = new LinkedHashMap<>();
 
-        SimpleFSDirectory[] indexes = fileManager.getIndexesForFiles(files);
-
-        try (MultiReader reader = openMultiReader(indexes)) {
+        try (MultiReader reader = openMultiReader(files)) {
             if (reader.numDocs() == 0) {
                 return new IndexSearchResult<>(Collections.emptyList(), false, 0);
             }
@@ -516,10 +586,6 @@ public class FeatureIndexDao {
             return new IndexSearchResult<>(new ArrayList<T>((Collection<? extends T>) entryMap.values()),
                                            maxResultsCount != null &&
                                            totalHits > maxResultsCount, totalHits);
-        } finally {
-            for (SimpleFSDirectory index : indexes) {
-                IOUtils.closeQuietly(index);
-            }
         }
     }
 
@@ -548,9 +614,7 @@ public class FeatureIndexDao {
         List<FeatureIndexEntry> entries;
 
         int totalHits = 0;
-        SimpleFSDirectory[] indexes = fileManager.getIndexesForFiles(files);
-
-        try (MultiReader reader = openMultiReader(indexes)) {
+        try (MultiReader reader = openMultiReader(files)) {
             if (reader.numDocs() == 0) {
                 return new IndexSearchResult<>(Collections.emptyList(), false, 0);
             }
@@ -572,10 +636,6 @@ public class FeatureIndexDao {
             for (ScoreDoc hit : hits) {
                 entries.add(createIndexEntry(hit, new HashMap<>(), searcher, vcfInfoFields));
             }
-        } finally {
-            for (SimpleFSDirectory index : indexes) {
-                IOUtils.closeQuietly(index);
-            }
         }
 
         return new IndexSearchResult<>((List<T>) entries, false, totalHits);
@@ -586,9 +646,7 @@ public class FeatureIndexDao {
             return 0;
         }
 
-        SimpleFSDirectory[] indexes = fileManager.getIndexesForFiles(files);
-
-        try (MultiReader reader = openMultiReader(indexes)) {
+        try (MultiReader reader = openMultiReader(files)) {
             if (reader.numDocs() == 0) {
                 return 0;
             }
@@ -605,10 +663,6 @@ public class FeatureIndexDao {
             }
 
             return res.childCount;
-        } finally {
-            for (SimpleFSDirectory index : indexes) {
-                IOUtils.closeQuietly(index);
-            }
         }
     }
 
@@ -685,9 +739,7 @@ public class FeatureIndexDao {
             return Collections.emptyList();
         }
 
-        SimpleFSDirectory[] indexes = fileManager.getIndexesForFiles(files);
-
-        try (MultiReader reader = openMultiReader(indexes)) {
+        try (MultiReader reader = openMultiReader(files)) {
             if (reader.numDocs() == 0) {
                 return Collections.emptyList();
             }
@@ -704,10 +756,6 @@ public class FeatureIndexDao {
             for (AbstractGroupFacetCollector.FacetEntry facetEntry : facetEntries) {
                 res.add(new Group(facetEntry.getValue().utf8ToString(), facetEntry.getCount()));
             }
-        } finally {
-            for (SimpleFSDirectory index : indexes) {
-                IOUtils.closeQuietly(index);
-            }
         }
 
         return res;
@@ -736,13 +784,17 @@ public class FeatureIndexDao {
         }
     }
 
-    private MultiReader openMultiReader(SimpleFSDirectory[] indexes) throws IOException {
-        IndexReader[] readers = new IndexReader[indexes.length];
-        for (int i = 0; i < indexes.length; i++) {
-            readers[i] = DirectoryReader.open(indexes[i]);
+    /**
+     * Opens a reader over indexes of specified files. Index readers are taken from the cache, managed by
+     * {@link FileManager}, the returned {@code MultiReader} holds a reference to each of them until it is closed.
+     */
+    private MultiReader openMultiReader(List<? extends FeatureFile> files) throws IOException {
+        DirectoryReader[] readers = fileManager.acquireIndexReaders(files);
+        try {
+            return new MultiReader(readers, false);
+        } finally {
+            fileManager.releaseIndexReaders(readers);
         }
-
-        return new MultiReader(readers, true);
     }
 
     private TopDocs performSearch(IndexSearcher searcher, Query query, IndexReader reader, Integer maxResultsCount,
@@ -841,9 +893,7 @@ public class FeatureIndexDao {
 
         List<Long> chromosomeIds = new ArrayList<>();
 
-        SimpleFSDirectory[] indexes = fileManager.getIndexesForFiles(files);
-
-        try (MultiReader reader = openMultiReader(indexes)) {
+        try (MultiReader reader = openMultiReader(files)) {
             if (reader.numDocs() == 0) {
                 return Collections.emptyList();
             }
@@ -862,19 +912,11 @@ public class FeatureIndexDao {
             for (LabelAndValue labelAndValue : res.labelValues) {
                 chromosomeIds.add(Long.parseLong(labelAndValue.label));
             }
-        } finally {
-            closeIndexes(indexes);
         }
 
         return chromosomeIds;
     }
 
-    private void closeIndexes(SimpleFSDirectory[] indexes) {
-        for (SimpleFSDirectory index : indexes) {
-            IOUtils.closeQuietly(index);
-        }
-    }
-
     /**
      * Searches gene IDs, affected by variations in specified VCF files in a specified project
      *
@@ -952,9 +994,7 @@ public class FeatureIndexDao {
 
         Set<String> geneIds;
 
-        SimpleFSDirectory[] indexes = fileManager.getIndexesForFiles(vcfFiles);
-
-        try (MultiReader reader = openMultiReader(indexes)) {
+        try (MultiReader reader = openMultiReader(vcfFiles)) {
             if (reader.numDocs() == 0) {
                 return Collections.emptySet();
             }
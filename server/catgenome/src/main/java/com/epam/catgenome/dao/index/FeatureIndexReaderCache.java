@@ -0,0 +1,248 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.dao.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.ReaderManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.epam.catgenome.constant.Constants;
+
+/**
+ * <p>
+ * Keeps Lucene readers of feature files' indexes open between searches. Each index is served by a
+ * {@link ReaderManager}: a search acquires a reader, works with a point-in-time view of the index and releases it,
+ * while the cache refreshes the reader after the index is written. The number of open indexes is bounded, the least
+ * recently used index is closed first. Readers, acquired before an index is evicted or invalidated, stay usable
+ * until they are released.
+ * </p>
+ */
+public class FeatureIndexReaderCache implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeatureIndexReaderCache.class);
+
+    /**
+     * Opens a Lucene {@code Directory} for an index, located by a path
+     */
+    @FunctionalInterface
+    public interface DirectoryOpener {
+        Directory open(Path path) throws IOException;
+    }
+
+    private final int maxSize;
+    private final DirectoryOpener directoryOpener;
+    private final Map<Path, CachedIndex> indexes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxSize maximum number of indexes to keep open
+     * @param directoryOpener a function to open index directories
+     */
+    public FeatureIndexReaderCache(int maxSize, DirectoryOpener directoryOpener) {
+        this.maxSize = Math.max(1, maxSize);
+        this.directoryOpener = directoryOpener;
+        // access order for LRU eviction
+        this.indexes = new LinkedHashMap<>(this.maxSize, Constants.LRU_LOAD_FACTOR, true);
+    }
+
+    /**
+     * Acquires a reader for an index, located by a specified path, opening the index if it is not cached yet.
+     * Acquired reader should be released with {@link #release(DirectoryReader)}.
+     *
+     * @param indexPath a path of an index directory
+     * @return a {@code DirectoryReader} for the index
+     * @throws IOException if the index can't be opened
+     */
+    public DirectoryReader acquire(Path indexPath) throws IOException {
+        synchronized (indexes) {
+            CachedIndex cached = indexes.get(indexPath);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                return cached.readerManager.acquire();
+            }
+        }
+
+        missCount.incrementAndGet();
+        CachedIndex opened = CachedIndex.open(indexPath, directoryOpener);
+
+        List<CachedIndex> evicted = new ArrayList<>();
+        DirectoryReader reader;
+        synchronized (indexes) {
+            CachedIndex cached = indexes.get(indexPath);
+            if (cached == null) { // nobody has opened the index concurrently
+                indexes.put(indexPath, opened);
+                cached = opened;
+                opened = null;
+                evictEldest(evicted);
+            }
+
+            reader = cached.readerManager.acquire();
+        }
+
+        if (opened != null) {
+            opened.close();
+        }
+        evicted.forEach(CachedIndex::close);
+        return reader;
+    }
+
+    /**
+     * Releases a reader, acquired by {@link #acquire(Path)}
+     *
+     * @param reader a reader to release
+     * @throws IOException if closing of an outdated reader fails
+     */
+    public void release(DirectoryReader reader) throws IOException {
+        if (reader != null) {
+            reader.decRef();
+        }
+    }
+
+    /**
+     * Makes the readers, that will be acquired for an index, see the latest changes, written to the index.
+     * Does nothing if the index is not cached.
+     *
+     * @param indexPath a path of an index directory
+     * @throws IOException if reopening of a reader fails
+     */
+    public void refresh(Path indexPath) throws IOException {
+        CachedIndex cached;
+        synchronized (indexes) {
+            cached = indexes.get(indexPath);
+        }
+
+        if (cached != null) {
+            try {
+                cached.readerManager.maybeRefreshBlocking();
+            } catch (AlreadyClosedException e) {
+                LOGGER.debug("Index {} was evicted during refresh", indexPath);
+            }
+        }
+    }
+
+    /**
+     * Removes an index from the cache and closes it, should be called before an index is deleted or recreated
+     *
+     * @param indexPath a path of an index directory
+     */
+    public void invalidate(Path indexPath) {
+        CachedIndex cached;
+        synchronized (indexes) {
+            cached = indexes.remove(indexPath);
+        }
+
+        if (cached != null) {
+            cached.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        List<CachedIndex> cached;
+        synchronized (indexes) {
+            cached = new ArrayList<>(indexes.values());
+            indexes.clear();
+        }
+
+        cached.forEach(CachedIndex::close);
+    }
+
+    public int size() {
+        synchronized (indexes) {
+            return indexes.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private void evictEldest(List<CachedIndex> evicted) {
+        Iterator<Map.Entry<Path, CachedIndex>> iterator = indexes.entrySet().iterator();
+        while (indexes.size() > maxSize && iterator.hasNext()) {
+            Map.Entry<Path, CachedIndex> eldest = iterator.next();
+            iterator.remove();
+            evicted.add(eldest.getValue());
+            evictionCount.incrementAndGet();
+
+            LOGGER.debug("Feature index {} evicted from reader cache, hits: {}, misses: {}, evictions: {}",
+                         eldest.getKey(), hitCount.get(), missCount.get(), evictionCount.get());
+        }
+    }
+
+    private static final class CachedIndex {
+        private final Directory directory;
+        private final ReaderManager readerManager;
+
+        private CachedIndex(Directory directory, ReaderManager readerManager) {
+            this.directory = directory;
+            this.readerManager = readerManager;
+        }
+
+        private static CachedIndex open(Path indexPath, DirectoryOpener opener) throws IOException {
+            Directory directory = opener.open(indexPath);
+            try {
+                return new CachedIndex(directory, new ReaderManager(directory));
+            } catch (IOException e) {
+                IOUtils.closeQuietly(directory);
+                throw e;
+            }
+        }
+
+        /**
+         * Closes the manager, which releases the current reader. Readers, that are still acquired by searches,
+         * are closed as soon as they are released.
+         */
+        private void close() {
+            IOUtils.closeQuietly(readerManager);
+            IOUtils.closeQuietly(directory);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.dao.index;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.store.SimpleFSDirectory;
+import org.apache.lucene.util.Constants;
+
+/**
+ * Defines an implementation of Lucene {@code Directory}, that is used to read and write feature indexes.
+ * Configured by {@code feature.index.directory.type} property.
+ */
+public enum IndexDirectoryType implements FeatureIndexReaderCache.DirectoryOpener {
+    /**
+     * Memory mapped files, allows concurrent reads without any locking. Requires 64-bit JVM to map large indexes
+     */
+    MMAP {
+        @Override
+        public Directory open(Path path) throws IOException {
+            return new MMapDirectory(path);
+        }
+    },
+
+    /**
+     * Positional reads through {@code FileChannel}, concurrent reads don't block each other, except on Windows
+     */
+    NIO {
+        @Override
+        public Directory open(Path path) throws IOException {
+            return new NIOFSDirectory(path);
+        }
+    },
+
+    /**
+     * Reads through {@code RandomAccessFile}, concurrent reads of the same file are serialized. Suitable for tests
+     */
+    SIMPLE {
+        @Override
+        public Directory open(Path path) throws IOException {
+            return new SimpleFSDirectory(path);
+        }
+    },
+
+    /**
+     * Picks {@link #MMAP} on 64-bit JVMs, that support unmapping, falls back to {@link #NIO}, or to {@link #SIMPLE}
+     * on Windows
+     */
+    AUTO {
+        @Override
+        public Directory open(Path path) throws IOException {
+            return resolve().open(path);
+        }
+
+        @Override
+        public IndexDirectoryType resolve() {
+            if (Constants.JRE_IS_64BIT && MMapDirectory.UNMAP_SUPPORTED) {
+                return MMAP;
+            }
+
+            return Constants.WINDOWS ? SIMPLE : NIO;
+        }
+    };
+
+    /**
+     * @return the actual directory type, that is used to open indexes
+     */
+    public IndexDirectoryType resolve() {
+        return this;
+    }
+
+    /**
+     * Parses a directory type from a property value, case insensitive
+     *
+     * @param name a name of directory type, blank value stands for {@link #AUTO}
+     * @return a matching {@code IndexDirectoryType}
+     */
+    public static IndexDirectoryType forName(String name) {
+        if (StringUtils.isBlank(name)) {
+            return AUTO;
+        }
+
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.dao.job;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcDaoSupport;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.epam.catgenome.dao.DaoHelper;
+import com.epam.catgenome.entity.BiologicalDataItemFormat;
+import com.epam.catgenome.entity.job.RegistrationJob;
+import com.epam.catgenome.entity.job.RegistrationJobStatus;
+
+/**
+ * {@code RegistrationJobDao} is a DAO component, that handles database interaction with registration jobs.
+ */
+public class RegistrationJobDao extends NamedParameterJdbcDaoSupport {
+
+    @Autowired
+    private DaoHelper daoHelper;
+
+    private String registrationJobSequenceName;
+    private String insertRegistrationJobQuery;
+    private String updateRegistrationJobQuery;
+    private String loadRegistrationJobsByIdsQuery;
+    private String failUnfinishedRegistrationJobsQuery;
+
+    /**
+     * Persists a new {@code RegistrationJob} record, assigning it a new ID
+     *
+     * @param job a {@code RegistrationJob} to persist
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createRegistrationJob(final RegistrationJob job) {
+        job.setId(daoHelper.createId(registrationJobSequenceName));
+        getNamedParameterJdbcTemplate().update(insertRegistrationJobQuery,
+                RegistrationJobParameters.getParameters(job));
+    }
+
+    /**
+     * Saves status, progress and result of a {@code RegistrationJob}
+     *
+     * @param job a {@code RegistrationJob} to update
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updateRegistrationJob(final RegistrationJob job) {
+        getNamedParameterJdbcTemplate().update(updateRegistrationJobQuery,
+                RegistrationJobParameters.getParameters(job));
+    }
+
+    /**
+     * Loads {@code RegistrationJob} records, specified by IDs
+     *
+     * @param ids IDs of jobs to load
+     * @return a {@code List} of found jobs, ordered by ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<RegistrationJob> loadRegistrationJobs(final List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Long listId = daoHelper.createTempLongList(ids);
+        final MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue(RegistrationJobParameters.REGISTRATION_JOB_ID.name(), listId);
+        List<RegistrationJob> jobs = getNamedParameterJdbcTemplate().query(loadRegistrationJobsByIdsQuery, params,
+                RegistrationJobParameters.getRowMapper());
+        daoHelper.clearTempList(listId);
+        return jobs;
+    }
+
+    /**
+     * Marks all queued and running jobs as failed, should be called on start up, when none of the jobs can
+     * be running anymore
+     *
+     * @param errorMessage a reason of the failure
+     * @return number of failed jobs
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int failUnfinishedRegistrationJobs(final String errorMessage) {
+        final MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue(RegistrationJobParameters.STATUS.name(), RegistrationJobStatus.FAILED.name());
+        params.addValue(RegistrationJobParameters.ERROR_MESSAGE.name(), errorMessage);
+        params.addValue(RegistrationJobParameters.FINISHED_DATE.name(), new Timestamp(System.currentTimeMillis()));
+        return getNamedParameterJdbcTemplate().update(failUnfinishedRegistrationJobsQuery, params);
+    }
+
+    enum RegistrationJobParameters {
+        REGISTRATION_JOB_ID,
+        FORMAT,
+        PATH,
+        STATUS,
+        BIO_DATA_ITEM_ID,
+        ERROR_MESSAGE,
+        RECORDS_PARSED,
+        CHROMOSOMES_INDEXED,
+        CREATED_BY,
+        CREATED_DATE,
+        STARTED_DATE,
+        FINISHED_DATE;
+
+        static MapSqlParameterSource getParameters(RegistrationJob job) {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+
+            params.addValue(REGISTRATION_JOB_ID.name(), job.getId());
+            params.addValue(FORMAT.name(), job.getFormat().getId());
+            params.addValue(PATH.name(), job.getPath());
+            params.addValue(STATUS.name(), job.getStatus().name());
+            params.addValue(BIO_DATA_ITEM_ID.name(), job.getBioDataItemId());
+            params.addValue(ERROR_MESSAGE.name(), job.getErrorMessage());
+            params.addValue(RECORDS_PARSED.name(), job.getRecordsParsed());
+            params.addValue(CHROMOSOMES_INDEXED.name(), job.getChromosomesIndexed());
+            params.addValue(CREATED_BY.name(), job.getCreatedBy());
+            params.addValue(CREATED_DATE.name(), toTimestamp(job.getCreatedDate()));
+            params.addValue(STARTED_DATE.name(), toTimestamp(job.getStartedDate()));
+            params.addValue(FINISHED_DATE.name(), toTimestamp(job.getFinishedDate()));
+
+            return params;
+        }
+
+        static RowMapper<RegistrationJob> getRowMapper() {
+            return (rs, rowNum) -> {
+                RegistrationJob job = new RegistrationJob();
+
+                job.setId(rs.getLong(REGISTRATION_JOB_ID.name()));
+                job.setFormat(BiologicalDataItemFormat.getById(rs.getLong(FORMAT.name())));
+                job.setPath(rs.getString(PATH.name()));
+                job.setStatus(RegistrationJobStatus.valueOf(rs.getString(STATUS.name())));
+                long bioDataItemId = rs.getLong(BIO_DATA_ITEM_ID.name());
+                job.setBioDataItemId(rs.wasNull() ? null : bioDataItemId);
+                job.setErrorMessage(rs.getString(ERROR_MESSAGE.name()));
+                job.setRecordsParsed(rs.getLong(RECORDS_PARSED.name()));
+                job.setChromosomesIndexed(rs.getLong(CHROMOSOMES_INDEXED.name()));
+                job.setCreatedBy(rs.getLong(CREATED_BY.name()));
+                job.setCreatedDate(getDate(rs, CREATED_DATE));
+                job.setStartedDate(getDate(rs, STARTED_DATE));
+                job.setFinishedDate(getDate(rs, FINISHED_DATE));
+
+                return job;
+            };
+        }
+
+        private static Timestamp toTimestamp(Date date) {
+            return date != null ? new Timestamp(date.getTime()) : null;
+        }
+
+        private static Date getDate(ResultSet rs, RegistrationJobParameters column) throws SQLException {
+            Timestamp timestamp = rs.getTimestamp(column.name());
+            return timestamp != null ? new Date(timestamp.getTime()) : null;
+        }
+    }
+
+    @Required
+    public void setRegistrationJobSequenceName(String registrationJobSequenceName) {
+        this.registrationJobSequenceName = registrationJobSequenceName;
+    }
+
+    @Required
+    public void setInsertRegistrationJobQuery(String insertRegistrationJobQuery) {
+        this.insertRegistrationJobQuery = insertRegistrationJobQuery;
+    }
+
+    @Required
+    public void setUpdateRegistrationJobQuery(String updateRegistrationJobQuery) {
+        this.updateRegistrationJobQuery = updateRegistrationJobQuery;
+    }
+
+    @Required
+    public void setLoadRegistrationJobsByIdsQuery(String loadRegistrationJobsByIdsQuery) {
+        this.loadRegistrationJobsByIdsQuery = loadRegistrationJobsByIdsQuery;
+    }
+
+    @Required
+    public void setFailUnfinishedRegistrationJobsQuery(String failUnfinishedRegistrationJobsQuery) {
+        this.failUnfinishedRegistrationJobsQuery = failUnfinishedRegistrationJobsQuery;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.entity.job;
+
+import java.util.Date;
+
+import com.epam.catgenome.entity.BiologicalDataItem;
+import com.epam.catgenome.entity.BiologicalDataItemFormat;
+
+/**
+ * {@code RegistrationJob} represents a registration of a file or a reference, that runs in the background.
+ * It is persisted, so that a client can poll its status and progress, and, once the job is completed, get
+ * the registered item.
+ */
+public class RegistrationJob {
+
+    private Long id;
+    private BiologicalDataItemFormat format;
+    private String path;
+    private RegistrationJobStatus status;
+    /**
+     * {@code Long} ID of a registered item, set when the job is completed
+     */
+    private Long bioDataItemId;
+    /**
+     * {@code BiologicalDataItem} a registered item, loaded for completed jobs only, isn't persisted
+     */
+    private BiologicalDataItem item;
+    private String errorMessage;
+    /**
+     * {@code long} number of records of a feature file, parsed so far
+     */
+    private long recordsParsed;
+    /**
+     * {@code long} number of chromosomes of a reference or a feature file, processed so far
+     */
+    private long chromosomesIndexed;
+    private Long createdBy;
+    private Date createdDate;
+    private Date startedDate;
+    private Date finishedDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BiologicalDataItemFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(BiologicalDataItemFormat format) {
+        this.format = format;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public RegistrationJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(RegistrationJobStatus status) {
+        this.status = status;
+    }
+
+    public Long getBioDataItemId() {
+        return bioDataItemId;
+    }
+
+    public void setBioDataItemId(Long bioDataItemId) {
+        this.bioDataItemId = bioDataItemId;
+    }
+
+    public BiologicalDataItem getItem() {
+        return item;
+    }
+
+    public void setItem(BiologicalDataItem item) {
+        this.item = item;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public long getRecordsParsed() {
+        return recordsParsed;
+    }
+
+    public void setRecordsParsed(long recordsParsed) {
+        this.recordsParsed = recordsParsed;
+    }
+
+    public long getChromosomesIndexed() {
+        return chromosomesIndexed;
+    }
+
+    public void setChromosomesIndexed(long chromosomesIndexed) {
+        this.chromosomesIndexed = chromosomesIndexed;
+    }
+
+    public Long getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(Long createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public Date getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Date createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Date getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Date startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Date getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Date finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.entity.job;
+
+/**
+ * Describes a state of a {@link RegistrationJob}
+ */
+public enum RegistrationJobStatus {
+    /**
+     * A job waits for a free worker
+     */
+    QUEUED,
+    /**
+     * A file is being registered
+     */
+    RUNNING,
+    /**
+     * A file is registered
+     */
+    COMPLETED,
+    /**
+     * Registration failed, the reason is stated in the job's error message
+     */
+    FAILED,
+    /**
+     * Registration was cancelled by a user
+     */
+    CANCELLED;
+
+    /**
+     * @return true if a job in this state won't change anymore
+     */
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
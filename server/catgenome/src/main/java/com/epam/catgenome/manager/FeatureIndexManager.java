@@ -26,7 +26,6 @@ package com.epam.catgenome.manager;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,13 +33,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import com.epam.catgenome.manager.bed.BedManager;
 import htsjdk.variant.vcf.VCFHeaderLineCount;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.util.MathUtils;
 import org.slf4j.Logger;
@@ -68,7 +74,6 @@ import com.epam.catgenome.entity.index.VcfIndexEntry;
 import com.epam.catgenome.entity.project.Project;
 import com.epam.catgenome.entity.reference.Chromosome;
 import com.epam.catgenome.entity.reference.Reference;
-import com.epam.catgenome.entity.track.Track;
 import com.epam.catgenome.entity.vcf.InfoItem;
 import com.epam.catgenome.entity.vcf.OrganismType;
 import com.epam.catgenome.entity.vcf.Variation;
@@ -79,27 +84,30 @@ import com.epam.catgenome.entity.vcf.VcfFilterInfo;
 import com.epam.catgenome.exception.FeatureIndexException;
 import com.epam.catgenome.exception.GeneReadingException;
 import com.epam.catgenome.manager.gene.GeneFileManager;
+import com.epam.catgenome.manager.gene.GeneOverlapScanner;
 import com.epam.catgenome.manager.gene.GeneUtils;
 import com.epam.catgenome.manager.gene.GffManager;
 import com.epam.catgenome.manager.gene.parser.GeneFeature;
-import com.epam.catgenome.manager.gene.reader.AbstractGeneReader;
+import com.epam.catgenome.manager.job.RegistrationProgress;
+import com.epam.catgenome.manager.parallel.ParallelTaskExecutionUtils;
+import com.epam.catgenome.manager.parallel.TaskExecutorService;
 import com.epam.catgenome.manager.project.ProjectManager;
 import com.epam.catgenome.manager.reference.BookmarkManager;
 import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.manager.vcf.VcfFileManager;
 import com.epam.catgenome.manager.vcf.VcfManager;
 import com.epam.catgenome.manager.vcf.reader.VcfFileReader;
-import com.epam.catgenome.util.NggbIntervalTreeMap;
+import com.epam.catgenome.util.IntervalIndex;
 import com.epam.catgenome.util.Utils;
 import com.epam.catgenome.entity.bed.BedFile;
 import htsjdk.tribble.bed.BEDFeature;
 import htsjdk.samtools.util.CloseableIterator;
-import htsjdk.samtools.util.Interval;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.Feature;
 import htsjdk.tribble.FeatureReader;
 import htsjdk.tribble.readers.LineIterator;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFCompoundHeaderLine;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLineType;
@@ -119,7 +127,8 @@ import htsjdk.variant.vcf.VCFHeaderLineType;
 public class FeatureIndexManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(FeatureIndexManager.class);
     private static final String VCF_FILE_IDS_FIELD = "vcfFileIds";
-
+    private static final int DEFAULT_VCF_INDEX_BATCH_SIZE = 10000;
+    private static final int DEFAULT_VCF_INDEX_SEGMENT_SIZE = 10000000;
     @Autowired
     private FileManager fileManager;
 
@@ -150,9 +159,21 @@ public class FeatureIndexManager {
     @Autowired
     private BookmarkManager bookmarkManager;
 
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+
     @Value("#{catgenome['search.features.max.results'] ?: 100}")
     private Integer maxFeatureSearchResultsCount;
 
+    @Value("#{catgenome['vcf.index.threads'] ?: 0}")
+    private int vcfIndexThreadCount;
+
+    @Value("#{catgenome['vcf.index.batch.size'] ?: " + DEFAULT_VCF_INDEX_BATCH_SIZE + "}")
+    private int vcfIndexBatchSize;
+
+    @Value("#{catgenome['vcf.index.segment.size'] ?: " + DEFAULT_VCF_INDEX_SEGMENT_SIZE + "}")
+    private int vcfIndexSegmentSize;
+
     /**
      * Deletes features from specified feature files from project's index
      *
@@ -453,17 +474,18 @@ public class FeatureIndexManager {
     /**
      * Fetch gene IDs of genes, affected by variation. The variation is specified by it's start and end indexes
      *
-     * @param intervalMap represents a batch loaded genes form gene file
+     * @param geneScanner a scanner over a gene file, positioned along with the variations
      * @param start a start index of the variation
      * @param end an end index of the variation
-     * @param chromosome a {@code Chromosome}
      * @return a {@code Set} of IDs of genes, affected by the variation
+     * @throws GeneReadingException if an exception was thrown when reading genes information
      */
-    private Set<VariationGeneInfo> fetchGeneIdsFromBatch(NggbIntervalTreeMap<List<Gene>> intervalMap,
-            int start, int end, Chromosome chromosome) {
-        Set<VariationGeneInfo> geneIds = getGeneIds(intervalMap, chromosome, start, start);
+    private Set<VariationGeneInfo> fetchVariationGenes(GeneOverlapScanner geneScanner, int start, int end)
+        throws GeneReadingException {
+        geneScanner.moveTo(start);
+        Set<VariationGeneInfo> geneIds = getGeneIds(geneScanner.getOverlapping(start));
         if (end > start) {
-            geneIds.addAll(getGeneIds(intervalMap, chromosome, end, end));
+            geneIds.addAll(getGeneIds(geneScanner.getOverlapping(end)));
         }
 
         return geneIds;
@@ -471,7 +493,7 @@ public class FeatureIndexManager {
 
     /**
      * Post processes fetched VCF index entries to add gene information and split them to resolve ambiguous fields
-     * @param entries list of entries to process
+     * @param entries list of entries to process, sorted by start index
      * @param geneFiles list of {@link GeneFile}s to fetch gene information from
      * @param chromosome a {@code Chromosome}, from which entries came
      * @param vcfHeader a header of VCF file
@@ -482,29 +504,31 @@ public class FeatureIndexManager {
     public List<VcfIndexEntry> postProcessIndexEntries(List<VcfIndexEntry> entries, List<GeneFile> geneFiles,
                                                     Chromosome chromosome, VCFHeader vcfHeader, VcfFileReader vcfReader)
         throws GeneReadingException {
-        List<VcfIndexEntry> processedEntries = new ArrayList<>();
-        int start = chromosome.getSize();
-        int end = 0;
-        for (FeatureIndexEntry entry : entries) {
-            start = Math.min(start, entry.getStartIndex());
-            end = Math.max(end, entry.getEndIndex());
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        Map<GeneFile, NggbIntervalTreeMap<List<Gene>>> intervalMapCache = new HashMap<>();
+        List<GeneOverlapScanner> geneScanners = openGeneScanners(geneFiles, chromosome,
+                                                                 entries.get(0).getStartIndex());
+        try {
+            return postProcessIndexEntries(entries, geneScanners, vcfHeader, vcfReader);
+        } finally {
+            geneScanners.forEach(GeneOverlapScanner::close);
+        }
+    }
+
+    private List<VcfIndexEntry> postProcessIndexEntries(List<VcfIndexEntry> entries,
+                                                        List<GeneOverlapScanner> geneScanners, VCFHeader vcfHeader,
+                                                        VcfFileReader vcfReader) throws GeneReadingException {
+        List<VcfIndexEntry> processedEntries = new ArrayList<>();
 
         for (VcfIndexEntry indexEntry : entries) {
             String geneIdsString = null;
             String geneNamesString = null;
             Set<VariationGeneInfo> geneIds = Collections.emptySet();
 
-            for (GeneFile geneFile : geneFiles) {
-                if (!intervalMapCache.containsKey(geneFile)) {
-                    intervalMapCache.put(geneFile, loadGenesIntervalMap(geneFile, start, end, chromosome));
-                }
-                NggbIntervalTreeMap<List<Gene>> intervalMap = intervalMapCache.get(geneFile);
-
-                geneIds = fetchGeneIdsFromBatch(intervalMap, indexEntry.getStartIndex(), indexEntry.getEndIndex(),
-                                                chromosome);
+            for (GeneOverlapScanner geneScanner : geneScanners) {
+                geneIds = fetchVariationGenes(geneScanner, indexEntry.getStartIndex(), indexEntry.getEndIndex());
                 geneIdsString = geneIds.stream().map(i -> i.geneId).collect(Collectors.joining(", "));
                 geneNamesString = geneIds.stream().map(i -> i.geneName).collect(Collectors.joining(", "));
                 indexEntry.setExon(geneIds.stream().anyMatch(i -> i.isExon));
@@ -530,6 +554,25 @@ public class FeatureIndexManager {
         return processedEntries;
     }
 
+    /**
+     * Opens scanners, that look for genes, overlapping variations of a chromosome, in specified gene files.
+     * Scanners should be closed after use.
+     */
+    private List<GeneOverlapScanner> openGeneScanners(List<GeneFile> geneFiles, Chromosome chromosome, int start)
+        throws GeneReadingException {
+        List<GeneOverlapScanner> geneScanners = new ArrayList<>(geneFiles.size());
+        try {
+            for (GeneFile geneFile : geneFiles) {
+                geneScanners.add(new GeneOverlapScanner(fileManager, geneFile, chromosome, start));
+            }
+        } catch (GeneReadingException e) {
+            geneScanners.forEach(GeneOverlapScanner::close);
+            throw e;
+        }
+
+        return geneScanners;
+    }
+
     public void buildIndexForFile(FeatureFile featureFile) throws FeatureIndexException, IOException {
         if (!fileManager.indexForFeatureFileExists(featureFile)) {
             switch (featureFile.getFormat()) {
@@ -549,54 +592,19 @@ public class FeatureIndexManager {
         }
     }
 
-    private NggbIntervalTreeMap<List<Gene>> loadGenesIntervalMap(GeneFile geneFile, int start, int end,
-            Chromosome chromosome) {
-        final NggbIntervalTreeMap<List<Gene>> genesRangeMap = new NggbIntervalTreeMap<>();
-        try {
-            IndexSearchResult<FeatureIndexEntry> searchResult = featureIndexDao.searchFeaturesInInterval(
-                Collections.singletonList(geneFile), start, end, chromosome);
-            searchResult.getEntries().stream().filter(f -> f.getFeatureType() == FeatureType.EXON
-                    || f.getFeatureType() == FeatureType.GENE).map(f -> {
-                        Gene gene = new Gene();
-                        gene.setFeature(f.getFeatureType().name());
-                        gene.setStartIndex(f.getStartIndex());
-                        gene.setEndIndex(f.getEndIndex());
-                        gene.setGroupId(f.getFeatureId());
-                        gene.setFeatureName(f.getFeatureName().toUpperCase());
-                        return gene;
-                    }).forEach(g -> {
-                        Interval interval = new Interval(chromosome.getName(), g.getStartIndex(), g.getEndIndex());
-                        genesRangeMap.putIfAbsent(interval, new ArrayList<>());
-                        genesRangeMap.get(interval).add(g);
-                    });
-        } catch (IOException e) {
-            LOGGER.error(e.getMessage(), e);
-        }
-        genesRangeMap.setMaxEndIndex(start);
-        genesRangeMap.setMinStartIndex(end);
-        return genesRangeMap;
-    }
-
-    private Set<VariationGeneInfo> getGeneIds(NggbIntervalTreeMap<List<Gene>> intervalMap,
-            Chromosome chromosome, int start, int end) {
-        Collection<Gene> genes = intervalMap.getOverlapping(new Interval(chromosome.getName(), start, end))
-                .stream()
-                .flatMap(l -> l.stream())
-                .collect(Collectors.toList());
-        Set<VariationGeneInfo> geneIds = new HashSet<>();
-        if (genes != null) {
-            boolean isExon = genes.stream().anyMatch(GeneUtils::isExon);
-            geneIds = genes.stream()
-                .filter(GeneUtils::isGene)
-                .map(g -> new VariationGeneInfo(g.getGroupId(), g.getFeatureName(), isExon))
-                .collect(Collectors.toSet());
-        }
-
-        return geneIds;
+    private Set<VariationGeneInfo> getGeneIds(List<GeneFeature> features) {
+        boolean isExon = features.stream().anyMatch(GeneUtils::isExon);
+        return features.stream()
+            .filter(GeneUtils::isGene)
+            .map(f -> new VariationGeneInfo(f.getFeatureId(),
+                                            f.getFeatureName() != null ? f.getFeatureName().toUpperCase() : "",
+                                            isExon))
+            .collect(Collectors.toSet());
     }
 
     /**
-     * Fetch gene IDs of genes, affected by variation. The variation is specified by it's start and end indexes
+     * Fetch gene IDs of genes, affected by variation. The variation is specified by it's start and end indexes.
+     * A gene is affected, if it overlaps variation's start or end position
      *
      * @param start a start index of the variation
      * @param end an end index of the variation
@@ -611,29 +619,16 @@ public class FeatureIndexManager {
 
         for (GeneFile geneFile : geneFiles) {
             List<Gene> genes = new ArrayList<>();
-            Track<Gene> track = new Track<>();
-            track.setStartIndex(start);
-            track.setEndIndex(end);
-            track.setId(geneFile.getId());
-            track.setChromosome(chromosome);
-            track.setScaleFactor(AbstractGeneReader.LARGE_SCALE_FACTOR_LIMIT);
-
-            if (end > start) {
-                track.setStartIndex(start);
-                track.setEndIndex(start);
-                track = gffManager.loadGenes(track, geneFile, chromosome, false);
-                genes.addAll(track.getBlocks());
-
-                track.setStartIndex(end);
-                track.setEndIndex(end);
-                track = gffManager.loadGenes(track, geneFile, chromosome, false);
-                genes.addAll(track.getBlocks());
-
+            if (end > start && end - start <= ParallelTaskExecutionUtils.MAX_BLOCK_SIZE) {
+                IntervalIndex<Gene> genesIndex = gffManager.loadGenesIntervalMap(geneFile, start, end, chromosome);
+                genes.addAll(genesIndex.query(start, start));
+                genes.addAll(genesIndex.query(end, end));
             } else {
-                track.setStartIndex(start);
-                track.setEndIndex(end);
-                track = gffManager.loadGenes(track, geneFile, chromosome, false);
-                genes = track.getBlocks();
+                // don't read the whole body of a long variation, only it's borders matter
+                genes.addAll(gffManager.loadGenesIntervalMap(geneFile, start, start, chromosome).query(start, start));
+                if (end > start) {
+                    genes.addAll(gffManager.loadGenesIntervalMap(geneFile, end, end, chromosome).query(end, end));
+                }
             }
 
             geneIds.addAll(genes.stream()
@@ -660,8 +655,10 @@ public class FeatureIndexManager {
                                       Map<String, Chromosome> chromosomeMap) throws IOException {
         CloseableIterator<BEDFeature> iterator = reader.iterator();
         List<FeatureIndexEntry> allEntries = new ArrayList<>();
+        RegistrationProgress progress = RegistrationProgress.current();
         while (iterator.hasNext()) {
             BEDFeature next = iterator.next();
+            progress.recordParsed();
             FeatureIndexEntry entry = new FeatureIndexEntry();
             entry.setFeatureFileId(bedFile.getId());
             entry.setChromosome(Utils.getFromChromosomeMap(chromosomeMap, next.getContig()));
@@ -697,9 +694,11 @@ public class FeatureIndexManager {
             VariantContext variantContext = null;
             VcfFileReader vcfFileReader = new VcfFileReader(fileManager, referenceGenomeManager);
             List<VcfIndexEntry> allEntries = new ArrayList<>();
+            RegistrationProgress progress = RegistrationProgress.current();
 
             while (iterator.hasNext()) {
                 variantContext = iterator.next();
+                progress.recordParsed();
 
                 if (!variantContext.getContig().equals(currentKey)) {
                     putVariationsInIndex(allEntries, currentKey, vcfFile, geneFiles, chromosomeMap, vcfFileReader,
@@ -720,6 +719,7 @@ public class FeatureIndexManager {
                 LOGGER.info(MessageHelper.getMessage(MessagesConstants.INFO_FEATURE_INDEX_CHROMOSOME_WROTE,
                                                      currentKey));
                 allEntries.clear();
+                progress.addChromosomesIndexed(1);
             }
         } catch (IOException | GeneReadingException e) {
             throw new FeatureIndexException(vcfFile, e);
@@ -737,9 +737,214 @@ public class FeatureIndexManager {
             LOGGER.info(MessageHelper.getMessage(MessagesConstants
                                                      .INFO_FEATURE_INDEX_CHROMOSOME_WROTE, currentKey));
             allEntries.clear();
+            RegistrationProgress.current().addChromosomesIndexed(1);
+        }
+    }
+
+    /**
+     * Creates a VCF file feature index, reading the file in parallel. Chromosomes are split into segments, that are
+     * queried through the file's index by a bounded number of tasks of the shared task executor. Variations are
+     * annotated with genes and written to the index in batches, so memory consumption doesn't depend on the size of
+     * a chromosome.
+     * @param vcfFile a VCF file to create index, should have an index, available on the file system
+     * @param geneFiles a {@code List} of {@code GeneFile} to look for genes
+     * @param chromosomeMap a Map of {@link Chromosome}s to chromosome names
+     * @param info VCF file's info data
+     * @return a Map of start indexes of the first and the last variation of each chromosome, present in the file
+     * @throws FeatureIndexException if an error occurred while building an index
+     */
+    public Map<String, Pair<Integer, Integer>> makeIndexForIndexedVcf(VcfFile vcfFile, List<GeneFile> geneFiles,
+                                                                     Map<String, Chromosome> chromosomeMap,
+                                                                     VcfFilterInfo info)
+        throws FeatureIndexException {
+        Queue<VcfIndexSegment> segments;
+        try (FeatureReader<VariantContext> reader = openIndexedVcfReader(vcfFile)) {
+            segments = splitToSegments(reader.getSequenceNames(), chromosomeMap);
+        } catch (IOException e) {
+            throw new FeatureIndexException(vcfFile, e);
+        }
+
+        int threadCount = Math.max(1, Math.min(getVcfIndexThreadCount(), segments.size()));
+        List<Future<Map<String, Pair<Integer, Integer>>>> workers = Collections.emptyList();
+        FeatureIndexDao.FileIndexWriter writer = null;
+        boolean committed = false;
+        RegistrationProgress progress = RegistrationProgress.current();
+
+        try {
+            writer = featureIndexDao.openIndexWriter(vcfFile);
+            // Lucene's index writer is thread safe, so tasks write their batches directly
+            final FeatureIndexDao.FileIndexWriter indexWriter = writer;
+            List<Callable<Map<String, Pair<Integer, Integer>>>> tasks = new ArrayList<>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                tasks.add(() -> indexVcfSegments(vcfFile, segments, geneFiles, chromosomeMap, info, indexWriter,
+                                                 progress));
+            }
+            workers = taskExecutorService.executeAll(tasks);
+
+            Map<String, Pair<Integer, Integer>> bounds = new HashMap<>();
+            for (Future<Map<String, Pair<Integer, Integer>>> worker : workers) {
+                worker.get().forEach((chr, b) -> bounds.merge(chr, b, FeatureIndexManager::mergeBounds));
+            }
+            progress.addChromosomesIndexed(bounds.size());
+
+            writer.close();
+            committed = true;
+            LOGGER.info("Wrote feature index for file {}:{} in {} tasks", vcfFile.getId(), vcfFile.getName(),
+                        threadCount);
+            return bounds;
+        } catch (IOException e) {
+            throw new FeatureIndexException(vcfFile, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FeatureIndexException(vcfFile, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new FeatureIndexException(vcfFile, e.getCause());
+        } finally {
+            if (!committed) {
+                // the other tasks stop after their current segments and have to finish before the rollback
+                segments.clear();
+                awaitWorkers(workers);
+                if (writer != null) {
+                    writer.rollback();
+                }
+            }
+        }
+    }
+
+    private Map<String, Pair<Integer, Integer>> indexVcfSegments(VcfFile vcfFile, Queue<VcfIndexSegment> segments,
+                                                                List<GeneFile> geneFiles,
+                                                                Map<String, Chromosome> chromosomeMap,
+                                                                VcfFilterInfo info,
+                                                                FeatureIndexDao.FileIndexWriter writer,
+                                                                RegistrationProgress progress)
+        throws IOException, GeneReadingException {
+        Map<String, Pair<Integer, Integer>> bounds = new HashMap<>();
+        VcfFileReader vcfFileReader = new VcfFileReader(fileManager, referenceGenomeManager);
+
+        try (FeatureReader<VariantContext> reader = openIndexedVcfReader(vcfFile)) {
+            VCFHeader vcfHeader = (VCFHeader) reader.getHeader();
+            VcfIndexSegment segment = segments.poll();
+            while (segment != null) {
+                Pair<Integer, Integer> segmentBounds = indexVcfSegment(vcfFile, reader, segment, geneFiles,
+                                                                       chromosomeMap, info, vcfHeader, vcfFileReader,
+                                                                       writer, progress);
+                if (segmentBounds != null) {
+                    bounds.merge(segment.contig, segmentBounds, FeatureIndexManager::mergeBounds);
+                }
+
+                segment = segments.poll();
+            }
+        }
+
+        return bounds;
+    }
+
+    private Pair<Integer, Integer> indexVcfSegment(VcfFile vcfFile, FeatureReader<VariantContext> reader,
+                                                   VcfIndexSegment segment, List<GeneFile> geneFiles,
+                                                   Map<String, Chromosome> chromosomeMap, VcfFilterInfo info,
+                                                   VCFHeader vcfHeader, VcfFileReader vcfFileReader,
+                                                   FeatureIndexDao.FileIndexWriter writer,
+                                                   RegistrationProgress progress)
+        throws IOException, GeneReadingException {
+        List<VcfIndexEntry> entries = new ArrayList<>();
+        List<GeneOverlapScanner> geneScanners = null;
+        Integer firstStart = null;
+        int lastStart = 0;
+        VariantContext lastContext = null;
+
+        try (CloseableIterator<VariantContext> iterator = reader.query(segment.contig, segment.start, segment.end)) {
+            while (iterator.hasNext()) {
+                VariantContext variantContext = iterator.next();
+                // an index of the file doesn't guarantee, that the file is sorted
+                if (lastContext != null) {
+                    Utils.checkSorted(variantContext, lastContext, vcfFile);
+                }
+                lastContext = variantContext;
+                if (variantContext.getStart() < segment.start) { // already indexed with the previous segment
+                    continue;
+                }
+                progress.recordParsed();
+
+                if (firstStart == null) {
+                    firstStart = variantContext.getStart();
+                    geneScanners = openGeneScanners(geneFiles, segment.chromosome, firstStart);
+                }
+                lastStart = variantContext.getStart();
+
+                addVariationToIndex(entries, variantContext, chromosomeMap, info, vcfHeader, vcfFileReader);
+                if (entries.size() >= vcfIndexBatchSize) {
+                    writer.addEntries(postProcessIndexEntries(entries, geneScanners, vcfHeader, vcfFileReader));
+                    entries = new ArrayList<>();
+                }
+            }
+
+            if (!entries.isEmpty()) {
+                writer.addEntries(postProcessIndexEntries(entries, geneScanners, vcfHeader, vcfFileReader));
+            }
+        } finally {
+            if (geneScanners != null) {
+                geneScanners.forEach(GeneOverlapScanner::close);
+            }
+        }
+
+        LOGGER.debug("Indexed segment {}:{}-{}", segment.contig, segment.start, segment.end);
+        return firstStart == null ? null : new ImmutablePair<>(firstStart, lastStart);
+    }
+
+    private Queue<VcfIndexSegment> splitToSegments(List<String> contigs, Map<String, Chromosome> chromosomeMap) {
+        Queue<VcfIndexSegment> segments = new ConcurrentLinkedQueue<>();
+        for (String contig : contigs) {
+            if (!Utils.chromosomeMapContains(chromosomeMap, contig)) {
+                continue;
+            }
+
+            Chromosome chromosome = Utils.getFromChromosomeMap(chromosomeMap, contig);
+            int start = 1;
+            while (start + vcfIndexSegmentSize <= chromosome.getSize()) {
+                segments.add(new VcfIndexSegment(contig, chromosome, start, start + vcfIndexSegmentSize - 1));
+                start += vcfIndexSegmentSize;
+            }
+
+            // the last segment also takes variations, that are located beyond the chromosome's end
+            segments.add(new VcfIndexSegment(contig, chromosome, start, Integer.MAX_VALUE));
+        }
+
+        return segments;
+    }
+
+    private FeatureReader<VariantContext> openIndexedVcfReader(VcfFile vcfFile) {
+        return AbstractFeatureReader.getFeatureReader(vcfFile.getPath(), vcfFile.getIndex().getPath(),
+                                                      new VCFCodec(), true);
+    }
+
+    private int getVcfIndexThreadCount() {
+        return vcfIndexThreadCount > 0 ? vcfIndexThreadCount : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Waits for tasks to finish, ignoring their results
+     */
+    private static <T> void awaitWorkers(List<Future<T>> workers) {
+        for (Future<T> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException | CancellationException e) {
+                LOGGER.debug("Indexing task failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 
+    private static Pair<Integer, Integer> mergeBounds(Pair<Integer, Integer> first, Pair<Integer, Integer> second) {
+        return new ImmutablePair<>(Math.min(first.getLeft(), second.getLeft()),
+                                   Math.max(first.getRight(), second.getRight()));
+    }
+
     /**
      * Creates Gene file's feature index
      * @param geneFile a {@link GeneFile} to create index
@@ -776,9 +981,11 @@ public class FeatureIndexManager {
             CloseableIterator<GeneFeature> iterator = usualReader.iterator();
             GeneFeature feature = null;
             String currentKey = null;
+            RegistrationProgress progress = RegistrationProgress.current();
 
             while (iterator.hasNext()) {
                 feature = iterator.next();
+                progress.recordParsed();
                 currentKey = checkNextChromosome(feature, currentKey, chromosomeMap, allEntries, geneFile);
 
                 if (GeneUtils.isGene(feature) || GeneUtils.isTranscript(feature) || GeneUtils.isExon(feature)) {
@@ -800,9 +1007,11 @@ public class FeatureIndexManager {
                                                 boolean transcriptIterator) throws IOException {
         GeneFeature feature = null;
         String currentKey = null;
+        RegistrationProgress progress = RegistrationProgress.current();
 
         while (iterator.hasNext()) {
             feature = iterator.next();
+            progress.recordParsed();
             currentKey = checkNextChromosome(feature, currentKey, chromosomeMap, allEntries, geneFile);
 
             if (transcriptIterator || GeneUtils.isGene(feature) || GeneUtils.isExon(feature)) {
@@ -829,6 +1038,7 @@ public class FeatureIndexManager {
                 LOGGER.info(MessageHelper.getMessage(
                     MessagesConstants.INFO_FEATURE_INDEX_CHROMOSOME_WROTE, currentChromosomeName));
                 allEntries.clear();
+                RegistrationProgress.current().addChromosomesIndexed(1);
             }
 
             return feature.getContig();
@@ -1101,6 +1311,20 @@ public class FeatureIndexManager {
         }
     }
 
+    private static final class VcfIndexSegment {
+        private final String contig;
+        private final Chromosome chromosome;
+        private final int start;
+        private final int end;
+
+        VcfIndexSegment(String contig, Chromosome chromosome, int start, int end) {
+            this.contig = contig;
+            this.chromosome = chromosome;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
     private static class VariationGeneInfo {
         private String geneId;
         private String geneName;
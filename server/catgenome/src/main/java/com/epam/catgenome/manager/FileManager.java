@@ -28,6 +28,8 @@ import static com.epam.catgenome.component.MessageHelper.getMessage;
 import static com.epam.catgenome.manager.FileManager.FilePathFormat.*;
 import static com.epam.catgenome.manager.FileManager.FilePathPlaceholder.*;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -44,26 +46,35 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import com.epam.catgenome.component.MessageCode;
+import com.epam.catgenome.constant.Constants;
 import com.epam.catgenome.constant.MessagesConstants;
 import com.epam.catgenome.controller.JsonMapper;
+import com.epam.catgenome.dao.index.FeatureIndexReaderCache;
+import com.epam.catgenome.dao.index.IndexDirectoryType;
 import com.epam.catgenome.entity.BiologicalDataItem;
 import com.epam.catgenome.entity.BiologicalDataItemFormat;
 import com.epam.catgenome.entity.BiologicalDataItemResourceType;
 import com.epam.catgenome.entity.FeatureFile;
+import com.epam.catgenome.entity.bam.BamFile;
 import com.epam.catgenome.entity.bed.BedFile;
 import com.epam.catgenome.entity.file.FsDirectory;
 import com.epam.catgenome.entity.file.FsFile;
@@ -87,15 +98,25 @@ import com.epam.catgenome.manager.gene.parser.GffCodec;
 import com.epam.catgenome.manager.gene.parser.GtfFeature;
 import com.epam.catgenome.manager.maf.parser.MafCodec;
 import com.epam.catgenome.manager.maf.parser.MafFeature;
+import com.epam.catgenome.manager.reference.io.BlockOffsetIndex;
+import com.epam.catgenome.manager.reference.io.FastaSequenceFile;
 import com.epam.catgenome.manager.reference.io.FastaUtils;
+import com.epam.catgenome.manager.reference.io.NibBlockReader;
+import com.epam.catgenome.manager.reference.io.NibFileCache;
+import com.epam.catgenome.manager.vcf.reader.ProjectingVcfReader;
 import com.epam.catgenome.manager.seg.parser.SegCodec;
 import com.epam.catgenome.manager.seg.parser.SegFeature;
 import com.epam.catgenome.util.AuthUtils;
 import com.epam.catgenome.util.BlockCompressedDataInputStream;
 import com.epam.catgenome.util.BlockCompressedDataOutputStream;
+import com.epam.catgenome.util.FeaturePositionIndex;
+import com.epam.catgenome.util.FeaturePositionIndexCache;
+import com.epam.catgenome.util.FeatureSummary;
+import com.epam.catgenome.util.HistogramFile;
 import com.epam.catgenome.util.IndexUtils;
 import com.epam.catgenome.util.NgbFileUtils;
 import com.epam.catgenome.util.PositionalOutputStream;
+import com.epam.catgenome.util.ReaderPool;
 import com.epam.catgenome.util.Utils;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.type.TypeFactory;
@@ -113,15 +134,16 @@ import htsjdk.tribble.index.tabix.TabixIndex;
 import htsjdk.tribble.index.tabix.TabixIndexCreator;
 import htsjdk.tribble.readers.LineIterator;
 import htsjdk.tribble.util.LittleEndianOutputStream;
+import htsjdk.tribble.util.TabixUtils;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFCodec;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.text.StrSubstitutor;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.lucene.store.SimpleFSDirectory;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.bio.CompressionType;
 import org.jetbrains.bio.big.BigWigFile;
@@ -157,6 +179,21 @@ public class FileManager {
     private static final TabixFormat BIGMAF_TABIX_FORMAT = new TabixFormat(TabixFormat.UCSC_FLAGS, 6, 7, 8, '#', 0);
     private static final String JSON_FILE_EXTENSION = ".json";
     private static final String EMPTY = "";
+    private static final int DEFAULT_INDEX_READER_CACHE_SIZE = 100;
+    private static final int DEFAULT_REFERENCE_INDEX_CACHE_SIZE = 1000;
+    private static final int DEFAULT_REFERENCE_STREAM_POOL_SIZE = 64;
+    private static final int DEFAULT_REFERENCE_BLOCK_CACHE_SIZE = 64;
+    private static final int DEFAULT_FASTA_FILE_CACHE_SIZE = 16;
+    private static final long BYTES_IN_MEGABYTE = 1024 * 1024;
+    private static final int DEFAULT_POSITION_INDEX_CACHE_SIZE = 64;
+    private static final int DEFAULT_VCF_READER_POOL_SIZE = 64;
+    private static final int DEFAULT_VCF_READER_IDLE_TIMEOUT = 300;
+    private static final long VCF_READER_MAX_LIFETIME = TimeUnit.HOURS.toMillis(1);
+    private static final int DEFAULT_GENE_READER_POOL_SIZE = 64;
+    private static final int DEFAULT_GENE_READER_IDLE_TIMEOUT = 300;
+    private static final long GENE_READER_MAX_LIFETIME = TimeUnit.HOURS.toMillis(1);
+    private static final String KEY_SEPARATOR = "|";
+    private static final String ALL_SAMPLES_POSITION_INDEX = "all";
 
     /**
      * Provides paths' patterns that have to be used to construct real relative paths
@@ -194,6 +231,8 @@ public class FileManager {
         VCF_ROOT_DIR("/${USER_ID}/VCF"),
         VCF_HISTOGRAM_DIR("/${USER_ID}/VCF/${DIR_ID}/histogram"),
         VCF_HISTOGRAM_FILE("/${USER_ID}/VCF/${DIR_ID}/histogram/${CHROMOSOME_NAME}.hg"),
+        VCF_POSITION_INDEX_FILE("/${USER_ID}/VCF/${DIR_ID}/positions/${CHROMOSOME_NAME}.${SAMPLE_NAME}.pos"),
+        VCF_SUMMARY_FILE("/${USER_ID}/VCF/${DIR_ID}/summary/${CHROMOSOME_NAME}.${SAMPLE_NAME}.sum"),
 
         GENE_DIR("/${USER_ID}/genes/${DIR_ID}"),
         GENE_FILE("/${USER_ID}/genes/${DIR_ID}/genes${GENE_EXTENSION}"),
@@ -206,14 +245,18 @@ public class FileManager {
         GENE_FEATURE_INDEX_FILE("/${USER_ID}/genes/${DIR_ID}/genes.feature"),
         GENE_HISTOGRAM_DIR("/${USER_ID}/genes/${DIR_ID}/histogram"),
         GENE_HISTOGRAM_FILE("/${USER_ID}/genes/${DIR_ID}/histogram/${CHROMOSOME_NAME}.hg"),
+        GENE_POSITION_INDEX_FILE("/${USER_ID}/genes/${DIR_ID}/positions/${CHROMOSOME_NAME}.pos"),
 
         BAM_DIR("/${USER_ID}/BAM/${DIR_ID}"),
         BAM_FILE("/${USER_ID}/BAM/${DIR_ID}/${FILE_NAME}"),
+        BAM_COVERAGE_DIR("/${USER_ID}/BAM/${DIR_ID}/coverage"),
+        BAM_COVERAGE_FILE("/${USER_ID}/BAM/${DIR_ID}/coverage/${CHROMOSOME_NAME}.cov"),
 
         BED_DIR("/${USER_ID}/bed/${DIR_ID}"),
         BED_INDEX("/${USER_ID}/bed/${DIR_ID}/bed.tbi"),
         BED_HISTOGRAM_DIR("/${USER_ID}/bed/${DIR_ID}/histogram"),
         BED_HISTOGRAM_FILE("/${USER_ID}/bed/${DIR_ID}/histogram/${CHROMOSOME_NAME}.hg"),
+        BED_SUMMARY_FILE("/${USER_ID}/bed/${DIR_ID}/summary/${CHROMOSOME_NAME}.sum"),
 
         SEG_DIR("/${USER_ID}/seg/${DIR_ID}"),
         SEG_INDEX("/${USER_ID}/seg/${DIR_ID}/seg.tbi"),
@@ -230,6 +273,7 @@ public class FileManager {
 
         WIG_DIR("/${USER_ID}/wig/${DIR_ID}/downsampled"),
         WIG_FILE("/${USER_ID}/wig/${DIR_ID}/downsampled/${CHROMOSOME_NAME}.wig"),
+        WIG_LEVEL_FILE("/${USER_ID}/wig/${DIR_ID}/downsampled/${CHROMOSOME_NAME}.${WINDOW_SIZE}.wig"),
 
         VG_DIR("/${USER_ID}/vg/${DIR_ID}"),
 
@@ -290,6 +334,91 @@ public class FileManager {
     @Value("${config.path:}")
     private String defaultTrackSettingsDirPath;
 
+    /**
+     * {@code int} specifies how many feature files' Lucene indexes are kept open between searches
+     */
+    @Value("#{catgenome['feature.index.reader.cache.size'] ?: " + DEFAULT_INDEX_READER_CACHE_SIZE + "}")
+    private int indexReaderCacheSize;
+
+    /**
+     * {@code String} specifies Lucene {@code Directory} implementation used for feature indexes:
+     * auto, mmap, nio or simple. See {@link IndexDirectoryType}
+     */
+    @Value("#{catgenome['feature.index.directory.type'] ?: 'auto'}")
+    private String indexDirectoryTypeName;
+
+    /**
+     * {@code int} specifies how many indexes of reference and GC content files are kept in memory
+     */
+    @Value("#{catgenome['reference.index.cache.size'] ?: " + DEFAULT_REFERENCE_INDEX_CACHE_SIZE + "}")
+    private int referenceIndexCacheSize;
+
+    /**
+     * {@code int} specifies how many reference and GC content files are kept open between track requests
+     */
+    @Value("#{catgenome['reference.stream.pool.size'] ?: " + DEFAULT_REFERENCE_STREAM_POOL_SIZE + "}")
+    private int referenceStreamPoolSize;
+
+    /**
+     * {@code int} specifies how many megabytes of decompressed reference and GC content blocks are kept in memory
+     */
+    @Value("#{catgenome['reference.block.cache.size'] ?: " + DEFAULT_REFERENCE_BLOCK_CACHE_SIZE + "}")
+    private int referenceBlockCacheSize;
+
+    /**
+     * {@code int} specifies how many FASTA reference files are kept open between track requests
+     */
+    @Value("#{catgenome['reference.fasta.cache.size'] ?: " + DEFAULT_FASTA_FILE_CACHE_SIZE + "}")
+    private int fastaFileCacheSize;
+
+    /**
+     * {@code int} specifies how many megabytes of feature position indexes, used for next/previous feature
+     * navigation, are kept in memory
+     */
+    @Value("#{catgenome['feature.position.index.cache.size'] ?: " + DEFAULT_POSITION_INDEX_CACHE_SIZE + "}")
+    private int positionIndexCacheSize;
+
+    /**
+     * {@code String} comma separated bin sizes in bps of levels of feature summaries, that are built for BED and VCF
+     * files to load zoomed out tracks without reading all features, empty value disables summaries
+     */
+    @Value("#{catgenome['feature.summary.levels'] ?: '10000,100000,1000000'}")
+    private String featureSummaryLevelsValue;
+
+    /**
+     * {@code int} specifies how many VCF readers are kept open between track requests
+     */
+    @Value("#{catgenome['vcf.reader.pool.size'] ?: " + DEFAULT_VCF_READER_POOL_SIZE + "}")
+    private int vcfReaderPoolSize;
+
+    /**
+     * {@code int} specifies time in seconds, after which an unused VCF reader is closed
+     */
+    @Value("#{catgenome['vcf.reader.pool.idle.timeout'] ?: " + DEFAULT_VCF_READER_IDLE_TIMEOUT + "}")
+    private int vcfReaderIdleTimeout;
+
+    /**
+     * {@code int} specifies how many gene file readers are kept open between track requests
+     */
+    @Value("#{catgenome['gene.reader.pool.size'] ?: " + DEFAULT_GENE_READER_POOL_SIZE + "}")
+    private int geneReaderPoolSize;
+
+    /**
+     * {@code int} specifies time in seconds, after which an unused gene file reader is closed
+     */
+    @Value("#{catgenome['gene.reader.pool.idle.timeout'] ?: " + DEFAULT_GENE_READER_IDLE_TIMEOUT + "}")
+    private int geneReaderIdleTimeout;
+
+    private volatile IndexDirectoryType indexDirectoryType;
+    private volatile FeatureIndexReaderCache indexReaderCache;
+    private volatile NibFileCache nibFileCache;
+    private volatile FeaturePositionIndexCache positionIndexCache;
+    private volatile int[] featureSummaryLevels;
+    private volatile ReaderPool<ProjectingVcfReader> vcfReaderPool;
+    private volatile ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>> geneReaderPool;
+    private volatile Map<String, Index> geneIndexCache;
+    private volatile Map<String, FastaSequenceFile> fastaFileCache;
+
     /**
      * Returns the real path of a directory used as the content root to store uploaded content
      * files and any immediate post-processing file resources related to them.
@@ -356,8 +485,13 @@ public class FileManager {
             final Map<String, Object> params = new HashMap<>();
             final Long dirId = reference.getId();
             params.put(DIR_ID.name(), dirId);
+            nibFileCache.invalidate(new File(toRealPath(substitute(REFERENCE_DIR, params))));
             deleteDir(substitute(REFERENCE_DIR, params));
         }
+        if (reference.getPath() != null) {
+            final String prefix = reference.getPath() + KEY_SEPARATOR;
+            closeFastaFiles(key -> key.startsWith(prefix));
+        }
     }
 
     /**
@@ -533,6 +667,101 @@ public class FileManager {
         return makeBlockCompressedDataInputStream(referenceId, chromosomeName, REF_CHROMOSOME_SEQUENCE_FILE);
     }
 
+    /**
+     * Opens a reader of a reference file (.nib) of a chromosome. Decompressed blocks of the file and its index are
+     * kept in memory for next requests.
+     *
+     * @param referenceId ID of a reference, from which to read nucleotides
+     * @param chromosomeName name of a chromosome, from which to read nucleotides
+     * @return a {@code NibBlockReader} for reading nucleotides, that should be closed after use
+     * @throws IOException
+     */
+    public NibBlockReader openRefReader(final Long referenceId, final String chromosomeName) throws IOException {
+        final File file = getReferenceFile(referenceId, chromosomeName, REF_CHROMOSOME_SEQUENCE_FILE);
+        final BlockOffsetIndex index = nibFileCache.getIndex(
+            getReferenceFile(referenceId, chromosomeName, REF_CHROMOSOME_SEQUENCE_INDEX_FILE),
+            () -> makeRefIndexInputStream(referenceId, chromosomeName));
+        return nibFileCache.openReader(file, index);
+    }
+
+    /**
+     * Opens a reader of a GC content file of a chromosome. Decompressed blocks of the file and its index are
+     * kept in memory for next requests.
+     *
+     * @param referenceId ID of a reference, from which to read GC content
+     * @param chromosomeName name of a chromosome, from which to read GC content
+     * @return a {@code NibBlockReader} for reading GC content data, that should be closed after use
+     * @throws IOException
+     */
+    public NibBlockReader openGCReader(final Long referenceId, final String chromosomeName) throws IOException {
+        final File file = getReferenceFile(referenceId, chromosomeName, CHROMOSOME_GC_CONTENT_FILE);
+        final BlockOffsetIndex index = nibFileCache.getIndex(
+            getReferenceFile(referenceId, chromosomeName, CHROMOSOME_GC_CONTENT_INDEX_FILE),
+            () -> makeGCIndexInputStream(referenceId, chromosomeName));
+        return nibFileCache.openReader(file, index);
+    }
+
+    /**
+     * Returns a reader of a FASTA reference file, that is kept open between track requests: its index is parsed
+     * once, a local file is memory mapped and blocks of a remote file are cached. A reader of a local file, that
+     * was modified since it was opened, is reopened. The number of open files is bounded, the least recently used
+     * one is closed first.
+     *
+     * @param path a path or an URL of a FASTA file
+     * @param indexPath a path or an URL of a .fai index of the file
+     * @return a thread safe {@code FastaSequenceFile}, that shouldn't be closed after use
+     * @throws IOException if the index can't be read
+     */
+    public FastaSequenceFile getFastaSequenceFile(final String path, final String indexPath) throws IOException {
+        final String key = path + KEY_SEPARATOR + indexPath;
+        synchronized (fastaFileCache) {
+            FastaSequenceFile cached = fastaFileCache.get(key);
+            if (cached != null && !cached.isModified()) {
+                return cached;
+            }
+        }
+
+        // opened concurrently at worst, the last opened file is kept and the others are dropped with their caches
+        final FastaSequenceFile opened = new FastaSequenceFile(path, indexPath);
+        final List<FastaSequenceFile> evicted = new ArrayList<>();
+        synchronized (fastaFileCache) {
+            FastaSequenceFile previous = fastaFileCache.put(key, opened);
+            if (previous != null) {
+                evicted.add(previous);
+            }
+
+            Iterator<FastaSequenceFile> iterator = fastaFileCache.values().iterator();
+            while (fastaFileCache.size() > Math.max(1, fastaFileCacheSize) && iterator.hasNext()) {
+                evicted.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        evicted.forEach(FastaSequenceFile::close);
+        return opened;
+    }
+
+    private void closeFastaFiles(final Predicate<String> keyFilter) {
+        final List<FastaSequenceFile> closed = new ArrayList<>();
+        synchronized (fastaFileCache) {
+            Iterator<Map.Entry<String, FastaSequenceFile>> iterator = fastaFileCache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, FastaSequenceFile> entry = iterator.next();
+                if (keyFilter.test(entry.getKey())) {
+                    closed.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        closed.forEach(FastaSequenceFile::close);
+    }
+
+    /**
+     * @return cache of reference and GC content files' data
+     */
+    public NibFileCache getNibFileCache() {
+        return nibFileCache;
+    }
+
     /**
      * Creates a {@code BlockCompressedDataInputStream} for reading GC content data of a chromosome, specified by
      * reference ID and chromosome name
@@ -614,6 +843,10 @@ public class FileManager {
     private BlockCompressedDataInputStream makeBlockCompressedDataInputStream(final Long referenceId,
                                                                               final String chromosomeName,
                                                                               FilePathFormat path) throws IOException {
+        return new BlockCompressedDataInputStream(getReferenceFile(referenceId, chromosomeName, path));
+    }
+
+    private File getReferenceFile(final Long referenceId, final String chromosomeName, FilePathFormat path) {
         Assert.notNull(referenceId, getMessage(MessageCode.NO_SUCH_REFERENCE));
 
         final Map<String, Object> params = new HashMap<>();
@@ -625,7 +858,7 @@ public class FileManager {
                      toRealPath(substitute(path, params)));
         final File file = new File(toRealPath(substitute(path, params)));
         Assert.isTrue(file.exists(), getMessage(MessagesConstants.ERROR_NO_SUCH_FILE, referenceId, chromosomeName));
-        return new BlockCompressedDataInputStream(file);
+        return file;
     }
 
     /**
@@ -824,95 +1057,118 @@ public class FileManager {
     }
 
     /**
-     * Creates a {@code SimpleFSDirectory} object, representing existing Lucene index directory for feature index
+     * Creates a {@code Directory} object, representing existing Lucene index directory for feature index
      * for desired project ID. Checks if that directory exists
      *
      * @param projectId     an ID of a project, which feature index directory to fetch
-     * @return an {@code SimpleFSDirectory} object, representing Lucene index directory for feature index
+     * @return an {@code Directory} object, representing Lucene index directory for feature index
      * @throws IOException
      */
-    public SimpleFSDirectory getIndexForProject(final long projectId) throws IOException {
+    public Directory getIndexForProject(final long projectId) throws IOException {
         final Map<String, Object> params = new HashMap<>();
         params.put(PROJECT_ID.name(), projectId);
 
         File file = new File(toRealPath(substitute(PROJECT_FEATURE_INDEX_FILE, params)));
         Assert.isTrue(file.exists(), getMessage(MessagesConstants.ERROR_PROJECT_FEATURE_INDEX_NOT_FOUND, projectId));
 
-        return new SimpleFSDirectory(file.toPath());
+        return indexDirectoryType.open(file.toPath());
     }
 
-    public SimpleFSDirectory[] getIndexesForFiles(final List<? extends FeatureFile> featureFiles) throws IOException {
+    /**
+     * Acquires Lucene index readers for a list of feature files. Readers are taken from the cache of open indexes,
+     * files without an index are skipped. Acquired readers should be released with
+     * {@link #releaseIndexReaders(DirectoryReader[])}
+     *
+     * @param featureFiles a list of files, which indexes to read
+     * @return an array of {@code DirectoryReader} objects, one for each indexed file
+     * @throws IOException if something is wrong with access to file system
+     */
+    public DirectoryReader[] acquireIndexReaders(final List<? extends FeatureFile> featureFiles)
+        throws IOException {
         if (CollectionUtils.isEmpty(featureFiles)) {
             return null;
         }
 
-        List<SimpleFSDirectory> indexes = new ArrayList<>();
+        List<DirectoryReader> readers = new ArrayList<>();
         try {
-            for (int i = 0; i < featureFiles.size(); i++) {
-                FeatureFile featureFile = featureFiles.get(i);
-
-                final Map<String, Object> params = new HashMap<>();
-                params.put(USER_ID.name(), featureFile.getCreatedBy());
-                params.put(DIR_ID.name(), featureFile.getId());
-
-                FilePathFormat format = determineFilePathFormat(featureFile);
-
-                params.put(FEATURE_FILE_DIR.name(), substitute(format, params));
-                File file = new File(toRealPath(substitute(FEATURE_INDEX_DIR, params)));
+            for (FeatureFile featureFile : featureFiles) {
+                File file = getFeatureIndexDir(featureFile);
                 if (file.exists()) {
-                    indexes.add(new SimpleFSDirectory(file.toPath()));
+                    readers.add(indexReaderCache.acquire(file.toPath()));
                 }
             }
         } catch (IOException e) {
-            for (SimpleFSDirectory index : indexes) {
-                if (index != null) {
-                    IOUtils.closeQuietly(index);
-                }
-            }
-
+            releaseIndexReaders(readers.toArray(new DirectoryReader[readers.size()]));
             throw e;
         }
 
-        Assert.isTrue(!indexes.isEmpty(), getMessage(MessagesConstants.ERROR_FEATURE_INDEX_NOT_FOUND,
+        Assert.isTrue(!readers.isEmpty(), getMessage(MessagesConstants.ERROR_FEATURE_INDEX_NOT_FOUND,
                          featureFiles.stream().map(f -> f.getId().toString()).collect(Collectors.joining(", "))));
 
-        return indexes.toArray(new SimpleFSDirectory[indexes.size()]);
+        return readers.toArray(new DirectoryReader[readers.size()]);
+    }
+
+    /**
+     * Releases Lucene index readers, acquired by {@link #acquireIndexReaders(List)}
+     *
+     * @param readers an array of readers to release
+     */
+    public void releaseIndexReaders(final DirectoryReader[] readers) {
+        if (readers == null) {
+            return;
+        }
+
+        for (DirectoryReader reader : readers) {
+            try {
+                indexReaderCache.release(reader);
+            } catch (IOException e) {
+                LOGGER.error("Exception while releasing index reader:", e);
+            }
+        }
     }
 
     /**
-     * Creates a {@code SimpleFSDirectory} object, representing a new Lucene index directory for feature index for
+     * Makes cached readers of a feature file's index see the changes, that were written to the index
+     *
+     * @param featureFile a file, which index was updated
+     * @throws IOException if something is wrong with access to file system
+     */
+    public void refreshIndexReader(final FeatureFile featureFile) throws IOException {
+        indexReaderCache.refresh(getFeatureIndexDir(featureFile).toPath());
+    }
+
+    /**
+     * @return cache of open feature files' Lucene indexes
+     */
+    public FeatureIndexReaderCache getIndexReaderCache() {
+        return indexReaderCache;
+    }
+
+    /**
+     * Creates a {@code Directory} object, representing a new Lucene index directory for feature index for
      * desired project ID
      *
      * @param projectId     an ID of a project, which feature index directory to fetch
-     * @return an {@code SimpleFSDirectory} object, representing Lucene index directory for feature index
+     * @return an {@code Directory} object, representing Lucene index directory for feature index
      * @throws IOException if something is wrong with access to file system
      */
-    public SimpleFSDirectory createIndexForProject(final long projectId) throws IOException {
+    public Directory createIndexForProject(final long projectId) throws IOException {
         final Map<String, Object> params = new HashMap<>();
         params.put(PROJECT_ID.name(), projectId);
 
         File file = new File(toRealPath(substitute(PROJECT_FEATURE_INDEX_FILE, params)));
 
-        return new SimpleFSDirectory(file.toPath());
+        return indexDirectoryType.open(file.toPath());
     }
 
     /**
      * Creates index for a FeatureFile
      * @param featureFile a file to create index for
-     * @return an index, represented by {@code SimpleFSDirectory} object
+     * @return an index, represented by {@code Directory} object
      * @throws IOException if something is wrong with access to file system
      */
-    public SimpleFSDirectory createIndexForFile(FeatureFile featureFile) throws IOException {
-        final Map<String, Object> params = new HashMap<>();
-        params.put(USER_ID.name(), featureFile.getCreatedBy());
-        params.put(DIR_ID.name(), featureFile.getId());
-
-        FilePathFormat format = determineFilePathFormat(featureFile);
-
-        params.put(FEATURE_FILE_DIR.name(), substitute(format, params));
-        File file = new File(toRealPath(substitute(FEATURE_INDEX_DIR, params)));
-
-        return new SimpleFSDirectory(file.toPath());
+    public Directory createIndexForFile(FeatureFile featureFile) throws IOException {
+        return indexDirectoryType.open(getFeatureIndexDir(featureFile).toPath());
     }
 
     /**
@@ -930,6 +1186,7 @@ public class FileManager {
         params.put(FEATURE_FILE_DIR.name(), substitute(format, params));
         File dir = new File(toRealPath(substitute(FEATURE_INDEX_DIR, params)));
 
+        indexReaderCache.invalidate(dir.toPath());
         if (dir.exists()) {
             deleteDir(substitute(FEATURE_INDEX_DIR, params));
         }
@@ -956,6 +1213,10 @@ public class FileManager {
      * @return {@code true} if index directory exists, {@code false} if not
      */
     public boolean indexForFeatureFileExists(final FeatureFile featureFile) {
+        return getFeatureIndexDir(featureFile).exists();
+    }
+
+    private File getFeatureIndexDir(final FeatureFile featureFile) {
         final Map<String, Object> params = new HashMap<>();
         params.put(USER_ID.name(), featureFile.getCreatedBy());
         params.put(DIR_ID.name(), featureFile.getId());
@@ -963,9 +1224,7 @@ public class FileManager {
         FilePathFormat format = determineFilePathFormat(featureFile);
 
         params.put(FEATURE_FILE_DIR.name(), substitute(format, params));
-        File dir = new File(toRealPath(substitute(FEATURE_INDEX_DIR, params)));
-
-        return dir.exists();
+        return new File(toRealPath(substitute(FEATURE_INDEX_DIR, params)));
     }
 
     /**
@@ -999,47 +1258,14 @@ public class FileManager {
         LOGGER.info(getMessage(MessagesConstants.INFO_HISTOGRAM_WRITE, featureFile.getId(),
                                featureFile.getName()));
 
-        try (DataOutputStream dataOutputStream = makeHistogramOutputStream(featureFile, chromosomeName)) {
-            for (Wig wig : histogram) {
-                dataOutputStream.writeInt(wig.getStartIndex());
-                dataOutputStream.writeInt(wig.getEndIndex());
-                dataOutputStream.writeFloat(wig.getValue());
-            }
-        }
-    }
-
-    private DataOutputStream makeHistogramOutputStream(FeatureFile featureFile, final String chromosomeName)
-            throws IOException {
         final Map<String, Object> params = new HashMap<>();
         params.put(DIR_ID.name(), featureFile.getId());
         params.put(USER_ID.name(), featureFile.getCreatedBy());
-
-        FilePathFormat dirPathFormat = null;
-        FilePathFormat filePathFormat = null;
-        if (featureFile instanceof VcfFile) {
-            dirPathFormat = VCF_HISTOGRAM_DIR;
-            filePathFormat = VCF_HISTOGRAM_FILE;
-        }
-        if (featureFile instanceof GeneFile) {
-            dirPathFormat = GENE_HISTOGRAM_DIR;
-            filePathFormat = GENE_HISTOGRAM_FILE;
-        }
-        if (featureFile instanceof BedFile) {
-            dirPathFormat = BED_HISTOGRAM_DIR;
-            filePathFormat = BED_HISTOGRAM_FILE;
-        }
-        if (dirPathFormat == null) {
-            throw new IllegalArgumentException(getMessage(MessagesConstants.ERROR_UNSUPPORTED_FEATURE_FILE_TYPE,
-                    featureFile.getClass().getName()));
-        }
-
-        makeDir(substitute(dirPathFormat, params));
+        makeDir(substitute(getHistogramDirPathFormat(featureFile), params));
 
         params.put(CHROMOSOME_NAME.name(), chromosomeName);
-        File histogramFile = new File(toRealPath(substitute(filePathFormat, params)));
-        Assert.isTrue(histogramFile.createNewFile(), "Can't create histogram file " + histogramFile.getAbsolutePath());
-
-        return new DataOutputStream(new FileOutputStream(histogramFile));
+        HistogramFile.write(new File(toRealPath(substitute(getHistogramFilePathFormat(featureFile), params))),
+                            histogram);
     }
 
     private FilePathFormat getHistogramDirPathFormat(final FeatureFile featureFile) {
@@ -1089,6 +1315,23 @@ public class FileManager {
      * @throws IOException
      */
     public List<Wig> loadHistogram(final FeatureFile featureFile, final String chromosomeName) throws IOException {
+        return loadHistogram(featureFile, chromosomeName, null, null);
+    }
+
+    /**
+     * Loads histogram blocks, that overlap a specified window, as a {@code List} of {@code Wig} objects for a
+     * specified {@code FeatureFile} and chromosome name. Histogram files of previous versions are converted to the
+     * current format on the first read.
+     *
+     * @param featureFile    a {@code FeatureFile} to load histogram for
+     * @param chromosomeName {@code String} a name of a chromosome to load histogram for
+     * @param startIndex     start of the window, if null, histogram is loaded from the chromosome start
+     * @param endIndex       end of the window, if null, histogram is loaded up to the chromosome end
+     * @return a histogram as a {@code List} of {@code Wig} objects
+     * @throws IOException
+     */
+    public List<Wig> loadHistogram(final FeatureFile featureFile, final String chromosomeName,
+                                   final Integer startIndex, final Integer endIndex) throws IOException {
         final Map<String, Object> params = new HashMap<>();
         params.put(DIR_ID.name(), featureFile.getId());
         params.put(USER_ID.name(), featureFile.getCreatedBy());
@@ -1097,19 +1340,203 @@ public class FileManager {
         FilePathFormat filePathFormat = getHistogramFilePathFormat(featureFile);
         File histogramFile = new File(toRealPath(substitute(filePathFormat, params)));
 
-        List<Wig> histogram = new ArrayList<>();
-        try (DataInputStream dataInputStream = new DataInputStream(new FileInputStream(histogramFile))) {
-            while (dataInputStream.available() > 0) {
-                Wig wig = new Wig();
+        return HistogramFile.read(histogramFile, startIndex != null ? startIndex : 0,
+                                  endIndex != null ? endIndex : Integer.MAX_VALUE);
+    }
 
-                wig.setStartIndex(dataInputStream.readInt());
-                wig.setEndIndex(dataInputStream.readInt());
-                wig.setValue(dataInputStream.readFloat());
+    /**
+     * Borrows a reader of an indexed VCF file from a pool of readers, that are kept open between requests, or opens
+     * a new one. The returned reader decodes all columns of the file, until a projection is set. The returned handle
+     * should be closed to return the reader to the pool, iterators of the reader should be closed before that.
+     *
+     * @param vcfFile a file to read
+     * @return a handle of the reader
+     * @throws IOException if a reader can't be opened
+     */
+    public ReaderPool<ProjectingVcfReader>.Handle acquireVcfReader(final VcfFile vcfFile) throws IOException {
+        final BiologicalDataItem index = vcfFile.getIndex();
+        StringBuilder key = new StringBuilder()
+            .append(vcfFile.getType()).append(KEY_SEPARATOR).append(vcfFile.getPath()).append(KEY_SEPARATOR)
+            .append(index.getPath());
+        if (vcfFile.getType() == BiologicalDataItemResourceType.FILE) { // reopen modified files
+            key.append(KEY_SEPARATOR).append(new File(vcfFile.getPath()).lastModified())
+                .append(KEY_SEPARATOR).append(new File(index.getPath()).lastModified());
+        }
+
+        ReaderPool<ProjectingVcfReader>.Handle handle = vcfReaderPool.acquire(key.toString(),
+            () -> ProjectingVcfReader.open(vcfFile.getPath(), index.getPath()));
+        handle.getReader().resetProjection();
+        return handle;
+    }
+
+    /**
+     * Loads a position index of features on a chromosome for a specified {@code FeatureFile}, keeping it in memory
+     * for the next requests
+     *
+     * @param featureFile a {@code VcfFile} or a {@code GeneFile} to load position index for
+     * @param chromosomeName {@code String} a name of a chromosome to load position index for
+     * @param sampleIndex an index of a VCF sample, the index contains variations of, null stands for all variations.
+     *                    Is ignored for gene files
+     * @return a loaded index or null, if the index wasn't written yet
+     * @throws IOException if the index can't be read
+     */
+    public FeaturePositionIndex loadPositionIndex(final FeatureFile featureFile, final String chromosomeName,
+                                                  final Integer sampleIndex) throws IOException {
+        File indexFile = getPositionIndexFile(featureFile, chromosomeName, sampleIndex);
+        FeaturePositionIndex index = positionIndexCache.get(indexFile);
+        if (index != null || !indexFile.exists()) {
+            return index;
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(indexFile)))) {
+            index = FeaturePositionIndex.read(inputStream);
+        }
+
+        positionIndexCache.put(indexFile, index);
+        return index;
+    }
+
+    /**
+     * Saves a position index of features on a chromosome for a specified {@code FeatureFile}. The index is written
+     * to a temporary file first and then replaces the existing one, so that concurrent readers always see
+     * a complete index.
+     *
+     * @param featureFile a {@code VcfFile} or a {@code GeneFile} to save position index for
+     * @param chromosomeName {@code String} a name of a chromosome to save position index for
+     * @param sampleIndex an index of a VCF sample, the index contains variations of, null stands for all variations.
+     *                    Is ignored for gene files
+     * @param index an index to save
+     * @throws IOException if the index can't be written
+     */
+    public void writePositionIndex(final FeatureFile featureFile, final String chromosomeName,
+                                   final Integer sampleIndex, final FeaturePositionIndex index) throws IOException {
+        File indexFile = getPositionIndexFile(featureFile, chromosomeName, sampleIndex);
+        File indexDir = indexFile.getParentFile();
+        if (!indexDir.exists() && !indexDir.mkdirs() && !indexDir.exists()) {
+            throw new IOException("Can't create position index directory " + indexDir.getAbsolutePath());
+        }
+
+        File tmpFile = File.createTempFile(indexFile.getName(), ".tmp", indexDir);
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tmpFile)))) {
+                index.write(outputStream);
+            }
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+
+        positionIndexCache.put(indexFile, index);
+    }
+
+    private File getPositionIndexFile(final FeatureFile featureFile, final String chromosomeName,
+                                      final Integer sampleIndex) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(DIR_ID.name(), featureFile.getId());
+        params.put(USER_ID.name(), featureFile.getCreatedBy());
+        params.put(CHROMOSOME_NAME.name(), chromosomeName);
+
+        FilePathFormat filePathFormat;
+        if (featureFile instanceof VcfFile) {
+            filePathFormat = VCF_POSITION_INDEX_FILE;
+            params.put(SAMPLE_NAME.name(), sampleIndex != null ? sampleIndex : ALL_SAMPLES_POSITION_INDEX);
+        } else if (featureFile instanceof GeneFile) {
+            filePathFormat = GENE_POSITION_INDEX_FILE;
+        } else {
+            throw new IllegalArgumentException(getMessage(MessagesConstants.ERROR_UNSUPPORTED_FEATURE_FILE_TYPE,
+                                                          featureFile.getClass().getName()));
+        }
+
+        return new File(toRealPath(substitute(filePathFormat, params)));
+    }
+
+    /**
+     * Checks if feature summaries are enabled
+     *
+     * @return true if summary levels are configured
+     */
+    public boolean isFeatureSummaryEnabled() {
+        return featureSummaryLevels.length > 0;
+    }
+
+    /**
+     * Creates a builder of a feature summary with the configured levels
+     *
+     * @return a new {@code FeatureSummary.Builder}
+     */
+    public FeatureSummary.Builder createFeatureSummaryBuilder() {
+        return new FeatureSummary.Builder(featureSummaryLevels);
+    }
+
+    /**
+     * Returns a file of a summary of features on a chromosome for a specified {@code FeatureFile}
+     *
+     * @param featureFile a {@code VcfFile} or a {@code BedFile} to get summary file for
+     * @param chromosomeName {@code String} a name of a chromosome
+     * @param sampleIndex an index of a VCF sample, the summary contains variations of, null stands for all
+     *                    variations. Is ignored for BED files
+     * @return a summary {@code File}, that may not exist yet
+     */
+    public File getFeatureSummaryFile(final FeatureFile featureFile, final String chromosomeName,
+                                      final Integer sampleIndex) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(DIR_ID.name(), featureFile.getId());
+        params.put(USER_ID.name(), featureFile.getCreatedBy());
+        params.put(CHROMOSOME_NAME.name(), chromosomeName);
 
-                histogram.add(wig);
+        FilePathFormat filePathFormat;
+        if (featureFile instanceof VcfFile) {
+            filePathFormat = VCF_SUMMARY_FILE;
+            params.put(SAMPLE_NAME.name(), sampleIndex != null ? sampleIndex : ALL_SAMPLES_POSITION_INDEX);
+        } else if (featureFile instanceof BedFile) {
+            filePathFormat = BED_SUMMARY_FILE;
+        } else {
+            throw new IllegalArgumentException(getMessage(MessagesConstants.ERROR_UNSUPPORTED_FEATURE_FILE_TYPE,
+                                                          featureFile.getClass().getName()));
+        }
+
+        return new File(toRealPath(substitute(filePathFormat, params)));
+    }
+
+    /**
+     * Saves a summary of features on a chromosome for a specified {@code FeatureFile}. The summary is written
+     * to a temporary file first and then replaces the existing one, so that concurrent readers always see
+     * a complete summary.
+     *
+     * @param featureFile a {@code VcfFile} or a {@code BedFile} to save summary for
+     * @param chromosomeName {@code String} a name of a chromosome to save summary for
+     * @param sampleIndex an index of a VCF sample, the summary contains variations of, null stands for all
+     *                    variations. Is ignored for BED files
+     * @param builder a builder, filled with features of the chromosome
+     * @throws IOException if the summary can't be written
+     */
+    public void writeFeatureSummary(final FeatureFile featureFile, final String chromosomeName,
+                                    final Integer sampleIndex, final FeatureSummary.Builder builder)
+        throws IOException {
+        File summaryFile = getFeatureSummaryFile(featureFile, chromosomeName, sampleIndex);
+        File summaryDir = summaryFile.getParentFile();
+        if (!summaryDir.exists() && !summaryDir.mkdirs() && !summaryDir.exists()) {
+            throw new IOException("Can't create feature summary directory " + summaryDir.getAbsolutePath());
+        }
+
+        File tmpFile = File.createTempFile(summaryFile.getName(), ".tmp", summaryDir);
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tmpFile)))) {
+                builder.write(outputStream);
             }
+            Files.move(tmpFile.toPath(), summaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
         }
-        return histogram;
+    }
+
+    public FeaturePositionIndexCache getPositionIndexCache() {
+        return positionIndexCache;
     }
 
     /**
@@ -1156,11 +1583,7 @@ public class FileManager {
      */
     public AbstractFeatureReader<GeneFeature, LineIterator> makeGeneReader(String path, String index,
                                                                            boolean useIndex) {
-        String extension = getGeneFileExtension(path);
-        Assert.notNull(extension, getMessage(MessagesConstants.ERROR_UNSUPPORTED_GENE_FILE_EXTESION));
-
-        AsciiFeatureCodec<GeneFeature> codec = new GffCodec(GffCodec.GffType.forExt(extension));
-        return AbstractFeatureReader.getFeatureReader(path, index, codec, useIndex);
+        return AbstractFeatureReader.getFeatureReader(path, index, makeGeneCodec(path), useIndex);
     }
 
     /**
@@ -1172,6 +1595,96 @@ public class FileManager {
      */
     public AbstractFeatureReader<GeneFeature, LineIterator> makeGeneReader(final GeneFile geneFile,
                                                                            final GeneFileType type) {
+        Pair<String, String> paths = getGeneReaderPaths(geneFile, type);
+        return makeGeneReader(paths.getLeft(), paths.getRight(), true);
+    }
+
+    /**
+     * Borrows a reader of a gene file from a pool of readers, that are kept open between requests, or opens
+     * a new one. Readers of a local file with a tribble index share a single parsed index. The returned handle
+     * should be closed to return the reader to the pool, iterators of the reader should be closed before that.
+     *
+     * @param geneFile a {@code GeneFile} to read
+     * @param type a type of gene file to read: original file or one of helper files
+     * @return a handle of the reader
+     * @throws IOException if a reader can't be opened
+     */
+    public ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>>.Handle acquireGeneReader(
+            final GeneFile geneFile, final GeneFileType type) throws IOException {
+        final Pair<String, String> paths = getGeneReaderPaths(geneFile, type);
+        final boolean local = geneFile.getType() != BiologicalDataItemResourceType.URL;
+        StringBuilder key = new StringBuilder(getGeneReaderKeyPrefix(geneFile))
+            .append(type).append(KEY_SEPARATOR).append(paths.getLeft()).append(KEY_SEPARATOR)
+            .append(paths.getRight());
+        if (local) { // reopen modified files
+            key.append(KEY_SEPARATOR).append(new File(paths.getLeft()).lastModified())
+                .append(KEY_SEPARATOR).append(new File(paths.getRight()).lastModified());
+        }
+
+        final String readerKey = key.toString();
+        return geneReaderPool.acquire(readerKey, () -> {
+            if (!local || paths.getRight().endsWith(TabixUtils.STANDARD_INDEX_EXTENSION)) {
+                return makeGeneReader(paths.getLeft(), paths.getRight(), true);
+            }
+
+            return AbstractFeatureReader.getFeatureReader(paths.getLeft(), makeGeneCodec(paths.getLeft()),
+                                                          loadSharedGeneIndex(readerKey, paths.getRight()));
+        });
+    }
+
+    /**
+     * Closes pooled readers of a gene file and drops its parsed indexes, should be called when the file is
+     * reindexed or unregistered
+     *
+     * @param geneFile a {@code GeneFile}, which readers to close
+     */
+    public void invalidateGeneReaders(final GeneFile geneFile) {
+        final String prefix = getGeneReaderKeyPrefix(geneFile);
+        int closed = geneReaderPool.invalidate(key -> key.startsWith(prefix));
+        synchronized (geneIndexCache) {
+            geneIndexCache.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+        LOGGER.debug("{} pooled readers of gene file {} closed", closed, geneFile.getId());
+    }
+
+    private String getGeneReaderKeyPrefix(final GeneFile geneFile) {
+        return geneFile.getId() + KEY_SEPARATOR;
+    }
+
+    private Index loadSharedGeneIndex(final String key, final String indexPath) {
+        synchronized (geneIndexCache) {
+            Index index = geneIndexCache.get(key);
+            if (index != null) {
+                return index;
+            }
+        }
+
+        // parsed concurrently at worst, the index is immutable, so any of the copies can be shared
+        Index index = IndexFactory.loadIndex(indexPath);
+        synchronized (geneIndexCache) {
+            geneIndexCache.put(key, index);
+
+            Iterator<Index> iterator = geneIndexCache.values().iterator();
+            while (geneIndexCache.size() > Math.max(1, geneReaderPoolSize) && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return index;
+    }
+
+    private AsciiFeatureCodec<GeneFeature> makeGeneCodec(final String path) {
+        String extension = getGeneFileExtension(path);
+        Assert.notNull(extension, getMessage(MessagesConstants.ERROR_UNSUPPORTED_GENE_FILE_EXTESION));
+        return new GffCodec(GffCodec.GffType.forExt(extension));
+    }
+
+    /**
+     * Resolves paths of a gene file and its index, that are read for a specified type of gene file
+     *
+     * @return a pair of file path and index path
+     */
+    private Pair<String, String> getGeneReaderPaths(final GeneFile geneFile, final GeneFileType type) {
         String realFileName = geneFile.getPath() != null ? geneFile.getPath() : geneFile.getName();
         String extension = Utils.getFileExtension(realFileName);
         extension = GffCodec.GffType.forExt(extension).getExtensions()[0];
@@ -1186,7 +1699,7 @@ public class FileManager {
 
 
         if (geneFile.getType() == BiologicalDataItemResourceType.URL) {
-            return makeGeneReader(geneFile.getPath(), geneFile.getIndex().getPath(), true);
+            return new ImmutablePair<>(geneFile.getPath(), geneFile.getIndex().getPath());
         }
 
         File file;
@@ -1211,7 +1724,7 @@ public class FileManager {
                                                               type));
         }
 
-        return makeGeneReader(file.getAbsolutePath(), indexFile.getAbsolutePath(), true);
+        return new ImmutablePair<>(file.getAbsolutePath(), indexFile.getAbsolutePath());
     }
 
     private File tryGetHelperGeneFile(FilePathFormat helperFormat, GeneFile geneFile, GeneFileType type,
@@ -1402,6 +1915,7 @@ public class FileManager {
      *                       and can be updated by metadata produced as the result of the current call
      */
     public void makeNibIndex(final Long referenceId, final String chromosomeName) throws IOException {
+        invalidateChromosomeFiles(referenceId, chromosomeName);
         try (BlockCompressedDataInputStream streamGC = makeGCInputStream(referenceId, chromosomeName);
              DataOutputStream indexStream = makeGCIndexOutputStream(referenceId, chromosomeName)) {
             fillSimpleIndexFile(streamGC, indexStream);
@@ -1413,6 +1927,7 @@ public class FileManager {
     }
 
     public void makeGcIndex(final Long referenceId, final String chromosomeName) throws IOException {
+        invalidateChromosomeFiles(referenceId, chromosomeName);
         try (BlockCompressedDataInputStream streamGC = makeGCInputStream(referenceId, chromosomeName);
                 DataOutputStream indexStream = makeGCIndexOutputStream(referenceId, chromosomeName)) {
             fillSimpleIndexFile(streamGC, indexStream);
@@ -1769,25 +2284,27 @@ public class FileManager {
     }
 
     /**
-     * Writes list of WigSection objects to a BIGWIG file, specified by WigFile. Used for BIGWIG downsampling
+     * Writes a level of a downsampling pyramid of a BIGWIG file, replacing the level if it already exists
      *
-     * @param wigFile a WigFile to write into
+     * @param wigFile a WigFile, for which the level is written
      * @param wigSections a List of WigSection objects, representing BIGWIG records to write
      * @param chromSizes List of Pairs of chromosome sizes
      * @param chromosomeName a name of a chromosome, for which to write BIGWIG file
+     * @param windowSize size of a window in bps, that the level is downsampled with
      * @throws IOException
      */
     public void writeToBigWigFile(WigFile wigFile, List<WigSection> wigSections, List<kotlin.Pair<String, Integer>>
-            chromSizes, String chromosomeName) throws IOException {
-        final Map<String, Object> params = new HashMap<>();
-        params.put(DIR_ID.name(), wigFile.getId());
-        params.put(USER_ID.name(), wigFile.getCreatedBy());
-        params.put(CHROMOSOME_NAME.name(), chromosomeName);
-
-        File file = new File(toRealPath(substitute(WIG_FILE, params)));
-        Assert.isTrue(file.createNewFile());
-
-        BigWigFile.write(wigSections, chromSizes, file.toPath(), 0, CompressionType.DEFLATE, ByteOrder.nativeOrder());
+            chromSizes, String chromosomeName, int windowSize) throws IOException {
+        File file = getWigLevelFile(wigFile, chromosomeName, windowSize);
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            BigWigFile.write(wigSections, chromSizes, tmpFile.toPath(), 0, CompressionType.DEFLATE,
+                             ByteOrder.nativeOrder());
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
     }
 
     /**
@@ -1811,6 +2328,74 @@ public class FileManager {
         }
     }
 
+    /**
+     * Gets path to a level of a downsampling pyramid of a BIGWIG file
+     *
+     * @param wigFile a WigFile, for which to get the level
+     * @param chromosome a Chromosome, for which to get the level
+     * @param windowSize size of a window in bps, that the level is downsampled with
+     * @return path to a downsampled BIGWIG file or null, if the level doesn't exist
+     */
+    public String getWigFilePath(WigFile wigFile, Chromosome chromosome, int windowSize) {
+        File file = getWigLevelFile(wigFile, chromosome.getName(), windowSize);
+        return file.exists() ? file.getAbsolutePath() : null;
+    }
+
+    private File getWigLevelFile(WigFile wigFile, String chromosomeName, int windowSize) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(DIR_ID.name(), wigFile.getId());
+        params.put(USER_ID.name(), wigFile.getCreatedBy());
+        params.put(CHROMOSOME_NAME.name(), chromosomeName);
+        params.put(WINDOW_SIZE.name(), windowSize);
+
+        return new File(toRealPath(substitute(WIG_LEVEL_FILE, params)));
+    }
+
+    /**
+     * Creates in the file system a directory to store coverage pyramids of a BAM file
+     *
+     * @param bamFile a BamFile, for which to create the directory
+     */
+    public void makeBamCoverageDir(BamFile bamFile) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(DIR_ID.name(), bamFile.getId());
+        params.put(USER_ID.name(), bamFile.getCreatedBy());
+        makeDir(substitute(BAM_COVERAGE_DIR, params));
+    }
+
+    /**
+     * Returns a file of a BAM coverage pyramid, specified by BamFile and chromosome name. The file may not exist.
+     *
+     * @param bamFile a BamFile, for which to get the coverage pyramid file
+     * @param chromosomeName a name of a chromosome, for which to get the coverage pyramid file
+     * @return a {@code File} of a BAM coverage pyramid
+     */
+    public File getBamCoverageFile(BamFile bamFile, String chromosomeName) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(DIR_ID.name(), bamFile.getId());
+        params.put(USER_ID.name(), bamFile.getCreatedBy());
+        params.put(CHROMOSOME_NAME.name(), chromosomeName);
+
+        return new File(toRealPath(substitute(BAM_COVERAGE_FILE, params)));
+    }
+
+    /**
+     * Deletes a directory, containing all the stuff, related to a BAM file
+     *
+     * @param bamFile {@code BamFile}, whose directory should be deleted
+     * @throws IOException
+     */
+    public void deleteBamFileDirectory(BamFile bamFile) throws IOException {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(DIR_ID.name(), bamFile.getId());
+        params.put(USER_ID.name(), bamFile.getCreatedBy());
+
+        File dir = new File(toRealPath(substitute(BAM_DIR, params)));
+        if (dir.exists()) {
+            deleteDir(substitute(BAM_DIR, params));
+        }
+    }
+
     /**
      * Deletes a directory, containing all the stuff, related to a feature file
      *
@@ -1826,6 +2411,8 @@ public class FileManager {
 
         File dir = new File(toRealPath(substitute(filePathFormat, params)));
         if (dir.exists()) {
+            indexReaderCache.invalidate(getFeatureIndexDir(featureFile).toPath());
+            positionIndexCache.invalidate(dir);
             deleteDir(substitute(filePathFormat, params));
         }
     }
@@ -2050,6 +2637,39 @@ public class FileManager {
         params.put(USER_ID.name(), AuthUtils.getCurrentUserId());
 
         makeDir(substitute(USER_DIR, params));
+
+        indexDirectoryType = IndexDirectoryType.forName(indexDirectoryTypeName).resolve();
+        LOGGER.info("Using {} directories for feature indexes", indexDirectoryType);
+        indexReaderCache = new FeatureIndexReaderCache(indexReaderCacheSize, indexDirectoryType);
+        nibFileCache = new NibFileCache(referenceIndexCacheSize, referenceStreamPoolSize,
+                (long) referenceBlockCacheSize * BYTES_IN_MEGABYTE);
+        positionIndexCache = new FeaturePositionIndexCache((long) positionIndexCacheSize * BYTES_IN_MEGABYTE);
+        featureSummaryLevels = Arrays.stream(StringUtils.split(StringUtils.defaultString(featureSummaryLevelsValue),
+                                                               ','))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .filter(binSize -> binSize > 1)
+            .distinct()
+            .sorted()
+            .toArray();
+        vcfReaderPool = new ReaderPool<>("VCF", vcfReaderPoolSize, TimeUnit.SECONDS.toMillis(vcfReaderIdleTimeout),
+                                         VCF_READER_MAX_LIFETIME);
+        geneReaderPool = new ReaderPool<>("Gene", geneReaderPoolSize,
+                                          TimeUnit.SECONDS.toMillis(geneReaderIdleTimeout), GENE_READER_MAX_LIFETIME);
+        geneIndexCache = new LinkedHashMap<>(geneReaderPoolSize, Constants.LRU_LOAD_FACTOR, true);
+        fastaFileCache = new LinkedHashMap<>(fastaFileCacheSize, Constants.LRU_LOAD_FACTOR, true);
+    }
+
+    /**
+     * Closes feature indexes, kept open between searches, and reference files, kept open between track requests
+     */
+    @PreDestroy
+    public void destroy() {
+        indexReaderCache.close();
+        nibFileCache.close();
+        vcfReaderPool.close();
+        geneReaderPool.close();
+        closeFastaFiles(key -> true);
     }
 
     public String getNgsDataRootPath() {
@@ -2116,6 +2736,13 @@ public class FileManager {
         return file;
     }
 
+    private void invalidateChromosomeFiles(final Long referenceId, final String chromosomeName) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put(DIR_ID.name(), referenceId);
+        params.put(CHROMOSOME_NAME.name(), chromosomeName);
+        nibFileCache.invalidate(new File(toRealPath(substitute(REF_CHROMOSOME_DIR, params))));
+    }
+
     private void fillSimpleIndexFile(final BlockCompressedDataInputStream stream, final DataOutputStream indexStream)
             throws IOException {
         do {
@@ -2156,7 +2783,8 @@ public class FileManager {
         FILE_NAME,
         GENE_EXTENSION,
         SAMPLE_NAME,
-        FEATURE_FILE_DIR
+        FEATURE_FILE_DIR,
+        WINDOW_SIZE
     }
 
 }
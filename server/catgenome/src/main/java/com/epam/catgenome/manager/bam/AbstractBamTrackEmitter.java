@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import com.epam.catgenome.controller.JsonMapper;
+import com.epam.catgenome.entity.bam.BamTrack;
+import com.epam.catgenome.entity.bam.Read;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+
+/**
+ * Base class of wrappers over {@link ResponseBodyEmitter}, that stream a BAM track to a client. Common usage is
+ * continuously writing {@link Read}s by calling {@link #writeRecord} method and finishing by calling
+ * {@link #writeTrackAndFinish(BamTrack)} passing result {@link BamTrack} ({@link BamTrack#blocks} field will be
+ * ignored. In case of any exception during writing {@link #finishWithException} should be called.
+ * Subclasses define encoding and buffering of the data.
+ */
+public abstract class AbstractBamTrackEmitter {
+
+    private final JsonMapper jsonMapper;
+
+    private final ResponseBodyEmitter emitter;
+
+    private boolean finished = false;
+
+    protected AbstractBamTrackEmitter(ResponseBodyEmitter emitter) {
+        this.emitter = emitter;
+        this.jsonMapper = new JsonMapper();
+    }
+
+    /**
+     * Write a read to the emitter. Real data transferring could not be happened due to buffering
+     * @param read to be written
+     * @throws IOException in case of connections troubles
+     */
+    public abstract void writeRecord(Read read) throws IOException;
+
+    /**
+     * Must be called after all reads are written by {@link #writeRecord} method. Will write BamTrack to the emitter
+     * ignoring {@link BamTrack#blocks} field. This method will complete wrapped emitter.
+     * @param bamTrack to be written
+     * @throws IOException in case of connections troubles
+     */
+    public abstract void writeTrackAndFinish(BamTrack<Read> bamTrack) throws IOException;
+
+    /**
+     * Should be called in case of any exception during writing to the emitter. Will try to complete
+     * wrapped emitter with exception message and ERROR status or at least call
+     * {@link ResponseBodyEmitter#completeWithError(Throwable)}
+     * @param throwable - exception during data transferring
+     */
+    public abstract void finishWithException(Throwable throwable);
+
+    /**
+     * Serializes a BamTrack to JSON, ignoring {@link BamTrack#blocks} field
+     * @param bamTrack to be serialized
+     * @return JSON representation of track's metadata
+     * @throws IOException in case of serialization errors
+     */
+    protected String writeTrackMetadata(BamTrack<Read> bamTrack) throws IOException {
+        JsonNode metadata = jsonMapper.convertValue(bamTrack, JsonNode.class);
+        ((ObjectNode) metadata).remove("blocks");
+        return jsonMapper.writeValueAsString(metadata);
+    }
+
+    protected JsonMapper getJsonMapper() {
+        return jsonMapper;
+    }
+
+    protected ResponseBodyEmitter getEmitter() {
+        return emitter;
+    }
+
+    protected void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    protected void checkFinished() {
+        if (finished) {
+            throw new IllegalStateException("Already finished");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+import com.epam.catgenome.entity.bam.BaseCoverage;
+
+/**
+ * <p>
+ * Reads precomputed coverage of a chromosome, written by {@link BamCoveragePyramidBuilder}. A pyramid consists of
+ * several zoom levels, each level splits a chromosome into bins of equal size and stores minimum, maximum and mean
+ * coverage of each bin. The bin size of the next level is {@link #LEVEL_ZOOM} times larger, than the bin size of
+ * the previous one.
+ * </p>
+ * <p>
+ * File layout: magic, version, chromosome length and the number of levels, followed by a header of each level
+ * (bin size, number of bins and offset of level data) and by levels' data: three floats (min, max, mean) per bin.
+ * </p>
+ */
+public final class BamCoveragePyramid {
+
+    static final int MAGIC = 0x4E474243; // "NGBC"
+    static final int VERSION = 1;
+    static final int LEVEL_ZOOM = 4;
+    static final int VALUES_PER_BIN = 3;
+    static final int BIN_BYTES = VALUES_PER_BIN * Float.BYTES;
+
+    private BamCoveragePyramid() {
+        // no operations by default
+    }
+
+    /**
+     * Loads coverage of an interval from a pyramid file. The level with the largest bins, that are not larger,
+     * than the number of bases per pixel, is used. Each non-empty bin is represented by {@code BaseCoverage} with
+     * maximum coverage of the bin, the same way as summarized coverage is calculated from reads.
+     *
+     * @param file a pyramid file
+     * @param start start of an interval, inclusive
+     * @param end end of an interval, inclusive
+     * @param scaleFactor a scale factor of a track
+     * @return coverage of the interval or {@code null}, if the bins of the pyramid are too large for the scale factor
+     * @throws IOException if the file can't be read
+     */
+    public static List<BaseCoverage> loadCoverage(File file, int start, int end, double scaleFactor)
+            throws IOException {
+        final int step = (int) Math.max(1, Math.round(1.0 / scaleFactor));
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            Assert.isTrue(input.readInt() == MAGIC && input.readInt() == VERSION,
+                    "Unsupported BAM coverage pyramid format: " + file.getName());
+            final int chromosomeLength = input.readInt();
+            final int levelsCount = input.readInt();
+
+            int binSize = 0;
+            int binsCount = 0;
+            long dataOffset = 0;
+            for (int i = 0; i < levelsCount; i++) {
+                final int levelBinSize = input.readInt();
+                final int levelBinsCount = input.readInt();
+                final long levelOffset = input.readLong();
+                if (levelBinSize <= step) {
+                    binSize = levelBinSize;
+                    binsCount = levelBinsCount;
+                    dataOffset = levelOffset;
+                }
+            }
+
+            if (binSize == 0) {
+                return null;
+            }
+
+            final int to = Math.min(end, chromosomeLength);
+            final List<BaseCoverage> coverage = new ArrayList<>();
+            if (start > to) {
+                return coverage;
+            }
+
+            final int firstBin = (start - 1) / binSize;
+            final int lastBin = Math.min((to - 1) / binSize, binsCount - 1);
+            final byte[] data = new byte[(lastBin - firstBin + 1) * BIN_BYTES];
+            input.seek(dataOffset + (long) firstBin * BIN_BYTES);
+            input.readFully(data);
+
+            final ByteBuffer buffer = ByteBuffer.wrap(data);
+            for (int bin = firstBin; bin <= lastBin; bin++) {
+                buffer.getFloat(); // min
+                final float max = buffer.getFloat();
+                buffer.getFloat(); // mean
+                if (max > 0) {
+                    coverage.add(new BaseCoverage(Math.max(start, bin * binSize + 1),
+                            Math.min(to, (bin + 1) * binSize), max));
+                }
+            }
+            return coverage;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.springframework.util.Assert;
+
+import com.epam.catgenome.util.BamUtil;
+import htsjdk.samtools.AlignmentBlock;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * <p>
+ * Calculates coverage of a chromosome in a single pass over its reads and writes it as a
+ * {@link BamCoveragePyramid}. Reads should be passed in the order of their alignment start, as they are stored
+ * in a sorted BAM file. Coverage is counted by aligned blocks of reads, so deletions and skipped regions don't add
+ * to coverage, which matches coverage, calculated from reads on request. Coverage is never stored per base: runs of
+ * bases with the same coverage are added to the bins of the most detailed level, other levels are derived from it.
+ * </p>
+ */
+public class BamCoveragePyramidBuilder {
+
+    private static final int MIN_LEVEL_BINS = 1024;
+    private static final int VALUES = BamCoveragePyramid.VALUES_PER_BIN;
+
+    private final int chromosomeLength;
+    private final int binSize;
+    private final int[] min;
+    private final int[] max;
+    private final long[] sum;
+
+    // starts of aligned blocks and positions right after their ends, that are not reached yet
+    private final PriorityQueue<Integer> blockStarts = new PriorityQueue<>();
+    private final PriorityQueue<Integer> blockEnds = new PriorityQueue<>();
+
+    private int position = 1;
+    private int depth;
+
+    /**
+     * @param chromosomeLength length of a chromosome
+     * @param binSize size of bins of the most detailed level
+     */
+    public BamCoveragePyramidBuilder(int chromosomeLength, int binSize) {
+        Assert.isTrue(chromosomeLength > 0 && binSize > 0);
+        this.chromosomeLength = chromosomeLength;
+        this.binSize = binSize;
+
+        int binsCount = binsCount(chromosomeLength, binSize);
+        this.min = new int[binsCount];
+        this.max = new int[binsCount];
+        this.sum = new long[binsCount];
+        Arrays.fill(min, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Adds a read to coverage. Unmapped reads are ignored.
+     *
+     * @param record a read, that starts not before any of previously added reads
+     */
+    public void add(SAMRecord record) {
+        if (!BamUtil.validateReadParams(record.getFlags(), record.getCigar().getCigarElements(),
+                record.getAlignmentEnd(), record.getAlignmentStart())) {
+            return;
+        }
+
+        Assert.isTrue(record.getAlignmentStart() >= position, "Reads should be sorted by coordinate");
+        advance(record.getAlignmentStart());
+        for (AlignmentBlock block : record.getAlignmentBlocks()) {
+            blockStarts.add(block.getReferenceStart());
+            blockEnds.add(block.getReferenceStart() + block.getLength());
+        }
+    }
+
+    /**
+     * Completes coverage calculation and writes the pyramid. No reads may be added after that.
+     *
+     * @param file a file to write the pyramid to
+     * @throws IOException if the file can't be written
+     */
+    public void write(File file) throws IOException {
+        advance(chromosomeLength + 1);
+
+        List<float[]> levels = new ArrayList<>();
+        List<Integer> binSizes = new ArrayList<>();
+        float[] level = createFirstLevel();
+        int levelBinSize = binSize;
+        levels.add(level);
+        binSizes.add(levelBinSize);
+        while (level.length / VALUES > MIN_LEVEL_BINS) {
+            level = createNextLevel(level, levelBinSize);
+            levelBinSize *= BamCoveragePyramid.LEVEL_ZOOM;
+            levels.add(level);
+            binSizes.add(levelBinSize);
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(BamCoveragePyramid.MAGIC);
+            output.writeInt(BamCoveragePyramid.VERSION);
+            output.writeInt(chromosomeLength);
+            output.writeInt(levels.size());
+
+            // magic, version, length, levels count and bin size, bins count, offset of each level
+            long offset = Integer.BYTES * 4 + (Integer.BYTES * 2 + Long.BYTES) * (long) levels.size();
+            for (int i = 0; i < levels.size(); i++) {
+                int binsCount = levels.get(i).length / VALUES;
+                output.writeInt(binSizes.get(i));
+                output.writeInt(binsCount);
+                output.writeLong(offset);
+                offset += (long) binsCount * BamCoveragePyramid.BIN_BYTES;
+            }
+
+            for (float[] values : levels) {
+                for (float value : values) {
+                    output.writeFloat(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds coverage of all bases before a specified position
+     */
+    private void advance(int target) {
+        while (position < target) {
+            while (!blockStarts.isEmpty() && blockStarts.peek() <= position) {
+                blockStarts.poll();
+                depth++;
+            }
+            while (!blockEnds.isEmpty() && blockEnds.peek() <= position) {
+                blockEnds.poll();
+                depth--;
+            }
+
+            int next = target;
+            if (!blockStarts.isEmpty()) {
+                next = Math.min(next, blockStarts.peek());
+            }
+            if (!blockEnds.isEmpty()) {
+                next = Math.min(next, blockEnds.peek());
+            }
+
+            addRun(position, Math.min(next - 1, chromosomeLength));
+            position = next;
+        }
+    }
+
+    /**
+     * Adds a run of bases with the current coverage to the bins of the first level
+     */
+    private void addRun(int from, int to) {
+        if (from > to) {
+            return;
+        }
+
+        for (int bin = (from - 1) / binSize; bin <= (to - 1) / binSize; bin++) {
+            int overlap = Math.min(to, (bin + 1) * binSize) - Math.max(from, bin * binSize + 1) + 1;
+            min[bin] = Math.min(min[bin], depth);
+            max[bin] = Math.max(max[bin], depth);
+            sum[bin] += (long) depth * overlap;
+        }
+    }
+
+    private float[] createFirstLevel() {
+        float[] level = new float[min.length * VALUES];
+        for (int bin = 0; bin < min.length; bin++) {
+            level[bin * VALUES] = min[bin];
+            level[bin * VALUES + 1] = max[bin];
+            level[bin * VALUES + 2] = (float) ((double) sum[bin] / binLength(bin, binSize));
+        }
+        return level;
+    }
+
+    private float[] createNextLevel(float[] previous, int previousBinSize) {
+        int nextBinSize = previousBinSize * BamCoveragePyramid.LEVEL_ZOOM;
+        int previousCount = previous.length / VALUES;
+        float[] level = new float[binsCount(chromosomeLength, nextBinSize) * VALUES];
+        for (int bin = 0; bin < level.length / VALUES; bin++) {
+            float binMin = Float.MAX_VALUE;
+            float binMax = 0;
+            double binSum = 0;
+            int last = Math.min(previousCount, (bin + 1) * BamCoveragePyramid.LEVEL_ZOOM);
+            for (int i = bin * BamCoveragePyramid.LEVEL_ZOOM; i < last; i++) {
+                binMin = Math.min(binMin, previous[i * VALUES]);
+                binMax = Math.max(binMax, previous[i * VALUES + 1]);
+                binSum += (double) previous[i * VALUES + 2] * binLength(i, previousBinSize);
+            }
+            level[bin * VALUES] = binMin;
+            level[bin * VALUES + 1] = binMax;
+            level[bin * VALUES + 2] = (float) (binSum / binLength(bin, nextBinSize));
+        }
+        return level;
+    }
+
+    private int binLength(int bin, int size) {
+        return Math.min(chromosomeLength, (bin + 1) * size) - bin * size;
+    }
+
+    private static int binsCount(int length, int size) {
+        return (length - 1) / size + 1;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.epam.catgenome.entity.BiologicalDataItemResourceType;
+import com.epam.catgenome.entity.bam.BamFile;
+import com.epam.catgenome.entity.bam.BamQueryOption;
+import com.epam.catgenome.entity.bam.BamTrack;
+import com.epam.catgenome.entity.bam.BamTrackMode;
+import com.epam.catgenome.entity.bam.BaseCoverage;
+import com.epam.catgenome.entity.bam.Read;
+import com.epam.catgenome.entity.reference.Chromosome;
+import com.epam.catgenome.entity.reference.Reference;
+import com.epam.catgenome.entity.track.Track;
+import com.epam.catgenome.manager.FileManager;
+import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
+import com.epam.catgenome.util.Utils;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+
+/**
+ * <p>
+ * Manages precomputed coverage pyramids of BAM files, located in the server's file system. A pyramid is built in
+ * the background after a BAM file is registered, or on the first coverage request to a file, registered before
+ * pyramids were enabled. Coverage requests, that are zoomed out to at least {@code bam.coverage.pyramid.bin.size}
+ * bases per pixel, are served from the pyramid instead of reading all reads of the requested interval.
+ * Requests, that filter reads or show splice junctions or soft clipping, are always served from reads.
+ * </p>
+ */
+@Service
+public class BamCoveragePyramidManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BamCoveragePyramidManager.class);
+    private static final int DEFAULT_BIN_SIZE = 256;
+    private static final int BUILD_QUEUE_SIZE = 100;
+
+    @Value("#{catgenome['bam.coverage.pyramid.enabled'] ?: false}")
+    private boolean enabled;
+
+    @Value("#{catgenome['bam.coverage.pyramid.bin.size'] ?: " + DEFAULT_BIN_SIZE + "}")
+    private int binSize;
+
+    @Autowired
+    private FileManager fileManager;
+
+    @Autowired
+    private BamHelper bamHelper;
+
+    @Autowired
+    private BamFileManager bamFileManager;
+
+    @Autowired
+    private ReferenceGenomeManager referenceGenomeManager;
+
+    // IDs of files, for which pyramids are built or scheduled, an ID is removed if a build fails or is rejected
+    private final Set<Long> scheduledFiles = ConcurrentHashMap.newKeySet();
+
+    // builds run one at a time and never in a caller's thread, a build is rejected if the queue is full
+    private final ExecutorService buildExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(BUILD_QUEUE_SIZE));
+
+    @PreDestroy
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    /**
+     * Schedules building of a coverage pyramid for a BAM file, if pyramids are enabled and the file is located in
+     * the server's file system. If the queue of builds is full, the build is skipped and scheduled again on the
+     * next coverage request to the file.
+     * @param bamFile a registered {@code BamFile}
+     */
+    public void scheduleBuild(final BamFile bamFile) {
+        if (!enabled || bamFile.getType() != BiologicalDataItemResourceType.FILE
+                || !scheduledFiles.add(bamFile.getId())) {
+            return;
+        }
+
+        try {
+            buildExecutor.execute(() -> buildInBackground(bamFile));
+        } catch (RejectedExecutionException e) {
+            scheduledFiles.remove(bamFile.getId());
+            LOGGER.debug("Coverage pyramid build for BAM file {} is rejected", bamFile.getPath(), e);
+        }
+    }
+
+    /**
+     * Builds coverage pyramids for all chromosomes of a BAM file's reference. Each pyramid is written to a
+     * temporary file first and then moved in place, so requests never see partially written pyramids.
+     * @param bamFile a registered {@code BamFile}
+     * @throws IOException if the file can't be read or a pyramid can't be written
+     */
+    public void buildPyramid(final BamFile bamFile) throws IOException {
+        final Reference reference = referenceGenomeManager.loadReferenceGenome(bamFile.getReferenceId());
+        final List<Chromosome> chromosomes = reference.getChromosomes();
+        fileManager.makeBamCoverageDir(bamFile);
+
+        LOGGER.info("Building coverage pyramid for BAM file {}", bamFile.getPath());
+        try (SamReaderPool.Handle handle = bamHelper.acquireSamReader(bamFile, chromosomes, reference.getId())) {
+            final SamReader reader = handle.getReader();
+            for (Chromosome chromosome : chromosomes) {
+                final BamCoveragePyramidBuilder builder = new BamCoveragePyramidBuilder(chromosome.getSize(),
+                        binSize);
+                String sequenceName = chromosome.getName();
+                if (reader.getFileHeader().getSequence(sequenceName) == null) {
+                    sequenceName = Utils.changeChromosomeName(sequenceName);
+                }
+
+                if (reader.getFileHeader().getSequence(sequenceName) != null) {
+                    try (SAMRecordIterator iterator = reader.query(sequenceName, 0, 0, false)) {
+                        while (iterator.hasNext()) {
+                            builder.add(iterator.next());
+                        }
+                    }
+                }
+
+                final File file = fileManager.getBamCoverageFile(bamFile, chromosome.getName());
+                final File tempFile = new File(file.getPath() + ".tmp");
+                builder.write(tempFile);
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        LOGGER.info("Coverage pyramid for BAM file {} is built", bamFile.getPath());
+    }
+
+    /**
+     * Loads coverage of a track from a pyramid. If the pyramid of the file is missing, schedules its building.
+     * @param track a validated track, that specifies the BAM file, chromosome, interval and scale factor
+     * @param options options of a BAM query
+     * @return a track, filled with coverage, or {@code null}, if the request can't be served from a pyramid
+     * @throws IOException if the pyramid can't be read
+     */
+    public BamTrack<Read> loadCoverage(final Track<Read> track, final BamQueryOption options) throws IOException {
+        if (!enabled || options.getMode() != BamTrackMode.COVERAGE || !isServedByPyramid(options)) {
+            return null;
+        }
+
+        final BamFile bamFile = bamFileManager.loadBamFile(track.getId());
+        if (bamFile == null || bamFile.getType() != BiologicalDataItemResourceType.FILE) {
+            return null;
+        }
+
+        final File file = fileManager.getBamCoverageFile(bamFile, track.getChromosome().getName());
+        if (!file.exists()) {
+            scheduleBuild(bamFile);
+            return null;
+        }
+
+        final List<BaseCoverage> coverage = BamCoveragePyramid.loadCoverage(file, track.getStartIndex(),
+                track.getEndIndex(), track.getScaleFactor());
+        if (coverage == null) {
+            return null;
+        }
+
+        final BamTrack<Read> bamTrack = new BamTrack<>(track);
+        bamTrack.setBaseCoverage(coverage);
+        bamTrack.setDownsampleCoverage(Collections.emptyList());
+        bamTrack.setSpliceJunctions(Collections.emptyList());
+        return bamTrack;
+    }
+
+    /**
+     * Deletes coverage pyramids of a BAM file
+     * @param bamFile a {@code BamFile} to delete pyramids of
+     * @throws IOException if the pyramids can't be deleted
+     */
+    public void deletePyramid(final BamFile bamFile) throws IOException {
+        scheduledFiles.remove(bamFile.getId());
+        fileManager.deleteBamFileDirectory(bamFile);
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void buildInBackground(final BamFile bamFile) {
+        try {
+            buildPyramid(bamFile);
+        } catch (Exception e) {
+            scheduledFiles.remove(bamFile.getId());
+            LOGGER.error("Failed to build coverage pyramid for BAM file " + bamFile.getPath(), e);
+        }
+    }
+
+    private static boolean isServedByPyramid(final BamQueryOption options) {
+        return !Boolean.TRUE.equals(options.getShowSpliceJunction()) && !Boolean.TRUE.equals(options.getShowClipping())
+                && !options.isFilterDuplicate() && !options.isFilterNotPrimary()
+                && !options.isFilterVendorQualityFail() && !options.isFilterSupplementaryAlignment();
+    }
+}
@@ -43,6 +43,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import com.epam.catgenome.entity.bam.BamFile;
 import com.epam.catgenome.entity.bam.BamQueryOption;
@@ -50,6 +58,7 @@ import com.epam.catgenome.entity.bam.BamTrack;
 import com.epam.catgenome.entity.bam.BamTrackMode;
 import com.epam.catgenome.entity.bam.Read;
 import com.epam.catgenome.entity.wig.Wig;
+import htsjdk.samtools.SAMException;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFlag;
 import htsjdk.samtools.SAMRecord;
@@ -85,11 +94,15 @@ import com.epam.catgenome.entity.reference.Chromosome;
 import com.epam.catgenome.entity.reference.Sequence;
 import com.epam.catgenome.entity.track.Track;
 import com.epam.catgenome.manager.bam.handlers.Handler;
+import com.epam.catgenome.manager.bam.handlers.SAMRecordHandler;
 import com.epam.catgenome.manager.bucket.BucketManager;
+import com.epam.catgenome.manager.parallel.ParallelTaskExecutionUtils;
+import com.epam.catgenome.manager.parallel.TaskExecutorService;
 import com.epam.catgenome.manager.reference.ReferenceManager;
 import com.epam.catgenome.manager.reference.io.ChromosomeReferenceSequence;
 import com.epam.catgenome.util.AuthUtils;
 import com.epam.catgenome.util.BamUtil;
+import com.epam.catgenome.util.ConsensusPileup;
 import com.epam.catgenome.util.ConsensusSequenceUtils;
 import com.epam.catgenome.util.HdfsSeekableInputStream;
 import com.epam.catgenome.util.Utils;
@@ -126,6 +139,8 @@ public class BamHelper {
     }
 
     private static final Logger LOG = LoggerFactory.getLogger(BamHelper.class);
+    private static final long READER_MAX_LIFETIME = TimeUnit.HOURS.toMillis(1);
+    private static final char KEY_SEPARATOR = '|';
 
     @Autowired
     private BamFileManager bamFileManager;
@@ -136,12 +151,43 @@ public class BamHelper {
     @Autowired
     private ReferenceManager referenceManager;
 
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+
     /*@Value("#{catgenome['bam.max.reads.count'] ?: 500000}")
     private int maxReadsCount;*/
 
     @Value("#{catgenome['bam.regions.count'] ?: 20}")
     private int regionsCount;
 
+    /**
+     * {@code int} specifies how many BAM readers are kept open between track requests
+     */
+    @Value("#{catgenome['bam.reader.pool.size'] ?: 64}")
+    private int readerPoolSize;
+
+    /**
+     * {@code int} specifies time in seconds, after which an unused BAM reader is closed
+     */
+    @Value("#{catgenome['bam.reader.pool.idle.timeout'] ?: 300}")
+    private int readerIdleTimeout;
+
+    private SamReaderPool readerPool;
+
+    @PostConstruct
+    public void init() {
+        readerPool = new SamReaderPool(readerPoolSize, TimeUnit.SECONDS.toMillis(readerIdleTimeout),
+                                       READER_MAX_LIFETIME);
+    }
+
+    /**
+     * Closes BAM readers, kept open between track requests
+     */
+    @PreDestroy
+    public void destroy() {
+        readerPool.close();
+    }
+
     /**
      * Calculates the consensus sequence from the reads from a {@code BamFile}
      * @param track to load the consensus sequence
@@ -157,8 +203,7 @@ public class BamHelper {
 
         final BamFile bamFile = bamFileManager.loadBamFile(track.getId());
         Assert.notNull(bamFile, getMessage(MessagesConstants.ERROR_FILE_NOT_FOUND));
-        ConsensusSequenceUtils.calculateConsensusSequence(track,
-                getReadsFromFile(chromosome, track, bamFile, track.getBlocks()));
+        ConsensusSequenceUtils.calculateConsensusSequence(track, pileUpReads(chromosome, track, bamFile));
 
         final long end = System.currentTimeMillis();
         LOG.debug("Calculation of consensus sequence tooks " + (end - start) + "ms.");
@@ -173,7 +218,7 @@ public class BamHelper {
      * @throws IOException if {@code BamFile} cannot be read
      */
     public void getReadsFromFile(final Track<Read> track, final BamQueryOption options,
-                                 BamTrackEmitter emitter) throws IOException {
+                                 AbstractBamTrackEmitter emitter) throws IOException {
         final BamTrack<Read> bamTrack = new BamTrack<>(track);
         final BamFile bamFile = bamFileManager.loadBamFile(bamTrack.getId());
         Assert.notNull(bamFile, getMessage(MessagesConstants.ERROR_FILE_NOT_FOUND));
@@ -228,7 +273,8 @@ public class BamHelper {
      * @throws IOException if {@code BamFile} cannot be read
      */
     public void fillEmitterByReadsFromUrl(final Track<Read> track, String bamUrl, String bamIndexUrl,
-                                                    final BamQueryOption options, BamTrackEmitter bamTrackEmitter)
+                                                    final BamQueryOption options,
+                                                    AbstractBamTrackEmitter bamTrackEmitter)
             throws IOException {
         final BamTrack<Read> bamTrack = new BamTrack<>(track);
         Assert.notNull(track.getChromosome().getReferenceId());
@@ -315,59 +361,137 @@ public class BamHelper {
     }
 
     private void fillEmitterByReads(final BamFile bamFile, BamTrack<Read> bamTrack, final BamQueryOption options,
-                                    BamTrackEmitter trackEmitter) throws
+                                    AbstractBamTrackEmitter trackEmitter) throws
             IOException {
 
         Chromosome chromosome = bamTrack.getChromosome();
-        try (SamReader reader = makeSamReader(bamFile, Collections.singletonList(chromosome),
+        String chromosomeName;
+        int regionsNumber;
+        try (SamReaderPool.Handle handle = acquireSamReader(bamFile, Collections.singletonList(chromosome),
                 chromosome.getReferenceId())) {
-            LOG.debug(getMessage(MessagesConstants.DEBUG_FILE_OPENING, bamFile.getPath()));
-            String chromosomeName = options.getChromosomeName();
+            try {
+                SamReader reader = handle.getReader();
+                LOG.debug(getMessage(MessagesConstants.DEBUG_FILE_OPENING, bamFile.getPath()));
+                chromosomeName = options.getChromosomeName();
 
-            if (reader.getFileHeader().getSequence(chromosomeName) == null) {
-                chromosomeName = Utils.changeChromosomeName(chromosomeName);
-            }
+                if (reader.getFileHeader().getSequence(chromosomeName) == null) {
+                    chromosomeName = Utils.changeChromosomeName(chromosomeName);
+                }
 
-            Handler<SAMRecord> filter = filterReads(bamTrack, options, reader, chromosomeName, options.getMode() ==
-                    BamTrackMode.COVERAGE, trackEmitter);
+                regionsNumber = options.getMode() == BamTrackMode.COVERAGE ?
+                        ParallelTaskExecutionUtils.splitFileReadingInterval(bamTrack, LOG,
+                                taskExecutorService.getTaskNumberOfThreads()) : 1;
+                if (regionsNumber <= 1) {
+                    Handler<SAMRecord> filter = filterReads(bamTrack, options, reader, chromosomeName,
+                            options.getMode() == BamTrackMode.COVERAGE, trackEmitter);
+                    finishTrack(bamTrack, filter, trackEmitter);
+                    return;
+                }
+            } catch (IOException | SAMException e) {
+                handle.invalidate();
+                throw e;
+            }
+        }
 
-            filter.getSifter().finish();
+        SAMRecordHandler handler = BamUtil.createSAMRecordHandler(bamTrack, options, referenceManager, true,
+                trackEmitter);
+        fillCoverageByRegions(bamFile, bamTrack, options, chromosomeName, handler, regionsNumber, trackEmitter);
+        finishTrack(bamTrack, handler, trackEmitter);
+    }
 
-            bamTrack.setMinPosition(filter.getMinPosition());
-            bamTrack.setReferenceBuffer(filter.getReferenceBuff());
-            bamTrack.setDownsampleCoverage(filter.getSifter().getDownsampleCoverageResult());
-            bamTrack.setBaseCoverage(filter.getBaseCoverage(bamTrack.getScaleFactor()));
-            bamTrack.setSpliceJunctions(filter.getSpliceJunctions());
+    /**
+     * Calculates coverage of a large interval in parallel: the interval is split into regions, each region is
+     * read by a separate task with its own reader. Records, that span several regions, contribute to coverage of
+     * each of them, but are passed to a filter and counted in splice junctions only by the region, where they start.
+     */
+    private void fillCoverageByRegions(final BamFile bamFile, BamTrack<Read> bamTrack, final BamQueryOption options,
+                                       String chromosomeName, SAMRecordHandler handler, int regionsNumber,
+                                       AbstractBamTrackEmitter trackEmitter) throws IOException {
+        final Chromosome chromosome = bamTrack.getChromosome();
+        final long length = (long) bamTrack.getEndIndex() - bamTrack.getStartIndex() + 1;
+
+        List<SAMRecordHandler> regions = new ArrayList<>(regionsNumber);
+        List<Callable<Void>> tasks = new ArrayList<>(regionsNumber);
+        for (int i = 0; i < regionsNumber; i++) {
+            final int regionStart = bamTrack.getStartIndex() + (int) (length * i / regionsNumber);
+            final int regionEnd = bamTrack.getStartIndex() + (int) (length * (i + 1) / regionsNumber) - 1;
+            final SAMRecordHandler region = handler.createRegionHandler(regionStart, regionEnd, i == 0,
+                    BamUtil.createSAMRecordFilter(bamTrack, options, true, trackEmitter));
+            regions.add(region);
+            tasks.add(() -> {
+                try (SamReaderPool.Handle handle = acquireSamReader(bamFile, Collections.singletonList(chromosome),
+                        chromosome.getReferenceId())) {
+                    try {
+                        addRecords(handle.getReader(), chromosomeName, regionStart, regionEnd, options, region);
+                    } catch (IOException | SAMException e) {
+                        handle.invalidate();
+                        throw e;
+                    }
+                }
+                return null;
+            });
+        }
 
-            trackEmitter.writeTrackAndFinish(bamTrack);
+        double time1 = Utils.getSystemTimeMilliseconds();
+        for (Future<Void> future : taskExecutorService.executeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
         }
+        handler.mergeRegions(regions);
+        double time2 = Utils.getSystemTimeMilliseconds();
+        LOG.debug("Coverage of {} regions calculated in {} ms", regionsNumber, time2 - time1);
+    }
+
+    private void finishTrack(BamTrack<Read> bamTrack, Handler<SAMRecord> filter, AbstractBamTrackEmitter trackEmitter)
+            throws IOException {
+        filter.getSifter().finish();
+
+        bamTrack.setMinPosition(filter.getMinPosition());
+        bamTrack.setReferenceBuffer(filter.getReferenceBuff());
+        bamTrack.setDownsampleCoverage(filter.getSifter().getDownsampleCoverageResult());
+        bamTrack.setBaseCoverage(filter.getBaseCoverage(bamTrack.getScaleFactor()));
+        bamTrack.setSpliceJunctions(filter.getSpliceJunctions());
+
+        trackEmitter.writeTrackAndFinish(bamTrack);
     }
 
     private List<Wig> getRegions(BamFile bamFile, Chromosome chromosome, int startIndex, int endIndex)
             throws IOException {
-        try (SamReader reader = makeSamReader(bamFile, Collections.singletonList(chromosome),
+        try (SamReaderPool.Handle handle = acquireSamReader(bamFile, Collections.singletonList(chromosome),
                 chromosome.getReferenceId())) {
-            SAMSequenceRecord sequence = reader.getFileHeader().getSequence(chromosome.getName());
-            if (sequence == null) {
-                sequence = reader.getFileHeader().getSequence(Utils.changeChromosomeName(chromosome.getName()));
-            }
+            try {
+                SamReader reader = handle.getReader();
+                SAMSequenceRecord sequence = reader.getFileHeader().getSequence(chromosome.getName());
+                if (sequence == null) {
+                    sequence = reader.getFileHeader().getSequence(Utils.changeChromosomeName(chromosome.getName()));
+                }
+
+                int chunkSize = (endIndex - startIndex) / regionsCount;
+                List<Wig> result = new ArrayList<>(regionsCount);
+                int chunkStartIndex = startIndex;
+                for (int i = 0; i < regionsCount; i++) {
+                    checkAreaForReads(
+                            reader, sequence.getSequenceName(),
+                            chunkStartIndex, chunkStartIndex + chunkSize
+                    ).ifPresent(result::add);
+                    chunkStartIndex = startIndex + i * chunkSize;
+                }
 
-            int chunkSize = (endIndex - startIndex) / regionsCount;
-            List<Wig> result = new ArrayList<>(regionsCount);
-            int chunkStartIndex = startIndex;
-            for (int i = 0; i < regionsCount; i++) {
                 checkAreaForReads(
                         reader, sequence.getSequenceName(),
-                        chunkStartIndex, chunkStartIndex + chunkSize
+                        chunkStartIndex, endIndex
                 ).ifPresent(result::add);
-                chunkStartIndex = startIndex + i * chunkSize;
+                return result;
+            } catch (SAMException e) {
+                handle.invalidate();
+                throw e;
             }
-
-            checkAreaForReads(
-                    reader, sequence.getSequenceName(),
-                    chunkStartIndex, endIndex
-            ).ifPresent(result::add);
-            return result;
         }
     }
 
@@ -378,27 +502,30 @@ public class BamHelper {
     }
 
     private Handler<SAMRecord> filterReads(BamTrack<Read> bamTrack, BamQueryOption options, SamReader reader,
-                                           String chromosomeName, boolean coverageOnly, BamTrackEmitter trackEmitter)
+                                           String chromosomeName, boolean coverageOnly,
+                                           AbstractBamTrackEmitter trackEmitter)
             throws IOException {
                                                                                             //int maxReadCount
-        CloseableIterator<SAMRecord> iterator = reader.query(chromosomeName, bamTrack.getStartIndex(),
-                                                                   bamTrack.getEndIndex(), false);
-        LOG.debug(getMessage(MessagesConstants.DEBUG_GET_ITERATOR_QUERY, iterator.toString()));
-
-        iterator = setIteratorFiltering(iterator, options);
-
         final Handler<SAMRecord> filter = BamUtil.createSAMRecordHandler(bamTrack, options, referenceManager,
                 coverageOnly, trackEmitter); //maxReadCount
 
-        while (iterator.hasNext()) {
-            final SAMRecord samRecord = iterator.next();
-            //if read unmapped
-            filter.add(samRecord);
-        }
-
+        addRecords(reader, chromosomeName, bamTrack.getStartIndex(), bamTrack.getEndIndex(), options, filter);
         return filter;
     }
 
+    private void addRecords(SamReader reader, String chromosomeName, int startIndex, int endIndex,
+                            BamQueryOption options, Handler<SAMRecord> filter) throws IOException {
+        try (CloseableIterator<SAMRecord> iterator = setIteratorFiltering(
+                reader.query(chromosomeName, startIndex, endIndex, false), options)) {
+            LOG.debug(getMessage(MessagesConstants.DEBUG_GET_ITERATOR_QUERY, iterator.toString()));
+            while (iterator.hasNext()) {
+                final SAMRecord samRecord = iterator.next();
+                //if read unmapped
+                filter.add(samRecord);
+            }
+        }
+    }
+
     private CloseableIterator<SAMRecord> setIteratorFiltering(final CloseableIterator<SAMRecord> iterator,
                                                               final BamQueryOption options) {
         List<SamRecordFilter> filters = new ArrayList<>();
@@ -422,49 +549,66 @@ public class BamHelper {
         return iterator;
     }
 
-    private Map<Sequence, List<SAMRecord>> getReadsFromFile(
-            final Chromosome chromosome, final Track<Sequence> track, final BamFile bamFile,
-            final List<Sequence> blocks) throws IOException {
-        final Map<Sequence, List<SAMRecord>> records = new HashMap<>();
-        try (SamReader reader = makeSamReader(bamFile, Collections.singletonList(chromosome),
+    /**
+     * Counts bases of the reads, aligned to the blocks of a track. A large interval is split into regions, each
+     * region is piled up by a separate task with its own reader.
+     */
+    private ConsensusPileup pileUpReads(final Chromosome chromosome, final Track<Sequence> track,
+                                        final BamFile bamFile) throws IOException {
+        final int regionsNumber = ParallelTaskExecutionUtils.splitFileReadingInterval(track, LOG,
+                taskExecutorService.getTaskNumberOfThreads());
+        final long length = (long) track.getEndIndex() - track.getStartIndex() + 1;
+
+        List<Callable<ConsensusPileup>> tasks = new ArrayList<>(regionsNumber);
+        for (int i = 0; i < regionsNumber; i++) {
+            final int regionStart = track.getStartIndex() + (int) (length * i / regionsNumber);
+            final int regionEnd = track.getStartIndex() + (int) (length * (i + 1) / regionsNumber) - 1;
+            tasks.add(() -> pileUpRegion(chromosome, track, bamFile, regionStart, regionEnd));
+        }
+
+        List<ConsensusPileup> pileups = new ArrayList<>(tasks.size());
+        for (Future<ConsensusPileup> future : taskExecutorService.executeAll(tasks)) {
+            try {
+                pileups.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return pileups.get(0).merge(pileups);
+    }
+
+    private ConsensusPileup pileUpRegion(final Chromosome chromosome, final Track<Sequence> track,
+                                         final BamFile bamFile, final int regionStart, final int regionEnd)
+            throws IOException {
+        final ConsensusPileup pileup = new ConsensusPileup(track.getBlocks(), regionStart, regionEnd);
+        try (SamReaderPool.Handle handle = acquireSamReader(bamFile, Collections.singletonList(chromosome),
                 chromosome.getReferenceId())) {
+            SamReader reader = handle.getReader();
             LOG.debug(getMessage(MessagesConstants.DEBUG_FILE_OPENING, bamFile.getPath()));
             String chromosomeName = chromosome.getName();
-            final int startIndex = track.getStartIndex();
-            final int endIndex = track.getEndIndex();
 
             if (reader.getFileHeader().getSequence(chromosomeName) == null) {
                 chromosomeName = Utils.changeChromosomeName(chromosomeName);
             }
-            final SAMRecordIterator iterator = reader.queryOverlapping(chromosomeName, startIndex, endIndex);
-
-            LOG.debug(getMessage(MessagesConstants.DEBUG_GET_ITERATOR_QUERY, iterator.toString()));
-            while (iterator.hasNext()) {
-                final SAMRecord samRecord = iterator.next();
-                //if read unmapped
-                if (!samRecord.getSAMFlags().contains(SAMFlag.READ_UNMAPPED) && !samRecord.getCigar().isEmpty() &&
-                        samRecord.getEnd() > samRecord.getStart()) {
-                    addRecordToBlock(blocks, records, samRecord);
+            try (SAMRecordIterator iterator = reader.queryOverlapping(chromosomeName, regionStart, regionEnd)) {
+                LOG.debug(getMessage(MessagesConstants.DEBUG_GET_ITERATOR_QUERY, iterator.toString()));
+                while (iterator.hasNext()) {
+                    final SAMRecord samRecord = iterator.next();
+                    //if read unmapped
+                    if (!samRecord.getSAMFlags().contains(SAMFlag.READ_UNMAPPED) && !samRecord.getCigar().isEmpty()
+                            && samRecord.getEnd() > samRecord.getStart()) {
+                        pileup.add(samRecord);
+                    }
                 }
+            } catch (SAMException e) {
+                handle.invalidate();
+                throw e;
             }
         }
-        return records;
-    }
-
-    private void addRecordToBlock(List<Sequence> blocks, Map<Sequence, List<SAMRecord>> records,
-            SAMRecord samRecord) {
-        blocks.forEach(block -> {
-            if (!(samRecord.getStart() > block.getEndIndex()) && !(samRecord.getEnd() < block
-                        .getStartIndex())) {
-                List<SAMRecord> lst = records.get(block);
-                if (lst == null) {
-                    lst = new ArrayList<>();
-                }
-                lst.add(samRecord);
-                records.remove(block);
-                records.put(block, lst);
-            }
-        });
+        return pileup;
     }
 
     public SamReader makeSamReader(final BamFile bamFile, List<Chromosome> chromosomes, Long referenceId)
@@ -472,6 +616,44 @@ public class BamHelper {
         return openSamReaderResource(loadIndex(loadFile(bamFile), bamFile.getIndex()), chromosomes, referenceId);
     }
 
+    /**
+     * Borrows a {@code SamReader} from a pool of readers, that are kept open between requests, or opens a new one.
+     * The returned handle should be closed to return the reader to the pool, iterators of the reader should be
+     * closed before that.
+     * @param bamFile a file to read
+     * @param chromosomes chromosomes to use as a reference for CRAM files
+     * @param referenceId an ID of the reference
+     * @return a handle of the reader
+     * @throws IOException if a reader can't be opened
+     */
+    public SamReaderPool.Handle acquireSamReader(final BamFile bamFile, List<Chromosome> chromosomes,
+                                                 Long referenceId) throws IOException {
+        return readerPool.acquire(getReaderKey(bamFile, chromosomes, referenceId),
+            () -> makeSamReader(bamFile, chromosomes, referenceId));
+    }
+
+    /**
+     * Makes a key, that identifies readers in the pool. Readers of local files are reopened if a file is modified.
+     */
+    private String getReaderKey(final BamFile bamFile, List<Chromosome> chromosomes, Long referenceId) {
+        final BiologicalDataItem index = bamFile.getIndex();
+        StringBuilder key = new StringBuilder()
+            .append(bamFile.getType()).append(KEY_SEPARATOR).append(bamFile.getPath()).append(KEY_SEPARATOR)
+            .append(bamFile.getBucketId()).append(KEY_SEPARATOR)
+            .append(index.getType()).append(KEY_SEPARATOR).append(index.getPath()).append(KEY_SEPARATOR)
+            .append(index.getBucketId()).append(KEY_SEPARATOR)
+            .append(referenceId).append(KEY_SEPARATOR)
+            .append(chromosomes.stream().map(Chromosome::getName).collect(Collectors.joining(",")));
+
+        if (bamFile.getType() == BiologicalDataItemResourceType.FILE) {
+            key.append(KEY_SEPARATOR).append(new File(bamFile.getPath()).lastModified());
+        }
+        if (index.getType() == BiologicalDataItemResourceType.FILE) {
+            key.append(KEY_SEPARATOR).append(new File(index.getPath()).lastModified());
+        }
+        return key.toString();
+    }
+
     private SamInputResource loadIndex(final SamInputResource samInputResource, final BiologicalDataItem indexFile)
             throws IOException {
         SamInputResource resource;
@@ -554,6 +736,9 @@ public class BamHelper {
     private SamReader openSamReaderResource(final SamInputResource inputResource,
             List<Chromosome> chromosomes, Long referenceId) {
         Assert.notNull(inputResource, getMessage(RESOURCE_NOT_FOUND));
+        // CACHE_FILE_BASED_INDEXES is not enabled: CachingBAMFileIndex of htsjdk keeps the last queried reference
+        // in a WeakHashMap under a different Integer instance, than the one it compares with, so for references
+        // with index over 127 a GC clears the entry and a long-lived pooled reader then finds no reads at all
         return SamReaderFactory.makeDefault()
                 .validationStringency(ValidationStringency.SILENT)
                 .referenceSource(new ReferenceSource(new ChromosomeReferenceSequence(chromosomes,
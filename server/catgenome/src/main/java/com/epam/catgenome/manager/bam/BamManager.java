@@ -35,6 +35,7 @@ import java.util.List;
 
 import com.epam.catgenome.entity.bam.BamFile;
 import com.epam.catgenome.entity.bam.BamQueryOption;
+import com.epam.catgenome.entity.bam.BamTrack;
 import com.epam.catgenome.entity.bam.BamTrackMode;
 import com.epam.catgenome.entity.bam.BasePosition;
 import com.epam.catgenome.entity.bam.Read;
@@ -63,6 +64,7 @@ import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.manager.reference.ReferenceManager;
 import com.epam.catgenome.util.BamUtil;
 import com.epam.catgenome.util.Utils;
+import htsjdk.samtools.SAMException;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SamReader;
@@ -101,6 +103,9 @@ public class BamManager {
     @Autowired
     private TaskExecutorService taskExecutorService;
 
+    @Autowired
+    private BamCoveragePyramidManager bamCoveragePyramidManager;
+
     @Value("#{catgenome['bam.max.coverage.range'] ?: 1000000}")
     private int maxCoverageRange;
 
@@ -137,6 +142,7 @@ public class BamManager {
             }
         }
 
+        bamCoveragePyramidManager.scheduleBuild(newBamFile);
         return newBamFile;
     }
 
@@ -149,6 +155,7 @@ public class BamManager {
         BamFile fileToDelete = bamFileManager.loadBamFile(bamFileId);
         Assert.notNull(fileToDelete, getMessage(MessagesConstants.ERROR_FILE_NOT_FOUND));
         bamFileManager.deleteBamFile(fileToDelete);
+        bamCoveragePyramidManager.deletePyramid(fileToDelete);
         return fileToDelete;
     }
 
@@ -161,10 +168,23 @@ public class BamManager {
      */
     public void sendBamTrackToEmitter(final Track<Read> track, BamQueryOption option, ResponseBodyEmitter emitter)
             throws IOException {
+        sendBamTrackToEmitter(track, option, new BamTrackEmitter(emitter));
+    }
+
+    /**
+     * Returns {@code Track} filled with BAM data from a specified BAM file in the server's file system, using
+     * a specified {@code BamTrackEmitter} to encode the data
+     * @param track input track
+     * @param option BAM track options
+     * @param bamTrackEmitter where to write data
+     * @throws IOException on resource reading errors
+     */
+    public void sendBamTrackToEmitter(final Track<Read> track, BamQueryOption option,
+                                      AbstractBamTrackEmitter bamTrackEmitter) throws IOException {
         final Chromosome chromosome = trackHelper.validateTrack(track);
         BamQueryOption currentOptions = option == null ? new BamQueryOption() : option;
         BamUtil.validateOptions(currentOptions, chromosome);
-        fillEmitterByBamTrack(track, currentOptions, emitter);
+        fillEmitterByBamTrack(track, currentOptions, bamTrackEmitter);
     }
 
     /**
@@ -179,10 +199,26 @@ public class BamManager {
     public void sendBamTrackToEmitterFromUrl(final Track<Read> track, BamQueryOption option, String bamUrl,
                                                        String indexUrl, ResponseBodyEmitter emitter)
             throws IOException {
+        sendBamTrackToEmitterFromUrl(track, option, bamUrl, indexUrl, new BamTrackEmitter(emitter));
+    }
+
+    /**
+     * Returns {@code Track} filled with BAM data from a specified URL, using a specified {@code BamTrackEmitter}
+     * to encode the data
+     * @param track input track
+     * @param option BAM track options
+     * @param bamUrl path to BAM file
+     * @param indexUrl path to Bam index file
+     * @param bamTrackEmitter where to write data
+     * @throws IOException on resource reading errors
+     */
+    public void sendBamTrackToEmitterFromUrl(final Track<Read> track, BamQueryOption option, String bamUrl,
+                                             String indexUrl, AbstractBamTrackEmitter bamTrackEmitter)
+            throws IOException {
         final Chromosome chromosome = trackHelper.validateUrlTrack(track, bamUrl, indexUrl);
         BamQueryOption currentOptions = option == null ? new BamQueryOption() : option;
         BamUtil.validateOptions(currentOptions, chromosome);
-        fillEmitterByBamTrackFromURL(track, bamUrl, indexUrl, currentOptions, emitter);
+        fillEmitterByBamTrackFromURL(track, bamUrl, indexUrl, currentOptions, bamTrackEmitter);
     }
 
     /**
@@ -229,35 +265,38 @@ public class BamManager {
 
     @Nullable
     private Read getReadFromBamFile(ReadQuery query, Chromosome chromosome, BamFile bamFile) throws IOException {
-        try (SamReader reader = bamHelper.makeSamReader(bamFile, Collections.singletonList(chromosome),
-                                                        chromosome.getReferenceId())) {
+        try (SamReaderPool.Handle handle = bamHelper.acquireSamReader(bamFile, Collections.singletonList(chromosome),
+                                                                      chromosome.getReferenceId())) {
+            SamReader reader = handle.getReader();
             String chromosomeName = chromosome.getName();
             if (reader.getFileHeader().getSequence(chromosomeName) == null) {
                 chromosomeName = Utils.changeChromosomeName(chromosomeName);
             }
 
-            SAMRecordIterator iterator = reader.query(chromosomeName, query.getStartIndex(), query.getEndIndex(),
-                                                      true);
-            while (iterator.hasNext()) {
-                final SAMRecord samRecord = iterator.next();
-                if (samRecord.getReadName().equals(query.getName())) {
-                    BamQueryOption option = new BamQueryOption();
-                    option.setRefID(chromosome.getReferenceId());
-                    option.setChromosomeName(chromosome.getName());
-                    SAMRecordHandler recordHandler = new SAMRecordHandler(query.getStartIndex(), query.getEndIndex(),
-                                                                          referenceManager, null, option);
-                    List<BasePosition> diffBase = recordHandler.computeDifferentBase(samRecord);
-                    return BamUtil.createExtendedRead(samRecord, diffBase);
+            try (SAMRecordIterator iterator = reader.query(chromosomeName, query.getStartIndex(),
+                                                           query.getEndIndex(), true)) {
+                while (iterator.hasNext()) {
+                    final SAMRecord samRecord = iterator.next();
+                    if (samRecord.getReadName().equals(query.getName())) {
+                        BamQueryOption option = new BamQueryOption();
+                        option.setRefID(chromosome.getReferenceId());
+                        option.setChromosomeName(chromosome.getName());
+                        SAMRecordHandler recordHandler = new SAMRecordHandler(query.getStartIndex(),
+                                query.getEndIndex(), referenceManager, null, option);
+                        List<BasePosition> diffBase = recordHandler.computeDifferentBase(samRecord);
+                        return BamUtil.createExtendedRead(samRecord, diffBase);
+                    }
                 }
+            } catch (SAMException e) {
+                handle.invalidate();
+                throw e;
             }
         }
         return null;
     }
 
     private void fillEmitterByBamTrack(final Track<Read> track, final BamQueryOption options,
-                                                 ResponseBodyEmitter emitter) throws IOException {
-        final BamTrackEmitter bamTrackEmitter = new BamTrackEmitter(emitter);
-
+                                       final AbstractBamTrackEmitter bamTrackEmitter) throws IOException {
         // TODO: track.getEndIndex() - track.getStartIndex() > maxCoverageRange
         if (options.getMode() == BamTrackMode.REGIONS) {
             taskExecutorService.executeTrackTask(
@@ -265,6 +304,15 @@ public class BamManager {
                 () -> bamTrackEmitter.writeTrackAndFinish(bamHelper.getRegionsFromFile(track))
             );
         } else {
+            final BamTrack<Read> coverageTrack = bamCoveragePyramidManager.loadCoverage(track, options);
+            if (coverageTrack != null) {
+                taskExecutorService.executeTrackTask(
+                    bamTrackEmitter, SEQUENTIAL,
+                    () -> bamTrackEmitter.writeTrackAndFinish(coverageTrack)
+                );
+                return;
+            }
+
             taskExecutorService.executeTrackTask(
                 bamTrackEmitter, ASYNC,
                 () -> bamHelper.getReadsFromFile(track, options, bamTrackEmitter)
@@ -273,10 +321,9 @@ public class BamManager {
     }
 
     private void fillEmitterByBamTrackFromURL(final Track<Read> track, String bamUrl, String indexUrl,
-                                                        final BamQueryOption options, ResponseBodyEmitter emitter)
+                                              final BamQueryOption options,
+                                              final AbstractBamTrackEmitter bamTrackEmitter)
             throws IOException {
-        final BamTrackEmitter bamTrackEmitter = new BamTrackEmitter(emitter);
-
         if (track.getEndIndex() - track.getStartIndex() > maxCoverageRange) {
             taskExecutorService.executeTrackTask(
                 bamTrackEmitter, SEQUENTIAL,
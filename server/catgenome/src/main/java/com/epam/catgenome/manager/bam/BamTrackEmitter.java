@@ -24,52 +24,39 @@
 
 package com.epam.catgenome.manager.bam;
 
-import com.epam.catgenome.controller.JsonMapper;
 import com.epam.catgenome.entity.bam.BamTrack;
 import com.epam.catgenome.entity.bam.Read;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.http.MediaType;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import java.io.IOException;
 
 /**
- * Class wrapper over {@link ResponseBodyEmitter}. Common usage is continuously writing {@link Read}s by calling
- * {@link BamTrackEmitter#writeRecord} method and finishing by calling
+ * {@link AbstractBamTrackEmitter}, that writes a track as JSON. Common usage is continuously writing {@link Read}s
+ * by calling {@link BamTrackEmitter#writeRecord} method and finishing by calling
  * {@link BamTrackEmitter#writeTrackAndFinish(BamTrack)} passing result {@link BamTrack} ({@link BamTrack#blocks} field
  * will be ignored.
  * In case of any exception during writing to {@link BamTrackEmitter} {@link BamTrackEmitter#finishWithException} should
  * be called.
  * BamTrackEmitter produces buffering.
  */
-public class BamTrackEmitter {
+public class BamTrackEmitter extends AbstractBamTrackEmitter {
 
     private static final int BUFFER_SIZE = 512 * 1024;
 
-    private JsonMapper jsonMapper;
-
-    private final ResponseBodyEmitter emitter;
-
     private boolean firstRecordWasWritten = false;
-    private boolean finished = false;
 
     @SuppressWarnings("PMD.AvoidStringBufferField")
     private StringBuilder stringBuffer;
 
     public BamTrackEmitter(ResponseBodyEmitter emitter) throws IOException {
-        this.emitter = emitter;
+        super(emitter);
         this.stringBuffer = new StringBuilder(BUFFER_SIZE);
-        this.jsonMapper = new JsonMapper();
 
         writeHeader();
     }
 
-    /**
-     * Write a read to the emitter. Real data transferring could not be happened due to buffering
-     * @param read to be written
-     * @throws IOException in case of connections troubles
-     */
+    @Override
     public void writeRecord(Read read) throws IOException {
         checkFinished();
 
@@ -77,48 +64,36 @@ public class BamTrackEmitter {
             write(",");
         }
 
-        write(jsonMapper.writeValueAsString(read));
+        write(getJsonMapper().writeValueAsString(read));
 
         if (!firstRecordWasWritten) {
             firstRecordWasWritten = true;
         }
     }
 
-    /**
-     * Must be called after all reads are written by {@link #writeRecord} method. Will write BamTrack to the emitter
-     * ignoring {@link BamTrack#blocks} field. This method will complete wrapped emitter.
-     * @param bamTrack to be written
-     * @throws IOException in case of connections troubles
-     */
+    @Override
     public void writeTrackAndFinish(BamTrack<Read> bamTrack) throws IOException {
         checkFinished();
         write("],");
 
-        JsonNode metadata = jsonMapper.convertValue(bamTrack, JsonNode.class);
-        ((ObjectNode) metadata).remove("blocks");
-        write(jsonMapper.writeValueAsString(metadata).substring(1));
+        write(writeTrackMetadata(bamTrack).substring(1));
         write(",\"status\":\"OK\"}");
 
         sendBuffer();
-        emitter.complete();
-        finished = true;
+        getEmitter().complete();
+        setFinished(true);
     }
 
-    /**
-     * Should be called in case of any exception during writing to {@link BamTrackEmitter}. Will try to complete
-     * wrapped emitter with exception message and ERROR status or at least call
-     * {@link ResponseBodyEmitter#completeWithError(Throwable)}
-     * @param throwable - exception during data transferring
-     */
+    @Override
     public void finishWithException(Throwable throwable) {
         checkFinished();
         try {
             write("]},\"status\":\"ERROR\",\"message\":\"" + throwable.getLocalizedMessage() + "\"}");
             sendBuffer();
         } catch (IOException e) {
-            emitter.completeWithError(e);
+            getEmitter().completeWithError(e);
         }
-        emitter.complete();
+        getEmitter().complete();
     }
 
     private void writeHeader() throws IOException {
@@ -134,14 +109,8 @@ public class BamTrackEmitter {
     }
 
     private void sendBuffer() throws IOException {
-        emitter.send(stringBuffer.toString(), MediaType.TEXT_PLAIN);
+        getEmitter().send(stringBuffer.toString(), MediaType.TEXT_PLAIN);
         stringBuffer.setLength(0);
     }
 
-    private void checkFinished() {
-        if (finished) {
-            throw new IllegalStateException("Already finished");
-        }
-    }
-
 }
@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import com.epam.catgenome.entity.bam.BamTrack;
+import com.epam.catgenome.entity.bam.BasePosition;
+import com.epam.catgenome.entity.bam.NgbSamTagAndValue;
+import com.epam.catgenome.entity.bam.Read;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * <p>
+ * {@link AbstractBamTrackEmitter}, that writes reads in a compact binary format instead of JSON. The format is
+ * requested by a client with {@link #MEDIA_TYPE} in Accept header. Reads are encoded field by field into a reused
+ * buffer, that is sent to the client when it is full.
+ * </p>
+ * <p>
+ * All numbers are big-endian. A stream starts with {@link #MAGIC} bytes and a format version byte, followed by
+ * frames. Each frame starts with a type byte and an int length of its body:
+ * <ul>
+ *     <li>{@link #FRAME_READ} - a read: ints startIndex, endIndex, flagMask, mappingQuality, tLen, pNext
+ *     ({@link #NULL_INT} for missing values), byte stand (-1 for missing value), strings name, cigarString, rName,
+ *     rNext, pairedReadName, headSequence, tailSequence, sequence, qualities, int count of different bases followed
+ *     by int relativePosition and byte base for each, int count of tags followed by string tag and string value for
+ *     each. A string is an int length in bytes (-1 for null) followed by UTF-8 bytes</li>
+ *     <li>{@link #FRAME_TRACK} - UTF-8 JSON of a {@link BamTrack} without blocks, the last frame of a successful
+ *     stream</li>
+ *     <li>{@link #FRAME_ERROR} - UTF-8 error message, the last frame of a failed stream</li>
+ * </ul>
+ * </p>
+ */
+public class BinaryBamTrackEmitter extends AbstractBamTrackEmitter {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-ngb-reads";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    public static final byte[] MAGIC = {'N', 'G', 'B', 'R'};
+    public static final byte VERSION = 1;
+
+    public static final byte FRAME_READ = 1;
+    public static final byte FRAME_TRACK = 2;
+    public static final byte FRAME_ERROR = 3;
+
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final byte NULL_BYTE = -1;
+    public static final int NULL_LENGTH = -1;
+
+    private static final int BUFFER_SIZE = 512 * 1024;
+    private static final int FRAME_HEADER_SIZE = 5;
+    private static final char MAX_ASCII_CHAR = 127;
+
+    private ByteBuffer buffer;
+
+    public BinaryBamTrackEmitter(ResponseBodyEmitter emitter) {
+        super(emitter);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+    }
+
+    /**
+     * Checks if a client accepts reads in binary format
+     * @param accept request's Accept header, may be null
+     * @return true if {@link #MEDIA_TYPE} is explicitly listed in accepted types, false if it isn't or the header
+     * can't be parsed, so that JSON is returned
+     */
+    public static boolean isAccepted(String accept) {
+        if (accept == null) {
+            return false;
+        }
+
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return acceptedTypes.stream().anyMatch(t -> MEDIA_TYPE.getType().equals(t.getType())
+                                                    && MEDIA_TYPE.getSubtype().equals(t.getSubtype()));
+    }
+
+    @Override
+    public void writeRecord(Read read) throws IOException {
+        checkFinished();
+
+        int position = buffer.position();
+        try {
+            writeFrame(FRAME_READ, read);
+        } catch (BufferOverflowException e) {
+            buffer.position(position);
+            if (position == 0) { // a single read doesn't fit into an empty buffer
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            } else {
+                sendBuffer();
+            }
+            writeRecord(read);
+        }
+    }
+
+    @Override
+    public void writeTrackAndFinish(BamTrack<Read> bamTrack) throws IOException {
+        checkFinished();
+        writeTextFrame(FRAME_TRACK, writeTrackMetadata(bamTrack));
+
+        sendBuffer();
+        getEmitter().complete();
+        setFinished(true);
+    }
+
+    @Override
+    public void finishWithException(Throwable throwable) {
+        checkFinished();
+        try {
+            writeTextFrame(FRAME_ERROR, String.valueOf(throwable.getLocalizedMessage()));
+            sendBuffer();
+        } catch (IOException e) {
+            getEmitter().completeWithError(e);
+        }
+        getEmitter().complete();
+        setFinished(true);
+    }
+
+    private void writeFrame(byte type, Read read) {
+        buffer.put(type);
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+
+        putInt(read.getStartIndex());
+        putInt(read.getEndIndex());
+        putInt(read.getFlagMask());
+        putInt(read.getMappingQuality());
+        putInt(read.getTLen());
+        putInt(read.getPNext());
+        buffer.put(read.getStand() == null ? NULL_BYTE : (byte) (read.getStand() ? 1 : 0));
+
+        putString(read.getName());
+        putString(read.getCigarString());
+        putString(read.getRName());
+        putString(read.getRNext());
+        putString(read.getPairedReadName());
+        putString(read.getHeadSequence());
+        putString(read.getTailSequence());
+        putString(read.getSequence());
+        putString(read.getQualities());
+
+        putDifferentBases(read.getDifferentBase());
+        putTags(read.getTags());
+
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+    }
+
+    private void writeTextFrame(byte type, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < bytes.length + FRAME_HEADER_SIZE) {
+            sendBuffer();
+        }
+        if (buffer.remaining() < bytes.length + FRAME_HEADER_SIZE) {
+            buffer = ByteBuffer.allocate(bytes.length + FRAME_HEADER_SIZE);
+        }
+
+        buffer.put(type);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void putInt(Integer value) {
+        buffer.putInt(value == null ? NULL_INT : value);
+    }
+
+    private void putDifferentBases(List<BasePosition> differentBases) {
+        if (differentBases == null) {
+            buffer.putInt(0);
+            return;
+        }
+
+        buffer.putInt(differentBases.size());
+        for (BasePosition basePosition : differentBases) {
+            putInt(basePosition.getRelativePosition());
+            String base = basePosition.getBase();
+            buffer.put(base == null || base.isEmpty() ? NULL_BYTE : (byte) base.charAt(0));
+        }
+    }
+
+    private void putTags(List<NgbSamTagAndValue> tags) {
+        if (tags == null) {
+            buffer.putInt(0);
+            return;
+        }
+
+        buffer.putInt(tags.size());
+        for (NgbSamTagAndValue tag : tags) {
+            putString(tag.getTag());
+            putString(tagValueToString(tag.getValue()));
+        }
+    }
+
+    /**
+     * Writes a string, ASCII characters are copied directly into the buffer, other strings are encoded to UTF-8
+     */
+    private void putString(String value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+
+        int lengthPosition = buffer.position();
+        buffer.putInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > MAX_ASCII_CHAR) {
+                buffer.position(lengthPosition);
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+                return;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    private static String tagValueToString(Object value) {
+        if (value == null || !value.getClass().isArray()) {
+            return value == null ? null : value.toString();
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Array.getLength(value); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(Array.get(value, i));
+        }
+        return builder.toString();
+    }
+
+    private void sendBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+
+        // emitter may hold the data until the response is ready, so the buffer's content is copied
+        getEmitter().send(Arrays.copyOf(buffer.array(), buffer.position()), MEDIA_TYPE);
+        buffer.clear();
+    }
+}
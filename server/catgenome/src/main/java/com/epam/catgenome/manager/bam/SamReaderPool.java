@@ -0,0 +1,44 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import com.epam.catgenome.util.ReaderPool;
+import htsjdk.samtools.SamReader;
+
+/**
+ * Keeps {@code SamReader}s of BAM files open between track requests, see {@link ReaderPool}
+ */
+public class SamReaderPool extends ReaderPool<SamReader> {
+
+    /**
+     * @param maxSize maximum number of readers to keep open
+     * @param idleTimeout time in milliseconds, after which an unused reader is closed
+     * @param maxLifetime time in milliseconds, after which a reader is closed even if it is used, e.g. because
+     *                    it reads a presigned URL, that expires
+     */
+    public SamReaderPool(int maxSize, long idleTimeout, long maxLifetime) {
+        super("BAM", maxSize, idleTimeout, maxLifetime);
+    }
+}
@@ -69,6 +69,10 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
     //track information
     private final int startTrack;
     private final int endTrack;
+    // position of the first element of coverage arrays, differs from startTrack for region handlers
+    private final int offset;
+    // records, starting before this position, are counted in another region
+    private final int recordsFrom;
     // fof refBuffer
     private int min;
     private int max;
@@ -95,6 +99,8 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
                             final Filter<SAMRecord> filter, final BamQueryOption options) throws IOException {
         this.startTrack = startTrack;
         this.endTrack = endTrack;
+        this.offset = startTrack;
+        this.recordsFrom = Integer.MIN_VALUE;
         this.referenceManager = referenceManager;
         this.min = startTrack;
         this.max = endTrack + Constants.REFERENCE_STEP;
@@ -121,6 +127,89 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
         this.mode = options.getMode();
     }
 
+    private SAMRecordHandler(final SAMRecordHandler parent, final int regionStart, final int regionEnd,
+                             final boolean firstRegion, final Filter<SAMRecord> filter) {
+        this.startTrack = regionStart;
+        this.endTrack = regionEnd;
+        this.offset = parent.offset;
+        this.recordsFrom = firstRegion ? Integer.MIN_VALUE : regionStart;
+        this.referenceManager = parent.referenceManager;
+        this.min = parent.min;
+        this.max = parent.max;
+        this.refID = parent.refID;
+        this.showClipping = parent.showClipping;
+        this.chromosomeName = parent.chromosomeName;
+        this.showSpliceJunction = parent.showSpliceJunction;
+        this.filter = filter;
+        this.mode = parent.mode;
+
+        this.coverageArray = parent.coverageArray;
+        this.cCoverageArray = parent.cCoverageArray;
+        this.aCoverageArray = parent.aCoverageArray;
+        this.tCoverageArray = parent.tCoverageArray;
+        this.gCoverageArray = parent.gCoverageArray;
+        this.nCoverageArray = parent.nCoverageArray;
+        this.insCoverageArray = parent.insCoverageArray;
+        this.delCoverageArray = parent.delCoverageArray;
+    }
+
+    /**
+     * Creates a handler for a part of this handler's track, that may process records in a separate thread.
+     * A region handler writes coverage into this handler's arrays only inside its region, so that regions,
+     * that don't overlap, can be processed concurrently. Each region should query all records, overlapping it,
+     * records, starting in previous regions, are used only for coverage calculation. Results of regions should be
+     * collected by {@link #mergeRegions(List)}. Supported only for handlers without reference buffer, i.e. not
+     * in {@code BamTrackMode.FULL} mode.
+     * @param regionStart start of a region, inside this handler's track
+     * @param regionEnd end of a region, inside this handler's track
+     * @param firstRegion true for a region, that starts at the track's start, it counts all the records, that
+     *                    start before the track
+     * @param regionFilter a filter to pass records, starting in the region
+     * @return a handler for the region
+     */
+    public SAMRecordHandler createRegionHandler(final int regionStart, final int regionEnd, final boolean firstRegion,
+                                                final Filter<SAMRecord> regionFilter) {
+        if (referenceBuffer != null) {
+            throw new IllegalStateException("Region handlers are not supported for a track with reference buffer");
+        }
+        return new SAMRecordHandler(this, regionStart, regionEnd, firstRegion, regionFilter);
+    }
+
+    /**
+     * Collects results of region handlers, created by {@link #createRegionHandler}, into this handler. Regions
+     * must be processed completely and cover this handler's track without overlapping.
+     * @param regions handlers of regions
+     */
+    public void mergeRegions(final List<SAMRecordHandler> regions) {
+        // coverage of each region is kept as differences from the region's start, turn it into absolute values
+        // and back to differences from the start of the track
+        for (SAMRecordHandler region : regions) {
+            accumulate(coverageArray, region.startTrack - offset, region.endTrack - offset);
+            accumulate(delCoverageArray, region.startTrack - offset, region.endTrack - offset);
+        }
+        for (int i = coverageArray.length - 1; i > 0; i--) {
+            coverageArray[i] -= coverageArray[i - 1];
+            delCoverageArray[i] -= delCoverageArray[i - 1];
+        }
+
+        for (SAMRecordHandler region : regions) {
+            region.spliceJunctionsHashMap.forEach((key, junction) -> {
+                SpliceJunctionsEntity value = spliceJunctionsHashMap.get(key);
+                if (value != null) {
+                    value.setCount(value.getCount() + junction.getCount());
+                } else {
+                    spliceJunctionsHashMap.put(key, junction);
+                }
+            });
+        }
+    }
+
+    private static void accumulate(final int[] array, final int from, final int to) {
+        for (int i = from + 1; i <= to; i++) {
+            array[i] += array[i - 1];
+        }
+    }
+
     /**
      * @param record for processing
      * @throws IOException
@@ -162,7 +251,9 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
                     referenceBuffer != null ? referenceBuffer.getBuffer() : null, start, min, cigarList, showClipping,
                     record);
 
-            filter.add(record, start, end, mode == BamTrackMode.FULL ? differentBase : null, head, tail);
+            if (record.getStart() >= recordsFrom) {
+                filter.add(record, start, end, mode == BamTrackMode.FULL ? differentBase : null, head, tail);
+            }
         }
     }
 
@@ -184,7 +275,7 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
 
             if (coverageValue - delCoverageValue > 0) {
                 BaseCoverage baseCoverage =
-                        new BaseCoverage(startTrack + i, coverageValue - delCoverageValue);
+                        new BaseCoverage(offset + i, coverageValue - delCoverageValue);
                 if (mode == BamTrackMode.FULL) {
                     baseCoverage.setCoverage(cCoverageArray[i], aCoverageArray[i], tCoverageArray[i],
                             gCoverageArray[i], nCoverageArray[i], delCoverageValue,
@@ -212,7 +303,7 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
             if (i != 0 && i % step == 0) { // end of step
                 if (summ != 0) {
                     BaseCoverage baseCoverage =
-                            new BaseCoverage(startTrack + i - denum, startTrack + i, summ); // / (float) denum
+                            new BaseCoverage(offset + i - denum, offset + i, summ); // / (float) denum
                     coverageList.add(baseCoverage);
                     summ = 0;
                 }
@@ -291,12 +382,12 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
         final int k = increase ? 1 : -1;
         if (end >= startTrack && start <= endTrack) {
             if (start < startTrack) {
-                coverage[0] += k;
+                coverage[startTrack - offset] += k;
             } else {
-                coverage[start - startTrack] += k;
+                coverage[start - offset] += k;
             }
             if (end < endTrack) {
-                coverage[end - startTrack + 1] -= k;
+                coverage[end - offset + 1] -= k;
             }
         }
     }
@@ -396,7 +487,7 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
             //add to insCov, to the next base
             final int pos = startReadPosition + position + corrector - 1;
             if (pos >= startTrack && pos <= endTrack) {
-                insCoverageArray[pos - startTrack]++;
+                insCoverageArray[pos - offset]++;
             }
             position += cigarLength;
             corrector -= cigarLength;
@@ -410,7 +501,7 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
         }
 
         private void processUnknown(int cigarLength) {
-            if (showSpliceJunction) {
+            if (showSpliceJunction && record.getStart() >= recordsFrom) {
                 final String strandString = getXSTag(record.getAttributes());
                 final boolean strandSJ = strandString == null ? !record.getReadNegativeStrandFlag() :
                         "+".equals(strandString);
@@ -459,19 +550,19 @@ public class SAMRecordHandler implements Handler<SAMRecord> {
             if (position >= startTrack && position <= endTrack) {
                 switch (ch) {
                     case 'C':
-                        cCoverageArray[position - startTrack]++;
+                        cCoverageArray[position - offset]++;
                         break;
                     case 'A':
-                        aCoverageArray[position - startTrack]++;
+                        aCoverageArray[position - offset]++;
                         break;
                     case 'T':
-                        tCoverageArray[position - startTrack]++;
+                        tCoverageArray[position - offset]++;
                         break;
                     case 'G':
-                        gCoverageArray[position - startTrack]++;
+                        gCoverageArray[position - offset]++;
                         break;
                     case 'N':
-                        nCoverageArray[position - startTrack]++;
+                        nCoverageArray[position - offset]++;
                         break;
                     default:
                         break;
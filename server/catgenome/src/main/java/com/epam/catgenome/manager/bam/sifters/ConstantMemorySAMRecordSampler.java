@@ -27,7 +27,7 @@ package com.epam.catgenome.manager.bam.sifters;
 import com.epam.catgenome.entity.bam.BasePosition;
 import com.epam.catgenome.entity.bam.Read;
 import com.epam.catgenome.entity.wig.Wig;
-import com.epam.catgenome.manager.bam.BamTrackEmitter;
+import com.epam.catgenome.manager.bam.AbstractBamTrackEmitter;
 import com.epam.catgenome.util.BamUtil;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.util.RuntimeIOException;
@@ -48,7 +48,7 @@ public class ConstantMemorySAMRecordSampler implements DownsamplingSifter<SAMRec
     private final int maxElementsInFrame;
     private final int endTrack;
     private final boolean countOnly;
-    private BamTrackEmitter trackEmitter;
+    private AbstractBamTrackEmitter trackEmitter;
 
     private final Random random;
 
@@ -69,7 +69,7 @@ public class ConstantMemorySAMRecordSampler implements DownsamplingSifter<SAMRec
      * @param trackEmitter where to write reads
      */
     public ConstantMemorySAMRecordSampler(final int frame, final int count, final int endTrack, boolean coverageOnly,
-                                          BamTrackEmitter trackEmitter) {
+                                          AbstractBamTrackEmitter trackEmitter) {
         this.frameSize = frame;
         this.maxElementsInFrame = count;
         this.endTrack = endTrack;
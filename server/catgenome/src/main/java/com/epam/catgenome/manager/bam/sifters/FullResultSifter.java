@@ -30,7 +30,7 @@ import java.util.List;
 
 import com.epam.catgenome.entity.bam.BasePosition;
 import com.epam.catgenome.entity.wig.Wig;
-import com.epam.catgenome.manager.bam.BamTrackEmitter;
+import com.epam.catgenome.manager.bam.AbstractBamTrackEmitter;
 import com.epam.catgenome.util.BamUtil;
 import htsjdk.samtools.SAMRecord;
 
@@ -46,9 +46,9 @@ public class FullResultSifter implements DownsamplingSifter<SAMRecord> {
 
     private int filteredReadsCount = 0;
     private boolean exceedsMaxReadCount = false;
-    private BamTrackEmitter trackEmitter;
+    private AbstractBamTrackEmitter trackEmitter;
 
-    public FullResultSifter(boolean coverageOnly, BamTrackEmitter trackEmitter) {
+    public FullResultSifter(boolean coverageOnly, AbstractBamTrackEmitter trackEmitter) {
         // TODO: int maxReadCount - decide reads or coverage by by read count
         //this.maxReadCount = maxReadCount;
         this.exceedsMaxReadCount = coverageOnly;
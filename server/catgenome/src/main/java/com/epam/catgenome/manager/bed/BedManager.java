@@ -71,14 +71,15 @@ import com.epam.catgenome.manager.TrackHelper;
 import com.epam.catgenome.manager.bed.parser.NggbBedFeature;
 import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.util.AuthUtils;
+import com.epam.catgenome.util.FeatureSummary;
 import com.epam.catgenome.util.HistogramUtils;
 import com.epam.catgenome.util.IOHelper;
+import com.epam.catgenome.util.StreamingHistogramBuilder;
 import com.epam.catgenome.util.Utils;
 import htsjdk.tribble.bed.BEDCodec;
 import htsjdk.tribble.bed.BEDFeature;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.tribble.AbstractFeatureReader;
-import htsjdk.tribble.Feature;
 import htsjdk.tribble.readers.LineIterator;
 
 /**
@@ -170,13 +171,17 @@ public class BedManager {
         throws FeatureFileReadingException {
         final double time1 = Utils.getSystemTimeMilliseconds();
         try (AbstractFeatureReader<NggbBedFeature, LineIterator> reader = fileManager.makeBedReader(bedFile)) {
-            CloseableIterator<NggbBedFeature> iterator = reader.query(chromosome.getName(), track.getStartIndex(),
-                                                                      track.getEndIndex());
-            if (!iterator.hasNext()) {
-                iterator = reader.query(Utils.changeChromosomeName(chromosome.getName()), track.getStartIndex(),
-                                        track.getEndIndex());
+            final List<BedRecord> summaryRecords = loadSummaryRecords(track, bedFile, chromosome, reader);
+            if (summaryRecords != null) {
+                LOG.debug("Reading records from bed file summary, took {} ms",
+                          Utils.getSystemTimeMilliseconds() - time1);
+                track.setBlocks(summaryRecords);
+                return track;
             }
 
+            CloseableIterator<NggbBedFeature> iterator = Utils.query(reader, chromosome.getName(),
+                                                                     track.getStartIndex(), track.getEndIndex());
+
             final List<BedRecord> bedRecords;
             if (track.getScaleFactor() >= 1) {
                 bedRecords = new ArrayList<>();
@@ -193,6 +198,56 @@ public class BedManager {
         }
     }
 
+    /**
+     * Loads zoomed out records of a track from a precomputed summary, building the summary of the chromosome first,
+     * if the file was registered before summaries were enabled
+     *
+     * @return records of the track or {@code null}, if the track can't be served from a summary
+     */
+    private List<BedRecord> loadSummaryRecords(final Track<BedRecord> track, final BedFile bedFile,
+                                               final Chromosome chromosome,
+                                               final AbstractFeatureReader<NggbBedFeature, LineIterator> reader)
+        throws IOException {
+        if (track.getScaleFactor() >= 1 || !fileManager.isFeatureSummaryEnabled() || bedFile.getId() == null
+                || bedFile.getType() != BiologicalDataItemResourceType.FILE) {
+            return null;
+        }
+
+        final File summaryFile = fileManager.getFeatureSummaryFile(bedFile, chromosome.getName(), null);
+        if (!summaryFile.exists()) {
+            createSummary(bedFile, chromosome, reader);
+        }
+
+        return FeatureSummary.load(summaryFile, track.getStartIndex(), track.getEndIndex(), track.getScaleFactor(),
+                                   BedRecord.class, (first, count, maxEnd) -> count > 1 ?
+                                                                              toStatisticRecord(first, count, maxEnd) :
+                                                                              first);
+    }
+
+    private void createSummaries(final BedFile bedFile, final List<Chromosome> chromosomes) throws IOException {
+        try (AbstractFeatureReader<NggbBedFeature, LineIterator> reader = fileManager.makeBedReader(bedFile)) {
+            for (Chromosome chromosome : chromosomes) {
+                createSummary(bedFile, chromosome, reader);
+            }
+        }
+    }
+
+    private void createSummary(final BedFile bedFile, final Chromosome chromosome,
+                               final AbstractFeatureReader<NggbBedFeature, LineIterator> reader) throws IOException {
+        final double time1 = Utils.getSystemTimeMilliseconds();
+        final FeatureSummary.Builder builder = fileManager.createFeatureSummaryBuilder();
+        try (CloseableIterator<NggbBedFeature> iterator = Utils.query(reader, chromosome.getName(), 1,
+                                                                      chromosome.getSize())) {
+            while (iterator.hasNext()) {
+                builder.addExtending(new BedRecord(iterator.next()));
+            }
+        }
+
+        fileManager.writeFeatureSummary(bedFile, chromosome.getName(), null, builder);
+        LOG.debug("Making BED summary for chromosome {} took {} ms", chromosome.getName(),
+                  Utils.getSystemTimeMilliseconds() - time1);
+    }
+
     /**
      * Loads histogram track for a specified BED file, represented by {@code @Wig} {@code Track}
      *
@@ -315,10 +370,13 @@ public class BedManager {
 
             double time1 = Utils.getSystemTimeMilliseconds();
             if (resourceType == BiologicalDataItemResourceType.FILE) {
-                createHistogram(bedFile);
+                final List<Chromosome> chromosomes = createHistogram(bedFile);
+                double time2 = Utils.getSystemTimeMilliseconds();
+                LOG.debug("Making BED histogram took {} ms", time2 - time1);
+                if (fileManager.isFeatureSummaryEnabled()) {
+                    createSummaries(bedFile, chromosomes);
+                }
             }
-            double time2 = Utils.getSystemTimeMilliseconds();
-            LOG.debug("Making BED histogram took {} ms", time2 - time1);
             LOG.info(getMessage(MessagesConstants.INFO_GENE_REGISTER, bedFile.getId(),
                     bedFile.getPath()));
             biologicalDataItemManager.createBiologicalDataItem(bedFile.getIndex());
@@ -337,93 +395,25 @@ public class BedManager {
         }
     }
 
-    private void createHistogram(BedFile bedFile) throws IOException {
-        try (AbstractFeatureReader<NggbBedFeature, LineIterator> featureReader = fileManager.makeBedReader(bedFile)) {
-            CloseableIterator<NggbBedFeature> iterator = featureReader.iterator();
-            if (iterator.hasNext()) {
-                makeHistogramFromIterator(iterator, bedFile);
-            }
-        }
-    }
-
-    private void makeHistogramFromIterator(CloseableIterator<NggbBedFeature> iterator, BedFile bedFile)
-        throws IOException {
-        List<Wig> histogram = new ArrayList<>();
-        NggbBedFeature firstFeature = iterator.next();
-        String currentContig = firstFeature.getContig();
-
+    /**
+     * Creates histograms of a BED file
+     *
+     * @return chromosomes, that have features in the file
+     */
+    private List<Chromosome> createHistogram(BedFile bedFile) throws IOException {
         Map<String, Chromosome> chromosomeMap = referenceGenomeManager.loadChromosomes(bedFile.getReferenceId())
             .stream().collect(Collectors.toMap(BaseEntity::getName, c -> c));
-        currentContig = checkFileNonEmpty(currentContig, iterator, chromosomeMap, bedFile);
-        Chromosome currentChromosome = Utils.getFromChromosomeMap(chromosomeMap, currentContig);
-        int histogramSize = Math.min((int) Math.ceil(currentChromosome.getSize() *
-                                                     HistogramUtils.HISTOGAM_BLOCK_SIZE_PART),
-                                     HistogramUtils.HISTOGRAM_SIZE_LIMIT);
-        int intervalLength = currentChromosome.getSize() / histogramSize;
-        int intervalEnd = intervalLength;
-
-        Wig currentWig = new Wig();
-        currentWig.setStartIndex(1);
-        currentWig.setEndIndex(intervalLength);
-
-        int featureCount = 1;
-        while (iterator.hasNext()) {
-            NggbBedFeature feature = iterator.next();
-            if (!feature.getContig().equals(currentContig) && currentChromosome != null) {
-                currentWig.setValue((float) featureCount);
-                histogram.add(currentWig);
-                fileManager.writeHistogram(bedFile, currentChromosome.getName(), histogram);
-                histogram.clear();
-                featureCount = 0;
-                currentContig = getNextContig(feature.getContig(), iterator, chromosomeMap);
-                if (currentContig == null) {
-                    currentChromosome = null;
-                } else {
-                    currentChromosome = Utils.getFromChromosomeMap(chromosomeMap, currentContig);
-                }
-            }
-
-            if (currentChromosome != null && feature.getEnd() > intervalEnd) {
-                currentWig.setValue((float) featureCount);
-                histogram.add(currentWig);
-
-                currentWig = new Wig(intervalEnd + 1, intervalEnd + 1 + intervalLength);
-                intervalEnd = intervalEnd + 1 + intervalLength;
-                featureCount = 0;
-            }
-
-            featureCount++;
-        }
-
-        if (featureCount > 0 && currentChromosome != null) {
-            currentWig.setValue((float) featureCount);
-            histogram.add(currentWig);
-            fileManager.writeHistogram(bedFile, currentChromosome.getName(), histogram);
-        }
-    }
-
-    private String checkFileNonEmpty(String currentContig, CloseableIterator<? extends Feature> iterator,
-                                   Map<String, Chromosome> chromosomeMap, BedFile bedFile) {
-        String contig = getNextContig(currentContig, iterator, chromosomeMap);
-        Assert.notNull(contig, "No chromosomes found in " + bedFile.getPath());
-        return contig;
-    }
-
-    private String getNextContig(String currentContig, CloseableIterator<? extends Feature> iterator,
-                                 Map<String, Chromosome> chromosomeMap) {
-        Chromosome currentChromosome = Utils.getFromChromosomeMap(chromosomeMap, currentContig);
-        if (currentChromosome == null) {
-            while (iterator.hasNext()) {
-                Feature feature = iterator.next();
-                if (Utils.chromosomeMapContains(chromosomeMap, feature.getContig())) {
-                    return feature.getContig();
-                }
-            }
-
-            return null;
-        }
-
-        return currentContig;
+        StreamingHistogramBuilder histogramBuilder = new StreamingHistogramBuilder(chromosomeMap)
+            .scan(new File(bedFile.getPath()), StreamingHistogramBuilder.LineFormat.BED);
+
+        Assert.isTrue(histogramBuilder.getFeaturesCount() == 0 || histogramBuilder.hasHistograms(),
+                      "No chromosomes found in " + bedFile.getPath());
+        final List<Chromosome> chromosomes = new ArrayList<>();
+        histogramBuilder.write((chromosome, histogram) -> {
+            fileManager.writeHistogram(bedFile, chromosome.getName(), histogram);
+            chromosomes.add(chromosome);
+        });
+        return chromosomes;
     }
 
     private List<Wig> readHistogram(Track<Wig> track, BedFile file, Chromosome chromosome,
@@ -440,7 +430,8 @@ public class BedManager {
             throws HistogramReadingException {
         final List<Wig> histogram;
         try {
-            histogram = fileManager.loadHistogram(bedFile, chromosome.getName());
+            histogram = fileManager.loadHistogram(bedFile, chromosome.getName(), track.getStartIndex(),
+                                                  track.getEndIndex());
         } catch (IOException e) {
             throw new HistogramReadingException(track, e);
         }
@@ -532,22 +523,30 @@ public class BedManager {
             BedRecord lastRecord = bedRecords.get(bedRecords.size() - 1);
 
             if (lastRecord != null && lastFeature != null && featuresCount > 1) {
-                lastRecord.setName(featuresCount + " Features");
-                lastRecord.setDescription(null);
-                lastRecord.setBlockCount(0);
-                lastRecord.setBlockSizes(null);
-                lastRecord.setBlockStarts(null);
-                lastRecord.setId(null);
-                lastRecord.setStrand(null);
-                lastRecord.setRgb(null);
-                lastRecord.setThickStart(null);
-                lastRecord.setThickEnd(null);
-                lastRecord.setScore(null);
-                lastRecord.setEndIndex(lastFeature.getEnd());
+                toStatisticRecord(lastRecord, featuresCount, lastFeature.getEnd());
             }
         }
     }
 
+    /**
+     * Turns the first record of a group of features into a record, that represents the whole group
+     */
+    private static BedRecord toStatisticRecord(BedRecord record, int featuresCount, int end) {
+        record.setName(featuresCount + " Features");
+        record.setDescription(null);
+        record.setBlockCount(0);
+        record.setBlockSizes(null);
+        record.setBlockStarts(null);
+        record.setId(null);
+        record.setStrand(null);
+        record.setRgb(null);
+        record.setThickStart(null);
+        record.setThickEnd(null);
+        record.setScore(null);
+        record.setEndIndex(end);
+        return record;
+    }
+
     public BedFile reindexBedFile(long bedFileId) throws FeatureIndexException {
         BedFile bedFile = bedFileManager.loadBedFile(bedFileId);
         Reference reference = referenceGenomeManager.loadReferenceGenome(bedFile.getReferenceId());
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.gene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.IOUtils;
+
+import com.epam.catgenome.entity.gene.GeneFile;
+import com.epam.catgenome.entity.gene.GeneFileType;
+import com.epam.catgenome.entity.reference.Chromosome;
+import com.epam.catgenome.exception.GeneReadingException;
+import com.epam.catgenome.manager.FileManager;
+import com.epam.catgenome.manager.gene.parser.GeneFeature;
+import com.epam.catgenome.util.Utils;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.readers.LineIterator;
+
+/**
+ * <p>
+ * Finds genes and exons of a gene file, that overlap positions on a chromosome, in a single pass over the file.
+ * Positions should be requested along with variations, sorted by start: the file is read in step with them and only
+ * the features, that overlap the current variation or lie between its start and end, are kept in memory. If a
+ * variation comes out of order, the file is queried again from its start.
+ * </p>
+ */
+public class GeneOverlapScanner implements Closeable {
+
+    private final GeneFile geneFile;
+    private final Chromosome chromosome;
+    private final AbstractFeatureReader<GeneFeature, LineIterator> reader;
+    private final List<GeneFeature> window = new ArrayList<>();
+
+    private CloseableIterator<GeneFeature> iterator;
+    private GeneFeature nextFeature;
+    private int currentStart;
+
+    /**
+     * @param fileManager a {@code FileManager} to open the gene file
+     * @param geneFile a gene file to read
+     * @param chromosome a chromosome, that variations belong to
+     * @param start a start of the first variation
+     * @throws GeneReadingException if the gene file can't be read
+     */
+    public GeneOverlapScanner(FileManager fileManager, GeneFile geneFile, Chromosome chromosome, int start)
+        throws GeneReadingException {
+        this.geneFile = geneFile;
+        this.chromosome = chromosome;
+        this.reader = fileManager.makeGeneReader(geneFile, GeneFileType.ORIGINAL);
+        try {
+            seek(start);
+        } catch (GeneReadingException e) {
+            closeReader();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves the scanner to a next variation. Features, that end before the variation's start, are dropped
+     *
+     * @param start a start of the variation
+     * @throws GeneReadingException if the gene file can't be read
+     */
+    public void moveTo(int start) throws GeneReadingException {
+        if (start < currentStart) {
+            seek(start);
+            return;
+        }
+
+        currentStart = start;
+        window.removeIf(f -> f.getEnd() < start);
+    }
+
+    /**
+     * Returns genes and exons, overlapping a position of the current variation
+     *
+     * @param position a position, not less than the current variation's start
+     * @return a {@code List} of {@code GeneFeature}s, overlapping the position
+     */
+    public List<GeneFeature> getOverlapping(int position) {
+        while (nextFeature != null && nextFeature.getStart() <= position) {
+            if (nextFeature.getEnd() >= currentStart) {
+                window.add(nextFeature);
+            }
+            nextFeature = readNextFeature();
+        }
+
+        return window.stream()
+            .filter(f -> f.getStart() <= position && f.getEnd() >= position)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public void close() {
+        if (iterator != null) {
+            iterator.close();
+        }
+        closeReader();
+    }
+
+    private void seek(int start) throws GeneReadingException {
+        if (iterator != null) {
+            iterator.close();
+        }
+
+        window.clear();
+        currentStart = start;
+        try {
+            iterator = Utils.query(reader, chromosome, start, Math.max(start, chromosome.getSize()));
+        } catch (IOException e) {
+            throw new GeneReadingException(geneFile, chromosome, start, chromosome.getSize(), e);
+        }
+        nextFeature = readNextFeature();
+    }
+
+    private GeneFeature readNextFeature() {
+        while (iterator.hasNext()) {
+            GeneFeature feature = iterator.next();
+            if (GeneUtils.isGene(feature) || GeneUtils.isExon(feature)) {
+                return feature;
+            }
+        }
+
+        return null;
+    }
+
+    private void closeReader() {
+        IOUtils.closeQuietly(reader);
+    }
+}
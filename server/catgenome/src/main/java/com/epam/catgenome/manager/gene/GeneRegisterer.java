@@ -56,7 +56,6 @@ import com.epam.catgenome.entity.gene.GeneFile;
 import com.epam.catgenome.entity.gene.GeneFileType;
 import com.epam.catgenome.entity.index.FeatureIndexEntry;
 import com.epam.catgenome.entity.reference.Chromosome;
-import com.epam.catgenome.entity.wig.Wig;
 import com.epam.catgenome.manager.FeatureIndexManager;
 import com.epam.catgenome.manager.FileManager;
 import com.epam.catgenome.manager.gene.parser.GeneFeature;
@@ -65,6 +64,7 @@ import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.util.AuthUtils;
 import com.epam.catgenome.util.IndexUtils;
 import com.epam.catgenome.util.PositionalOutputStream;
+import com.epam.catgenome.util.StreamingHistogramBuilder;
 import com.epam.catgenome.util.Utils;
 import htsjdk.samtools.util.BlockCompressedInputStream;
 import htsjdk.samtools.util.BlockCompressedOutputStream;
@@ -127,16 +127,8 @@ public class GeneRegisterer {
     private Map<String, Pair<Integer, Integer>> metaMap = new HashMap<>();  // to fix bugs with compressed files
     private GeneFeature lastFeature;
 
-    // histogram stuff
-    private int histogramSize;
-    private int intervalLength;
-    private int intervalEnd;
-    private Wig currentWig;
-    private List<Wig> histogram = new ArrayList<>();
     private Chromosome currentChromosome;
-
-    private static final double HISTOGAM_BLOCK_SIZE_PART = 0.000025F;
-    private static final int HISTOGAM_SIZE_LIMIT = 1000;
+    private StreamingHistogramBuilder histogramBuilder;
 
     public GeneRegisterer(ReferenceGenomeManager referenceGenomeManager, FileManager fileManager,
                           FeatureIndexManager featureIndexManager, GeneFile geneFile) {
@@ -146,6 +138,7 @@ public class GeneRegisterer {
 
         chromosomeMap = referenceGenomeManager.loadChromosomes(geneFile.getReferenceId())
                 .stream().collect(Collectors.toMap(BaseEntity::getName, c -> c));
+        histogramBuilder = new StreamingHistogramBuilder(chromosomeMap);
     }
 
     /**
@@ -189,9 +182,6 @@ public class GeneRegisterer {
         GeneFeature firstFeature = null;
         lastFeature = null;
 
-        // histogram stuff
-        int featuresCount = 0;
-
         List<FeatureIndexEntry> allEntries = new ArrayList<>();
         // main loop - here we process gene file, add it's features to an index and create helper files: large scale
         // and transcript
@@ -204,14 +194,13 @@ public class GeneRegisterer {
             if (firstFeature == null) {
                 firstFeature = feature;
                 lastFeature = feature;
-                initializeHistogram(firstFeature);
+                initializeChromosome(firstFeature);
             }
 
-            featuresCount = processFeature(feature, featuresCount, doIndex, allEntries, request.isDoIndex(),
-                                           filePointer);
+            processFeature(feature, doIndex, allEntries, request.isDoIndex(), filePointer);
         }
 
-        processLastFeature(feature, featuresCount, geneFile, allEntries, request.isDoIndex());
+        processLastFeature(feature, geneFile, allEntries, request.isDoIndex());
 
         makeIndexes(geneFile, metaMap, indexFile, largeScaleIndexFile, transcriptIndexFile, doIndex, request);
 
@@ -221,7 +210,7 @@ public class GeneRegisterer {
         return firstFeature;
     }
 
-    private void processLastFeature(GeneFeature feature, int featuresCount, GeneFile geneFile,
+    private void processLastFeature(GeneFeature feature, GeneFile geneFile,
                                     List<FeatureIndexEntry> allEntries, boolean doFeatureIndex) throws IOException {
         // Put the last one in metaMap
         if (feature != null) {
@@ -236,17 +225,12 @@ public class GeneRegisterer {
             }
         }
 
-        if (featuresCount > 0 && currentWig != null && currentChromosome != null) {
-            currentWig.setValue((float) featuresCount);
-            histogram.add(currentWig);
-            fileManager.writeHistogram(geneFile, currentChromosome.getName(), histogram);
-        }
+        histogramBuilder.write((chromosome, histogram) ->
+                                   fileManager.writeHistogram(geneFile, chromosome.getName(), histogram));
     }
 
-    private int processFeature(GeneFeature feature, int featuresCount, boolean doIndex,
-                               final List<FeatureIndexEntry> allEntries, boolean doFeatureIndex, final long filePointer)
-        throws IOException {
-        int currFeatureCount = featuresCount;
+    private void processFeature(GeneFeature feature, boolean doIndex, final List<FeatureIndexEntry> allEntries,
+                                boolean doFeatureIndex, final long filePointer) throws IOException {
         if (feature != null) {
             Utils.checkSorted(feature, lastFeature, this.geneFile);
             if (doIndex) {
@@ -255,31 +239,19 @@ public class GeneRegisterer {
 
             addToHelperFiles(feature, this.geneFile);
 
-            // populate meta-map and write histogram for current chromosome
+            // populate meta-map for current chromosome
             if (!feature.getContig().equals(currentKey)) {
-                addToMetamapAndHistogram(metaMap, chromosomeMap, feature, featuresCount, this.geneFile);
-                currFeatureCount = 0;
+                addToMetamap(metaMap, chromosomeMap, feature);
 
                 writeEntriesForChromosome(allEntries, doFeatureIndex);
             }
 
-            if (currentChromosome != null && feature.getEnd() > intervalEnd) {
-                currentWig.setValue((float) featuresCount);
-                histogram.add(currentWig);
-
-                currentWig = new Wig(intervalEnd + 1, intervalEnd + 1 + intervalLength);
-                intervalEnd = intervalEnd + 1 + intervalLength;
-                currFeatureCount = 0;
-            }
-
+            histogramBuilder.add(feature.getContig(), feature.getStart(), feature.getEnd());
             indexFeature(feature, allEntries, doFeatureIndex);
 
-            currFeatureCount++;
             endPosition = feature.getStart();
             lastFeature = feature;
         }
-
-        return currFeatureCount;
     }
 
     private void writeEntriesForChromosome(List<FeatureIndexEntry> allEntries, boolean doFeatureIndex)
@@ -300,30 +272,18 @@ public class GeneRegisterer {
         }
     }
 
-    private void initializeHistogram(GeneFeature firstFeature) {
+    private void initializeChromosome(GeneFeature firstFeature) {
         currentKey = firstFeature.getContig();
         currentChromosome = chromosomeMap.containsKey(currentKey) ? chromosomeMap.get(currentKey) : chromosomeMap
                 .get(Utils.changeChromosomeName(currentKey));
         startPosition = firstFeature.getStart();
         endPosition = firstFeature.getStart();
-        histogramSize = currentChromosome != null ? Math.min(
-            (int) Math.ceil(currentChromosome.getSize() * HISTOGAM_BLOCK_SIZE_PART), HISTOGAM_SIZE_LIMIT) : 0;
-
-        intervalLength =
-                (currentChromosome != null) ? (currentChromosome.getSize() / histogramSize) : 0;
-        currentWig = new Wig(1, intervalLength, 0);
-        intervalEnd = intervalLength;
     }
 
-    private void addToMetamapAndHistogram(Map<String, Pair<Integer, Integer>> metaMap,
-                                          Map<String, Chromosome> chromosomeMap, GeneFeature feature,
-                                          int featuresCount, GeneFile geneFile) throws IOException {
+    private void addToMetamap(Map<String, Pair<Integer, Integer>> metaMap, Map<String, Chromosome> chromosomeMap,
+                              GeneFeature feature) {
         if (currentChromosome != null) {
             metaMap.put(currentChromosome.getName(), new ImmutablePair<>(startPosition, endPosition));
-            currentWig.setValue((float) featuresCount);
-            histogram.add(currentWig);
-            fileManager.writeHistogram(geneFile, currentChromosome.getName(), histogram);
-            histogram.clear();
         }
 
         startPosition = feature.getStart();
@@ -331,16 +291,6 @@ public class GeneRegisterer {
 
         currentChromosome = chromosomeMap.containsKey(currentKey) ? chromosomeMap.get(currentKey) :
                 chromosomeMap.get(Utils.changeChromosomeName(currentKey));
-        // calculate histogram blocks size for next chromosome
-        if (currentChromosome != null) {
-            histogramSize = Math.min(
-                (int) Math.ceil(currentChromosome.getSize() * HISTOGAM_BLOCK_SIZE_PART), HISTOGAM_SIZE_LIMIT);
-            intervalLength = currentChromosome.getSize() / histogramSize;
-            intervalEnd = intervalLength;
-            currentWig = new Wig(1, intervalEnd);
-        } else {
-            currentWig = null;
-        }
     }
 
     private void makeIndexes(GeneFile geneFile, Map<String, Pair<Integer, Integer>> metaMap, File indexFile,
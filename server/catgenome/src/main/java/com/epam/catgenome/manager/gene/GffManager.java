@@ -108,12 +108,13 @@ import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.manager.parallel.ParallelTaskExecutionUtils;
 import com.epam.catgenome.manager.parallel.TaskExecutorService;
 import com.epam.catgenome.util.AuthUtils;
-import com.epam.catgenome.util.HistogramUtils;
+import com.epam.catgenome.util.FeaturePositionIndex;
 import com.epam.catgenome.util.IOHelper;
-import com.epam.catgenome.util.NggbIntervalTreeMap;
+import com.epam.catgenome.util.IntervalIndex;
+import com.epam.catgenome.util.ReaderPool;
+import com.epam.catgenome.util.StreamingHistogramBuilder;
 import com.epam.catgenome.util.Utils;
 import htsjdk.samtools.util.CloseableIterator;
-import htsjdk.samtools.util.Interval;
 import htsjdk.samtools.util.IntervalTree;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.readers.LineIterator;
@@ -227,6 +228,7 @@ public class GffManager {
         fileManager.deleteFileFeatureIndex(geneFile);
 
         featureIndexManager.processGeneFile(geneFile, chromosomeMap, full);
+        fileManager.invalidateGeneReaders(geneFile);
 
         return geneFile;
     }
@@ -383,6 +385,7 @@ public class GffManager {
         final GeneFile fileToDelete = geneFileManager.loadGeneFile(geneFileId);
 
         geneFileManager.deleteGeneFile(fileToDelete);
+        fileManager.invalidateGeneReaders(fileToDelete);
         fileManager.deleteFeatureFileDirectory(fileToDelete);
 
         return fileToDelete;
@@ -476,62 +479,59 @@ public class GffManager {
     }
 
     /**
-     * Load genes as a {@code NggbIntervalTreeMap} to allow fast region queries. Only gene and exon features are being
-     * loaded: no transcripts and etc.
+     * Load genes as an {@code IntervalIndex} to allow fast region queries. Only gene and exon features are being
+     * loaded: no transcripts and etc. The interval is read in parallel, each task collects features of its
+     * sub-interval separately, then all features are merged into a single index.
      *
      * @param geneFile a {@code GeneFile}, from which to load genes and exons
      * @param startIndex a start of an interval from which to load genes
      * @param endIndex an end of an interval from which to load genes
      * @param chromosome a {@code Chromosome} for which to load genes
-     * @return a {@code NggbIntervalTreeMap}, containing gene and exon features
+     * @return an {@code IntervalIndex}, containing gene and exon features
      * @throws GeneReadingException
      */
-    public NggbIntervalTreeMap<Gene> loadGenesIntervalMap(GeneFile geneFile, int startIndex, int endIndex,
-                                                          Chromosome chromosome) throws GeneReadingException {
+    public IntervalIndex<Gene> loadGenesIntervalMap(GeneFile geneFile, int startIndex, int endIndex,
+                                                    Chromosome chromosome) throws GeneReadingException {
         double time1 = Utils.getSystemTimeMilliseconds();
         int numOfSubIntervals = ParallelTaskExecutionUtils.splitFileReadingInterval(startIndex, endIndex, LOGGER,
                 taskExecutorService.getTaskNumberOfThreads());
-        final List<Callable<Boolean>> callables = new ArrayList<>(numOfSubIntervals);
-        final NggbIntervalTreeMap<Gene> genesRangeMap = new NggbIntervalTreeMap<>();
+        final List<Callable<IntervalIndex.Builder<Gene>>> callables = new ArrayList<>(numOfSubIntervals);
 
         for (int i = 0; i < numOfSubIntervals; i++) {
             final int factor = i;
             final int num = numOfSubIntervals;
-            callables.add(() -> addGenesToIntervalMap(geneFile, genesRangeMap, startIndex, endIndex, factor, num,
-                                                      chromosome));
+            callables.add(() -> loadGenesIntervals(geneFile, startIndex, endIndex, factor, num, chromosome));
         }
 
-        List<Future<Boolean>> results;
+        final IntervalIndex.Builder<Gene> genesIndexBuilder = IntervalIndex.builder();
         try {
-            results = taskExecutorService.getExecutorService().invokeAll(callables);
-        } catch (InterruptedException | AssertionError e) {
+            for (Future<IntervalIndex.Builder<Gene>> future : taskExecutorService.getExecutorService()
+                    .invokeAll(callables)) {
+                genesIndexBuilder.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeneReadingException(geneFile, chromosome, startIndex, endIndex, e);
+        } catch (ExecutionException | AssertionError e) {
+            LOGGER.error(getMessage(MessagesConstants.ERROR_GENE_BATCH_LOAD, geneFile.getId(), chromosome.getId(),
+                                    e));
             throw new GeneReadingException(geneFile, chromosome, startIndex, endIndex, e);
         }
 
-        results.stream().map(future -> {
-            try {
-                return future != null ? future.get() : null;
-            } catch (InterruptedException | ExecutionException e) {
-                LOGGER.error(getMessage(MessagesConstants.ERROR_GENE_BATCH_LOAD, geneFile.getId(), chromosome.getId(),
-                                        e));
-            }
-            return null;
-        });
-
-        genesRangeMap.setMaxEndIndex(endIndex);
-        genesRangeMap.setMinStartIndex(startIndex);
+        IntervalIndex<Gene> genesIndex = genesIndexBuilder.build();
         double time2 = Utils.getSystemTimeMilliseconds();
         LOGGER.debug(getMessage(MessagesConstants.DEBUG_GENE_BATCH_LOAD, geneFile.getName(), chromosome.getName(),
                                 startIndex, endIndex, time2 - time1));
 
-        return genesRangeMap;
+        return genesIndex;
     }
 
-    private boolean addGenesToIntervalMap(GeneFile geneFile, NggbIntervalTreeMap<Gene> genesRangeMap, int startIndex,
-                                       int endIndex, int factor, int num, Chromosome chromosome) throws IOException {
+    private IntervalIndex.Builder<Gene> loadGenesIntervals(GeneFile geneFile, int startIndex, int endIndex,
+                                                           int factor, int num, Chromosome chromosome)
+        throws IOException {
         double time0 = Utils.getSystemTimeMilliseconds();
-        try (AbstractFeatureReader<GeneFeature, LineIterator> featureReader = fileManager.makeGeneReader(
-            geneFile, GeneFileType.ORIGINAL)) {
+        try (ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>>.Handle readerHandle =
+                 fileManager.acquireGeneReader(geneFile, GeneFileType.ORIGINAL)) {
             LOGGER.debug(getMessage(MessagesConstants.DEBUG_THREAD_STARTS,
                                     Thread.currentThread().getName()));
             double time11 = Utils.getSystemTimeMilliseconds();
@@ -547,29 +547,31 @@ public class GffManager {
             }
             LOGGER.debug(getMessage(MessagesConstants.DEBUG_THREAD_INTERVAL),
                          Thread.currentThread().getName(), start, end);
-            CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome, start, end);
-            double time21 = Utils.getSystemTimeMilliseconds();
-            LOGGER.debug(getMessage(MessagesConstants.DEBUG_THREAD_QUERY_TIME,
-                                    Thread.currentThread().getName(), time21 - time11));
-
-            time11 = Utils.getSystemTimeMilliseconds();
-
-            iterator.forEachRemaining(f -> {
-                if (GeneUtils.isGene(f) || GeneUtils.isExon(f)) {
-                    Gene g = new Gene(f);
-                    synchronized (genesRangeMap) {
-                        genesRangeMap.put(new Interval(chromosome.getName(), g.getStartIndex(),
-                                                       g.getEndIndex()), g);
+            final IntervalIndex.Builder<Gene> genesIntervals = IntervalIndex.builder();
+            try (CloseableIterator<GeneFeature> iterator = Utils.query(readerHandle.getReader(), chromosome, start,
+                                                                       end)) {
+                double time21 = Utils.getSystemTimeMilliseconds();
+                LOGGER.debug(getMessage(MessagesConstants.DEBUG_THREAD_QUERY_TIME,
+                                        Thread.currentThread().getName(), time21 - time11));
+
+                time11 = Utils.getSystemTimeMilliseconds();
+
+                // features, that overlap a border of sub-intervals, are returned to both neighbour tasks, so a task
+                // takes only features, that start inside its sub-interval
+                iterator.forEachRemaining(f -> {
+                    if ((GeneUtils.isGene(f) || GeneUtils.isExon(f)) && (factor == 0 || f.getStart() > start)) {
+                        Gene g = new Gene(f);
+                        genesIntervals.add(g.getStartIndex(), g.getEndIndex(), g);
                     }
-                }
-            });
+                });
+            }
 
-            time21 = Utils.getSystemTimeMilliseconds();
+            double time21 = Utils.getSystemTimeMilliseconds();
             LOGGER.debug(getMessage(MessagesConstants.DEBUG_THREAD_WALKTHROUGH_TIME,
                                     Thread.currentThread().getName(), time21 - time11));
 
             LOGGER.debug(getMessage(MessagesConstants.DEBUG_THREAD_ENDS, Thread.currentThread().getName()));
-            return true;
+            return genesIntervals;
         }
     }
 
@@ -688,14 +690,15 @@ public class GffManager {
 
         if (fileManager.checkHistogramExists(geneFile, chromosome.getName())) {
             try {
-                track.setBlocks(fileManager.loadHistogram(geneFile, chromosome.getName()));
+                track.setBlocks(fileManager.loadHistogram(geneFile, chromosome.getName(), track.getStartIndex(),
+                                                          track.getEndIndex()));
                 return track;
             } catch (IOException e) {
                 throw new HistogramReadingException(track, e);
             }
         } else {
             try {
-                track.setBlocks(buildHistogram(chromosome, geneFile));
+                track.setBlocks(buildHistogram(track, chromosome, geneFile));
             } catch (HistogramWritingException e) {
                 throw new HistogramReadingException(track, e);
             }
@@ -703,62 +706,33 @@ public class GffManager {
         }
     }
 
-    private List<Wig> buildHistogram(final Chromosome chromosome, final GeneFile geneFile)
+    /**
+     * Builds histograms of all chromosomes in a single pass over a gene file, only counting features, and saves them,
+     * so that the next requests for any chromosome are served from histogram files
+     */
+    private List<Wig> buildHistogram(final Track<Wig> track, final Chromosome chromosome, final GeneFile geneFile)
         throws HistogramWritingException {
-
-        final Track<Wig> track = new Track<>();
-
-        track.setStartIndex(0);
-        track.setEndIndex(chromosome.getSize());
+        final double time1 = Utils.getSystemTimeMilliseconds();
+        final Map<String, Chromosome> chromosomeMap = referenceGenomeManager.loadChromosomes(
+                geneFile.getReferenceId()).stream().collect(Collectors.toMap(BaseEntity::getName, c -> c));
 
         try {
-            if (!trackHelper.loadAndSetBounds(track, geneFile, chromosome)) {
-                return Collections.emptyList();
+            final StreamingHistogramBuilder histogramBuilder = new StreamingHistogramBuilder(chromosomeMap)
+                    .scan(new File(geneFile.getPath()), StreamingHistogramBuilder.LineFormat.GFF);
+            final double time2 = Utils.getSystemTimeMilliseconds();
+            LOGGER.debug("Reading histogram, took {} ms", time2 - time1);
+
+            histogramBuilder.write((c, histogram) -> fileManager.writeHistogram(geneFile, c.getName(), histogram));
+            if (histogramBuilder.getHistogram(chromosome).isEmpty()) {
+                // save an empty histogram as well, not to scan the file again on the next request
+                fileManager.writeHistogram(geneFile, chromosome.getName(), Collections.emptyList());
             }
+
+            return fileManager.loadHistogram(geneFile, chromosome.getName(), track.getStartIndex(),
+                                             track.getEndIndex());
         } catch (IOException e) {
             throw new HistogramWritingException(e);
         }
-
-        final List<Pair<Integer, Integer>> intervals = HistogramUtils.createIntervals(0, chromosome.getSize());
-
-        final double time1 = Utils.getSystemTimeMilliseconds();
-        final int numberOfThreads = taskExecutorService.getTaskNumberOfThreads();
-        final int portionSize = intervals.size() / numberOfThreads;
-        final List<Callable<List<Wig>>> callables = new ArrayList<>(numberOfThreads);
-
-        // Create threads and pass each a portion of intervals
-        for (int i = 0; i < numberOfThreads; i++) {
-            final List<Pair<Integer, Integer>> portion;
-            if (i == numberOfThreads - 1) {
-                final int remainder = intervals.size() % numberOfThreads;
-                portion = intervals.subList(portionSize * i,
-                                            Math.min(portionSize * (i + 1) + remainder, intervals.size()));
-            } else {
-                portion = intervals.subList(portionSize * i, Math.min(portionSize * (i + 1), intervals.size()));
-            }
-
-            callables.add(() -> readHistogramPortion(track, geneFile, chromosome, GeneFileType.ORIGINAL, portion));
-        }
-
-        final List<Wig> newHistogram =
-                HistogramUtils.executeHistogramCreation(taskExecutorService.getExecutorService(), callables);
-        final double time2 = Utils.getSystemTimeMilliseconds();
-        LOGGER.debug("Reading histogram, took {} ms", time2 - time1);
-
-        writeHistogram(newHistogram, geneFile, chromosome);
-
-        return newHistogram;
-    }
-
-    private void writeHistogram(final List<Wig> newHistogram, GeneFile geneFile, Chromosome chromosome)
-        throws HistogramWritingException {
-        if (!newHistogram.isEmpty()) {
-            try {
-                fileManager.writeHistogram(geneFile, chromosome.getName(), newHistogram);
-            } catch (IOException e) {
-                throw new HistogramWritingException(e);
-            }
-        }
     }
 
     /**
@@ -784,53 +758,87 @@ public class GffManager {
         }
 
         double time1 = Utils.getSystemTimeMilliseconds();
-        try (AbstractFeatureReader<GeneFeature, LineIterator> featureReader =
-                     fileManager.makeGeneReader(geneFile, GeneFileType.ORIGINAL)) {
+        try (ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>>.Handle readerHandle =
+                     fileManager.acquireGeneReader(geneFile, GeneFileType.ORIGINAL)) {
             double time2 = Utils.getSystemTimeMilliseconds();
-            LOGGER.debug("Reader creation {} ms", Thread.currentThread().getName(), time2 - time1);
+            LOGGER.debug("Reader acquisition {} ms", Thread.currentThread().getName(), time2 - time1);
 
             if (forward) {
-                return getNextGeneFeature(featureReader, chromosome, fromPosition, end);
+                return getNextGeneFeature(readerHandle.getReader(), geneFile, chromosome, fromPosition, end);
             } else {
-                return getPreviousGeneFeature(featureReader, chromosome, fromPosition, end);
+                return getPreviousGeneFeature(readerHandle.getReader(), geneFile, chromosome, fromPosition, end);
             }
         }
     }
 
     private Gene getNextGeneFeature(AbstractFeatureReader<GeneFeature, LineIterator> featureReader,
-                                    Chromosome chromosome, int fromPosition, int end) throws IOException {
+                                    GeneFile geneFile, Chromosome chromosome, int fromPosition, int end)
+            throws IOException {
         if (fromPosition + 1 >= end) { // no next features
             return null;
         }
 
-        double time1 = Utils.getSystemTimeMilliseconds();
-        CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome.getName(), fromPosition + 1,
-                                                              end);
-
-        double time2 = Utils.getSystemTimeMilliseconds();
-        LOGGER.debug(getMessage(MessagesConstants.DEBUG_QUERY_TIME, time2 - time1));
-
-        time1 = Utils.getSystemTimeMilliseconds();
+        if (canUsePositionIndex(geneFile)) {
+            FeaturePositionIndex index = getPositionIndex(featureReader, geneFile, chromosome);
+            int number = index.findFirstEndingAfter(fromPosition);
+            if (number < 0) {
+                return null;
+            }
 
-        while (iterator.hasNext()) {
-            final GeneFeature feature = iterator.next();
-            if (GeneUtils.isExon(feature)) {
+            GeneFeature feature = readIndexedExon(featureReader, chromosome, index.getStart(number), fromPosition,
+                                                  true);
+            if (feature != null) {
                 return new Gene(feature);
             }
+            LOGGER.debug("Position index of gene file {} is outdated, chromosome {}", geneFile.getId(),
+                         chromosome.getName());
         }
 
-        time2 = Utils.getSystemTimeMilliseconds();
-        LOGGER.debug(getMessage(MessagesConstants.DEBUG_WALKTHROUGH_TIME, time2 - time1));
+        double time1 = Utils.getSystemTimeMilliseconds();
+        try (CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome.getName(),
+                                                                   fromPosition + 1, end)) {
+            double time2 = Utils.getSystemTimeMilliseconds();
+            LOGGER.debug(getMessage(MessagesConstants.DEBUG_QUERY_TIME, time2 - time1));
+
+            time1 = Utils.getSystemTimeMilliseconds();
+
+            while (iterator.hasNext()) {
+                final GeneFeature feature = iterator.next();
+                if (GeneUtils.isExon(feature)) {
+                    return new Gene(feature);
+                }
+            }
+
+            time2 = Utils.getSystemTimeMilliseconds();
+            LOGGER.debug(getMessage(MessagesConstants.DEBUG_WALKTHROUGH_TIME, time2 - time1));
+        }
 
         return null;
     }
 
     private Gene getPreviousGeneFeature(AbstractFeatureReader<GeneFeature, LineIterator> featureReader,
-                                        Chromosome chromosome, int fromPosition, int end) throws IOException {
+                                        GeneFile geneFile, Chromosome chromosome, int fromPosition, int end)
+            throws IOException {
         if (fromPosition - 1 <= end) {
             return null;
         }
 
+        if (canUsePositionIndex(geneFile)) {
+            FeaturePositionIndex index = getPositionIndex(featureReader, geneFile, chromosome);
+            int number = index.findLastStartingBefore(fromPosition);
+            if (number < 0) {
+                return null;
+            }
+
+            GeneFeature feature = readIndexedExon(featureReader, chromosome, index.getStart(number), fromPosition,
+                                                  false);
+            if (feature != null) {
+                return new Gene(feature);
+            }
+            LOGGER.debug("Position index of gene file {} is outdated, chromosome {}", geneFile.getId(),
+                         chromosome.getName());
+        }
+
         GeneFeature lastFeature = null;
         int i = 0;
         boolean lastChunk = false;
@@ -847,28 +855,92 @@ public class GffManager {
             }
 
             double time1 = Utils.getSystemTimeMilliseconds();
-            CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome.getName(), firstIndex,
-                                                                  lastIndex);
             // instead traversing the whole file, read it by small chunks, 10000 bps
             // long. Hopefully, the desired feature will be in first/second chunk
+            try (CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome.getName(),
+                                                                       firstIndex, lastIndex)) {
+                double time2 = Utils.getSystemTimeMilliseconds();
+                LOGGER.debug(getMessage(MessagesConstants.DEBUG_QUERY_TIME, time2 - time1));
+
+                time1 = Utils.getSystemTimeMilliseconds();
+                while (iterator.hasNext()) {
+                    GeneFeature feature = iterator.next();
+                    if (GeneUtils.isExon(feature)) {
+                        lastFeature = feature;
+                    }
+                }
+                time2 = Utils.getSystemTimeMilliseconds();
+                LOGGER.debug(getMessage(MessagesConstants.DEBUG_WALKTHROUGH_TIME, time2 - time1));
+            }
 
-            double time2 = Utils.getSystemTimeMilliseconds();
-            LOGGER.debug(getMessage(MessagesConstants.DEBUG_QUERY_TIME, time2 - time1));
+            i++;
+        }
 
-            time1 = Utils.getSystemTimeMilliseconds();
+        return lastFeature != null ? new Gene(lastFeature) : null;
+    }
+
+    /**
+     * Position indexes are built by a pass over a whole chromosome, so they are used only for files, registered
+     * from the file system
+     */
+    private boolean canUsePositionIndex(GeneFile geneFile) {
+        return geneFile.getId() != null && geneFile.getType() != BiologicalDataItemResourceType.URL;
+    }
+
+    private FeaturePositionIndex getPositionIndex(AbstractFeatureReader<GeneFeature, LineIterator> featureReader,
+                                                  GeneFile geneFile, Chromosome chromosome) throws IOException {
+        FeaturePositionIndex index = fileManager.loadPositionIndex(geneFile, chromosome.getName(), null);
+        if (index != null) {
+            return index;
+        }
+
+        double time1 = Utils.getSystemTimeMilliseconds();
+        FeaturePositionIndex.Builder builder = new FeaturePositionIndex.Builder();
+        try (CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome.getName(), 1,
+                                                                   chromosome.getSize())) {
             while (iterator.hasNext()) {
                 GeneFeature feature = iterator.next();
                 if (GeneUtils.isExon(feature)) {
-                    lastFeature = feature;
+                    builder.add(feature.getStart(), feature.getEnd());
                 }
             }
-            time2 = Utils.getSystemTimeMilliseconds();
-            LOGGER.debug(getMessage(MessagesConstants.DEBUG_WALKTHROUGH_TIME, time2 - time1));
+        }
 
-            i++;
+        index = builder.build();
+        fileManager.writePositionIndex(geneFile, chromosome.getName(), null, index);
+        double time2 = Utils.getSystemTimeMilliseconds();
+        LOGGER.debug("Position index of gene file {}, chromosome {} built, took {} ms", geneFile.getId(),
+                     chromosome.getName(), time2 - time1);
+        return index;
+    }
+
+    /**
+     * Reads an exon, found in a position index: the first exon, starting at a specified position and ending after
+     * {@code fromPosition} for forward search, or the last exon, starting at a specified position for backward search
+     */
+    private GeneFeature readIndexedExon(AbstractFeatureReader<GeneFeature, LineIterator> featureReader,
+                                        Chromosome chromosome, int start, int fromPosition, boolean forward)
+            throws IOException {
+        GeneFeature found = null;
+        try (CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome.getName(), start,
+                                                                   start)) {
+            while (iterator.hasNext()) {
+                GeneFeature feature = iterator.next();
+                if (feature.getStart() != start || !GeneUtils.isExon(feature)) {
+                    continue;
+                }
+
+                if (forward && feature.getEnd() > fromPosition) {
+                    found = feature;
+                    break;
+                }
+                if (!forward) {
+                    found = feature;
+                }
+            }
         }
 
-        return lastFeature != null ? new Gene(lastFeature) : null;
+        return found;
     }
 
     /**
@@ -901,12 +973,12 @@ public class GffManager {
 
         IntervalTree<Block> intervalTree = new IntervalTree<>();
 
-        try (AbstractFeatureReader<GeneFeature, LineIterator> featureReader =
-                     fileManager.makeGeneReader(geneFile, GeneFileType.ORIGINAL)) {
+        try (ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>>.Handle readerHandle =
+                     fileManager.acquireGeneReader(geneFile, GeneFileType.ORIGINAL)) {
             loadExonsForward(centerPosition, viewPortSize, chromosome, intronLength, end, intervalTree,
-                    featureReader);
+                    readerHandle.getReader());
             loadExonsBackwards(centerPosition, viewPortSize, chromosome, intronLength, start, intervalTree,
-                    featureReader);
+                    readerHandle.getReader());
         }
 
         List<Block> exons = new ArrayList<>();
@@ -945,10 +1017,10 @@ public class GffManager {
         }
 
         List<Block> exons = new ArrayList<>();
-        try (AbstractFeatureReader<GeneFeature, LineIterator> featureReader =
-                     fileManager.makeGeneReader(geneFile, GeneFileType.ORIGINAL);
-             CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome, fakeTrack.getStartIndex(),
-                     fakeTrack.getEndIndex())) {
+        try (ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>>.Handle readerHandle =
+                     fileManager.acquireGeneReader(geneFile, GeneFileType.ORIGINAL);
+             CloseableIterator<GeneFeature> iterator = Utils.query(readerHandle.getReader(), chromosome,
+                     fakeTrack.getStartIndex(), fakeTrack.getEndIndex())) {
 
             while (iterator.hasNext()) {
                 GeneFeature feature = iterator.next();
@@ -1038,45 +1110,6 @@ public class GffManager {
         }).collect(Collectors.toMap(ChainMinMax::getName, cMM -> cMM));
     }
 
-    private List<Wig> readHistogramPortion(final Track<Wig> track, final GeneFile geneFile, final Chromosome
-            chromosome, final GeneFileType type, final List<Pair<Integer, Integer>> portion) throws IOException {
-        double time0 = Utils.getSystemTimeMilliseconds();
-        try (AbstractFeatureReader<GeneFeature, LineIterator> featureReader = fileManager.makeGeneReader(
-                geneFile, type)) {
-            LOGGER.debug("Thread {} starts", Thread.currentThread().getName());
-            double time11 = Utils.getSystemTimeMilliseconds();
-            LOGGER.debug("Thread {} Reader creation {} ms", Thread.currentThread().getName(), time11 - time0);
-
-            List<Wig> wigs = new ArrayList<>(portion.size());
-            for (Pair<Integer, Integer> interval : portion) {
-                if (interval.getRight() > track.getStartIndex() && interval.getLeft() < track.getEndIndex()) {
-                    LOGGER.debug("Thread {} Interval: {} - {}", Thread.currentThread().getName(),
-                            interval.getLeft(), interval.getRight());
-
-                    CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome.getName(),
-                                Math.max(track.getStartIndex(), interval.getLeft()),
-                                Math.min(interval.getRight(), track.getEndIndex()));
-
-                    double time21 = Utils.getSystemTimeMilliseconds();
-                    LOGGER.debug("Thread {} Query took {} ms", Thread.currentThread().getName(), time21 - time11);
-
-                    time11 = Utils.getSystemTimeMilliseconds();
-
-                    int genesCount = iterator.toList().size();
-
-                    time21 = Utils.getSystemTimeMilliseconds();
-                    LOGGER.debug("Thread {} Walkthrough took {} ms",
-                            Thread.currentThread().getName(), time21 - time11);
-
-                    LOGGER.debug("Thread {} ends", Thread.currentThread().getName());
-                    HistogramUtils.addToHistogramPortion(wigs, genesCount, interval);
-                }
-            }
-
-            return wigs;
-        }
-    }
-
     private List<Transcript> getTranscriptFromDB(final String geneID) throws ExternalDbUnavailableException {
         final EnsemblEntryVO vo = ensemblDataManager.fetchEnsemblEntry(geneID);
         Assert.notNull(vo);
@@ -1200,12 +1233,15 @@ public class GffManager {
                 lastChunk = true; // this is the last chunk to be traversed
             }
 
-            CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome, firstIndex, lastIndex);
-                // instead traversing the whole file, read it by small chunks, 100000 bps
-                // long. Hopefully, the desired window will be covered by first/second chunk
+            // instead traversing the whole file, read it by small chunks, 100000 bps
+            // long. Hopefully, the desired window will be covered by first/second chunk
+            List<GeneFeature> featuresChunk;
+            try (CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome, firstIndex,
+                                                                       lastIndex)) {
+                featuresChunk = iterator.toList();
+            }
 
-            if (iterator.hasNext()) {
-                List<GeneFeature> featuresChunk = iterator.toList();
+            if (!featuresChunk.isEmpty()) {
                 ListIterator<GeneFeature> listIterator = featuresChunk.listIterator(featuresChunk.size() - 1);
 
                 while (listIterator.hasPrevious() && totalLength < viewPortSize / 2) {
@@ -1222,18 +1258,13 @@ public class GffManager {
     private void loadExonsForward(int centerPosition, int viewPortSize, Chromosome chromosome,
                                   int intronLength, int endFeatures, IntervalTree<Block> intervalTree,
                                   AbstractFeatureReader<GeneFeature, LineIterator> featureReader) throws IOException {
-        CloseableIterator<GeneFeature> iterator = featureReader.query(chromosome.getName(), centerPosition,
-                endFeatures);
-
-        if (!iterator.hasNext()) {
-            iterator = featureReader.query(Utils.changeChromosomeName(chromosome.getName()), centerPosition,
-                    endFeatures);
-        }
-
-        int totalLength = 0;
-        while (iterator.hasNext() && totalLength < viewPortSize / 2) {
-            GeneFeature feature = iterator.next();
-            totalLength = processExon(intervalTree, totalLength, feature, intronLength, centerPosition, true);
+        try (CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome, centerPosition,
+                                                                   endFeatures)) {
+            int totalLength = 0;
+            while (iterator.hasNext() && totalLength < viewPortSize / 2) {
+                GeneFeature feature = iterator.next();
+                totalLength = processExon(intervalTree, totalLength, feature, intronLength, centerPosition, true);
+            }
         }
     }
 }
@@ -35,7 +35,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -58,6 +57,7 @@ import com.epam.catgenome.manager.gene.parser.GeneFeature;
 import com.epam.catgenome.manager.gene.parser.GffCodec;
 import com.epam.catgenome.manager.parallel.ParallelTaskExecutionUtils;
 import com.epam.catgenome.manager.parallel.TreeListMultiset;
+import com.epam.catgenome.util.ReaderPool;
 import com.epam.catgenome.util.Utils;
 import htsjdk.samtools.SAMFormatException;
 import htsjdk.samtools.util.CloseableIterator;
@@ -126,13 +126,15 @@ public abstract class AbstractGeneReader {
         double time1 = Utils.getSystemTimeMilliseconds();
         int numOfSubIntervals = ParallelTaskExecutionUtils.splitFileReadingInterval(track, LOGGER, maxTaskCount);
 
-        final ReaderState state = new ReaderState();
-
+        // each task fills its own state, so that threads don't contend on shared collections
+        final List<ReaderState> states = new ArrayList<>(numOfSubIntervals);
         final List<Callable<Throwable>> callables = new ArrayList<>(numOfSubIntervals);
 
         for (int i = 0; i < numOfSubIntervals; i++) {
             final int factor = i;
             final int num = numOfSubIntervals;
+            final ReaderState state = new ReaderState();
+            states.add(state);
             callables.add(() -> readPartOfGeneFile(chromosome, track.getStartIndex(), factor, num,
                     track.getEndIndex(), state, track.getScaleFactor()));
         }
@@ -159,51 +161,54 @@ public abstract class AbstractGeneReader {
         double time2 = Utils.getSystemTimeMilliseconds();
         LOGGER.debug("Reading in {} threads, took {} ms", numOfSubIntervals, time2 - time1);
 
+        time1 = Utils.getSystemTimeMilliseconds();
+        ReaderState state = ReaderState.merge(states);
+        time2 = Utils.getSystemTimeMilliseconds();
+        LOGGER.debug("Merge of {} states took {} ms", numOfSubIntervals, time2 - time1);
+
         time1 = Utils.getSystemTimeMilliseconds();
         List<Gene> passedGenes = processAssembly(state, track, collapse);
         time2 = Utils.getSystemTimeMilliseconds();
         LOGGER.debug("Assembly took {} ms", time2 - time1);
-        // Replace synchronized list with simple list.
-        return new ArrayList<>(passedGenes);
+        return passedGenes;
     }
 
     private List<Gene> processAssembly(ReaderState readerState,
                                        Track<Gene> track, boolean collapse) {
-        List<Gene> passedGenes = Collections.synchronizedList(new ArrayList<>());
-        if (!readerState.seenGenes.isEmpty()) {
-            if (!readerState.genes.isEmpty()) {
-                if (collapse) {
-                    readerState.genes.parallelStream().forEach(gene -> collapseFeatures(readerState.mRnaStuffMap, gene,
-                                                            readerState.mRnaMap, track.getScaleFactor(), passedGenes));
-                } else {
-                    readerState.genes.parallelStream().forEach(gene -> assembleFeatures(readerState.mRnaStuffMap, gene,
-                                                            readerState.mRnaMap, track.getScaleFactor(), passedGenes));
-                }
-            }
+        if (readerState.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-            final int step = (int) Math.ceil(1 / track.getScaleFactor());
-            readerState.unmappedFeatures.forEach(g -> {
-                if (passesScaleFactor(g, track.getScaleFactor())) {
-                    passedGenes.add(g);
-                } else {
-                    if (!passedGenes.isEmpty()) {
-                        Gene lastGene = passedGenes.get(passedGenes.size() - 1);
-                        int lastGeneStepNumber = lastGene.getEndIndex() / step;
-                        int stepNumber = g.getEndIndex() / step;
-                        if (lastGeneStepNumber == stepNumber) {
-                            makeStatisticFeature(lastGene, g);
-                        } else {
-                            passedGenes.add(g);
-                        }
+        // an ordered stream keeps genes in file order, regardless of the number of threads
+        final List<Gene> passedGenes = readerState.genes.parallelStream()
+            .map(gene -> collapse ?
+                    collapseFeatures(readerState.mRnaStuffMap, gene, readerState.mRnaMap, track.getScaleFactor()) :
+                    assembleFeatures(readerState.mRnaStuffMap, gene, readerState.mRnaMap, track.getScaleFactor()))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(ArrayList::new));
+
+        final int step = (int) Math.ceil(1 / track.getScaleFactor());
+        readerState.unmappedFeatures.forEach(g -> {
+            if (passesScaleFactor(g, track.getScaleFactor())) {
+                passedGenes.add(g);
+            } else {
+                if (!passedGenes.isEmpty()) {
+                    Gene lastGene = passedGenes.get(passedGenes.size() - 1);
+                    int lastGeneStepNumber = lastGene.getEndIndex() / step;
+                    int stepNumber = g.getEndIndex() / step;
+                    if (lastGeneStepNumber == stepNumber) {
+                        makeStatisticFeature(lastGene, g);
                     } else {
                         passedGenes.add(g);
                     }
+                } else {
+                    passedGenes.add(g);
                 }
-            });
+            }
+        });
 
-            addUnmappedFeatures(passedGenes, readerState.mRnaMap, readerState.mRnaStuffMap, step,
-                                track.getScaleFactor());
-        }
+        addUnmappedFeatures(passedGenes, readerState.mRnaMap, readerState.mRnaStuffMap, step,
+                            track.getScaleFactor());
 
         return passedGenes;
     }
@@ -214,11 +219,12 @@ public abstract class AbstractGeneReader {
                                        final ReaderState state, Double scaleFactor)
         throws IOException {
         double time0 = Utils.getSystemTimeMilliseconds();
-        try (AbstractFeatureReader<GeneFeature, LineIterator> featureReader = fileManager.makeGeneReader(
-                geneFile, determineGeneFileType(scaleFactor))) {
+        try (ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>>.Handle readerHandle =
+                fileManager.acquireGeneReader(geneFile, determineGeneFileType(scaleFactor))) {
+            AbstractFeatureReader<GeneFeature, LineIterator> featureReader = readerHandle.getReader();
             LOGGER.debug("Thread {} starts", Thread.currentThread().getName());
             double time11 = Utils.getSystemTimeMilliseconds();
-            LOGGER.debug("Thread {} Reader creation {} ms", Thread.currentThread().getName(), time11 - time0);
+            LOGGER.debug("Thread {} Reader acquisition {} ms", Thread.currentThread().getName(), time11 - time0);
 
             int start = startIndex + factor * ParallelTaskExecutionUtils.MAX_BLOCK_SIZE;
             int end;
@@ -236,12 +242,12 @@ public abstract class AbstractGeneReader {
                 Map<String, Gene> overlappedMrnas = new HashMap<>();
                 time11 = Utils.getSystemTimeMilliseconds();
 
-                if (iterator.hasNext()) {
-                    GeneFeature firstFeature = iterator.next();
-                    processFeature(state, firstFeature, overlappedMrnas, start, end);
-                }
-
-                iterator.forEachRemaining(feature -> processFeature(state, feature, overlappedMrnas, start, end));
+                // a feature, that overlaps several intervals, is processed only by the task of its start
+                iterator.forEachRemaining(feature -> {
+                    if (factor == 0 || feature.getStart() > start) {
+                        processFeature(state, feature, overlappedMrnas, start, end);
+                    }
+                });
                 time21 = Utils.getSystemTimeMilliseconds();
                 LOGGER.debug("Thread {} Walkthrough took {} ms",
                         Thread.currentThread().getName(), time21 - time11);
@@ -307,12 +313,10 @@ public abstract class AbstractGeneReader {
      * @param gene         gene to fit in hierarchy
      * @param mRnaMap      map of mRNA features
      * @param scaleFactor  a client's scale factor
-     * @param passedGenes  a list, filled with resulting assembled genes
+     * @return the assembled gene, if it passes the scale factor, otherwise null
      */
-    protected abstract void collapseFeatures(ConcurrentMap<String, ConcurrentMap<String, List<Gene>>>
-                                                     mRnaStuffMap, Gene gene,
-                                             ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                                             Double scaleFactor, List<Gene> passedGenes);
+    protected abstract Gene collapseFeatures(Map<String, Map<String, List<Gene>>> mRnaStuffMap, Gene gene,
+                                             Map<String, Map<String, Gene>> mRnaMap, Double scaleFactor);
 
     /**
      * Assemble gene features hierarchy in the following way:
@@ -321,12 +325,11 @@ public abstract class AbstractGeneReader {
      * @param mRnaStuffMap a map of mRNA internal features
      * @param gene         a gene to fit in hierarchy
      * @param mRnaMap      a map of mRNA features
-     * @param passedGenes  a list, filled with resulting assembled genes
+     * @param scaleFactor  a client's scale factor
+     * @return the assembled gene, if it passes the scale factor, otherwise null
      */
-    protected abstract void assembleFeatures(ConcurrentMap<String, ConcurrentMap<String, List<Gene>>>
-                                                     mRnaStuffMap, Gene gene,
-                                             ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                                             Double scaleFactor, List<Gene> passedGenes);
+    protected abstract Gene assembleFeatures(Map<String, Map<String, List<Gene>>> mRnaStuffMap, Gene gene,
+                                             Map<String, Map<String, Gene>> mRnaMap, Double scaleFactor);
 
     /**
      * Adds unmapped features to the list of resulting genes as first-level features
@@ -337,10 +340,9 @@ public abstract class AbstractGeneReader {
      * @param step         size of a viewport's pixel in bps
      * @param scaleFactor  client's scale factor
      */
-    protected abstract void addUnmappedFeatures(List<Gene> genes,
-                                                ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                                                ConcurrentMap<String, ConcurrentMap<String,
-                                                        List<Gene>>> mRnaStuffMap, int step, Double scaleFactor);
+    protected abstract void addUnmappedFeatures(List<Gene> genes, Map<String, Map<String, Gene>> mRnaMap,
+                                                Map<String, Map<String, List<Gene>>> mRnaStuffMap, int step,
+                                                Double scaleFactor);
 
     private void fillExonsCountForOverlapping(final Map<String, Gene> overlappedMrnas,
                                               final AbstractFeatureReader<GeneFeature, LineIterator> featureReader,
@@ -350,15 +352,16 @@ public abstract class AbstractGeneReader {
         }
 
         for (Map.Entry<String, Gene> e : overlappedMrnas.entrySet()) {
-            CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome,
-                                                              e.getValue().getStartIndex(), e.getValue().getEndIndex());
             long count = 0;
             long basesCount = 0;
-            while (iterator.hasNext()) {
-                GeneFeature feature = iterator.next();
-                if (GeneUtils.isExon(feature) && Objects.equals(GeneUtils.getTranscriptId(feature), e.getKey())) {
-                    count++;
-                    basesCount += feature.getEnd() - feature.getStart();
+            try (CloseableIterator<GeneFeature> iterator = Utils.query(featureReader, chromosome,
+                    e.getValue().getStartIndex(), e.getValue().getEndIndex())) {
+                while (iterator.hasNext()) {
+                    GeneFeature feature = iterator.next();
+                    if (GeneUtils.isExon(feature) && Objects.equals(GeneUtils.getTranscriptId(feature), e.getKey())) {
+                        count++;
+                        basesCount += feature.getEnd() - feature.getStart();
+                    }
                 }
             }
 
@@ -493,7 +496,7 @@ public abstract class AbstractGeneReader {
         }
     }
 
-    protected  <K, V> void removeIfEmpty(ConcurrentMap<String, ConcurrentMap<K, V>> collectionMap, String key) {
+    protected  <K, V> void removeIfEmpty(Map<String, Map<K, V>> collectionMap, String key) {
         if (collectionMap.get(key).isEmpty()) {
             collectionMap.remove(key);
         }
@@ -517,7 +520,8 @@ public abstract class AbstractGeneReader {
     }
 
     /**
-     * A private class for holding various collections, needed for query processing
+     * A private class for holding various collections, needed for query processing. Each reading task fills its
+     * own instance, that is confined to the task's thread, the instances are merged before assembly.
      */
     protected static class ReaderState {
 
@@ -525,29 +529,74 @@ public abstract class AbstractGeneReader {
          * List, containing gene features.
          * Used to build gene hierarchy: genes -> transcripts -> etc
          */
-        protected List<Gene> genes = Collections.synchronizedList(new ArrayList<>());
+        protected final List<Gene> genes = new ArrayList<>();
 
         /**
          * Map, containing transcript features with their transcript IDs, mapped to gene IDs.
          * Used to build gene hierarchy: genes -> transcripts -> etc
          */
-        protected ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap = new ConcurrentHashMap<>();
+        protected final Map<String, Map<String, Gene>> mRnaMap;
 
         /**
          * Map, containing various transcript internal features, e.g. CDS, exon, 3UTR, mapped to gene IDs and
          * transcript IDs.
          * Used to build gene hierarchy: genes -> transcripts -> etc
          */
-        protected ConcurrentMap<String, ConcurrentMap<String, List<Gene>>> mRnaStuffMap = new ConcurrentHashMap<>();
+        protected final Map<String, Map<String, List<Gene>>> mRnaStuffMap;
 
         /**
-         * Set, to ensure that gene features are unique
+         * Set, to ensure that gene features, read by a task, are unique
          */
-        protected Set<Gene> seenGenes = Collections.synchronizedSet(new HashSet<>());
+        protected final Set<Gene> seenGenes = new HashSet<>();
 
         /**
          * List, containing features, that are not mopped in the hierarchy
          */
-        protected List<Gene> unmappedFeatures = Collections.synchronizedList(new ArrayList<>());
+        protected final List<Gene> unmappedFeatures = new ArrayList<>();
+
+        protected ReaderState() {
+            this(new HashMap<>(), new HashMap<>());
+        }
+
+        private ReaderState(Map<String, Map<String, Gene>> mRnaMap,
+                            Map<String, Map<String, List<Gene>>> mRnaStuffMap) {
+            this.mRnaMap = mRnaMap;
+            this.mRnaStuffMap = mRnaStuffMap;
+        }
+
+        /**
+         * @return true if no features were read
+         */
+        protected boolean isEmpty() {
+            return genes.isEmpty() && unmappedFeatures.isEmpty() && mRnaMap.isEmpty() && mRnaStuffMap.isEmpty();
+        }
+
+        /**
+         * Merges states of reading tasks in the order of their intervals, so that features keep the order of
+         * the file. Each feature is read only by the task of its start, so the states contain no duplicates.
+         * The maps of the merged state are concurrent, as genes are assembled in parallel.
+         *
+         * @param states states of reading tasks, ordered by their intervals
+         * @return a merged state
+         */
+        protected static ReaderState merge(List<ReaderState> states) {
+            ReaderState merged = new ReaderState(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+            for (ReaderState state : states) {
+                merged.genes.addAll(state.genes);
+                merged.unmappedFeatures.addAll(state.unmappedFeatures);
+
+                state.mRnaMap.forEach((geneId, mrnas) -> merged.mRnaMap
+                    .computeIfAbsent(geneId, key -> new ConcurrentHashMap<>()).putAll(mrnas));
+
+                state.mRnaStuffMap.forEach((geneId, stuffMap) -> {
+                    Map<String, List<Gene>> mergedStuffMap = merged.mRnaStuffMap.computeIfAbsent(geneId,
+                        key -> new ConcurrentHashMap<>());
+                    stuffMap.forEach((transcriptId, stuff) -> mergedStuffMap
+                        .computeIfAbsent(transcriptId, key -> new ArrayList<>()).addAll(stuff));
+                });
+            }
+
+            return merged;
+        }
     }
 }
@@ -26,11 +26,9 @@ package com.epam.catgenome.manager.gene.reader;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
 import com.epam.catgenome.entity.gene.Gene;
@@ -67,7 +65,7 @@ public class GffReader extends AbstractGeneReader {
     protected void mapFeature(Gene currGene, ReaderState readerState, Map<String, Gene> overlappedMrnas, int start,
                             int end) {
         if (GeneUtils.isTranscript(currGene)) {
-            readerState.mRnaMap.putIfAbsent(currGene.getParentId(), new ConcurrentHashMap<>());
+            readerState.mRnaMap.putIfAbsent(currGene.getParentId(), new HashMap<>());
 
             String transcriptId = GeneUtils.getTranscriptId(currGene);
             if (transcriptId != null) {
@@ -78,21 +76,19 @@ public class GffReader extends AbstractGeneReader {
                 }
             }
         } else {
-            readerState.mRnaStuffMap.putIfAbsent(currGene.getParentId(), new ConcurrentHashMap<>());
+            readerState.mRnaStuffMap.putIfAbsent(currGene.getParentId(), new HashMap<>());
 
             String transcriptId = currGene.getParentId();
 
-            readerState.mRnaStuffMap.get(currGene.getParentId()).putIfAbsent(transcriptId,
-                                                                             new CopyOnWriteArrayList<>());
+            readerState.mRnaStuffMap.get(currGene.getParentId()).putIfAbsent(transcriptId, new ArrayList<>());
             readerState.mRnaStuffMap.get(currGene.getParentId()).get(transcriptId).add(currGene);
         }
     }
 
     @Override
-    protected void collapseFeatures(final ConcurrentMap<String, ConcurrentMap<String, List<Gene>>> mRnaStuffMap,
-                                    Gene gene, final ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                                    Double scaleFactor, List<Gene> passedGenes) {
-        ConcurrentMap<String, Gene> mrnas = mRnaMap.remove(gene.getGffId());
+    protected Gene collapseFeatures(final Map<String, Map<String, List<Gene>>> mRnaStuffMap, Gene gene,
+                                    final Map<String, Map<String, Gene>> mRnaMap, Double scaleFactor) {
+        Map<String, Gene> mrnas = mRnaMap.remove(gene.getGffId());
 
         if (mrnas != null && scaleFactor > LARGE_SCALE_FACTOR_LIMIT) {
             IntervalTreeMap<Gene> stuffIntervalMap = new IntervalTreeMap<>();
@@ -120,16 +116,13 @@ public class GffReader extends AbstractGeneReader {
             }
         }
 
-        if (passesScaleFactor(gene, scaleFactor)) {
-            passedGenes.add(gene);
-        }
+        return passesScaleFactor(gene, scaleFactor) ? gene : null;
     }
 
     @Override
-    protected void assembleFeatures(final ConcurrentMap<String, ConcurrentMap<String, List<Gene>>> mRnaStuffMap,
-                                    Gene gene, final ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                                    Double scaleFactor, List<Gene> passedGenes) {
-        ConcurrentMap<String, Gene> mrnas = mRnaMap.remove(gene.getGffId());
+    protected Gene assembleFeatures(final Map<String, Map<String, List<Gene>>> mRnaStuffMap, Gene gene,
+                                    final Map<String, Map<String, Gene>> mRnaMap, Double scaleFactor) {
+        Map<String, Gene> mrnas = mRnaMap.remove(gene.getGffId());
 
         if (mrnas != null && scaleFactor > LARGE_SCALE_FACTOR_LIMIT) {
             for (Map.Entry<String, Gene> mrnaEntry : mrnas.entrySet()) {
@@ -148,15 +141,13 @@ public class GffReader extends AbstractGeneReader {
             gene.setItems(new ArrayList<>(mrnas.values()));
         }
 
-        if (passesScaleFactor(gene, scaleFactor)) {
-            passedGenes.add(gene);
-        }
+        return passesScaleFactor(gene, scaleFactor) ? gene : null;
     }
 
     @Override
-    protected void addUnmappedFeatures(List<Gene> genes, ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                             ConcurrentMap<String, ConcurrentMap<String, List<Gene>>> mRnaStuffMap, int step,
-                             Double scaleFactor) {
+    protected void addUnmappedFeatures(List<Gene> genes, Map<String, Map<String, Gene>> mRnaMap,
+                                       Map<String, Map<String, List<Gene>>> mRnaStuffMap, int step,
+                                       Double scaleFactor) {
         TreeListMultiset<Integer, Gene> multiset = new TreeListMultiset<>(Block::getStartIndex);
 
         // A map, mapping geneIds to map of mrna and transcript ids
@@ -26,11 +26,9 @@ package com.epam.catgenome.manager.gene.reader;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
 import com.epam.catgenome.entity.gene.Gene;
@@ -62,7 +60,7 @@ public class GtfReader extends AbstractGeneReader {
         String transcriptId = GeneUtils.getTranscriptId(currGene);
 
         if (GeneUtils.isTranscript(currGene)) {
-            readerState.mRnaMap.putIfAbsent(currGene.getParentId(), new ConcurrentHashMap<>());
+            readerState.mRnaMap.putIfAbsent(currGene.getParentId(), new HashMap<>());
 
             if (transcriptId != null) {
                 readerState.mRnaMap.get(currGene.getParentId()).put(transcriptId, currGene);
@@ -72,21 +70,19 @@ public class GtfReader extends AbstractGeneReader {
                 }
             }
         } else {
-            readerState.mRnaStuffMap.putIfAbsent(currGene.getParentId(), new ConcurrentHashMap<>());
+            readerState.mRnaStuffMap.putIfAbsent(currGene.getParentId(), new HashMap<>());
 
             if (transcriptId != null) {
-                readerState.mRnaStuffMap.get(currGene.getParentId()).putIfAbsent(transcriptId,
-                                                                                 new CopyOnWriteArrayList<>());
+                readerState.mRnaStuffMap.get(currGene.getParentId()).putIfAbsent(transcriptId, new ArrayList<>());
                 readerState.mRnaStuffMap.get(currGene.getParentId()).get(transcriptId).add(currGene);
             }
         }
     }
 
     @Override
-    protected void collapseFeatures(final ConcurrentMap<String, ConcurrentMap<String, List<Gene>>> mRnaStuffMap,
-                                    Gene gene, final ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                                    Double scaleFactor, List<Gene> passedGenes) {
-        final ConcurrentMap<String, Gene> mrnas = mRnaMap.remove(gene.getGroupId());
+    protected Gene collapseFeatures(final Map<String, Map<String, List<Gene>>> mRnaStuffMap, Gene gene,
+                                    final Map<String, Map<String, Gene>> mRnaMap, Double scaleFactor) {
+        final Map<String, Gene> mrnas = mRnaMap.remove(gene.getGroupId());
 
         if (mrnas != null && scaleFactor > LARGE_SCALE_FACTOR_LIMIT) {
             IntervalTreeMap<Gene> stuffIntervalMap = new IntervalTreeMap<>();
@@ -112,16 +108,13 @@ public class GtfReader extends AbstractGeneReader {
             }
         }
 
-        if (passesScaleFactor(gene, scaleFactor)) {
-            passedGenes.add(gene);
-        }
+        return passesScaleFactor(gene, scaleFactor) ? gene : null;
     }
 
     @Override
-    protected void assembleFeatures(final ConcurrentMap<String, ConcurrentMap<String, List<Gene>>> mRnaStuffMap,
-                                    Gene gene, final ConcurrentMap<String, ConcurrentMap<String, Gene>> mRnaMap,
-                                    Double scaleFactor, List<Gene> passedGenes) {
-        final ConcurrentMap<String, Gene> mrnas = mRnaMap.remove(gene.getGroupId());
+    protected Gene assembleFeatures(final Map<String, Map<String, List<Gene>>> mRnaStuffMap, Gene gene,
+                                    final Map<String, Map<String, Gene>> mRnaMap, Double scaleFactor) {
+        final Map<String, Gene> mrnas = mRnaMap.remove(gene.getGroupId());
 
         if (mrnas != null && scaleFactor > LARGE_SCALE_FACTOR_LIMIT) {
             for (Map.Entry<String, Gene> mrnaEntry : mrnas.entrySet()) {
@@ -138,15 +131,13 @@ public class GtfReader extends AbstractGeneReader {
             gene.setItems(new ArrayList<>(mrnas.values()));
         }
 
-        if (passesScaleFactor(gene, scaleFactor)) {
-            passedGenes.add(gene);
-        }
+        return passesScaleFactor(gene, scaleFactor) ? gene : null;
     }
 
     @Override
-    protected void addUnmappedFeatures(final List<Gene> genes, final ConcurrentMap<String, ConcurrentMap<String, Gene>>
-            mRnaMap, final ConcurrentMap<String, ConcurrentMap<String, List<Gene>>> mRnaStuffMap, int step,
-                                        Double scaleFactor) {
+    protected void addUnmappedFeatures(final List<Gene> genes, final Map<String, Map<String, Gene>> mRnaMap,
+                                       final Map<String, Map<String, List<Gene>>> mRnaStuffMap, int step,
+                                       Double scaleFactor) {
 
         TreeListMultiset<Integer, Gene> multiset = new TreeListMultiset<>(Block::getStartIndex);
 
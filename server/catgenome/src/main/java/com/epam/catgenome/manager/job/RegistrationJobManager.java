@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.job;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import com.epam.catgenome.constant.MessagesConstants;
+import com.epam.catgenome.dao.BiologicalDataItemDao;
+import com.epam.catgenome.dao.job.RegistrationJobDao;
+import com.epam.catgenome.entity.BiologicalDataItem;
+import com.epam.catgenome.entity.BiologicalDataItemFormat;
+import com.epam.catgenome.entity.job.RegistrationJob;
+import com.epam.catgenome.entity.job.RegistrationJobStatus;
+import com.epam.catgenome.util.AuthUtils;
+
+/**
+ * {@code RegistrationJobManager} provides persistence of {@code RegistrationJob} records. Jobs are run by
+ * {@link RegistrationJobService}.
+ */
+@Service
+public class RegistrationJobManager {
+
+    @Autowired
+    private RegistrationJobDao registrationJobDao;
+
+    @Autowired
+    private BiologicalDataItemDao biologicalDataItemDao;
+
+    /**
+     * Persists a new queued {@code RegistrationJob}
+     *
+     * @param format a format of a file to register
+     * @param path a path of a file to register
+     * @return a persisted {@code RegistrationJob}
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public RegistrationJob createJob(final BiologicalDataItemFormat format, final String path) {
+        Assert.notNull(format, MessagesConstants.ERROR_NULL_PARAM);
+        Assert.notNull(path, MessagesConstants.ERROR_NULL_PARAM);
+
+        RegistrationJob job = new RegistrationJob();
+        job.setFormat(format);
+        job.setPath(path);
+        job.setStatus(RegistrationJobStatus.QUEUED);
+        job.setCreatedBy(AuthUtils.getCurrentUserId());
+        job.setCreatedDate(new Date());
+        registrationJobDao.createRegistrationJob(job);
+        return job;
+    }
+
+    /**
+     * Saves status, progress and result of a {@code RegistrationJob}
+     *
+     * @param job a {@code RegistrationJob} to save
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void updateJob(final RegistrationJob job) {
+        registrationJobDao.updateRegistrationJob(job);
+    }
+
+    /**
+     * Loads a {@code RegistrationJob} by ID
+     *
+     * @param jobId an ID of a job
+     * @return a {@code RegistrationJob} or {@code null}, if it doesn't exist
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public RegistrationJob loadJob(final Long jobId) {
+        List<RegistrationJob> jobs = loadJobs(Collections.singletonList(jobId));
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    /**
+     * Loads {@code RegistrationJob}s by IDs. Items, registered by completed jobs, are loaded as well.
+     *
+     * @param jobIds IDs of jobs
+     * @return a {@code List} of found jobs, ordered by ID
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<RegistrationJob> loadJobs(final List<Long> jobIds) {
+        List<RegistrationJob> jobs = registrationJobDao.loadRegistrationJobs(jobIds);
+
+        List<Long> itemIds = jobs.stream()
+            .map(RegistrationJob::getBioDataItemId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        if (!itemIds.isEmpty()) {
+            Map<Long, BiologicalDataItem> items = biologicalDataItemDao.loadBiologicalDataItemsByIds(itemIds)
+                .stream()
+                .collect(Collectors.toMap(BiologicalDataItem::getBioDataItemId, Function.identity(), (a, b) -> a));
+            jobs.forEach(job -> job.setItem(items.get(job.getBioDataItemId())));
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Marks all queued and running jobs as failed. Should be called on start up, as no jobs can be running at
+     * that moment.
+     *
+     * @param errorMessage a reason of the failure
+     * @return number of failed jobs
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public int failUnfinishedJobs(final String errorMessage) {
+        return registrationJobDao.failUnfinishedRegistrationJobs(errorMessage);
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.job;
+
+import static com.epam.catgenome.component.MessageHelper.getMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import com.epam.catgenome.constant.MessagesConstants;
+import com.epam.catgenome.controller.vo.registration.FeatureIndexedFileRegistrationRequest;
+import com.epam.catgenome.controller.vo.registration.ReferenceRegistrationRequest;
+import com.epam.catgenome.entity.BiologicalDataItem;
+import com.epam.catgenome.entity.BiologicalDataItemFormat;
+import com.epam.catgenome.entity.job.RegistrationJob;
+import com.epam.catgenome.entity.job.RegistrationJobStatus;
+import com.epam.catgenome.manager.bed.BedManager;
+import com.epam.catgenome.manager.gene.GffManager;
+import com.epam.catgenome.manager.maf.MafManager;
+import com.epam.catgenome.manager.reference.ReferenceManager;
+import com.epam.catgenome.manager.vcf.VcfManager;
+
+/**
+ * <p>
+ * Runs registrations of files and references as background {@code RegistrationJob}s, so that a client doesn't
+ * wait for parsing and indexing of a file in an HTTP request. Jobs are run by a bounded pool of threads, jobs,
+ * that don't fit into the bounded queue, are rejected. A client polls the status of a job, that is persisted along
+ * with its progress once the job is finished, and may cancel a queued or running job.
+ * </p>
+ */
+@Service
+public class RegistrationJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationJobService.class);
+    private static final int DEFAULT_QUEUE_SIZE = 256;
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 4000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60L;
+
+    /**
+     * Number of registrations, that run in parallel, 0 means number of processors
+     */
+    @Value("#{catgenome['registration.job.threads'] ?: 0}")
+    private int threadCount;
+
+    /**
+     * Number of registrations, that may wait for a free thread
+     */
+    @Value("#{catgenome['registration.job.queue.size'] ?: " + DEFAULT_QUEUE_SIZE + "}")
+    private int queueSize;
+
+    @Autowired
+    private RegistrationJobManager registrationJobManager;
+
+    @Autowired
+    private VcfManager vcfManager;
+
+    @Autowired
+    private GffManager gffManager;
+
+    @Autowired
+    private BedManager bedManager;
+
+    @Autowired
+    private MafManager mafManager;
+
+    @Autowired
+    private ReferenceManager referenceManager;
+
+    // progress of queued and running jobs, a job is removed once its final state is persisted
+    private final Map<Long, RegistrationProgress> activeJobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    public void init() {
+        int failedCount = registrationJobManager.failUnfinishedJobs(
+                getMessage(MessagesConstants.ERROR_REGISTRATION_JOB_INTERRUPTED));
+        if (failedCount > 0) {
+            LOGGER.info("{} registration jobs, interrupted by the server restart, are marked as failed", failedCount);
+        }
+
+        int threads = threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<>(Math.max(1, queueSize)));
+    }
+
+    /**
+     * Stops registrations on shutdown. Worker threads aren't interrupted, since registration code may treat
+     * an interruption as a normal end of work: running jobs are stopped the same way as cancelled ones, so that
+     * they clean up, and are marked as failed. Queued jobs are dropped and marked as failed on the next start.
+     */
+    @PreDestroy
+    public void destroy() {
+        shuttingDown = true;
+        executor.getQueue().clear();
+        executor.shutdown();
+        activeJobs.values().forEach(RegistrationProgress::cancel);
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Registration jobs haven't stopped in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submits a registration of a VCF, gene, BED or MAF file
+     *
+     * @param format a format of a file
+     * @param request a request for file registration, the same as for synchronous registration of the format
+     * @return a queued {@code RegistrationJob}
+     * @throws IllegalStateException if the queue of registrations is full
+     */
+    public RegistrationJob submitFileRegistration(final BiologicalDataItemFormat format,
+                                                  final FeatureIndexedFileRegistrationRequest request) {
+        Assert.notNull(format, getMessage(MessagesConstants.ERROR_NULL_PARAM, "format"));
+        Assert.isTrue(request != null && StringUtils.isNotBlank(request.getPath()),
+                      getMessage(MessagesConstants.ERROR_NULL_PARAM, "path"));
+
+        Supplier<BiologicalDataItem> registration;
+        switch (format) {
+            case VCF:
+                registration = () -> vcfManager.registerVcfFile(request);
+                break;
+            case GENE:
+                registration = () -> gffManager.registerGeneFile(request);
+                break;
+            case BED:
+                registration = () -> bedManager.registerBed(request);
+                break;
+            case MAF:
+                registration = () -> mafManager.registerMafFile(request);
+                break;
+            default:
+                throw new IllegalArgumentException(getMessage(MessagesConstants.ERROR_UNSUPPORTED_FILE_FORMAT,
+                                                              format));
+        }
+
+        return submit(format, request.getPath(), registration);
+    }
+
+    /**
+     * Submits a registration of a reference genome
+     *
+     * @param request a request for reference registration
+     * @return a queued {@code RegistrationJob}
+     * @throws IllegalStateException if the queue of registrations is full
+     */
+    public RegistrationJob submitReferenceRegistration(final ReferenceRegistrationRequest request) {
+        Assert.isTrue(request != null && StringUtils.isNotBlank(request.getPath()),
+                      getMessage(MessagesConstants.ERROR_NULL_PARAM, "path"));
+
+        return submit(BiologicalDataItemFormat.REFERENCE, request.getPath(), () -> {
+            try {
+                return referenceManager.registerGenome(request);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Loads a {@code RegistrationJob} with its current progress
+     *
+     * @param jobId an ID of a job
+     * @return a {@code RegistrationJob}
+     */
+    public RegistrationJob loadJob(final Long jobId) {
+        RegistrationJob job = registrationJobManager.loadJob(jobId);
+        Assert.notNull(job, getMessage(MessagesConstants.ERROR_REGISTRATION_JOB_NOT_FOUND, jobId));
+        setProgress(job);
+        return job;
+    }
+
+    /**
+     * Loads {@code RegistrationJob}s with their current progress, allows a client to poll a batch of jobs
+     * with a single request
+     *
+     * @param jobIds IDs of jobs
+     * @return a {@code List} of found jobs, ordered by ID
+     */
+    public List<RegistrationJob> loadJobs(final List<Long> jobIds) {
+        List<RegistrationJob> jobs = registrationJobManager.loadJobs(jobIds);
+        jobs.forEach(this::setProgress);
+        return jobs;
+    }
+
+    /**
+     * Cancels a queued or running {@code RegistrationJob}. A running registration stops at the next parsed record
+     * or indexed chromosome and cleans up, as if it has failed. Does nothing if a job is already finished.
+     *
+     * @param jobId an ID of a job
+     * @return a {@code RegistrationJob}
+     */
+    public RegistrationJob cancelJob(final Long jobId) {
+        RegistrationProgress progress = activeJobs.get(jobId);
+        if (progress != null) {
+            progress.cancel();
+            LOGGER.info("Registration job {} is cancelled", jobId);
+        }
+        return loadJob(jobId);
+    }
+
+    private RegistrationJob submit(final BiologicalDataItemFormat format, final String path,
+                                   final Supplier<? extends BiologicalDataItem> registration) {
+        final RegistrationJob job = registrationJobManager.createJob(format, path);
+        final RegistrationProgress progress = new RegistrationProgress();
+        activeJobs.put(job.getId(), progress);
+
+        try {
+            CompletableFuture.supplyAsync(() -> run(job, progress, registration), executor)
+                .whenComplete((item, error) -> finish(job, progress, item, error));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getId());
+            String message = getMessage(MessagesConstants.ERROR_REGISTRATION_QUEUE_FULL, path);
+            job.setStatus(RegistrationJobStatus.FAILED);
+            job.setErrorMessage(message);
+            job.setFinishedDate(new Date());
+            registrationJobManager.updateJob(job);
+            throw new IllegalStateException(message, e);
+        }
+
+        LOGGER.info("Registration job {} is submitted for {} file {}", job.getId(), format, path);
+        // the submitted instance is modified by a worker, so a client gets a separate copy
+        return loadJob(job.getId());
+    }
+
+    private BiologicalDataItem run(final RegistrationJob job, final RegistrationProgress progress,
+                                   final Supplier<? extends BiologicalDataItem> registration) {
+        progress.checkCancelled();
+        job.setStatus(RegistrationJobStatus.RUNNING);
+        job.setStartedDate(new Date());
+        registrationJobManager.updateJob(job);
+
+        RegistrationProgress.bind(progress);
+        try {
+            return registration.get();
+        } finally {
+            RegistrationProgress.unbind();
+        }
+    }
+
+    private void finish(final RegistrationJob job, final RegistrationProgress progress,
+                        final BiologicalDataItem item, final Throwable error) {
+        job.setRecordsParsed(progress.getRecordsParsed());
+        job.setChromosomesIndexed(progress.getChromosomesIndexed());
+        job.setFinishedDate(new Date());
+
+        Throwable cause = unwrap(error);
+        if (cause == null) {
+            job.setStatus(RegistrationJobStatus.COMPLETED);
+            job.setBioDataItemId(BiologicalDataItem.getBioDataItemId(item));
+            LOGGER.info("Registration job {} is completed", job.getId());
+        } else if (shuttingDown) {
+            job.setStatus(RegistrationJobStatus.FAILED);
+            job.setErrorMessage(getMessage(MessagesConstants.ERROR_REGISTRATION_JOB_INTERRUPTED));
+            LOGGER.info("Registration job {} is stopped by the server shutdown", job.getId());
+        } else if (cause instanceof CancellationException || progress.isCancelled()) {
+            // registration code may wrap the cancellation into its own exception
+            job.setStatus(RegistrationJobStatus.CANCELLED);
+        } else {
+            job.setStatus(RegistrationJobStatus.FAILED);
+            job.setErrorMessage(StringUtils.abbreviate(StringUtils.defaultIfBlank(cause.getMessage(),
+                    cause.getClass().getName()), MAX_ERROR_MESSAGE_LENGTH));
+            LOGGER.error("Registration job " + job.getId() + " has failed", cause);
+        }
+
+        try {
+            registrationJobManager.updateJob(job);
+        } finally {
+            activeJobs.remove(job.getId());
+        }
+    }
+
+    private void setProgress(final RegistrationJob job) {
+        RegistrationProgress progress = activeJobs.get(job.getId());
+        if (progress != null) {
+            job.setRecordsParsed(progress.getRecordsParsed());
+            job.setChromosomesIndexed(progress.getChromosomesIndexed());
+        }
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException || cause instanceof UncheckedIOException) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
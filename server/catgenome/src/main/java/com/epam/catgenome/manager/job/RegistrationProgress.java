@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.job;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Tracks progress of a registration, running as a {@code RegistrationJob}, and carries its cancellation flag.
+ * A progress is bound to a thread, running the job, so registration code reaches it through {@link #current()}
+ * without changes of managers' signatures. Code, that hands the work over to other threads, should capture
+ * the current progress before and pass it to the workers.
+ * </p>
+ * <p>
+ * Cancellation is cooperative: counting methods throw {@link CancellationException} once a job is cancelled,
+ * so a registration stops at the next parsed record or indexed chromosome. When no job is bound to a thread,
+ * {@link #current()} returns a progress, that neither counts nor can be cancelled.
+ * </p>
+ */
+public final class RegistrationProgress {
+
+    private static final RegistrationProgress UNTRACKED = new RegistrationProgress(false);
+    private static final ThreadLocal<RegistrationProgress> BOUND_PROGRESS = new ThreadLocal<>();
+
+    private final boolean tracked;
+    private final LongAdder recordsParsed = new LongAdder();
+    private final LongAdder chromosomesIndexed = new LongAdder();
+    private volatile boolean cancelled;
+
+    RegistrationProgress() {
+        this(true);
+    }
+
+    private RegistrationProgress(boolean tracked) {
+        this.tracked = tracked;
+    }
+
+    /**
+     * @return a progress of a job, running in the current thread, or an untracked progress, if there's no such job
+     */
+    public static RegistrationProgress current() {
+        RegistrationProgress progress = BOUND_PROGRESS.get();
+        return progress != null ? progress : UNTRACKED;
+    }
+
+    static void bind(RegistrationProgress progress) {
+        BOUND_PROGRESS.set(progress);
+    }
+
+    static void unbind() {
+        BOUND_PROGRESS.remove();
+    }
+
+    /**
+     * Counts a parsed record of a feature file
+     * @throws CancellationException if the job is cancelled
+     */
+    public void recordParsed() {
+        checkCancelled();
+        if (tracked) {
+            recordsParsed.increment();
+        }
+    }
+
+    /**
+     * Counts indexed chromosomes of a reference or a feature file
+     * @param count number of chromosomes, indexed since the last call
+     * @throws CancellationException if the job is cancelled
+     */
+    public void addChromosomesIndexed(int count) {
+        checkCancelled();
+        if (tracked) {
+            chromosomesIndexed.add(count);
+        }
+    }
+
+    /**
+     * @throws CancellationException if the job is cancelled
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Registration is cancelled");
+        }
+    }
+
+    public long getRecordsParsed() {
+        return recordsParsed.sum();
+    }
+
+    public long getChromosomesIndexed() {
+        return chromosomesIndexed.sum();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = tracked;
+    }
+}
@@ -58,6 +58,7 @@ import com.epam.catgenome.manager.BiologicalDataItemManager;
 import com.epam.catgenome.manager.DownloadFileManager;
 import com.epam.catgenome.manager.FileManager;
 import com.epam.catgenome.manager.TrackHelper;
+import com.epam.catgenome.manager.job.RegistrationProgress;
 import com.epam.catgenome.manager.maf.parser.MafCodec;
 import com.epam.catgenome.manager.maf.parser.MafFeature;
 import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
@@ -252,6 +253,7 @@ public class MafManager {
                     fileManager.makeMafTempIndex(f, mafFile);
                 }
             }
+            RegistrationProgress progress = RegistrationProgress.current();
             for (Chromosome chromosome : reference.getChromosomes()) {
                 List<MafFeature> currChrFeatures = new ArrayList<>();
                 LOGGER.debug("Reading MAF records for chromosome {}", chromosome.getName());
@@ -262,10 +264,12 @@ public class MafManager {
                 Collections.sort(currChrFeatures, new FeatureComparator());
                 LOGGER.debug("Writing MAF records for chromosome {}", chromosome.getName());
                 for (MafFeature feature : currChrFeatures) {
+                    progress.recordParsed();
                     writer.write(feature.toBigMafString());
                     writer.newLine();
                 }
                 writer.flush();
+                progress.addChromosomesIndexed(1);
             }
             writer.flush();
         } finally {
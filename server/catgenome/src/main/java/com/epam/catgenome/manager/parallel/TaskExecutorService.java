@@ -25,14 +25,20 @@
 package com.epam.catgenome.manager.parallel;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import com.epam.catgenome.manager.bam.BamTrackEmitter;
+import com.epam.catgenome.manager.bam.AbstractBamTrackEmitter;
 import htsjdk.samtools.util.RuntimeIOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,7 +95,8 @@ public final class TaskExecutorService {
         return instance;
     }
 
-    public synchronized void executeTrackTask(BamTrackEmitter bamTrackEmitter, ExecutionMode mode, BamTrackTask task)
+    public synchronized void executeTrackTask(AbstractBamTrackEmitter bamTrackEmitter, ExecutionMode mode,
+                                              BamTrackTask task)
             throws IOException {
 
         Executor executor = (mode == ExecutionMode.SEQUENTIAL || forceSequential) ?
@@ -111,6 +118,35 @@ public final class TaskExecutorService {
         );
     }
 
+    /**
+     * Runs tasks in the thread pool and returns their futures. Unlike {@code ExecutorService.invokeAll}, may be
+     * called from a task, that is already running in the pool: if the pool has no free threads, a task is run in
+     * the calling thread. All tasks are run in the calling thread, if sequential execution is forced.
+     *
+     * @param tasks tasks to run
+     * @param <T> type of tasks' results
+     * @return futures of tasks in the same order
+     */
+    public <T> List<Future<T>> executeAll(List<Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            FutureTask<T> future = new FutureTask<>(task);
+            futures.add(future);
+            if (forceSequential) {
+                future.run();
+                continue;
+            }
+
+            try {
+                getExecutorService().execute(future);
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("No free threads in the pool, running a task in the calling thread");
+                future.run();
+            }
+        }
+        return futures;
+    }
+
     public int getTaskNumberOfThreads() {
         return Runtime.getRuntime().availableProcessors() / 2 <= maxThreadCount ?
                 (Runtime.getRuntime().availableProcessors() / 2) :
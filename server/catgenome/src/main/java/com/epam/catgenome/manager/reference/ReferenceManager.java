@@ -26,14 +26,21 @@ package com.epam.catgenome.manager.reference;
 
 import static com.epam.catgenome.component.MessageHelper.getMessage;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import com.epam.catgenome.entity.BiologicalDataItem;
 import com.epam.catgenome.entity.BiologicalDataItemFormat;
@@ -47,6 +54,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -76,9 +84,11 @@ import com.epam.catgenome.manager.externaldb.HttpDataManager;
 import com.epam.catgenome.manager.externaldb.ParameterNameValue;
 import com.epam.catgenome.manager.gene.GeneFileManager;
 import com.epam.catgenome.manager.gene.GffManager;
+import com.epam.catgenome.manager.job.RegistrationProgress;
+import com.epam.catgenome.manager.parallel.TaskExecutorService;
+import com.epam.catgenome.manager.reference.io.NibBlockReader;
 import com.epam.catgenome.manager.reference.io.NibDataReader;
 import com.epam.catgenome.manager.reference.io.NibDataWriter;
-import com.epam.catgenome.util.BlockCompressedDataInputStream;
 import com.epam.catgenome.util.BlockCompressedDataOutputStream;
 import com.epam.catgenome.util.Utils;
 
@@ -113,7 +123,23 @@ import com.epam.catgenome.util.Utils;
 
     @Autowired private BiologicalDataItemManager biologicalDataItemManager;
 
+    @Autowired private TaskExecutorService taskExecutorService;
+
     private static final Logger LOG = LoggerFactory.getLogger(ReferenceManager.class);
+    private static final int DEFAULT_REGISTRATION_WINDOW_SIZE = 1024 * 1024;
+
+    /**
+     * Number of chromosomes, that are processed in parallel during reference registration, defaults to number of
+     * processors
+     */
+    @Value("#{catgenome['reference.registration.threads'] ?: 0}")
+    private int registrationThreadCount;
+
+    /**
+     * Number of bases, that are read from a FASTA file at once during reference registration
+     */
+    @Value("#{catgenome['reference.registration.window.size'] ?: " + DEFAULT_REGISTRATION_WINDOW_SIZE + "}")
+    private int registrationWindowSize;
 
     /**
      * @param track {@code Track} Track with information about query
@@ -243,17 +269,13 @@ import com.epam.catgenome.util.Utils;
             final long referenceId, final String chromosomeName) throws IOException {
         final Reference reference = referenceGenomeManager.getOnlyReference(referenceId);
         if (isNibReference(reference.getPath())) {
-            try (BlockCompressedDataInputStream strm = fileManager
-                    .makeRefInputStream(referenceId, chromosomeName);
-                    DataInputStream indexStrm = fileManager
-                            .makeRefIndexInputStream(referenceId, chromosomeName)) {
-                return nibDataReader
-                        .getNucleotidesFromNibFile(startPosition, endPosition, strm, indexStrm);
+            try (NibBlockReader reader = fileManager.openRefReader(referenceId, chromosomeName)) {
+                return nibDataReader.getNucleotidesFromNibFile(startPosition, endPosition, reader);
             }
         } else {
             List<Sequence> sequencesList = new ArrayList<>();
 
-            FastaSequenceFile ref = new FastaSequenceFile(reference.getPath(),
+            FastaSequenceFile ref = fileManager.getFastaSequenceFile(reference.getPath(),
                     getIndexPath(reference));
             String bases = new String(ref.getSequence(chromosomeName, startPosition, endPosition),
                     Charset.defaultCharset());
@@ -338,14 +360,11 @@ import com.epam.catgenome.util.Utils;
             final Long referenceId, final String chromosomeName) throws IOException {
         final Reference reference = referenceGenomeManager.getOnlyReference(referenceId);
         if (isNibReference(reference.getPath())) {
-            try (BlockCompressedDataInputStream strm = fileManager
-                    .makeRefInputStream(reference.getId(), chromosomeName);
-                    DataInputStream indexStrm = fileManager
-                            .makeRefIndexInputStream(reference.getId(), chromosomeName)) {
-                return nibDataReader.getStringFromNibFile(startIndex, endIndex, strm, indexStrm);
+            try (NibBlockReader reader = fileManager.openRefReader(reference.getId(), chromosomeName)) {
+                return nibDataReader.getStringFromNibFile(startIndex, endIndex, reader);
             }
         } else {
-            FastaSequenceFile ref = new FastaSequenceFile(reference.getPath(), getIndexPath(reference));
+            FastaSequenceFile ref = fileManager.getFastaSequenceFile(reference.getPath(), getIndexPath(reference));
             return new String(ref.getSequence(chromosomeName, startIndex, endIndex),
                     Charset.defaultCharset());
         }
@@ -365,16 +384,12 @@ import com.epam.catgenome.util.Utils;
             final Long referenceId, final String chromosomeName) throws IOException {
         final Reference reference = referenceGenomeManager.getOnlyReference(referenceId);
         if (isNibReference(reference.getPath())) {
-            try (BlockCompressedDataInputStream strm = fileManager
-                    .makeRefInputStream(referenceId, chromosomeName);
-                    DataInputStream indexStrm = fileManager
-                            .makeRefIndexInputStream(referenceId, chromosomeName)) {
-                return nibDataReader
-                        .getByteNucleotidesFromNibFile(startIndex, endIndex, strm, indexStrm);
+            try (NibBlockReader reader = fileManager.openRefReader(referenceId, chromosomeName)) {
+                return nibDataReader.getByteNucleotidesFromNibFile(startIndex, endIndex, reader);
             }
 
         } else {
-            FastaSequenceFile ref = new FastaSequenceFile(reference.getPath(), getIndexPath(reference));
+            FastaSequenceFile ref = fileManager.getFastaSequenceFile(reference.getPath(), getIndexPath(reference));
             return ref.getSequence(chromosomeName, startIndex, endIndex);
         }
     }
@@ -431,11 +446,8 @@ import com.epam.catgenome.util.Utils;
         if (scaleFactor <= (1.0 / Constants.GC_CONTENT_STEP)
                 && chromosomeSize > Constants.GC_CONTENT_MIN_LENGTH) {
             LOG.debug(getMessage(MessagesConstants.DEBUG_FILE_READING));
-            try (BlockCompressedDataInputStream strm = fileManager
-                    .makeGCInputStream(trackID, chromosomeName);
-                    DataInputStream indexStrm = fileManager
-                            .makeGCIndexInputStream(trackID, chromosomeName)) {
-                return getGCFromGCFile(startIndex, endIndex, scaleFactor, strm, indexStrm);
+            try (NibBlockReader reader = fileManager.openGCReader(trackID, chromosomeName)) {
+                return getGCFromGCFile(startIndex, endIndex, scaleFactor, reader);
             } catch (IllegalArgumentException e) {
                 //gc content may be disabled
                 LOG.debug(e.getMessage(), e);
@@ -445,11 +457,8 @@ import com.epam.catgenome.util.Utils;
         } else {
             if (isNibReference(reference.getPath())) {
                 LOG.debug(getMessage(MessagesConstants.DEBUG_FILE_READING));
-                try (BlockCompressedDataInputStream strm = fileManager
-                        .makeRefInputStream(trackID, chromosomeName);
-                        DataInputStream indexStrm = fileManager
-                                .makeRefIndexInputStream(trackID, chromosomeName)) {
-                    return getGCFromNibFile(startIndex, endIndex, scaleFactor, strm, indexStrm);
+                try (NibBlockReader reader = fileManager.openRefReader(trackID, chromosomeName)) {
+                    return getGCFromNibFile(startIndex, endIndex, scaleFactor, reader);
                 }
             } else {
                 LOG.debug(getMessage(MessagesConstants.DEBUG_FILE_READING));
@@ -510,11 +519,10 @@ import com.epam.catgenome.util.Utils;
     }
 
     private List<Sequence> getGCFromGCFile(int startPosition, final int endPosition,
-            final double scaleFactor, final BlockCompressedDataInputStream gcContentStream,
-            final DataInputStream indexStream) throws IOException {
+            final double scaleFactor, final NibBlockReader gcContentReader) throws IOException {
 
         return nibDataReader.fillSequenceOfGCFromGCFile(startPosition, endPosition, scaleFactor,
-                gcContentStream, indexStream);
+                gcContentReader);
     }
 
     private List<Sequence> getGCForGA4GH(final Integer startPosition, final Integer endPosition,
@@ -525,15 +533,14 @@ import com.epam.catgenome.util.Utils;
     }
 
     private List<Sequence> getGCFromNibFile(int startPosition, final int endPosition,
-            final double scaleFactor, final BlockCompressedDataInputStream gcContentStream,
-            final DataInputStream indexStream) throws IOException {
+            final double scaleFactor, final NibBlockReader nibReader) throws IOException {
         //arrays started at zero position, but chromosome started ad first position
         return nibDataReader.fillSequenceOfGCFromNibFile(startPosition, endPosition, scaleFactor,
-                gcContentStream, indexStream);
+                nibReader);
     }
 
     private long registerReference(Long referenceId, Reference reference, boolean createGC)
-            throws IOException {
+            throws IOException, InterruptedException {
         String path = reference.getPath();
         setIndex(reference);
         long lengthOfGenome = 0;
@@ -547,18 +554,90 @@ import com.epam.catgenome.util.Utils;
             chromosome.setReferenceId(referenceId);
             chromosome.setPath(reference.getPath());
             reference.getChromosomes().add(chromosome);
+        }
 
-            //work with GC
-            if (!FastaUtils.isRemote(path) && createGC) {
-                byte[] sequence = referenceReader.getChromosome(chr);
-                try (BlockCompressedDataOutputStream gcStream = fileManager
-                        .makeGCOutputStream(referenceId, chromosome)) {
-                    nibDataWriter.byteArrayToGCFile(sequence, gcStream);
+        //work with GC
+        if (!FastaUtils.isRemote(path) && createGC) {
+            writeGCContent(referenceId, referenceReader, reference.getChromosomes());
+        }
+        return lengthOfGenome;
+    }
+
+    /**
+     * Writes GC content files of chromosomes in parallel by a bounded number of tasks of the shared task executor.
+     * Each chromosome is streamed from the FASTA file in windows, so that memory consumption of a task doesn't depend
+     * on the chromosome length.
+     */
+    private void writeGCContent(Long referenceId, FastaSequenceFile referenceReader, List<Chromosome> chromosomes)
+            throws IOException, InterruptedException {
+        // the longest chromosomes are started first, so that they don't delay the end of registration
+        Queue<Chromosome> queue = chromosomes.stream()
+            .sorted(Comparator.comparing(Chromosome::getSize).reversed())
+            .collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
+        int threadCount = Math.max(1, Math.min(getRegistrationThreadCount(), chromosomes.size()));
+        RegistrationProgress progress = RegistrationProgress.current();
+
+        List<Callable<Void>> tasks = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            tasks.add(() -> {
+                Chromosome chromosome = queue.poll();
+                while (chromosome != null) {
+                    progress.checkCancelled();
+                    writeGCContent(referenceId, referenceReader, chromosome);
+                    progress.addChromosomesIndexed(1);
+                    chromosome = queue.poll();
                 }
-                fileManager.makeGcIndex(referenceId, chromosome.getName());
+                return null;
+            });
+        }
+
+        List<Future<Void>> futures = taskExecutorService.executeAll(tasks);
+        boolean completed = false;
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            completed = true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            if (!completed) {
+                // the other tasks stop after their current chromosomes and have to finish before the rollback
+                queue.clear();
+                awaitTasks(futures);
             }
         }
-        return lengthOfGenome;
+    }
+
+    private static void awaitTasks(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException | CancellationException e) {
+                LOG.debug("GC content task failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void writeGCContent(Long referenceId, FastaSequenceFile referenceReader, Chromosome chromosome)
+            throws IOException {
+        try (BlockCompressedDataOutputStream gcStream = fileManager.makeGCOutputStream(referenceId, chromosome)) {
+            NibDataWriter.GCContentWriter gcWriter = nibDataWriter.makeGCContentWriter(chromosome.getSize(),
+                                                                                       gcStream);
+            referenceReader.readSequence(chromosome.getName(), registrationWindowSize, gcWriter::add);
+            gcWriter.finish();
+        }
+        fileManager.makeGcIndex(referenceId, chromosome.getName());
+    }
+
+    private int getRegistrationThreadCount() {
+        return registrationThreadCount > 0 ? registrationThreadCount : Runtime.getRuntime().availableProcessors();
     }
 
     private void setIndex(Reference reference) {
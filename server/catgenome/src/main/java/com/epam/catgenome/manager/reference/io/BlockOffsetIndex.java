@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.reference.io;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * An index of a block compressed reference or GC content file, loaded into memory. For each block of the file
+ * the index stores a virtual file pointer of the block start and the position of the block's first byte in the
+ * uncompressed data, so a block, containing any uncompressed position, is found by a binary search.
+ * </p>
+ */
+public final class BlockOffsetIndex {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final long[] filePointers;
+    // has an extra element, that stores the length of uncompressed data
+    private final long[] blockStarts;
+
+    private BlockOffsetIndex(long[] filePointers, long[] blockStarts) {
+        this.filePointers = filePointers;
+        this.blockStarts = blockStarts;
+    }
+
+    /**
+     * Reads an index, written by {@code FileManager} as pairs of block's file pointer and block's uncompressed
+     * size, until the end of a stream
+     *
+     * @param indexStream a stream of an index file
+     * @return a loaded index
+     * @throws IOException if the index can't be read
+     */
+    public static BlockOffsetIndex read(DataInputStream indexStream) throws IOException {
+        long[] filePointers = new long[INITIAL_CAPACITY];
+        long[] blockStarts = new long[INITIAL_CAPACITY + 1];
+        int count = 0;
+        while (true) {
+            long filePointer;
+            long blockSize;
+            try {
+                filePointer = indexStream.readLong();
+                blockSize = indexStream.readLong();
+            } catch (EOFException e) {
+                break;
+            }
+
+            if (count == filePointers.length) {
+                filePointers = Arrays.copyOf(filePointers, count * 2);
+                blockStarts = Arrays.copyOf(blockStarts, count * 2 + 1);
+            }
+            filePointers[count] = filePointer;
+            blockStarts[count + 1] = blockStarts[count] + blockSize;
+            count++;
+        }
+
+        return new BlockOffsetIndex(Arrays.copyOf(filePointers, count), Arrays.copyOf(blockStarts, count + 1));
+    }
+
+    /**
+     * @param position a position in the uncompressed data
+     * @return a number of the block, that contains the position
+     */
+    public int findBlock(long position) {
+        int block = Arrays.binarySearch(blockStarts, 0, filePointers.length, position);
+        if (block < 0) {
+            block = -block - 2; // the last block, that starts before the position
+        } else {
+            // blocks of zero size share the start with the next block
+            while (block + 1 < filePointers.length && blockStarts[block + 1] == position) {
+                block++;
+            }
+        }
+        return Math.max(block, 0);
+    }
+
+    /**
+     * @param position a position in the uncompressed data
+     * @return a virtual file pointer of the position
+     */
+    public long getFilePointer(long position) {
+        int block = findBlock(position);
+        return filePointers[block] + position - blockStarts[block];
+    }
+
+    public long getBlockFilePointer(int block) {
+        return filePointers[block];
+    }
+
+    public long getBlockStart(int block) {
+        return blockStarts[block];
+    }
+
+    public int getBlockSize(int block) {
+        return (int) (blockStarts[block + 1] - blockStarts[block]);
+    }
+
+    /**
+     * @return length of the uncompressed data
+     */
+    public long getLength() {
+        return blockStarts[filePointers.length];
+    }
+
+    public int size() {
+        return filePointers.length;
+    }
+}
@@ -1,25 +1,86 @@
 package com.epam.catgenome.manager.reference.io;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import htsjdk.samtools.seekablestream.SeekableStream;
 import htsjdk.samtools.seekablestream.SeekableStreamFactory;
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 
+import com.epam.catgenome.constant.Constants;
 
-public class FastaSequenceFile {
+/**
+ * Reads sequences of an indexed FASTA file. An instance is thread safe and is meant to be kept between requests:
+ * the index is parsed once, a local file is memory mapped per sequence and blocks of a remote file, loaded with
+ * range requests, are cached.
+ */
+public class FastaSequenceFile implements Closeable {
     private static final Logger LOG = Logger.getLogger(FastaSequenceFile.class);
+    private static final int REMOTE_BLOCK_SIZE = 64 * 1024;
+    private static final int DEFAULT_REMOTE_BLOCK_COUNT = 256;
 
     private final FastaIndex index;
     private final String path;
     private final long contentLength;
+    private final long lastModified;
+    private final ByteSource source;
+
+    /**
+     * Receives windows of a sequence, read by {@link #readSequence(String, int, SequenceConsumer)}
+     */
+    @FunctionalInterface
+    public interface SequenceConsumer {
+        /**
+         * @param bases an array of bases, that is reused for the next window
+         * @param length number of bases in the window
+         * @throws IOException if bases can't be processed
+         */
+        void accept(byte[] bases, int length) throws IOException;
+    }
 
     public FastaSequenceFile(String path, String indexPath) throws IOException {
+        this(path, indexPath, DEFAULT_REMOTE_BLOCK_COUNT);
+    }
+
+    /**
+     * @param path a path or an URL of a FASTA file
+     * @param indexPath a path or an URL of a .fai index of the file
+     * @param remoteBlockCount how many blocks of 64 KB of a remote file to keep in memory
+     * @throws IOException if the index can't be read
+     */
+    public FastaSequenceFile(String path, String indexPath, int remoteBlockCount) throws IOException {
         this.path = path;
         contentLength = FastaUtils.getContentLength(path);
         index = new FastaIndex(indexPath);
+        if (FastaUtils.isRemote(path)) {
+            lastModified = 0;
+            source = new BlockCacheByteSource(path, Math.max(1, remoteBlockCount));
+        } else {
+            lastModified = new File(path).lastModified();
+            source = new MappedByteSource(path);
+        }
     }
 
     public Set<String> getChromosomeNames() {
@@ -56,36 +117,36 @@ public class FastaSequenceFile {
 
             int offset = start - base0;
             final long position = idxEntry.getPosition();
-            long startByte = position + startLine * bytesPerLine + offset;
+            long startByte = position + (long) startLine * bytesPerLine + offset;
 
             int base1 = endLine * basesPerLine;
             int offset1 = end - base1;
-            long endByte = Math.min(contentLength, position + endLine * bytesPerLine + offset1);
+            long endByte = position + (long) endLine * bytesPerLine + offset1;
+            if (contentLength >= 0) {
+                endByte = Math.min(contentLength, endByte);
+            }
 
             if (startByte >= endByte) {
                 return new byte[0];
             }
 
-            // Read all the bytes in the range.  This will include endline characters
-            byte[] allBytes = readBytes(startByte, endByte);
+            // Copy bases line by line right into the result, skipping endline characters
+            byte[] result = new byte[end - start];
+            int count = 0;
+            long filePos = startByte;
+            int nBases = Math.min(result.length, basesPerLine - offset);
+            while (count < result.length && filePos < endByte) {
+                nBases = (int) Math.min(nBases, endByte - filePos);
+                int read = source.read(idxEntry, filePos, result, count, nBases);
+                count += read;
+                if (read < nBases) { // the file is shorter, than the index states
+                    break;
+                }
 
-            // Create the array for the sequence -- this will be "allBytes" without the endline characters.
-            ByteArrayOutputStream bos = new ByteArrayOutputStream(end - start);
-
-            int srcPos = 0;
-            // Copy first line
-            final int allBytesLength = allBytes.length;
-            if (offset > 0) {
-                int nBases = Math.min(end - start, basesPerLine - offset);
-                bos.write(allBytes, srcPos, nBases);
-                srcPos += (nBases + nEndBytes);
-            }
-            while (srcPos < allBytesLength) {
-                int nBases = Math.min(basesPerLine, allBytesLength - srcPos);
-                bos.write(allBytes, srcPos, nBases);
-                srcPos += (nBases + nEndBytes);
+                filePos += nBases + nEndBytes;
+                nBases = Math.min(result.length - count, basesPerLine);
             }
-            return bos.toByteArray();
+            return count == result.length ? result : Arrays.copyOf(result, count);
         } catch (IOException e) {
             LOG.error(e.getMessage(), e);
             return new byte[0];
@@ -93,23 +154,349 @@ public class FastaSequenceFile {
     }
 
     /**
-     * Read the bytes between file position posStart and posEnd
+     * Reads a whole sequence in windows of a fixed size, skipping line endings. Unlike
+     * {@link #getChromosome(String)}, memory consumption doesn't depend on the length of the sequence.
+     * Reading stops at the end of the file, even if the index states, that the sequence is longer. As in
+     * {@link #getSequence(String, int, int)}, a file, that can't be opened, is logged and treated as empty.
+     *
+     * @param chr a name of a sequence to read
+     * @param windowSize maximum number of bases, passed to the consumer at once
+     * @param consumer receives windows of the sequence in order
+     * @throws IOException if the file can't be read
      */
-    private byte[] readBytes(long posStart, long posEnd) throws IOException {
+    public void readSequence(String chr, int windowSize, SequenceConsumer consumer) throws IOException {
+        FastaIndex.FastaSequenceIndexEntry idxEntry = index.getIndexEntry(chr);
+        if (idxEntry == null) {
+            return;
+        }
+
+        final int bytesPerLine = idxEntry.getBytesPerLine();
+        final int basesPerLine = idxEntry.getBasesPerLine();
+        final byte[] buffer = new byte[windowSize];
+        final byte[] bases = new byte[windowSize];
+
+        try (SeekableStream ss = openStream(idxEntry.getPosition())) {
+            if (ss == null) {
+                return;
+            }
+
+            long remaining = idxEntry.getSize();
+            int column = 0;
+            int count = 0;
+            while (remaining > 0) {
+                int read = ss.read(buffer, 0, buffer.length);
+                if (read < 0) { // the file is shorter, than the index states, keeps what is read, as getSequence does
+                    break;
+                }
 
+                int pos = 0;
+                while (pos < read && remaining > 0) {
+                    if (column < basesPerLine) {
+                        int n = (int) Math.min(Math.min(basesPerLine - column, read - pos),
+                                               Math.min(windowSize - count, remaining));
+                        System.arraycopy(buffer, pos, bases, count, n);
+                        count += n;
+                        remaining -= n;
+                        pos += n;
+                        column += n;
+                        if (count == windowSize) {
+                            consumer.accept(bases, count);
+                            count = 0;
+                        }
+                    } else { // skip line ending
+                        int n = Math.min(bytesPerLine - column, read - pos);
+                        pos += n;
+                        column += n;
+                    }
+
+                    if (column == bytesPerLine) {
+                        column = 0;
+                    }
+                }
+            }
+
+            if (count > 0) {
+                consumer.accept(bases, count);
+            }
+        }
+    }
+
+    private SeekableStream openStream(long position) {
         SeekableStream ss = null;
         try {
             ss = SeekableStreamFactory.getInstance().getStreamFor(path);
-            int nBytes = (int) (posEnd - posStart);
-            byte[] bytes = new byte[nBytes];
-            ss.seek(posStart);
-            ss.readFully(bytes);
-            return bytes;
-        } finally {
-            if (ss != null) {
-                ss.close();
+            ss.seek(position);
+            return ss;
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            IOUtils.closeQuietly(ss);
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a local file was modified after it was opened, so that cached mappings and the index don't match
+     * its content anymore. Remote files are never considered modified.
+     *
+     * @return true if the file should be reopened
+     */
+    public boolean isModified() {
+        return !FastaUtils.isRemote(path) && (new File(path).lastModified() != lastModified
+                || new File(path).length() != contentLength);
+    }
+
+    /**
+     * Drops memory mapped regions and cached blocks of the file and closes its stream. The instance stays usable:
+     * requests, that are still in progress, reopen resources on demand.
+     */
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    /**
+     * Reads bytes of a file at random positions
+     */
+    private interface ByteSource {
+        /**
+         * Reads bytes, starting at a specified position of the file. Less bytes are read only at the end of the file.
+         *
+         * @param entry an index entry of a sequence, the position belongs to
+         * @param position a position in the file
+         * @param bytes an array to read to
+         * @param offset an offset in the array
+         * @param length number of bytes to read
+         * @return number of bytes read
+         * @throws IOException if the file can't be read
+         */
+        int read(FastaIndex.FastaSequenceIndexEntry entry, long position, byte[] bytes, int offset, int length)
+            throws IOException;
+
+        void close();
+    }
+
+    /**
+     * Reads a local file through regions, memory mapped per sequence on the first access. A mapping doesn't
+     * hold the file open, so nothing is leaked, if a mapping is made after the source is closed. Sequences, that
+     * don't fit into a single mapping, are read with positional reads of a {@code FileChannel}.
+     */
+    private static final class MappedByteSource implements ByteSource {
+        private final Path path;
+        private final Map<String, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+        private MappedByteSource(String path) {
+            this.path = Paths.get(path);
+        }
+
+        @Override
+        public int read(FastaIndex.FastaSequenceIndexEntry entry, long position, byte[] bytes, int offset,
+                        int length) throws IOException {
+            MappedByteBuffer mapping = getMapping(entry);
+            if (mapping == null) {
+                return readFromChannel(position, bytes, offset, length);
             }
+
+            // a duplicate has its own position, so the mapping is shared by concurrent requests
+            ByteBuffer buffer = mapping.duplicate();
+            int mappingPos = (int) (position - entry.getPosition());
+            int n = Math.min(length, buffer.limit() - mappingPos);
+            if (n <= 0) {
+                return 0;
+            }
+
+            buffer.position(mappingPos);
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        private MappedByteBuffer getMapping(FastaIndex.FastaSequenceIndexEntry entry) throws IOException {
+            MappedByteBuffer mapping = mappings.get(entry.getContig());
+            if (mapping != null) {
+                return mapping;
+            }
+
+            long lines = entry.getSize() / entry.getBasesPerLine();
+            long sequenceBytes = lines * entry.getBytesPerLine() + entry.getSize() % entry.getBasesPerLine();
+            if (sequenceBytes > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = Math.max(0, Math.min(sequenceBytes, channel.size() - entry.getPosition()));
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, entry.getPosition(), size);
+            }
+            // mapped concurrently at worst, the mappings are equal, so any of them can be kept
+            MappedByteBuffer previous = mappings.putIfAbsent(entry.getContig(), mapping);
+            return previous != null ? previous : mapping;
+        }
+
+        private int readFromChannel(long position, byte[] bytes, int offset, int length) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position() - offset) < 0) {
+                        break;
+                    }
+                }
+                return buffer.position() - offset;
+            }
+        }
+
+        /**
+         * Mapped regions can't be unmapped explicitly, they are released, when the buffers are garbage collected
+         */
+        @Override
+        public void close() {
+            mappings.clear();
         }
     }
 
+    /**
+     * Reads a remote file with range requests of fixed size blocks. A bounded number of recently used blocks is
+     * kept in memory, so that neighbouring requests, e.g. of the tiles of a track, don't load the same range again.
+     */
+    private static final class BlockCacheByteSource implements ByteSource {
+        private final String path;
+        private final int maxBlocks;
+        // cached blocks, loading blocks, idle streams and the closed flag are guarded by the instance lock, that
+        // isn't held during network reads: a block is loaded once by the first request, other requests for it wait
+        // for its future
+        private final Map<Long, byte[]> blocks;
+        private final Map<Long, FutureTask<byte[]>> loadingBlocks = new HashMap<>();
+        private final Deque<SeekableStream> idleStreams = new ArrayDeque<>();
+        private boolean closed;
+
+        private BlockCacheByteSource(String path, int maxBlocks) {
+            this.path = path;
+            this.maxBlocks = maxBlocks;
+            // access order for LRU eviction
+            this.blocks = new LinkedHashMap<>(maxBlocks, Constants.LRU_LOAD_FACTOR, true);
+        }
+
+        @Override
+        public int read(FastaIndex.FastaSequenceIndexEntry entry, long position, byte[] bytes, int offset,
+                        int length) throws IOException {
+            int count = 0;
+            while (count < length) {
+                long blockPos = position + count;
+                byte[] block = getBlock(blockPos / REMOTE_BLOCK_SIZE);
+                int blockOffset = (int) (blockPos % REMOTE_BLOCK_SIZE);
+                int n = Math.min(length - count, block.length - blockOffset);
+                if (n <= 0) {
+                    break;
+                }
+
+                System.arraycopy(block, blockOffset, bytes, offset + count, n);
+                count += n;
+            }
+            return count;
+        }
+
+        private byte[] getBlock(long blockIndex) throws IOException {
+            FutureTask<byte[]> loading;
+            boolean loader = false;
+            synchronized (this) {
+                byte[] block = blocks.get(blockIndex);
+                if (block != null) {
+                    return block;
+                }
+
+                loading = loadingBlocks.get(blockIndex);
+                if (loading == null) {
+                    loading = new FutureTask<>(() -> loadBlock(blockIndex));
+                    loadingBlocks.put(blockIndex, loading);
+                    loader = true;
+                }
+            }
+
+            if (loader) {
+                loading.run();
+            }
+
+            try {
+                byte[] block = loading.get();
+                if (loader) {
+                    cacheBlock(blockIndex, block);
+                }
+                return block;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                if (loader) {
+                    synchronized (this) {
+                        loadingBlocks.remove(blockIndex);
+                    }
+                }
+            }
+        }
+
+        private synchronized void cacheBlock(long blockIndex, byte[] block) {
+            if (closed) {
+                return;
+            }
+
+            blocks.put(blockIndex, block);
+            Iterator<Long> iterator = blocks.keySet().iterator();
+            while (blocks.size() > maxBlocks && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+
+        private byte[] loadBlock(long blockIndex) throws IOException {
+            SeekableStream stream;
+            synchronized (this) {
+                stream = idleStreams.pollFirst();
+            }
+            if (stream == null) {
+                stream = SeekableStreamFactory.getInstance().getStreamFor(path);
+            }
+
+            byte[] block = new byte[REMOTE_BLOCK_SIZE];
+            int count = 0;
+            try {
+                stream.seek(blockIndex * REMOTE_BLOCK_SIZE);
+                while (count < block.length) {
+                    int read = stream.read(block, count, block.length - count);
+                    if (read <= 0) { // an HTTP stream returns 0 at the end of a file
+                        block = Arrays.copyOf(block, count);
+                        break;
+                    }
+                    count += read;
+                }
+            } catch (IOException e) {
+                // the state of a failed stream is unknown, so it isn't reused
+                IOUtils.closeQuietly(stream);
+                throw e;
+            }
+
+            // a stream of a load, that finishes after the source is closed, isn't kept
+            synchronized (this) {
+                if (!closed) {
+                    idleStreams.addFirst(stream);
+                    return block;
+                }
+            }
+            IOUtils.closeQuietly(stream);
+            return block;
+        }
+
+        @Override
+        public void close() {
+            List<SeekableStream> streams;
+            synchronized (this) {
+                closed = true;
+                blocks.clear();
+                streams = new ArrayList<>(idleStreams);
+                idleStreams.clear();
+            }
+            streams.forEach(IOUtils::closeQuietly);
+        }
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.reference.io;
+
+import static com.epam.catgenome.component.MessageHelper.getMessage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.epam.catgenome.constant.MessagesConstants;
+import com.epam.catgenome.util.BlockCompressedDataInputStream;
+
+/**
+ * <p>
+ * Reads uncompressed data of a block compressed reference or GC content file by blocks, that are shared between
+ * requests through {@link NibFileCache}. A block is decompressed only if it isn't cached, in that case an open
+ * stream of the file is acquired from the cache and kept until the reader is closed. A reader is used by a single
+ * thread.
+ * </p>
+ */
+public class NibBlockReader implements Closeable {
+
+    private final NibFileCache cache;
+    private final File file;
+    private final BlockOffsetIndex index;
+
+    private NibFileCache.StreamHandle handle;
+    private long position;
+
+    NibBlockReader(NibFileCache cache, File file, BlockOffsetIndex index) {
+        this.cache = cache;
+        this.file = file;
+        this.index = index;
+    }
+
+    /**
+     * @return the current position in the uncompressed data
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Moves the reader to a position in the uncompressed data
+     *
+     * @param position a position in the uncompressed data
+     */
+    public void seek(long position) {
+        this.position = position;
+    }
+
+    /**
+     * Reads a big-endian int value and moves the reader forward
+     *
+     * @return an int value
+     * @throws IOException if the value can't be read
+     */
+    public int readInt() throws IOException {
+        byte[] bytes = new byte[Integer.BYTES];
+        readFully(bytes);
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+    /**
+     * Fills a buffer with the uncompressed data, starting at the current position, and moves the reader forward
+     *
+     * @param buffer a buffer to fill
+     * @throws IOException if the data can't be read
+     */
+    public void readFully(byte[] buffer) throws IOException {
+        if (position < 0 || position + buffer.length > index.getLength()) {
+            throw new IllegalArgumentException(getMessage(MessagesConstants.ERROR_READ_FILE));
+        }
+
+        int copied = 0;
+        while (copied < buffer.length) {
+            final int block = index.findBlock(position);
+            final byte[] data = cache.getBlock(file, block, () -> loadBlock(block));
+            final int offset = (int) (position - index.getBlockStart(block));
+            final int length = Math.min(buffer.length - copied, data.length - offset);
+            System.arraycopy(data, offset, buffer, copied, length);
+            copied += length;
+            position += length;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (handle != null) {
+            handle.close();
+            handle = null;
+        }
+    }
+
+    private byte[] loadBlock(int block) throws IOException {
+        if (handle == null) {
+            handle = cache.acquireStream(file);
+        }
+
+        final BlockCompressedDataInputStream stream = handle.getStream();
+        stream.seek(index.getBlockFilePointer(block));
+        final byte[] data = new byte[index.getBlockSize(block)];
+        int read = 0;
+        while (read < data.length) {
+            final int count = stream.read(data, read, data.length - read);
+            if (count <= 0) {
+                throw new IllegalArgumentException(getMessage(MessagesConstants.ERROR_READ_FILE));
+            }
+            read += count;
+        }
+        return data;
+    }
+}
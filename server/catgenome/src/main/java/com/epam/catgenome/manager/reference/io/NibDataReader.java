@@ -28,13 +28,11 @@ import static com.epam.catgenome.component.MessageHelper.getMessage;
 import static com.epam.catgenome.constant.MessagesConstants.ERROR_REFERENCE_READING;
 import static com.epam.catgenome.entity.nucleotid.NibByteFormat.LOW_TO_HIGH_NIB_CODE_SHIFT;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,7 +52,6 @@ import com.epam.catgenome.exception.Ga4ghResourceUnavailableException;
 import com.epam.catgenome.exception.ReferenceReadingException;
 import com.epam.catgenome.manager.externaldb.HttpDataManager;
 import com.epam.catgenome.manager.externaldb.ParameterNameValue;
-import com.epam.catgenome.util.BlockCompressedDataInputStream;
 
 /**
  * {@code NibDataReader} provides service for loading reference data from the registered in the
@@ -78,17 +75,16 @@ public class NibDataReader {
      * Loads sequence string from the input stream in the Nib format
      * @param startPosition {@code int} start position at chromosome
      * @param endPosition   {@code int} end position at chromosome
-     * @param nibStream     {@code InputStream} InputStream from nib-format file
-     * @return {@code String} return String of nucleotides, at nibStream started at startPosition
+     * @param nibReader     {@code NibBlockReader} reader of a nib-format file
+     * @return {@code String} return String of nucleotides, at nibReader started at startPosition
      * and length sequenceLength
      */
     public String getStringFromNibFile(final int startPosition, final int endPosition,
-            BlockCompressedDataInputStream nibStream,
-            DataInputStream indexStream)
+            NibBlockReader nibReader)
             throws IOException {
         final int newStartPosition = startPosition - 1;
         final int sequenceLength = endPosition - newStartPosition;
-        Assert.notNull(nibStream, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
+        Assert.notNull(nibReader, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
         Assert.isTrue(sequenceLength >= 0, getMessage(MessagesConstants.ERROR_LENGTH_ABOVE_ZERO));
         Assert.isTrue(newStartPosition >= 0, getMessage(MessagesConstants.ERROR_START_POSITION_ABOVE_ZERO));
 
@@ -99,7 +95,7 @@ public class NibDataReader {
         // 2 nib-format at byte
         final int realLength = sequenceLength / 2 + Math.max(positionFactor, realLengthFactor);
         byte[] buffer = new byte[realLength];
-        buffer = readFromNib(nibStream, indexStream, newStartPosition, sequenceLength, seekPosition, buffer);
+        buffer = readFromNib(nibReader, newStartPosition, sequenceLength, seekPosition, buffer);
         return nibByteArrayToString(positionFactor, sequenceLength, buffer);
     }
 
@@ -107,17 +103,16 @@ public class NibDataReader {
      * Loads a byte array with nucleotides byte values from the input stream in the Nib format
      * @param startPosition {@code int} start position at chromosome
      * @param endPosition   {@code int} end position at chromosome
-     * @param nibStream     {@code InputStream} InputStream from nib-format file
-     * @return {@code String} byte array with of nucleotides, at nibStream started at startPosition
+     * @param nibReader     {@code NibBlockReader} reader of a nib-format file
+     * @return {@code String} byte array with of nucleotides, at nibReader started at startPosition
      * and length sequenceLength
      */
     public byte[] getByteNucleotidesFromNibFile(final int startPosition, final int endPosition,
-            BlockCompressedDataInputStream nibStream,
-            DataInputStream indexStream)
+            NibBlockReader nibReader)
             throws IOException {
         final int newStartPosition = startPosition - 1;
         final int sequenceLength = endPosition - newStartPosition;
-        Assert.notNull(nibStream, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
+        Assert.notNull(nibReader, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
         Assert.isTrue(sequenceLength >= 0, getMessage(MessagesConstants.ERROR_LENGTH_ABOVE_ZERO));
         Assert.isTrue(newStartPosition >= 0, getMessage(MessagesConstants.ERROR_START_POSITION_ABOVE_ZERO));
 
@@ -128,7 +123,7 @@ public class NibDataReader {
         // 2 nib-format at byte
         final int realLength = sequenceLength / 2 + Math.max(positionFactor, realLengthFactor);
         byte[] buffer = new byte[realLength];
-        buffer = readFromNib(nibStream, indexStream, newStartPosition, sequenceLength, seekPosition, buffer);
+        buffer = readFromNib(nibReader, newStartPosition, sequenceLength, seekPosition, buffer);
         return nibByteArrayToNucleotideBytes(positionFactor, sequenceLength, buffer);
     }
 
@@ -136,19 +131,18 @@ public class NibDataReader {
      * Loads a {@code List} of reference sequences from the stream (file) in a Nib format
      * @param startPosition {@code int} start position at chromosome
      * @param endPosition   {@code int} end position at chromosome
-     * @param nibStream     {@code InputStream} InputStream from nib-format file
-     * @return {@code List} return List of nucleotides sequences, at nibStream started at startPosition
+     * @param nibReader     {@code NibBlockReader} reader of a nib-format file
+     * @return {@code List} return List of nucleotides sequences, at nibReader started at startPosition
      * and length sequenceLength
      */
     public List<Sequence> getNucleotidesFromNibFile(final int startPosition, final int endPosition,
-            final BlockCompressedDataInputStream nibStream,
-            final DataInputStream indexStream)
+            final NibBlockReader nibReader)
             throws IOException {
         //arrays started at zero position, but chromosome started ad first position
         final int newStartPosition = startPosition - 1;
         //sequenceLength it (endPosition) - (old startPosition) + 1 or (endPosition) - (new startPosition)
         final int sequenceLength = endPosition - newStartPosition;
-        Assert.notNull(nibStream, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
+        Assert.notNull(nibReader, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
         Assert.isTrue(sequenceLength >= 0, getMessage(MessagesConstants.ERROR_LENGTH_ABOVE_ZERO));
         Assert.isTrue(newStartPosition >= 0, getMessage(MessagesConstants.ERROR_START_POSITION_ABOVE_ZERO));
 
@@ -159,7 +153,7 @@ public class NibDataReader {
         // 2 nib-format at byte
         final int realLength = sequenceLength / 2 + Math.max(positionFactor, realLengthFactor);
         byte[] buffer = new byte[realLength];
-        buffer = readFromNib(nibStream, indexStream, newStartPosition, sequenceLength, seekPosition, buffer);
+        buffer = readFromNib(nibReader, newStartPosition, sequenceLength, seekPosition, buffer);
         return NibByteFormat
                 .nibByteArrayToNucleotidesList(newStartPosition, positionFactor, sequenceLength, buffer);
     }
@@ -199,16 +193,14 @@ public class NibDataReader {
      * @param startPosition {@code int} start position at chromosome
      * @param endPosition   {@code int} end position at chromosome
      * @param scaleFactor   track scale in the client
-     * @param nibStream     {@code InputStream} InputStream from nib-format file
-     * @param indexStream   {@code DataInputStream} InputStream from the reference index file
+     * @param nibReader     {@code NibBlockReader} reader of a nib-format file
      * @return {@code List} of sequences filled with GC-content data
      */
     public List<Sequence> fillSequenceOfGCFromNibFile(final int startPosition, final int endPosition,
             final double scaleFactor,
-            final BlockCompressedDataInputStream nibStream,
-            final DataInputStream indexStream)
+            final NibBlockReader nibReader)
             throws IOException {
-        Assert.notNull(nibStream, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
+        Assert.notNull(nibReader, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
 
         List<Sequence> template = createGCList(startPosition, endPosition, scaleFactor);
         //because index in array started at 0
@@ -226,7 +218,7 @@ public class NibDataReader {
         final int realLength = sequenceLength / 2 + Math.max(positionFactor, reallengthFactor);
         byte[] buffer = new byte[realLength];
         int nibCode;
-        buffer = readFromNib(nibStream, indexStream, newStartPosition, sequenceLength, seekPosition, buffer);
+        buffer = readFromNib(nibReader, newStartPosition, sequenceLength, seekPosition, buffer);
 
         //index for gcContentArray
         for (Sequence sequence : template) {
@@ -253,15 +245,13 @@ public class NibDataReader {
      * @param startPosition {@code int} start position at chromosome
      * @param endPosition   {@code int} end position at chromosome
      * @param scaleFactor   track scale in the client
-     * @param gcContentStream     {@code InputStream} InputStream from GC-format file
-     * @param indexStream   {@code DataInputStream} InputStream from the reference index file
+     * @param gcContentReader     {@code NibBlockReader} reader of a GC-format file
      * @return {@code List} of sequences filled with GC-content data
      */
 
     public List<Sequence> fillSequenceOfGCFromGCFile(final int startPosition, final int endPosition,
             final double scaleFactor,
-            final BlockCompressedDataInputStream gcContentStream,
-            final DataInputStream indexStream)
+            final NibBlockReader gcContentReader)
             throws IOException {
 
         //step in file very important
@@ -270,14 +260,14 @@ public class NibDataReader {
         final int sequenceLength = endPosition - startPosition;
         Assert.isTrue(scaleFactor <= 1.0 / Constants.GC_CONTENT_STEP,
                 getMessage(MessagesConstants.ERROR_INVALID_PARAM));
-        Assert.notNull(gcContentStream, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
+        Assert.notNull(gcContentReader, getMessage(MessagesConstants.ERROR_NO_SUCH_FILE));
         Assert.isTrue(sequenceLength >= 0, getMessage(MessagesConstants.ERROR_LENGTH_ABOVE_ZERO));
         Assert.isTrue(startPosition >= 1, getMessage(MessagesConstants.ERROR_START_POSITION_ABOVE_ZERO));
         List<Sequence> template = createGCList(startPosition, endPosition, scaleFactor);
         //because index in array started at 0
         final int newStartPosition = startPosition - 1;
-        final byte[] gcContentArray = getGCContentArray(newStartPosition, endPosition, scaleFactor, gcContentStream,
-                indexStream, stepGCInArray);
+        final byte[] gcContentArray = getGCContentArray(newStartPosition, endPosition, scaleFactor,
+                gcContentReader, stepGCInArray);
 
         //fill template
         Iterator<Sequence> iterator = template.iterator();
@@ -389,50 +379,21 @@ public class NibDataReader {
     }
 
 
-    private byte[] readFromNib(final BlockCompressedDataInputStream nibStream, final DataInputStream indexStream,
+    private byte[] readFromNib(final NibBlockReader nibReader,
             final int startPosition, final int sequenceLength, long seekPosition,
             byte[] buffer) throws IOException {
 
-        int signature = nibStream.readInt();
-        int lengthNibSequence = nibStream.readInt();
+        int signature = nibReader.readInt();
+        int lengthNibSequence = nibReader.readInt();
         Assert.isTrue(signature == Signature.NIB_SIGNATURE.getSignature(),
                 getMessage(MessagesConstants.ERROR_WRONG_SIGNATURE));
         Assert.isTrue(lengthNibSequence >= startPosition + sequenceLength,
                 getMessage(MessagesConstants.ERROR_LOGIC_LENGTH));
-        seekBCDISWithIndexFile(nibStream, indexStream, seekPosition);
-
-        readInBuff(buffer, nibStream);
-
-        IOUtils.closeQuietly(nibStream);
-        IOUtils.closeQuietly(indexStream);
+        nibReader.seek(nibReader.getPosition() + seekPosition);
+        nibReader.readFully(buffer);
         return buffer;
     }
 
-    private void seekBCDISWithIndexFile(final BlockCompressedDataInputStream stream, final DataInputStream index,
-            final long positon) throws IOException {
-        //correct seek in file
-        long seekPosition = positon + stream.getPosition();
-        long filePosition = index.readLong();
-        long seekPos = index.readLong();
-        long helpSeekPosition = seekPosition - seekPos;
-        while (helpSeekPosition >= 0) {
-            seekPosition = helpSeekPosition;
-            filePosition = index.readLong();
-            seekPos = index.readLong();
-            helpSeekPosition = seekPosition - seekPos;
-        }
-        stream.seek(filePosition + seekPosition);
-    }
-
-    private void readInBuff(final byte[] buffer, final BlockCompressedDataInputStream dataInputStream)
-            throws IOException {
-        int realReadLength = 0;
-        while (dataInputStream.available() > 0 && realReadLength < buffer.length) {
-            realReadLength += dataInputStream.read(buffer, realReadLength, buffer.length - realReadLength);
-        }
-        Assert.isTrue(buffer.length == realReadLength, getMessage(MessagesConstants.ERROR_READ_FILE));
-    }
-
     private boolean isGCNibCode(final byte nibCode) {
         return nibCode == NibByteFormat.NUCLEOTIDE_UPPERCASE_G.getByteCode()
                 || nibCode == NibByteFormat.NUCLEOTIDE_UPPERCASE_C.getByteCode()
@@ -497,22 +458,21 @@ public class NibDataReader {
     }
 
     private byte[] getGCContentArray(final int startPosition, final int endPosition, final double scaleFactor,
-            final BlockCompressedDataInputStream gcContentStream,
-            final DataInputStream indexStream, ReadGC stepGCInArray)
+            final NibBlockReader gcContentReader, ReadGC stepGCInArray)
             throws IOException {
         byte[] gcContentArray;
-        final int signatureGC = gcContentStream.readInt();
+        final int signatureGC = gcContentReader.readInt();
         Assert.isTrue(signatureGC == Signature.GC_CONTENT_SIGNATURE.getSignature(),
                 getMessage(MessagesConstants.ERROR_WRONG_SIGNATURE));
-        final int sizeGCContent = gcContentStream.readInt();
+        final int sizeGCContent = gcContentReader.readInt();
         Assert.isTrue(sizeGCContent >= endPosition, getMessage(MessagesConstants.ERROR_LOGIC_LENGTH));
-        final int stepInFile = gcContentStream.readInt();
+        final int stepInFile = gcContentReader.readInt();
         Assert.isTrue(stepInFile > 0, getMessage(MessagesConstants.ERROR_LOGIC_LENGTH));
-        final int gcLvlCount = gcContentStream.readInt();
+        final int gcLvlCount = gcContentReader.readInt();
         Assert.isTrue(gcLvlCount > 0, getMessage(MessagesConstants.ERROR_LOGIC_LENGTH));
         final int[] gcLvlSize = new int[gcLvlCount];
         for (int i = 0; i < gcLvlSize.length; i++) {
-            gcLvlSize[i] = gcContentStream.readInt();
+            gcLvlSize[i] = gcContentReader.readInt();
         }
         final long stepInQuery = Math.round(1 / scaleFactor);
         stepGCInArray.gcArrayStep = stepInFile * stepInFile;
@@ -532,15 +492,13 @@ public class NibDataReader {
         for (int i = 0; i < whatLvlWeNeed; i++) {
             seekPosition += gcLvlSize[i];
         }
-        seekBCDISWithIndexFile(gcContentStream, indexStream, seekPosition);
+        gcContentReader.seek(gcContentReader.getPosition() + seekPosition);
 
 
         final int queryLength = (int) Math.ceil((endPosition - startPosition) /
                 (Math.pow((double) stepInFile, (double) whatLvlWeNeed + (double) 1)));
         gcContentArray = new byte[queryLength];
-        readInBuff(gcContentArray, gcContentStream);
-        IOUtils.closeQuietly(indexStream);
-        IOUtils.closeQuietly(gcContentStream);
+        gcContentReader.readFully(gcContentArray);
         return gcContentArray;
     }
 
@@ -110,15 +110,27 @@ public class NibDataWriter {
      */
     public void byteArrayToGCFile(final byte[] arrayOfNucleicAcids,
             BlockCompressedDataOutputStream stream) throws IOException {
+        GCContentWriter writer = makeGCContentWriter(arrayOfNucleicAcids.length, stream);
+        writer.add(arrayOfNucleicAcids, arrayOfNucleicAcids.length);
+        writer.finish();
+    }
 
-        final int chromosomeSize = arrayOfNucleicAcids.length;
+    /**
+     * Creates a writer, that calculates GC content file of a chromosome incrementally, as nucleotides are passed to
+     * it, so that a whole chromosome isn't loaded into memory. The zero level of GC content is written to the stream
+     * immediately, the upper levels, that are about 1% of the chromosome size, are buffered until
+     * {@link GCContentWriter#finish()} is called.
+     *
+     * @param chromosomeSize  a number of nucleotides in a chromosome
+     * @param stream          {@code BlockCompressedDataOutputStream} to write GC content to
+     * @return a {@code GCContentWriter} for the chromosome
+     * @throws IOException if a header can't be written
+     */
+    public GCContentWriter makeGCContentWriter(final int chromosomeSize, BlockCompressedDataOutputStream stream)
+            throws IOException {
         GCContainer containerGC = init4GC(chromosomeSize);
         writeGCHead(chromosomeSize, containerGC, stream);
-        for (byte arrayOfNucleicAcid : arrayOfNucleicAcids) {
-            addBase2GC(arrayOfNucleicAcid, containerGC, stream);
-        }
-        //ended and write last data od GC-content
-        lastAdd2HeapAndWrite(containerGC, stream);
+        return new GCContentWriter(chromosomeSize, containerGC, stream);
     }
 
     private void writeNibHead(final BlockCompressedDataOutputStream blockCompressedDataOutputStream, final int length)
@@ -230,6 +242,50 @@ public class NibDataWriter {
         outStreamGC.write(containerGC.buff4Heap);
     }
 
+    /**
+     * {@code GCContentWriter} calculates GC content of a chromosome from consecutive parts of its sequence
+     */
+    public final class GCContentWriter {
+
+        private final int chromosomeSize;
+        private final GCContainer containerGC;
+        private final BlockCompressedDataOutputStream stream;
+        private long basesCount;
+
+        private GCContentWriter(int chromosomeSize, GCContainer containerGC, BlockCompressedDataOutputStream stream) {
+            this.chromosomeSize = chromosomeSize;
+            this.containerGC = containerGC;
+            this.stream = stream;
+        }
+
+        /**
+         * Adds the next part of a chromosome's sequence
+         * @param nucleotides an array of nucleotides codes (ASCII)
+         * @param length a number of nucleotides to take from the array
+         * @throws IOException if GC content can't be written
+         */
+        public void add(final byte[] nucleotides, final int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                addBase2GC(nucleotides[i], containerGC, stream);
+            }
+            basesCount += length;
+        }
+
+        /**
+         * Writes the last data of GC content, should be called after the whole sequence is added. If less
+         * nucleotides, than the chromosome size, were added, e.g. a FASTA file is shorter, than its index states,
+         * the rest of the chromosome is considered unknown (N), so that GC content matches the chromosome size.
+         * @throws IOException if GC content can't be written
+         */
+        public void finish() throws IOException {
+            Assert.isTrue(basesCount <= chromosomeSize, getMessage(MessagesConstants.ERROR_LOGIC_LENGTH));
+            for (; basesCount < chromosomeSize; basesCount++) {
+                addBase2GC(NibByteFormat.NUCLEOTIDE_UPPERCASE_N.getCharCode(), containerGC, stream);
+            }
+            lastAdd2HeapAndWrite(containerGC, stream);
+        }
+    }
+
     /**
      * {@code GCContainer} represents a binary block of GC data file
      */
@@ -0,0 +1,415 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.reference.io;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.epam.catgenome.constant.Constants;
+import com.epam.catgenome.util.BlockCompressedDataInputStream;
+
+/**
+ * <p>
+ * Keeps data of block compressed reference and GC content files between track requests: indexes of the files,
+ * loaded into memory as {@link BlockOffsetIndex}, decompressed blocks of the files and open streams of the files.
+ * A stream is used by a single request at a time: it is acquired with {@link #acquireStream(File)} and returned
+ * back, when the acquired {@link StreamHandle} is closed. Indexes, blocks and idle streams are bounded, the least
+ * recently used ones are dropped first.
+ * </p>
+ */
+public class NibFileCache implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NibFileCache.class);
+    private static final long LOG_PERIOD = 1000;
+
+    /**
+     * Opens an index stream of a file
+     */
+    @FunctionalInterface
+    public interface IndexOpener {
+        DataInputStream open() throws IOException;
+    }
+
+    /**
+     * Decompresses a block of a file
+     */
+    @FunctionalInterface
+    public interface BlockLoader {
+        byte[] load() throws IOException;
+    }
+
+    private final int maxIndexes;
+    private final int maxIdleStreams;
+    private final Map<String, BlockOffsetIndex> indexes;
+    private final Map<String, Deque<BlockCompressedDataInputStream>> idleStreams;
+    private int idleCount;
+
+    private final long maxBlocksBytes;
+    private final Map<BlockKey, byte[]> blocks = new LinkedHashMap<>(16, Constants.LRU_LOAD_FACTOR, true);
+    private long blocksBytes;
+
+    // incremented by each invalidation, data, loaded or borrowed before it, isn't put back into the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong blockHitCount = new AtomicLong();
+    private final AtomicLong blockMissCount = new AtomicLong();
+    private final AtomicLong blockEvictionCount = new AtomicLong();
+
+    /**
+     * @param maxIndexes maximum number of indexes to keep in memory
+     * @param maxIdleStreams maximum number of open streams, that are kept between requests
+     * @param maxBlocksBytes maximum total size of decompressed blocks to keep in memory, zero disables block caching
+     */
+    public NibFileCache(int maxIndexes, int maxIdleStreams, long maxBlocksBytes) {
+        this.maxIndexes = Math.max(1, maxIndexes);
+        this.maxIdleStreams = Math.max(0, maxIdleStreams);
+        this.maxBlocksBytes = Math.max(0, maxBlocksBytes);
+        this.indexes = new LinkedHashMap<>(this.maxIndexes, Constants.LRU_LOAD_FACTOR, true);
+        this.idleStreams = new LinkedHashMap<>(this.maxIndexes, Constants.LRU_LOAD_FACTOR, true);
+    }
+
+    /**
+     * Opens a reader of a file's uncompressed data, that shares decompressed blocks through the cache
+     *
+     * @param file a block compressed file
+     * @param index an index of the file
+     * @return a reader, positioned at the start of the file, it should be closed to release an open stream
+     */
+    public NibBlockReader openReader(File file, BlockOffsetIndex index) {
+        return new NibBlockReader(this, file, index);
+    }
+
+    /**
+     * Returns a decompressed block of a file, loading it, if it isn't cached yet
+     *
+     * @param file a block compressed file
+     * @param block a number of the block in the file's index
+     * @param loader a function to decompress the block
+     * @return uncompressed data of the block
+     * @throws IOException if the block can't be decompressed
+     */
+    public byte[] getBlock(File file, int block, BlockLoader loader) throws IOException {
+        final BlockKey key = new BlockKey(file.getAbsolutePath(), block);
+        synchronized (blocks) {
+            byte[] data = blocks.get(key);
+            if (data != null) {
+                blockHitCount.incrementAndGet();
+                return data;
+            }
+        }
+
+        blockMissCount.incrementAndGet();
+        final long loadGeneration = generation.get();
+        final byte[] data = loader.load();
+        if (data.length > maxBlocksBytes) {
+            return data;
+        }
+
+        synchronized (blocks) {
+            if (generation.get() != loadGeneration) {
+                return data;
+            }
+            final byte[] previous = blocks.put(key, data);
+            blocksBytes += data.length - (previous == null ? 0 : previous.length);
+
+            Iterator<byte[]> iterator = blocks.values().iterator();
+            while (blocksBytes > maxBlocksBytes && iterator.hasNext()) {
+                blocksBytes -= iterator.next().length;
+                iterator.remove();
+                blockEvictionCount.incrementAndGet();
+            }
+        }
+
+        if (LOGGER.isDebugEnabled() && blockMissCount.get() % LOG_PERIOD == 0) {
+            LOGGER.debug("Reference block cache hit rate: {}, hits: {}, misses: {}, evictions: {}",
+                    getBlockHitRate(), blockHitCount.get(), blockMissCount.get(), blockEvictionCount.get());
+        }
+        return data;
+    }
+
+    /**
+     * Returns an index of a file, loading it, if it isn't cached yet
+     *
+     * @param indexFile an index file
+     * @param opener a function to open the index file
+     * @return a loaded index
+     * @throws IOException if the index can't be read
+     */
+    public BlockOffsetIndex getIndex(File indexFile, IndexOpener opener) throws IOException {
+        final String key = indexFile.getAbsolutePath();
+        synchronized (indexes) {
+            BlockOffsetIndex index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+        }
+
+        final long loadGeneration = generation.get();
+        BlockOffsetIndex index;
+        try (DataInputStream indexStream = opener.open()) {
+            index = BlockOffsetIndex.read(indexStream);
+        }
+
+        synchronized (indexes) {
+            if (generation.get() != loadGeneration) {
+                return index;
+            }
+            indexes.put(key, index);
+            Iterator<BlockOffsetIndex> iterator = indexes.values().iterator();
+            while (indexes.size() > maxIndexes && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Acquires an open stream of a file, positioned at the start of the file. If an idle stream can't be
+     * positioned, it is closed and a new stream is opened instead.
+     *
+     * @param file a block compressed file
+     * @return a handle, that returns the stream to the cache, when closed
+     * @throws IOException if the file can't be opened
+     */
+    public StreamHandle acquireStream(File file) throws IOException {
+        final String key = file.getAbsolutePath();
+        final long acquireGeneration = generation.get();
+        BlockCompressedDataInputStream stream = null;
+        synchronized (idleStreams) {
+            Deque<BlockCompressedDataInputStream> streams = idleStreams.get(key);
+            if (streams != null) {
+                stream = streams.pollFirst();
+                if (streams.isEmpty()) {
+                    idleStreams.remove(key);
+                }
+                if (stream != null) {
+                    idleCount--;
+                }
+            }
+        }
+
+        if (stream != null) {
+            try {
+                stream.seek(0);
+                return new StreamHandle(key, stream, acquireGeneration);
+            } catch (IOException e) {
+                LOGGER.debug("Failed to reuse a stream of " + key + ", opening a new one", e);
+                IOUtils.closeQuietly(stream);
+            }
+        }
+
+        return new StreamHandle(key, new BlockCompressedDataInputStream(file), acquireGeneration);
+    }
+
+    /**
+     * Drops cached indexes and closes idle streams of files, located in a directory, should be called before
+     * the files are deleted or rewritten
+     *
+     * @param directory a directory of files
+     */
+    public void invalidate(File directory) {
+        final String prefix = directory.getAbsolutePath() + File.separator;
+        generation.incrementAndGet();
+        synchronized (indexes) {
+            indexes.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+        synchronized (blocks) {
+            Iterator<Map.Entry<BlockKey, byte[]>> iterator = blocks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BlockKey, byte[]> entry = iterator.next();
+                if (entry.getKey().path.startsWith(prefix)) {
+                    blocksBytes -= entry.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+
+        List<BlockCompressedDataInputStream> evicted = new ArrayList<>();
+        synchronized (idleStreams) {
+            Iterator<Map.Entry<String, Deque<BlockCompressedDataInputStream>>> iterator =
+                    idleStreams.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Deque<BlockCompressedDataInputStream>> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    evicted.addAll(entry.getValue());
+                    idleCount -= entry.getValue().size();
+                    iterator.remove();
+                }
+            }
+        }
+        evicted.forEach(IOUtils::closeQuietly);
+    }
+
+    @Override
+    public void close() {
+        List<BlockCompressedDataInputStream> evicted = new ArrayList<>();
+        synchronized (idleStreams) {
+            idleStreams.values().forEach(evicted::addAll);
+            idleStreams.clear();
+            idleCount = 0;
+        }
+        synchronized (indexes) {
+            indexes.clear();
+        }
+        synchronized (blocks) {
+            blocks.clear();
+            blocksBytes = 0;
+        }
+        evicted.forEach(IOUtils::closeQuietly);
+    }
+
+    public int indexesSize() {
+        synchronized (indexes) {
+            return indexes.size();
+        }
+    }
+
+    public int idleStreamsSize() {
+        synchronized (idleStreams) {
+            return idleCount;
+        }
+    }
+
+    public long getBlocksBytes() {
+        synchronized (blocks) {
+            return blocksBytes;
+        }
+    }
+
+    public long getBlockHitCount() {
+        return blockHitCount.get();
+    }
+
+    public long getBlockMissCount() {
+        return blockMissCount.get();
+    }
+
+    public long getBlockEvictionCount() {
+        return blockEvictionCount.get();
+    }
+
+    /**
+     * @return a share of block requests, served from the cache, or zero, if no blocks were requested
+     */
+    public double getBlockHitRate() {
+        final long hits = blockHitCount.get();
+        final long total = hits + blockMissCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private void release(String key, BlockCompressedDataInputStream stream, long acquireGeneration) {
+        List<BlockCompressedDataInputStream> evicted = new ArrayList<>();
+        synchronized (idleStreams) {
+            if (generation.get() != acquireGeneration) {
+                // the file may have been invalidated, while the stream was used
+                evicted.add(stream);
+            } else {
+                idleStreams.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(stream);
+                idleCount++;
+            }
+
+            Iterator<Deque<BlockCompressedDataInputStream>> iterator = idleStreams.values().iterator();
+            while (idleCount > maxIdleStreams && iterator.hasNext()) {
+                Deque<BlockCompressedDataInputStream> eldest = iterator.next();
+                evicted.add(eldest.pollLast());
+                idleCount--;
+                if (eldest.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        evicted.forEach(IOUtils::closeQuietly);
+    }
+
+    private static final class BlockKey {
+        private final String path;
+        private final int block;
+
+        private BlockKey(String path, int block) {
+            this.path = path;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey that = (BlockKey) o;
+            return block == that.block && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, block);
+        }
+    }
+
+    /**
+     * An open stream, acquired from the cache
+     */
+    public final class StreamHandle implements Closeable {
+        private final String key;
+        private final BlockCompressedDataInputStream stream;
+        private final long acquireGeneration;
+
+        private StreamHandle(String key, BlockCompressedDataInputStream stream, long acquireGeneration) {
+            this.key = key;
+            this.stream = stream;
+            this.acquireGeneration = acquireGeneration;
+        }
+
+        public BlockCompressedDataInputStream getStream() {
+            return stream;
+        }
+
+        /**
+         * Returns the stream to the cache
+         */
+        @Override
+        public void close() {
+            release(key, stream, acquireGeneration);
+        }
+    }
+}
@@ -41,6 +41,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -51,6 +52,7 @@ import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLineType;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
 import htsjdk.variant.vcf.VCFSimpleHeaderLine;
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -455,7 +457,11 @@ public class VcfManager {
             try (FeatureReader<VariantContext> reader = AbstractFeatureReader.getFeatureReader(vcfFile.getPath(),
                                                                                                new VCFCodec(), false)) {
                 VcfFilterInfo info = getFiltersInfo(reader);
-                featureIndexManager.makeIndexForVcfReader(vcfFile, reader, geneFiles, chromosomeMap, info);
+                if (hasLocalIndex(vcfFile)) {
+                    featureIndexManager.makeIndexForIndexedVcf(vcfFile, geneFiles, chromosomeMap, info);
+                } else {
+                    featureIndexManager.makeIndexForVcfReader(vcfFile, reader, geneFiles, chromosomeMap, info);
+                }
             }
         } catch (IOException e) {
             throw new FeatureIndexException(vcfFile, e);
@@ -532,9 +538,10 @@ public class VcfManager {
             Map<String, Pair<Integer, Integer>> metaMap =
                     readMetaMap(chromosomeMap, vcfFile, reader, reference, doIndex);
             fileManager.makeIndexMetadata(vcfFile, metaMap);
+            createSummaries(vcfFile, metaMap, chromosomeMap);
             biologicalDataItemManager.createBiologicalDataItem(vcfFile.getIndex());
             vcfFileManager.createVcfFile(vcfFile);
-        }  catch (IOException | GeneReadingException e) {
+        }  catch (IOException | GeneReadingException | FeatureIndexException e) {
             throw new RegistrationException(getMessage(ERROR_REGISTER_FILE, request.getName()), e);
         } finally {
             if (vcfFile != null && vcfFile.getId() != null &&
@@ -550,6 +557,31 @@ public class VcfManager {
         return vcfFile;
     }
 
+    /**
+     * Builds summaries of zoomed out tracks of a file for the sample, that is shown by default. Summaries of other
+     * samples are built on the first request
+     */
+    private void createSummaries(final VcfFile vcfFile, final Map<String, Pair<Integer, Integer>> metaMap,
+                                 final Map<String, Chromosome> chromosomeMap) throws IOException {
+        if (!fileManager.isFeatureSummaryEnabled()) {
+            return;
+        }
+
+        final List<Chromosome> chromosomes = metaMap.keySet().stream()
+            .map(name -> Utils.getFromChromosomeMap(chromosomeMap, name))
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+        // samples are loaded in the order of their indexes, the first one is shown by default
+        final Integer sampleIndex = CollectionUtils.isEmpty(vcfFile.getSamples()) ? null :
+                                    vcfFile.getSamples().stream().mapToInt(VcfSample::getIndex).min().getAsInt();
+
+        final double time1 = Utils.getSystemTimeMilliseconds();
+        new VcfFileReader(fileManager, referenceGenomeManager).createSummaries(vcfFile, chromosomes, sampleIndex);
+        final double time2 = Utils.getSystemTimeMilliseconds();
+        LOGGER.debug("Making VCF summaries took {} ms", time2 - time1);
+    }
+
     private VcfFile createVcfFromUrl(final IndexedFileRegistrationRequest request,
                                       final Map<String, Chromosome> chromosomeMap, Reference reference) {
         final VcfFile vcfFile;
@@ -579,7 +611,14 @@ public class VcfManager {
     @NotNull
     private Map<String, Pair<Integer, Integer>> readMetaMap(Map<String, Chromosome> chromosomeMap,
             VcfFile vcfFile, FeatureReader<VariantContext> reader, Reference reference, boolean doIndex)
-        throws IOException, GeneReadingException {
+        throws IOException, GeneReadingException, FeatureIndexException {
+        if (doIndex && hasLocalIndex(vcfFile)) {
+            List<GeneFile> geneFiles = reference.getGeneFile() != null ?
+                                       Collections.singletonList(reference.getGeneFile()) : Collections.emptyList();
+            return featureIndexManager.makeIndexForIndexedVcf(vcfFile, geneFiles, chromosomeMap,
+                                                              getFiltersInfo(reader));
+        }
+
         Map<String, Pair<Integer, Integer>> metaMap = new HashMap<>();
         CloseableIterator<VariantContext> iterator = reader.iterator();
         int startPosition = 1;
@@ -657,6 +696,15 @@ public class VcfManager {
         }
     }
 
+    /**
+     * Checks if a VCF file and its index are located on the file system, so that the file can be read in parallel
+     */
+    private boolean hasLocalIndex(VcfFile vcfFile) {
+        return vcfFile.getType() == BiologicalDataItemResourceType.FILE && vcfFile.getIndex() != null
+               && vcfFile.getIndex().getType() == BiologicalDataItemResourceType.FILE
+               && StringUtils.isNotBlank(vcfFile.getIndex().getPath());
+    }
+
     private boolean checkMetaMapKey(Map<String, Chromosome> chromosomeMap, String currentKey) {
         return currentKey != null && Utils.chromosomeMapContains(chromosomeMap, currentKey);
     }
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.vcf.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * An indexed VCF file reader with a {@link SampleProjectingVcfCodec}, that is kept open between track requests
+ * in a {@link com.epam.catgenome.util.ReaderPool}. The header of the file is parsed once, when the reader is opened.
+ */
+public final class ProjectingVcfReader implements Closeable {
+
+    private final FeatureReader<VariantContext> reader;
+    private final SampleProjectingVcfCodec codec;
+
+    private ProjectingVcfReader(FeatureReader<VariantContext> reader, SampleProjectingVcfCodec codec) {
+        this.reader = reader;
+        this.codec = codec;
+    }
+
+    /**
+     * Opens a reader of an indexed VCF file
+     *
+     * @param path a path or URL of a file
+     * @param indexPath a path or URL of the file's index
+     * @return an open reader
+     */
+    public static ProjectingVcfReader open(String path, String indexPath) {
+        SampleProjectingVcfCodec codec = new SampleProjectingVcfCodec();
+        return new ProjectingVcfReader(AbstractFeatureReader.getFeatureReader(path, indexPath, codec, true), codec);
+    }
+
+    /**
+     * Makes the reader decode only a specified sample and INFO fields, see
+     * {@link SampleProjectingVcfCodec#project(Integer, boolean)}
+     *
+     * @param sampleIndex an index of a sample in the file to decode, null to decode no genotypes
+     * @param loadInfo if all INFO fields should be decoded
+     * @return an index of the sample in decoded {@code VariantContext}s
+     */
+    public Integer project(Integer sampleIndex, boolean loadInfo) {
+        return codec.project(sampleIndex, loadInfo);
+    }
+
+    /**
+     * Makes the reader decode all columns of the file
+     */
+    public void resetProjection() {
+        codec.resetProjection();
+    }
+
+    public FeatureReader<VariantContext> getReader() {
+        return reader;
+    }
+
+    /**
+     * @return the full header of the file, regardless of projection
+     */
+    public VCFHeader getHeader() {
+        return (VCFHeader) reader.getHeader();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.vcf.reader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+
+/**
+ * <p>
+ * A {@code VCFCodec}, that decodes only the columns, requested by a track: before a line is parsed, genotype columns
+ * of all samples except a projected one are cut off, and, if extended info isn't requested, INFO fields, that are not
+ * needed to build a {@code Variation}, are dropped. On multi-sample VCF files parsing of genotypes of unrelated
+ * samples is most of the decoding time.
+ * </p>
+ * <p>
+ * Decoded {@code VariantContext}s contain a single genotype with index {@link #PROJECTED_SAMPLE_INDEX}, or no
+ * genotypes, if no sample is projected. {@link #readActualHeader(LineIterator)} returns the full header of the
+ * file. Projection is disabled by default.
+ * </p>
+ */
+public class SampleProjectingVcfCodec extends VCFCodec {
+
+    public static final int PROJECTED_SAMPLE_INDEX = 0;
+
+    /**
+     * INFO fields, that are used to build a {@code Variation} without extended info: END defines the end of
+     * structural variations and CIPOS is shown for breakends
+     */
+    private static final List<String> REQUIRED_INFO_FIELDS = Collections.unmodifiableList(
+            Arrays.asList(VCFConstants.END_KEY, VcfFileReader.BIND_CIPOS_ATTRIBUTE));
+
+    private static final char FIELD_SEPARATOR = '\t';
+    private static final char INFO_SEPARATOR = ';';
+    private static final char INFO_VALUE_SEPARATOR = '=';
+    private static final int INFO_COLUMN = 7;
+    private static final int FORMAT_COLUMN = 8;
+
+    private VCFHeader fullHeader;
+    private final Map<Integer, VCFHeader> projectedHeaders = new HashMap<>();
+
+    private boolean projected;
+    private Integer sampleIndex;
+    private boolean loadInfo;
+
+    @Override
+    public Object readActualHeader(LineIterator lineIterator) {
+        fullHeader = (VCFHeader) super.readActualHeader(lineIterator);
+        projectedHeaders.clear();
+        projected = false;
+        return fullHeader;
+    }
+
+    /**
+     * Makes the codec decode only a specified sample and INFO fields
+     *
+     * @param sampleIndex an index of a sample in the file to decode, null to decode no genotypes
+     * @param loadInfo if all INFO fields should be decoded
+     * @return an index of the sample in decoded {@code VariantContext}s. If the file has no such sample, projection
+     * is disabled and the index is returned as is
+     */
+    public Integer project(Integer sampleIndex, boolean loadInfo) {
+        if (sampleIndex != null && (sampleIndex < 0 || sampleIndex >= fullHeader.getNGenotypeSamples())) {
+            resetProjection();
+            return sampleIndex;
+        }
+
+        this.projected = true;
+        this.sampleIndex = sampleIndex;
+        this.loadInfo = loadInfo;
+        setVCFHeader(projectedHeaders.computeIfAbsent(sampleIndex, this::makeProjectedHeader), version);
+        return sampleIndex != null ? PROJECTED_SAMPLE_INDEX : null;
+    }
+
+    /**
+     * Makes the codec decode all columns of the file
+     */
+    public void resetProjection() {
+        if (projected) {
+            projected = false;
+            setVCFHeader(fullHeader, version);
+        }
+    }
+
+    @Override
+    public VariantContext decode(String line) {
+        if (!projected || line.isEmpty() || line.charAt(0) == VCFHeader.HEADER_INDICATOR.charAt(0)) {
+            return super.decode(line);
+        }
+
+        return super.decode(projectLine(line));
+    }
+
+    private VCFHeader makeProjectedHeader(Integer sampleIndex) {
+        List<String> samples = sampleIndex != null ?
+                Collections.singletonList(fullHeader.getGenotypeSamples().get(sampleIndex)) :
+                Collections.emptyList();
+        return new VCFHeader(fullHeader.getMetaDataInInputOrder(), samples);
+    }
+
+    private String projectLine(String line) {
+        StringBuilder projectedLine = new StringBuilder(line.length());
+        int lastColumn = sampleIndex != null ? FORMAT_COLUMN + 1 + sampleIndex : INFO_COLUMN;
+        int columnStart = 0;
+        int column = 0;
+        while (column <= lastColumn && columnStart <= line.length()) {
+            int columnEnd = line.indexOf(FIELD_SEPARATOR, columnStart);
+            if (columnEnd < 0) {
+                columnEnd = line.length();
+            }
+
+            if (column == INFO_COLUMN && !loadInfo) {
+                appendRequiredInfo(projectedLine, line, columnStart, columnEnd);
+            } else if (column <= FORMAT_COLUMN || column == lastColumn) {
+                appendColumn(projectedLine, line, columnStart, columnEnd);
+            }
+            columnStart = columnEnd + 1;
+            column++;
+        }
+
+        return projectedLine.toString();
+    }
+
+    private static void appendColumn(StringBuilder projectedLine, String line, int start, int end) {
+        if (projectedLine.length() > 0) {
+            projectedLine.append(FIELD_SEPARATOR);
+        }
+        projectedLine.append(line, start, end);
+    }
+
+    private static void appendRequiredInfo(StringBuilder projectedLine, String line, int start, int end) {
+        projectedLine.append(FIELD_SEPARATOR);
+        int infoLength = projectedLine.length();
+
+        int fieldStart = start;
+        while (fieldStart < end) {
+            int fieldEnd = line.indexOf(INFO_SEPARATOR, fieldStart);
+            if (fieldEnd < 0 || fieldEnd > end) {
+                fieldEnd = end;
+            }
+
+            int keyEnd = line.indexOf(INFO_VALUE_SEPARATOR, fieldStart);
+            if (keyEnd < 0 || keyEnd > fieldEnd) {
+                keyEnd = fieldEnd;
+            }
+
+            if (isRequiredInfoField(line, fieldStart, keyEnd)) {
+                if (projectedLine.length() > infoLength) {
+                    projectedLine.append(INFO_SEPARATOR);
+                }
+                projectedLine.append(line, fieldStart, fieldEnd);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+
+        if (projectedLine.length() == infoLength) {
+            projectedLine.append(VCFConstants.EMPTY_INFO_FIELD);
+        }
+    }
+
+    private static boolean isRequiredInfoField(String line, int keyStart, int keyEnd) {
+        for (String field : REQUIRED_INFO_FIELDS) {
+            if (field.length() == keyEnd - keyStart && line.startsWith(field, keyStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
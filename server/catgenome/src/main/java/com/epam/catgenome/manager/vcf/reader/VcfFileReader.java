@@ -24,6 +24,7 @@
 
 package com.epam.catgenome.manager.vcf.reader;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -47,6 +48,7 @@ import com.epam.catgenome.component.MessageCode;
 import com.epam.catgenome.component.MessageHelper;
 import com.epam.catgenome.constant.Constants;
 import com.epam.catgenome.constant.MessagesConstants;
+import com.epam.catgenome.entity.BiologicalDataItemResourceType;
 import com.epam.catgenome.entity.reference.Chromosome;
 import com.epam.catgenome.entity.track.Track;
 import com.epam.catgenome.entity.vcf.Filter;
@@ -58,14 +60,15 @@ import com.epam.catgenome.entity.vcf.VcfFile;
 import com.epam.catgenome.exception.VcfReadingException;
 import com.epam.catgenome.manager.FileManager;
 import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
+import com.epam.catgenome.util.FeaturePositionIndex;
+import com.epam.catgenome.util.FeatureSummary;
+import com.epam.catgenome.util.ReaderPool;
 import com.epam.catgenome.util.Utils;
 import htsjdk.samtools.util.CloseableIterator;
-import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.FeatureReader;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
-import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
@@ -112,15 +115,23 @@ public class VcfFileReader extends AbstractVcfReader {
     public Track<Variation> readVariations(VcfFile vcfFile, final Track<Variation> track, Chromosome chromosome,
                                            final Integer sampleIndex, final boolean loadInfo, final boolean collapse)
             throws VcfReadingException {
-        try (FeatureReader<VariantContext> reader = AbstractFeatureReader.getFeatureReader(vcfFile.getPath(),
-                vcfFile.getIndex().getPath(), new VCFCodec(), true)) {
+        try (ReaderPool<ProjectingVcfReader>.Handle handle = fileManager.acquireVcfReader(vcfFile)) {
             if (checkBounds(vcfFile, track, chromosome, loadInfo)) {
                 return track;
             }
-            try (CloseableIterator<VariantContext> iterator = Utils.query(reader, chromosome.getName(), track
-                    .getStartIndex(), track.getEndIndex())) {
-                VCFHeader header = (VCFHeader) reader.getHeader();
-                track.setBlocks(doReadVariations(iterator, track, header, vcfFile, sampleIndex, loadInfo, collapse));
+            // only the requested sample is decoded, so its index in variant contexts differs from the file
+            ProjectingVcfReader reader = handle.getReader();
+            Integer projectedIndex = reader.project(sampleIndex, loadInfo);
+            if (!loadInfo && collapse && track.getScaleFactor() < 1 && canUseSummary(vcfFile)) {
+                track.setBlocks(loadSummaryVariations(vcfFile, track, chromosome, sampleIndex, projectedIndex,
+                        reader));
+                return track;
+            }
+
+            try (CloseableIterator<VariantContext> iterator = Utils.query(reader.getReader(), chromosome.getName(),
+                    track.getStartIndex(), track.getEndIndex())) {
+                track.setBlocks(doReadVariations(iterator, track, reader.getHeader(), vcfFile, projectedIndex,
+                        loadInfo, collapse));
             }
         } catch (IOException e) {
             throw new VcfReadingException(vcfFile, e);
@@ -136,15 +147,212 @@ public class VcfFileReader extends AbstractVcfReader {
         if (isOutOfBounds(fromPosition, forward, end)) { // no next features
             return null;
         }
-        try (FeatureReader<VariantContext> reader = AbstractFeatureReader.getFeatureReader(vcfFile.getPath(),
-                vcfFile.getIndex().getPath(), new VCFCodec(), true)) {
-            return readNextOrPreviousVariation(fromPosition, vcfFile, sampleIndex, chromosome,
+        try (ReaderPool<ProjectingVcfReader>.Handle handle = fileManager.acquireVcfReader(vcfFile)) {
+            Integer projectedIndex = handle.getReader().project(sampleIndex, false);
+            FeatureReader<VariantContext> reader = handle.getReader().getReader();
+            if (canUsePositionIndex(vcfFile)) {
+                FeaturePositionIndex index = getPositionIndex(vcfFile, sampleIndex, projectedIndex, chromosome,
+                        reader);
+                int number = forward ? index.findFirstStartingAfter(fromPosition) :
+                             index.findLastEndingBefore(fromPosition);
+                if (number < 0) {
+                    return null;
+                }
+
+                Variation variation = readIndexedVariation(index.getStart(number), fromPosition, projectedIndex,
+                        chromosome, forward, reader);
+                if (variation != null) {
+                    return variation;
+                }
+                LOGGER.debug("Position index of VCF file {} is outdated, chromosome {}", vcfFile.getId(),
+                        chromosome.getName());
+            }
+
+            return readNextOrPreviousVariation(fromPosition, vcfFile, projectedIndex, chromosome,
                     forward, end, reader);
         } catch (IOException e) {
             throw new VcfReadingException(vcfFile, e);
         }
     }
 
+    /**
+     * Position indexes are built by a pass over a whole chromosome, so they are used only for files, registered
+     * from the file system
+     */
+    private boolean canUsePositionIndex(VcfFile vcfFile) {
+        return vcfFile.getId() != null && vcfFile.getType() != BiologicalDataItemResourceType.URL;
+    }
+
+    /**
+     * Summaries are built by a pass over a whole chromosome as well as position indexes, zoomed out tracks of other
+     * files are collapsed from variations on request
+     */
+    private boolean canUseSummary(VcfFile vcfFile) {
+        return canUsePositionIndex(vcfFile) && fileManager.isFeatureSummaryEnabled();
+    }
+
+    /**
+     * Builds summaries of variations of a sample on specified chromosomes
+     *
+     * @param vcfFile a VCF file to build summaries for
+     * @param chromosomes chromosomes, that have variations in the file
+     * @param sampleIndex an index of a sample or {@code null} for files without samples
+     * @throws IOException if the file can't be read or a summary can't be written
+     */
+    public void createSummaries(VcfFile vcfFile, List<Chromosome> chromosomes, Integer sampleIndex)
+            throws IOException {
+        try (ReaderPool<ProjectingVcfReader>.Handle handle = fileManager.acquireVcfReader(vcfFile)) {
+            ProjectingVcfReader reader = handle.getReader();
+            Integer projectedIndex = reader.project(sampleIndex, false);
+            for (Chromosome chromosome : chromosomes) {
+                createSummary(vcfFile, chromosome, sampleIndex, projectedIndex, reader);
+            }
+        }
+    }
+
+    /**
+     * Loads collapsed variations of a track from a summary, building the summary of the chromosome and sample
+     * first, if it doesn't exist yet
+     */
+    private List<Variation> loadSummaryVariations(VcfFile vcfFile, Track<Variation> track, Chromosome chromosome,
+                                                  Integer sampleIndex, Integer projectedIndex,
+                                                  ProjectingVcfReader reader) throws IOException {
+        File summaryFile = fileManager.getFeatureSummaryFile(vcfFile, chromosome.getName(), sampleIndex);
+        if (!summaryFile.exists()) {
+            createSummary(vcfFile, chromosome, sampleIndex, projectedIndex, reader);
+        }
+
+        List<Variation> variations = FeatureSummary.load(summaryFile, track.getStartIndex(), track.getEndIndex(),
+                track.getScaleFactor(), Variation.class, VcfFileReader::groupVariations);
+        if (variations != null) {
+            return variations;
+        }
+
+        // summary bins are too large for the scale, variations are collapsed from the file
+        try (CloseableIterator<VariantContext> iterator = Utils.query(reader.getReader(), chromosome.getName(),
+                track.getStartIndex(), track.getEndIndex())) {
+            return loadStatisticVariations(iterator, track, reader.getHeader(), vcfFile, projectedIndex, false);
+        }
+    }
+
+    private void createSummary(VcfFile vcfFile, Chromosome chromosome, Integer sampleIndex, Integer projectedIndex,
+                               ProjectingVcfReader reader) throws IOException {
+        double time1 = Utils.getSystemTimeMilliseconds();
+        FeatureSummary.Builder builder = fileManager.createFeatureSummaryBuilder();
+        try (CloseableIterator<VariantContext> iterator = Utils.query(reader.getReader(), chromosome.getName(), 1,
+                chromosome.getSize())) {
+            while (iterator.hasNext()) {
+                VariantContext context = iterator.next();
+                Variation variation = createVariation(context, reader.getHeader(), projectedIndex);
+                if (variation.getType() == VariationType.BND) {
+                    builder.addStandalone(variation);
+                } else if (variation.getGenotypeData() == null ||
+                        variation.getGenotypeData().getOrganismType() != OrganismType.NO_VARIATION) {
+                    // structural variations, that extend beyond a window, are shown as they are
+                    if (context.getType() == VariantContext.Type.SYMBOLIC) {
+                        builder.addExtending(variation);
+                    } else {
+                        builder.add(variation);
+                    }
+                }
+            }
+        }
+
+        fileManager.writeFeatureSummary(vcfFile, chromosome.getName(), sampleIndex, builder);
+        double time2 = Utils.getSystemTimeMilliseconds();
+        LOGGER.debug("Summary of VCF file {}, chromosome {}, sample {} built, took {} ms", vcfFile.getId(),
+                chromosome.getName(), sampleIndex, time2 - time1);
+    }
+
+    /**
+     * Represents variations, that start in a window of a collapsed track, by the first of them, the same way as
+     * {@link #tryToGroupVariations(ArrayList, int, VariantContext)} does
+     */
+    private static Variation groupVariations(Variation first, int count, int maxEnd) {
+        first.setVariationsCount(count);
+        if (count > 1) {
+            first.setType(VariationType.STATISTIC);
+            first.setEndIndex(maxEnd);
+        }
+        return first;
+    }
+
+    private FeaturePositionIndex getPositionIndex(VcfFile vcfFile, Integer sampleIndex, Integer projectedIndex,
+                                                  Chromosome chromosome, FeatureReader<VariantContext> reader)
+            throws IOException {
+        FeaturePositionIndex index = fileManager.loadPositionIndex(vcfFile, chromosome.getName(), sampleIndex);
+        if (index != null) {
+            return index;
+        }
+
+        double time1 = Utils.getSystemTimeMilliseconds();
+        FeaturePositionIndex.Builder builder = new FeaturePositionIndex.Builder();
+        try (CloseableIterator<VariantContext> iterator = Utils.query(reader, chromosome.getName(), 1,
+                chromosome.getSize())) {
+            while (iterator.hasNext()) {
+                VariantContext context = iterator.next();
+                if (isVariation(context, projectedIndex)) {
+                    builder.add(context.getStart(), context.getEnd());
+                }
+            }
+        }
+
+        index = builder.build();
+        fileManager.writePositionIndex(vcfFile, chromosome.getName(), sampleIndex, index);
+        double time2 = Utils.getSystemTimeMilliseconds();
+        LOGGER.debug("Position index of VCF file {}, chromosome {}, sample {} built, took {} ms", vcfFile.getId(),
+                chromosome.getName(), sampleIndex, time2 - time1);
+        return index;
+    }
+
+    /**
+     * Reads a variation, found in a position index, checking that it satisfies the same conditions, as a variation,
+     * found by a scan of the file
+     */
+    private Variation readIndexedVariation(int start, int fromPosition, Integer sampleIndex, Chromosome chromosome,
+                                           boolean forward, FeatureReader<VariantContext> reader) throws IOException {
+        VariantContext found = null;
+        try (CloseableIterator<VariantContext> iterator = Utils.query(reader, chromosome.getName(), start, start)) {
+            while (iterator.hasNext()) {
+                VariantContext context = iterator.next();
+                if (context.getStart() != start || !isVariation(context, sampleIndex)) {
+                    continue;
+                }
+
+                if (forward && context.getStart() > fromPosition) {
+                    found = context;
+                    break;
+                }
+                if (!forward && context.getEnd() < fromPosition) {
+                    found = context; // the last one is taken, as in a backward scan
+                }
+            }
+        }
+
+        return found != null ? createVariation(found, (VCFHeader) reader.getHeader(), sampleIndex) : null;
+    }
+
+    /**
+     * Checks if a variant context is shown as a variation for a sample: variations of {@code NO_VARIATION} organism
+     * type, that is homozygous reference calls and sites without alternative alleles, are skipped by a track
+     */
+    private static boolean isVariation(VariantContext context, Integer sampleIndex) {
+        return getOrganismType(context, sampleIndex) != OrganismType.NO_VARIATION;
+    }
+
+    /**
+     * Determines an organism type of a variant context for a sample the same way, as {@code createVariation} does,
+     * without creating a variation
+     */
+    private static OrganismType getOrganismType(VariantContext context, Integer sampleIndex) {
+        if (context.getType() == VariantContext.Type.NO_VARIATION) {
+            return OrganismType.NO_VARIATION; // see determineVariationType
+        }
+
+        Genotype genotype = sampleIndex != null ? context.getGenotype(sampleIndex) : null;
+        return getGenotypeData(context, genotype).getOrganismType();
+    }
+
     private boolean isOutOfBounds(int fromPosition, boolean forward, int end) {
         return (forward && fromPosition + 1 >= end) || (!forward && fromPosition - 1 <= end);
     }
@@ -270,7 +478,7 @@ public class VcfFileReader extends AbstractVcfReader {
         return variation;
     }
 
-    @NotNull private GenotypeData getGenotypeData(VariantContext context, Genotype genotype) {
+    @NotNull private static GenotypeData getGenotypeData(VariantContext context, Genotype genotype) {
         GenotypeData genotypeData;
         if (genotype == null) {
             genotypeData = new GenotypeData();
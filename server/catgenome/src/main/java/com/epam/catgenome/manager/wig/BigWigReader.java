@@ -0,0 +1,276 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.wig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.jetbrains.bio.big.BigSummary;
+import org.jetbrains.bio.big.BigWigFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.epam.catgenome.entity.wig.Wig;
+import com.epam.catgenome.util.Utils;
+import gnu.trove.list.TFloatList;
+import gnu.trove.list.array.TFloatArrayList;
+
+/**
+ * <p>
+ * An open BigWig file, that is kept in a pool between track requests. Fills {@code Wig} blocks of a track with
+ * maximum values of the signal: a run of adjacent blocks of the same length is summarized with a single multi-bin
+ * query, so that the file's index is searched and its data blocks are decompressed once per run, not once per
+ * block.
+ * </p>
+ * <p>
+ * The same multi-bin queries are used to compute fixed size windows of a chromosome, that downsampled levels of a
+ * file are built from.
+ * </p>
+ */
+public class BigWigReader implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BigWigReader.class);
+    private static final int WINDOWS_PER_QUERY = 10_000;
+
+    private final BigWigFile bigWigFile;
+    private final Set<String> chromosomes = new HashSet<>();
+
+    BigWigReader(BigWigFile bigWigFile) {
+        this.bigWigFile = bigWigFile;
+        for (Object chromosome : bigWigFile.getChromosomes().values()) {
+            chromosomes.add((String) chromosome);
+        }
+    }
+
+    /**
+     * Opens a BigWig file and reads its header
+     *
+     * @param path a path to a file
+     * @return an open reader
+     * @throws IOException if the file can't be read
+     */
+    public static BigWigReader open(Path path) throws IOException {
+        return new BigWigReader(BigWigFile.read(path));
+    }
+
+    /**
+     * Finds a name of a chromosome in the file, taking into account variations in chromosome naming
+     *
+     * @param chromosomeName a name of a chromosome of a reference
+     * @return a name of the chromosome in the file, or null if the file has no data for the chromosome
+     */
+    public String findChromosome(String chromosomeName) {
+        if (chromosomes.contains(chromosomeName)) {
+            return chromosomeName;
+        }
+
+        String changedName = Utils.changeChromosomeName(chromosomeName);
+        return chromosomes.contains(changedName) ? changedName : null;
+    }
+
+    /**
+     * @return names of chromosomes, that the file has data for
+     */
+    public Set<String> getChromosomes() {
+        return Collections.unmodifiableSet(chromosomes);
+    }
+
+    /**
+     * Computes maximum values of the signal in consecutive windows of a chromosome, starting from the chromosome's
+     * start. Windows are summarized with multi-bin queries, each covering a number of windows.
+     *
+     * @param realName a name of a chromosome in the file
+     * @param length length of the chromosome
+     * @param windowSize size of a window in bps
+     * @return values of windows, the last window may be shorter than others
+     * @throws IOException if the file can't be read
+     */
+    public TFloatList summarizeWindows(String realName, int length, int windowSize) throws IOException {
+        int fullWindows = length / windowSize;
+        TFloatList values = new TFloatArrayList(fullWindows + 1);
+        for (int first = 0; first < fullWindows; first += WINDOWS_PER_QUERY) {
+            int count = Math.min(WINDOWS_PER_QUERY, fullWindows - first);
+            int start = first * windowSize;
+            addSummaries(values, realName, start, start + count * windowSize, count);
+        }
+
+        if (length % windowSize != 0) {
+            addSummaries(values, realName, fullWindows * windowSize, length, 1);
+        }
+        return values;
+    }
+
+    /**
+     * Downsamples window values further, taking maximum of each group of adjacent windows
+     *
+     * @param values values of windows
+     * @param factor number of windows to merge into one
+     * @return values of merged windows
+     */
+    public static TFloatList mergeWindows(TFloatList values, int factor) {
+        TFloatList merged = new TFloatArrayList(values.size() / factor + 1);
+        for (int i = 0; i < values.size(); i += factor) {
+            float max = values.get(i);
+            for (int j = i + 1; j < Math.min(i + factor, values.size()); j++) {
+                max = Math.max(max, values.get(j));
+            }
+            merged.add(max);
+        }
+        return merged;
+    }
+
+    /**
+     * Sets values of blocks to the maximum of the signal in the blocks' intervals. Blocks are expected to be sorted
+     * and to have 1-based inclusive coordinates, a block without signal gets zero value.
+     *
+     * @param chromosomeName a name of a chromosome of a reference
+     * @param blocks blocks to fill
+     */
+    public void fillBlocks(String chromosomeName, List<Wig> blocks) {
+        String realName = findChromosome(chromosomeName);
+        if (realName == null) {
+            LOGGER.info("Chromosome not found in big wig file");
+            blocks.forEach(block -> block.setValue(0F));
+            return;
+        }
+
+        int runStart = 0;
+        while (runStart < blocks.size()) {
+            int runEnd = findRunEnd(blocks, runStart);
+            if (runEnd - runStart > 1) {
+                fillRun(realName, blocks.subList(runStart, runEnd));
+            } else {
+                fillEachBlock(realName, blocks.subList(runStart, runEnd));
+            }
+            runStart = runEnd;
+        }
+    }
+
+    /**
+     * Sets values of blocks, querying the file for each block separately
+     */
+    void fillEachBlock(String realName, List<Wig> blocks) {
+        for (Wig block : blocks) {
+            block.setValue((float) queryBlock(realName, block.getStartIndex() - 1, block.getEndIndex()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        bigWigFile.close();
+    }
+
+    /**
+     * Finds the end of a run of adjacent blocks of the same length, starting from a specified block
+     *
+     * @return an index of the first block after the run
+     */
+    private static int findRunEnd(List<Wig> blocks, int runStart) {
+        Wig first = blocks.get(runStart);
+        int length = first.getEndIndex() - first.getStartIndex();
+        int end = runStart + 1;
+        while (end < blocks.size()) {
+            Wig previous = blocks.get(end - 1);
+            Wig block = blocks.get(end);
+            if (block.getStartIndex() != previous.getEndIndex() + 1
+                    || block.getEndIndex() - block.getStartIndex() != length) {
+                break;
+            }
+            end++;
+        }
+
+        return end;
+    }
+
+    /**
+     * Summarizes a run of blocks with a single query: the run's interval is an exact multiple of the block length,
+     * so bins of the query match the blocks
+     */
+    private void fillRun(String realName, List<Wig> run) {
+        int start = run.get(0).getStartIndex() - 1;
+        int end = run.get(run.size() - 1).getEndIndex();
+        List<BigSummary> summaries;
+        try {
+            summaries = bigWigFile.summarize(realName, start, end, run.size(), true);
+        } catch (IOException | NoSuchElementException e) {
+            LOGGER.debug(e.getMessage(), e);
+            run.forEach(block -> block.setValue(0F));
+            return;
+        }
+
+        if (summaries.size() != run.size()) {
+            LOGGER.debug("Got {} summaries for {} blocks, querying blocks separately", summaries.size(), run.size());
+            fillEachBlock(realName, run);
+            return;
+        }
+
+        for (int i = 0; i < run.size(); i++) {
+            run.get(i).setValue((float) getValue(summaries.get(i)));
+        }
+    }
+
+    private void addSummaries(TFloatList values, String realName, int start, int end, int count)
+            throws IOException {
+        List<BigSummary> summaries;
+        try {
+            summaries = bigWigFile.summarize(realName, start, end, count, true);
+        } catch (NoSuchElementException e) {
+            throw new IOException(e);
+        }
+
+        if (summaries.size() != count) {
+            throw new IOException(String.format("Got %d summaries instead of %d for %s:%d-%d", summaries.size(),
+                                                count, realName, start, end));
+        }
+        summaries.forEach(summary -> values.add((float) getValue(summary)));
+    }
+
+    private double queryBlock(String realName, int start, int end) {
+        List<BigSummary> summaries;
+        try {
+            summaries = bigWigFile.summarize(realName, start, end, 1, true);
+        } catch (IOException | NoSuchElementException e) {
+            LOGGER.debug(e.getMessage(), e);
+            return 0;
+        }
+
+        double value = 0.0;
+        for (BigSummary summary : summaries) {
+            value += getValue(summary);
+        }
+        return value;
+    }
+
+    private static double getValue(BigSummary summary) {
+        double value = summary.getMaxValue();
+        return Double.isNaN(value) || Double.isInfinite(value) ? 0 : value;
+    }
+}
@@ -31,25 +31,32 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import com.epam.catgenome.manager.BiologicalDataItemManager;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jetbrains.bio.big.BigSummary;
 import org.jetbrains.bio.big.BigWigFile;
 import org.jetbrains.bio.big.FixedStepSection;
 import org.jetbrains.bio.big.WigSection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
@@ -69,11 +76,12 @@ import com.epam.catgenome.exception.RegistrationException;
 import com.epam.catgenome.manager.DownloadFileManager;
 import com.epam.catgenome.manager.FileManager;
 import com.epam.catgenome.manager.TrackHelper;
+import com.epam.catgenome.manager.parallel.TaskExecutorService;
 import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.util.AuthUtils;
+import com.epam.catgenome.util.ReaderPool;
 import com.epam.catgenome.util.Utils;
 import gnu.trove.list.TFloatList;
-import gnu.trove.list.array.TFloatArrayList;
 import kotlin.Pair;
 
 /**
@@ -113,10 +121,57 @@ public class WigManager {
     @Autowired
     private DownloadFileManager downloadFileManager;
 
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(WigManager.class);
-    private static final int WIG_DOWNSAMPLING_WINDOW = 100_000;
     private static final int WIG_MIN_DOWNSAMPLING_CHROMOSOME_SIZE = 10_000_000;
     private static final float WIG_DOWNSAMPLING_SCALE_FACTOR = 0.00005F;
+    private static final long READER_MAX_LIFETIME = TimeUnit.HOURS.toMillis(1);
+    private static final char KEY_SEPARATOR = '|';
+
+    /**
+     * {@code int} specifies how many BigWig files are kept open between track requests
+     */
+    @Value("#{catgenome['wig.reader.pool.size'] ?: 64}")
+    private int readerPoolSize;
+
+    /**
+     * {@code int} specifies time in seconds, after which an unused BigWig file is closed
+     */
+    @Value("#{catgenome['wig.reader.pool.idle.timeout'] ?: 300}")
+    private int readerIdleTimeout;
+
+    /**
+     * {@code String} comma separated window sizes in bps of downsampled levels, that are built for BigWig files on
+     * registration
+     */
+    @Value("#{catgenome['wig.downsampling.levels'] ?: '1000,10000,100000,1000000'}")
+    private String downsamplingLevelsValue;
+
+    private ReaderPool<BigWigReader> readerPool;
+    private int[] downsamplingLevels;
+
+    @PostConstruct
+    public void init() {
+        readerPool = new ReaderPool<>("BigWig", readerPoolSize, TimeUnit.SECONDS.toMillis(readerIdleTimeout),
+                                      READER_MAX_LIFETIME);
+        downsamplingLevels = Arrays.stream(StringUtils.split(StringUtils.defaultString(downsamplingLevelsValue), ','))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .filter(window -> window > 1)
+            .distinct()
+            .sorted()
+            .toArray();
+    }
+
+    /**
+     * Closes BigWig files, kept open between track requests
+     */
+    @PreDestroy
+    public void destroy() {
+        readerPool.close();
+    }
 
     /**
      * Loads the wig data for a track
@@ -203,20 +258,40 @@ public class WigManager {
         final WigFile wigFile = wigFileManager.loadWigFile(track.getId());
         Assert.notNull(wigFile, getMessage(MessagesConstants.ERROR_FILE_NOT_FOUND));
         TrackHelper.fillBlocks(track, indexes -> new Wig(indexes.getLeft(), indexes.getRight()));
-        String downsamplePath = fileManager.getWigFilePath(wigFile, chromosome);
-        if (track.getScaleFactor() > WIG_DOWNSAMPLING_SCALE_FACTOR || chromosome.getSize() <
-                WIG_MIN_DOWNSAMPLING_CHROMOSOME_SIZE) {
-            fillBlocksFromFile(wigFile.getPath(), track, chromosome.getName());
-        } else {
-            if (downsamplePath == null) {
-                LOGGER.debug("Downsampled WIG for file {}:{} not found, using original", wigFile.getId(),
-                        wigFile.getPath());
-                fillBlocksFromFile(wigFile.getPath(), track, chromosome.getName());
-            } else {
-                fillBlocksFromFile(downsamplePath, track, chromosome.getName());
+        fillBlocksFromFile(getDownsampledPath(wigFile, track, chromosome), track, chromosome.getName());
+        return track;
+    }
+
+    /**
+     * Chooses the most downsampled level, that still has at least one window per track block, so that a request
+     * reads roughly the same number of records at any zoom. Falls back to the original file, if blocks are smaller
+     * than any level.
+     */
+    String getDownsampledPath(final WigFile wigFile, final Track<Wig> track, final Chromosome chromosome) {
+        if (chromosome.getSize() < WIG_MIN_DOWNSAMPLING_CHROMOSOME_SIZE) {
+            return wigFile.getPath();
+        }
+
+        final long blockSize = Math.max(1, Math.round(1.0 / track.getScaleFactor()));
+        for (int i = downsamplingLevels.length - 1; i >= 0; i--) {
+            if (downsamplingLevels[i] <= blockSize) {
+                String levelPath = fileManager.getWigFilePath(wigFile, chromosome, downsamplingLevels[i]);
+                if (levelPath != null) {
+                    return levelPath;
+                }
             }
         }
-        return track;
+
+        // files, registered before downsampling pyramids, have a single downsampled level
+        if (track.getScaleFactor() <= WIG_DOWNSAMPLING_SCALE_FACTOR) {
+            String downsamplePath = fileManager.getWigFilePath(wigFile, chromosome);
+            if (downsamplePath != null) {
+                return downsamplePath;
+            }
+        }
+
+        LOGGER.debug("Downsampled WIG for file {}:{} not found, using original", wigFile.getId(), wigFile.getPath());
+        return wigFile.getPath();
     }
 
     private WigFile fillWigFile(final String wigFilePath, final String alternativeName, String prettyName,
@@ -258,117 +333,106 @@ public class WigManager {
         return true;
     }
 
+    /**
+     * Builds a pyramid of downsampled levels for each chromosome of a file, chromosomes are processed in parallel
+     */
     private void splitWigFile(final WigFile wigFile) throws IOException {
         final Reference reference = referenceGenomeManager.loadReferenceGenome(wigFile.getReferenceId());
         final Map<String, Chromosome> chromosomeMap = reference.getChromosomes().stream().collect(Collectors.toMap(
                 BaseEntity::getName, chromosome -> chromosome));
 
-        try (BigWigFile bigWigFile = BigWigFile.read(new File(wigFile.getPath()).toPath())) {
-            readFromFile(bigWigFile, chromosomeMap, wigFile);
+        final Set<String> fileChromosomes;
+        try (BigWigReader reader = BigWigReader.open(Paths.get(wigFile.getPath()))) {
+            fileChromosomes = reader.getChromosomes();
         }
-    }
 
-    private void readFromFile(final BigWigFile bigWigFile, final Map<String, Chromosome> chromosomeMap,
-                       final WigFile wigFile) throws IOException {
-        for (Object o : bigWigFile.getChromosomes().values()) {
-            String chr = (String) o;
-            if (chromosomeMap.containsKey(chr) || chromosomeMap.containsKey(Utils.changeChromosomeName(chr))) {
-                String realChrName = chr;
-                if (chromosomeMap.containsKey(Utils.changeChromosomeName(chr))) {
-                    realChrName = Utils.changeChromosomeName(chr);
-                }
-                Chromosome chromosome = chromosomeMap.get(realChrName);
-                if (chromosome.getSize() < WIG_MIN_DOWNSAMPLING_CHROMOSOME_SIZE) {
-                    continue;
-                }
-                int start = 0;
-                int stop = chromosomeMap.get(realChrName).getSize();
-                LOGGER.debug("Processing chromosome " + chr);
-                int bp = start;
-                List<WigSection> sectionList = new ArrayList<>();
-                List<Pair<String, Integer>> chrSizes = Collections.singletonList(new Pair<>(chr, stop - start));
-
-                while (bp < stop) {
-                    int chunkStart = bp;
-                    int chunkStop = Math.min(bp + WIG_DOWNSAMPLING_WINDOW - 1, stop);
-
-                    List<BigSummary> summaries = bigWigFile.summarize(chr, chunkStart, chunkStop, 1, true);
-                    TFloatList values = new TFloatArrayList();
-                    BigSummary bigSummary = summaries.get(0);
-                    values.add((float) bigSummary.getMaxValue());
-                    WigSection wigSection = new FixedStepSection(chr, chunkStart, chunkStop, 1, values);
-                    sectionList.add(wigSection);
-
-                    bp = chunkStop + 1;
-                }
-
-                fileManager.writeToBigWigFile(wigFile, sectionList, chrSizes, realChrName);
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (String chr : fileChromosomes) {
+            final Chromosome chromosome = Utils.getFromChromosomeMap(chromosomeMap, chr);
+            if (chromosome != null && chromosome.getSize() >= WIG_MIN_DOWNSAMPLING_CHROMOSOME_SIZE) {
+                tasks.add(() -> {
+                    buildPyramid(wigFile, chr, chromosome);
+                    return null;
+                });
             }
         }
-    }
 
-    private void fillBlocksFromFile(final String filePath, final Track<Wig> track, final String chromosomeName)
-            throws IOException {
-        final Path wigPath = Paths.get(filePath);
-        LOGGER.debug(getMessage(MessagesConstants.DEBUG_FILE_READING, filePath));
         double time1 = Utils.getSystemTimeMilliseconds();
-        try (BigWigFile bigWigFile = BigWigFile.read(wigPath)) {
-            fillBlocksNew(track, chromosomeName, bigWigFile);
+        for (Future<Void> future : taskExecutorService.executeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
         }
         double time2 = Utils.getSystemTimeMilliseconds();
-        LOGGER.debug("Reading from WIG file {}, took {} ms", filePath, time2 - time1);
+        LOGGER.debug("Downsampling of {} chromosomes took {} ms", tasks.size(), time2 - time1);
     }
 
-    private void fillBlocksNew(final Track<Wig> track, final String chromosomeName,
-            final BigWigFile bigWigFile) {
-        String realName = null;
-        for (Object o : bigWigFile.getChromosomes().values()) {
-            String chr = (String) o;
-            if (chromosomeName.equals(chr)) {
-                realName = chr;
-                break;
-            } else if (Utils.changeChromosomeName(chromosomeName).equals(chr)) {
-                realName = chr;
-                break;
+    /**
+     * Writes downsampled levels of a chromosome from the most detailed to the coarsest one. A level is computed from
+     * the previous one if its window is a multiple of the previous window, otherwise the original file is queried.
+     */
+    private void buildPyramid(final WigFile wigFile, final String chr, final Chromosome chromosome)
+            throws IOException {
+        LOGGER.debug("Processing chromosome " + chr);
+        final List<Pair<String, Integer>> chrSizes = Collections.singletonList(new Pair<>(chr, chromosome.getSize()));
+        // a reader is opened for each task, because a BigWig file can't be read concurrently
+        try (BigWigReader reader = BigWigReader.open(Paths.get(wigFile.getPath()))) {
+            TFloatList previous = null;
+            int previousWindow = 0;
+            for (int window : downsamplingLevels) {
+                final TFloatList values = previous != null && window % previousWindow == 0 ?
+                        BigWigReader.mergeWindows(previous, window / previousWindow) :
+                        reader.summarizeWindows(chr, chromosome.getSize(), window);
+
+                fileManager.writeToBigWigFile(wigFile, createLevelSections(chr, chromosome.getSize(), window, values),
+                                              chrSizes, chromosome.getName(), window);
+                previous = values;
+                previousWindow = window;
             }
         }
-        if (realName == null) {
-            LOGGER.info("Chromosome not found in big wig file");
-        }
-        for (Wig wigElement : track.getBlocks()) {
-            double score = getNewArrays(bigWigFile, realName, wigElement.getStartIndex() - 1,
-                    wigElement.getEndIndex());
-            wigElement.setValue((float) score);
-        }
     }
 
-    private double getNewArrays(final BigWigFile bigWigFile, final String chrName, final int start,
-                                 final int end) {
-        try {
-            double res = 0.0;
-            res +=  queryWig(bigWigFile, chrName, start, end);
-            return res;
-        } catch (IOException e) {
-            LOGGER.debug(e.getMessage(), e);
-            return 0;
+    /**
+     * Creates sections of a downsampled level from values of its windows. The last window of a chromosome is usually
+     * shorter than others, so it is written as a separate section, clamped to the chromosome's end.
+     *
+     * @param chr a name of a chromosome in the file
+     * @param length length of the chromosome
+     * @param window size of a window in bps
+     * @param values values of consecutive windows, starting from the chromosome's start
+     * @return sections of the level
+     */
+    static List<WigSection> createLevelSections(final String chr, final int length, final int window,
+                                                final TFloatList values) {
+        final int fullWindows = Math.min(values.size(), length / window);
+        final List<WigSection> sections = new ArrayList<>(2);
+        if (fullWindows > 0) {
+            sections.add(new FixedStepSection(chr, 0, window, window, values.subList(0, fullWindows)));
         }
+        if (values.size() > fullWindows) {
+            final int start = fullWindows * window;
+            sections.add(new FixedStepSection(chr, start, window, length - start,
+                                              values.subList(fullWindows, fullWindows + 1)));
+        }
+        return sections;
     }
 
-    private double queryWig(BigWigFile bigWigFile, String chrName, int start, int end)
+    private void fillBlocksFromFile(final String filePath, final Track<Wig> track, final String chromosomeName)
             throws IOException {
-        List<BigSummary> summarize;
-        try {
-            summarize = bigWigFile.summarize(chrName, start, end, 1, true);
-        } catch (NoSuchElementException e) {
-            LOGGER.info(e.getMessage(), e);
-            return 0;
-        }
-        double res = 0.0;
-        for (BigSummary summary : summarize) {
-            if (!Double.isNaN(summary.getMaxValue()) && !Double.isInfinite(summary.getMaxValue())) {
-                res += summary.getMaxValue();
-            }
+        final Path wigPath = Paths.get(filePath);
+        LOGGER.debug(getMessage(MessagesConstants.DEBUG_FILE_READING, filePath));
+        double time1 = Utils.getSystemTimeMilliseconds();
+        // reopen modified files
+        final String key = filePath + KEY_SEPARATOR + wigPath.toFile().lastModified();
+        try (ReaderPool<BigWigReader>.Handle handle = readerPool.acquire(key, () -> BigWigReader.open(wigPath))) {
+            handle.getReader().fillBlocks(chromosomeName, track.getBlocks());
         }
-        return res;
+        double time2 = Utils.getSystemTimeMilliseconds();
+        LOGGER.debug("Reading from WIG file {}, took {} ms", filePath, time2 - time1);
     }
 }
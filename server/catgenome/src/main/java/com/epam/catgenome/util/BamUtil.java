@@ -27,8 +27,8 @@ package com.epam.catgenome.util;
 import java.io.IOException;
 import java.util.List;
 
+import com.epam.catgenome.manager.bam.AbstractBamTrackEmitter;
 import com.epam.catgenome.manager.bam.BamHelper;
-import com.epam.catgenome.manager.bam.BamTrackEmitter;
 import com.epam.catgenome.manager.bam.sifters.ConstantMemorySAMRecordSampler;
 import org.springframework.util.Assert;
 
@@ -45,7 +45,7 @@ import com.epam.catgenome.entity.track.Track;
 import com.epam.catgenome.manager.bam.filters.LeftSAMRecordFilter;
 import com.epam.catgenome.manager.bam.filters.MiddleSAMRecordFilter;
 import com.epam.catgenome.manager.bam.filters.RightSAMRecordFilter;
-import com.epam.catgenome.manager.bam.handlers.Handler;
+import com.epam.catgenome.manager.bam.filters.Filter;
 import com.epam.catgenome.manager.bam.handlers.SAMRecordHandler;
 import com.epam.catgenome.manager.bam.sifters.DownsamplingSifter;
 import com.epam.catgenome.manager.bam.sifters.FullResultSifter;
@@ -123,34 +123,38 @@ public final class BamUtil {
      * @return a valid SAMRecordHandler for a track and options
      * @throws IOException
      */
-    public static Handler<SAMRecord> createSAMRecordHandler(final Track<Read> track, final BamQueryOption options,
-                                                            final ReferenceManager referenceManager, boolean
-                                                                    coverageOnly, BamTrackEmitter trackEmitter)
+    public static SAMRecordHandler createSAMRecordHandler(final Track<Read> track, final BamQueryOption options,
+                                                          final ReferenceManager referenceManager, boolean
+                                                                  coverageOnly, AbstractBamTrackEmitter trackEmitter)
     // TODO: int maxReadCount - decide reads or coverage by by read count
             throws IOException {
-        Handler<SAMRecord> filter;
+        return new SAMRecordHandler(track.getStartIndex(), track.getEndIndex(), referenceManager,
+                createSAMRecordFilter(track, options, coverageOnly, trackEmitter), options); //maxReadCount
+    }
+
+    /**
+     * Factory method to create a Filter for a track's direction
+     * @param track a track to create Filter
+     * @param options options to determine, which Filter is needed
+     * @param coverageOnly if true, no reads will be sent to the emitter
+     * @param trackEmitter where to write reads
+     * @return a valid Filter for a track and options
+     */
+    public static Filter<SAMRecord> createSAMRecordFilter(final Track<Read> track, final BamQueryOption options,
+                                                          boolean coverageOnly, AbstractBamTrackEmitter trackEmitter) {
         final int startTrack = track.getStartIndex();
         final int endTrack = track.getEndIndex();
         switch (options.getTrackDirection()) {
             case LEFT:
-                filter = new SAMRecordHandler(startTrack, endTrack, referenceManager, new LeftSAMRecordFilter(endTrack,
-                        BamUtil.createSifter(endTrack, options, coverageOnly, trackEmitter)), options); //maxReadCount
-                break;
+                return new LeftSAMRecordFilter(endTrack, createSifter(endTrack, options, coverageOnly, trackEmitter));
             case MIDDLE:
-                filter = new SAMRecordHandler(startTrack, endTrack, referenceManager, new MiddleSAMRecordFilter(
-                        BamUtil.createSifter(endTrack, options, coverageOnly, trackEmitter)), options); //maxReadCount
-                break;
+                return new MiddleSAMRecordFilter(createSifter(endTrack, options, coverageOnly, trackEmitter));
             case RIGHT:
-                filter = new SAMRecordHandler(startTrack, endTrack, referenceManager,
-                        new RightSAMRecordFilter(
-                                startTrack,
-                                BamUtil.createSifter(endTrack, options, coverageOnly, trackEmitter)),
-                        options); //maxReadCount
-                break;
+                return new RightSAMRecordFilter(startTrack,
+                        createSifter(endTrack, options, coverageOnly, trackEmitter));
             default:
                 throw new IllegalArgumentException("Unexpected track direction: " + options.getTrackDirection());
         }
-        return filter;
     }
 
     /**
@@ -199,7 +203,8 @@ public final class BamUtil {
      * @return
      */
     public static DownsamplingSifter<SAMRecord> createSifter(final int end, final BamQueryOption options,
-                                                             boolean coverageOnly, BamTrackEmitter trackEmitter) {
+                                                             boolean coverageOnly,
+                                                             AbstractBamTrackEmitter trackEmitter) {
         // TODO: int maxReadCount - decide reads or coverage by by read count
         return options.isDownSampling() ? new ConstantMemorySAMRecordSampler(options.getFrame(), options.getCount(),
                 end, coverageOnly, trackEmitter) : new FullResultSifter(coverageOnly, trackEmitter);
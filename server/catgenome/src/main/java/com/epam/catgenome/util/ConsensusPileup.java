@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.epam.catgenome.entity.reference.Sequence;
+import htsjdk.samtools.AlignmentBlock;
+import htsjdk.samtools.SAMRecord;
+
+/**
+ * <p>
+ * Counts bases of reads, aligned to the blocks of a consensus sequence track. Reads are added one by one and are
+ * not kept: only aligned bases (CIGAR operators M, = and X) are counted at the reference positions they are aligned
+ * to, soft clips, insertions, deletions and skipped regions don't contribute. Counts of A, C, G, T and other bases
+ * (counted as N) are kept in a single primitive array, five counters per block.
+ * </p>
+ * <p>
+ * A pileup counts only positions of a specified region, so that an interval can be split into sub-intervals,
+ * piled up independently, e.g. in parallel, and then merged with {@link #merge(List)}. A read, that spans several
+ * sub-intervals, contributes each of its bases exactly once. Blocks are expected not to overlap.
+ * </p>
+ */
+public class ConsensusPileup {
+
+    public static final int A = 0;
+    public static final int C = 1;
+    public static final int G = 2;
+    public static final int T = 3;
+    public static final int N = 4;
+    public static final int BASES_COUNT = 5;
+
+    private static final int[] BASE_CODES = new int[Byte.MAX_VALUE + 1];
+    static {
+        Arrays.fill(BASE_CODES, N);
+        BASE_CODES['A'] = A;
+        BASE_CODES['a'] = A;
+        BASE_CODES['C'] = C;
+        BASE_CODES['c'] = C;
+        BASE_CODES['G'] = G;
+        BASE_CODES['g'] = G;
+        BASE_CODES['T'] = T;
+        BASE_CODES['t'] = T;
+    }
+
+    private final int[] blockStarts;
+    private final int[] blockEnds;
+    private final int regionStart;
+    private final int regionEnd;
+    private final int[] counts;
+
+    /**
+     * @param blocks blocks of a track, sorted by start index
+     * @param regionStart first position to count, inclusive
+     * @param regionEnd last position to count, inclusive
+     */
+    public ConsensusPileup(final List<Sequence> blocks, final int regionStart, final int regionEnd) {
+        this.blockStarts = new int[blocks.size()];
+        this.blockEnds = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            blockStarts[i] = blocks.get(i).getStartIndex();
+            blockEnds[i] = blocks.get(i).getEndIndex();
+        }
+        this.regionStart = regionStart;
+        this.regionEnd = regionEnd;
+        this.counts = new int[blocks.size() * BASES_COUNT];
+    }
+
+    /**
+     * Counts aligned bases of a read, that fall into the region of the pileup
+     *
+     * @param record a mapped read
+     */
+    public void add(final SAMRecord record) {
+        final byte[] bases = record.getReadBases();
+        if (bases == null || bases.length == 0 || blockStarts.length == 0) {
+            return;
+        }
+
+        int block = 0;
+        for (AlignmentBlock alignmentBlock : record.getAlignmentBlocks()) {
+            final int referenceStart = alignmentBlock.getReferenceStart();
+            final int from = Math.max(Math.max(referenceStart, regionStart), blockStarts[0]);
+            final int to = Math.min(referenceStart + alignmentBlock.getLength() - 1, regionEnd);
+            if (from > to) {
+                continue;
+            }
+
+            // alignment blocks go in reference order, so the search continues from the previous block
+            block = findBlock(from, block);
+            final int readOffset = alignmentBlock.getReadStart() - 1 - referenceStart;
+            for (int position = from; position <= to && block < blockStarts.length; position++) {
+                while (block < blockStarts.length && blockEnds[block] < position) {
+                    block++;
+                }
+                if (block < blockStarts.length && blockStarts[block] <= position) {
+                    counts[block * BASES_COUNT + BASE_CODES[bases[readOffset + position] & Byte.MAX_VALUE]]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds counts of other pileups of the same blocks, e.g. of other sub-intervals, to this one
+     *
+     * @param pileups pileups to merge
+     * @return this pileup
+     */
+    public ConsensusPileup merge(final List<ConsensusPileup> pileups) {
+        for (ConsensusPileup pileup : pileups) {
+            if (pileup == this) {
+                continue;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += pileup.counts[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param block an index of a block
+     * @param base one of {@link #A}, {@link #C}, {@link #G}, {@link #T} or {@link #N}
+     * @return how many times the base was seen in the block
+     */
+    public int getCount(final int block, final int base) {
+        return counts[block * BASES_COUNT + base];
+    }
+
+    /**
+     * @param block an index of a block
+     * @return how many bases were seen in the block
+     */
+    public int getTotalCount(final int block) {
+        int total = 0;
+        for (int base = 0; base < BASES_COUNT; base++) {
+            total += counts[block * BASES_COUNT + base];
+        }
+        return total;
+    }
+
+    public int getBlocksCount() {
+        return blockStarts.length;
+    }
+
+    /**
+     * Finds the first block, that ends at or after a position
+     */
+    private int findBlock(final int position, final int fromBlock) {
+        int low = fromBlock;
+        int high = blockEnds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blockEnds[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
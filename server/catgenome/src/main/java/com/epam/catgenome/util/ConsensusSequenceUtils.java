@@ -24,15 +24,10 @@
 
 package com.epam.catgenome.util;
 
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import com.epam.catgenome.entity.NucleotideContent;
 import com.epam.catgenome.entity.reference.Sequence;
 import com.epam.catgenome.entity.track.Track;
-import htsjdk.samtools.SAMRecord;
 
 /**
  * Created: 6/3/2016
@@ -42,8 +37,14 @@ import htsjdk.samtools.SAMRecord;
  * </p>
  */
 public final class ConsensusSequenceUtils {
-    private static final List<String> NUCLEOTIDE_PAIRS = Arrays.asList("AT", "AG", "AC", "TA", "TG", "TC", "GA", "GT",
-            "GC", "CA", "CT", "CG");
+    /**
+     * Pairs of nucleotides, checked for co-consensus in this order
+     */
+    private static final int[][] NUCLEOTIDE_PAIRS = {
+        {ConsensusPileup.A, ConsensusPileup.T}, {ConsensusPileup.A, ConsensusPileup.G},
+        {ConsensusPileup.A, ConsensusPileup.C}, {ConsensusPileup.T, ConsensusPileup.G},
+        {ConsensusPileup.T, ConsensusPileup.C}, {ConsensusPileup.G, ConsensusPileup.C}};
+    private static final char[] NUCLEOTIDES = {'A', 'C', 'G', 'T'};
     private static final double CO_CONSENSUS_CRITERIA = 0.75;
     private static final double CONSENSUS_CRITERIA = 0.5;
 
@@ -59,27 +60,20 @@ public final class ConsensusSequenceUtils {
     /**
      * Calculates consensus sequence
      * @param track a sequence track
-     * @param blockToReadsMap map of reads per nucleotide
+     * @param pileup counts of bases in the blocks of the track, blocks without bases are left empty
      */
-    public static void calculateConsensusSequence(final Track<Sequence> track,
-                                                  final Map<Sequence, List<SAMRecord>> blockToReadsMap) {
+    public static void calculateConsensusSequence(final Track<Sequence> track, final ConsensusPileup pileup) {
+        final List<Sequence> blocks = track.getBlocks();
         // For each range calculate consensus nucleotide.
-        for (Sequence sequence : track.getBlocks()) {
-            final List<SAMRecord> blockReads = blockToReadsMap.get(sequence);
-            final Map<String, Integer> atgcMap = new HashMap<>();
-            final NucleotideContent nucleotideContent = new NucleotideContent();
-
-
-            // Calculate frequencies.
-            if (blockReads == null || blockReads.isEmpty()) {
+        for (int i = 0; i < blocks.size(); i++) {
+            final int total = pileup.getTotalCount(i);
+            if (total == 0) {
                 continue;
             }
-            nucleotideContent.setTotalNumberOfNucleotides(calculateNucleotideFrequencies(blockReads, atgcMap,
-                    nucleotideContent));
 
-            String consensusNucleotide = checkFirstCriteria(atgcMap, nucleotideContent.getTotalNumberOfNucleotides());
+            String consensusNucleotide = checkFirstCriteria(pileup, i, total);
             if (consensusNucleotide == null) {
-                consensusNucleotide = checkSecondCriteria(atgcMap, nucleotideContent.getTotalNumberOfNucleotides());
+                consensusNucleotide = checkSecondCriteria(pileup, i, total);
             }
 
             // Otherwise
@@ -87,77 +81,48 @@ public final class ConsensusSequenceUtils {
                 consensusNucleotide = "N";
             }
 
-            sequence.setText(consensusNucleotide);
+            blocks.get(i).setText(consensusNucleotide);
         }
     }
 
-    private static Integer calculateNucleotideFrequencies(final List<SAMRecord> blockReads,
-                                                          final Map<String, Integer> atgcMap,
-                                                          final NucleotideContent nucleotideContent) {
-        for (SAMRecord read : blockReads) {
-            char[] nucleotides = read.getReadString().toCharArray();
-            if (nucleotides.length != 0) {
-                nucleotideContent.incTotalNumberOfNucleotides(nucleotides.length);
-                calculateCount(nucleotides, nucleotideContent);
+    /**
+     * A nucleotide is a consensus one, if it makes more than a half of all bases and is seen more than twice
+     * as often as any other nucleotide
+     */
+    private static String checkFirstCriteria(final ConsensusPileup pileup, final int block, final double total) {
+        int first = 0;
+        for (int base = 1; base < NUCLEOTIDES_COUNT; base++) {
+            if (pileup.getCount(block, base) > pileup.getCount(block, first)) {
+                first = base;
             }
         }
-        atgcMap.put("A", nucleotideContent.getACount());
-        atgcMap.put("T", nucleotideContent.getTCount());
-        atgcMap.put("G", nucleotideContent.getGCount());
-        atgcMap.put("C", nucleotideContent.getCCount());
-        return nucleotideContent.getTotalNumberOfNucleotides();
-    }
-
 
-    private static void calculateCount(final char[] nucleotides, final NucleotideContent nucleotideContent) {
-        for (char nucleotide : nucleotides) {
-            switch (Character.toUpperCase(nucleotide)) {
-                case 'A':
-                    nucleotideContent.incACount();
-                    break;
-                case 'T':
-                    nucleotideContent.incTCount();
-                    break;
-                case 'G':
-                    nucleotideContent.incGCount();
-                    break;
-                case 'C':
-                    nucleotideContent.incCCount();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown nucleotide in the sequence: " + nucleotide);
+        int second = 0;
+        for (int base = 0; base < NUCLEOTIDES_COUNT; base++) {
+            if (base != first && (second == first || pileup.getCount(block, base) > pileup.getCount(block, second))) {
+                second = base;
             }
         }
 
+        final int count = pileup.getCount(block, first);
+        if (Double.compare(count / total, CONSENSUS_CRITERIA) > 0 && count > 2 * pileup.getCount(block, second)) {
+            return String.valueOf(NUCLEOTIDES[first]);
+        }
+        return null;
     }
 
-    private static String checkSecondCriteria(Map<String, Integer> atgcMap, double totalNumberOfNucleotides) {
-        for (String nucleotidePair : NUCLEOTIDE_PAIRS) {
-            Integer firstCnt = atgcMap.get(String.valueOf(nucleotidePair.charAt(0)));
-            Integer secondCnt = atgcMap.get(String.valueOf(nucleotidePair.charAt(1)));
-            double frequency = (double) (firstCnt + secondCnt) / totalNumberOfNucleotides;
+    /**
+     * A pair of nucleotides is a co-consensus one, if together they make more than three quarters of all bases
+     */
+    private static String checkSecondCriteria(final ConsensusPileup pileup, final int block, final double total) {
+        for (int[] pair : NUCLEOTIDE_PAIRS) {
+            double frequency = (pileup.getCount(block, pair[0]) + pileup.getCount(block, pair[1])) / total;
             if (Double.compare(frequency, CO_CONSENSUS_CRITERIA) > 0) {
-                return "[" + nucleotidePair + "]";
+                return "[" + NUCLEOTIDES[pair[0]] + NUCLEOTIDES[pair[1]] + "]";
             }
         }
 
         return null;
     }
 
-    private static String checkFirstCriteria(Map<String, Integer> atgcMap, double totalNumberOfNucleotides) {
-        String consensusNucleotide = null;
-        Integer[] values = atgcMap.values().toArray(new Integer[NUCLEOTIDES_COUNT]);
-        Arrays.sort(values);
-        for (Map.Entry<String, Integer> nucleotide : atgcMap.entrySet()) {
-            Integer cnt = nucleotide.getValue();
-            if (cnt.equals(values[values.length - 1])) { // most frequent nucleotide
-                double frequency = (double) cnt / totalNumberOfNucleotides;
-                if (Double.compare(frequency, CONSENSUS_CRITERIA) > 0 && cnt > 2 * values[2]) {
-                    consensusNucleotide = nucleotide.getKey();
-                }
-            }
-        }
-        return consensusNucleotide;
-    }
-
 }
@@ -0,0 +1,234 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A compact in-memory index of feature positions on a single chromosome: starts and ends of features, sorted by
+ * start. Allows to find next or previous feature relative to a position with a binary search, so that only the
+ * found feature has to be read from a file.
+ * </p>
+ * <p>
+ * Besides the positions, the index keeps running maximum and minimum of feature ends, that are monotonous and
+ * allow binary search by end for overlapping features.
+ * </p>
+ */
+public final class FeaturePositionIndex {
+
+    private static final int MAGIC = 0x4E474250;
+    private static final int VERSION = 1;
+    private static final int BYTES_PER_FEATURE = 16;
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds; // maximum end of features [0, i]
+    private final int[] minEnds; // minimum end of features [i, size)
+
+    private FeaturePositionIndex(int[] starts, int[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new int[ends.length];
+        this.minEnds = new int[ends.length];
+
+        for (int i = 0; i < ends.length; i++) {
+            maxEnds[i] = i == 0 ? ends[i] : Math.max(maxEnds[i - 1], ends[i]);
+        }
+        for (int i = ends.length - 1; i >= 0; i--) {
+            minEnds[i] = i == ends.length - 1 ? ends[i] : Math.min(minEnds[i + 1], ends[i]);
+        }
+    }
+
+    /**
+     * Finds the first feature, that starts after a specified position
+     *
+     * @param position a position to search from
+     * @return number of the feature in the index or -1, if there is no such feature
+     */
+    public int findFirstStartingAfter(int position) {
+        return orNotFound(firstGreater(starts, position));
+    }
+
+    /**
+     * Finds the first feature in start order, that ends after a specified position, e.g. the first feature,
+     * that overlaps interval from the position + 1 to the end of the chromosome
+     *
+     * @param position a position to search from
+     * @return number of the feature in the index or -1, if there is no such feature
+     */
+    public int findFirstEndingAfter(int position) {
+        return orNotFound(firstGreater(maxEnds, position));
+    }
+
+    /**
+     * Finds the last feature, that starts before a specified position
+     *
+     * @param position a position to search from
+     * @return number of the feature in the index or -1, if there is no such feature
+     */
+    public int findLastStartingBefore(int position) {
+        return firstGreater(starts, position - 1) - 1;
+    }
+
+    /**
+     * Finds the last feature in start order, that ends before a specified position
+     *
+     * @param position a position to search from
+     * @return number of the feature in the index or -1, if there is no such feature
+     */
+    public int findLastEndingBefore(int position) {
+        return firstGreater(minEnds, position - 1) - 1;
+    }
+
+    public int getStart(int number) {
+        return starts[number];
+    }
+
+    public int getEnd(int number) {
+        return ends[number];
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * @return approximate amount of memory, occupied by the index
+     */
+    public long getSizeInBytes() {
+        return (long) starts.length * BYTES_PER_FEATURE;
+    }
+
+    /**
+     * Writes the index to a stream
+     *
+     * @param outputStream a stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataOutputStream outputStream) throws IOException {
+        outputStream.writeInt(MAGIC);
+        outputStream.writeInt(VERSION);
+        outputStream.writeInt(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            outputStream.writeInt(starts[i]);
+            outputStream.writeInt(ends[i]);
+        }
+    }
+
+    /**
+     * Reads an index, written by {@link #write(DataOutputStream)}
+     *
+     * @param inputStream a stream to read from
+     * @return the read index
+     * @throws IOException if an I/O error occurs or the stream doesn't contain a position index
+     */
+    public static FeaturePositionIndex read(DataInputStream inputStream) throws IOException {
+        if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+            throw new IOException("Not a feature position index or unsupported version");
+        }
+
+        int size = inputStream.readInt();
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = inputStream.readInt();
+            ends[i] = inputStream.readInt();
+        }
+
+        return new FeaturePositionIndex(starts, ends);
+    }
+
+    private static int firstGreater(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] > value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        return low;
+    }
+
+    private int orNotFound(int number) {
+        return number < starts.length ? number : -1;
+    }
+
+    /**
+     * Collects feature positions in a single pass over a chromosome. Features are expected to come in start order,
+     * otherwise they are sorted on build.
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 1024;
+        private static final long INT_MASK = 0xFFFFFFFFL;
+
+        private int[] starts = new int[INITIAL_CAPACITY];
+        private int[] ends = new int[INITIAL_CAPACITY];
+        private int size;
+        private boolean sorted = true;
+
+        public Builder add(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            if (size > 0 && start < starts[size - 1]) {
+                sorted = false;
+            }
+
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+            return this;
+        }
+
+        public FeaturePositionIndex build() {
+            if (sorted) {
+                return new FeaturePositionIndex(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size));
+            }
+
+            long[] features = new long[size];
+            for (int i = 0; i < size; i++) {
+                features[i] = ((long) starts[i] << Integer.SIZE) | (ends[i] & INT_MASK);
+            }
+            Arrays.sort(features);
+
+            int[] sortedStarts = new int[size];
+            int[] sortedEnds = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedStarts[i] = (int) (features[i] >> Integer.SIZE);
+                sortedEnds[i] = (int) features[i];
+            }
+            return new FeaturePositionIndex(sortedStarts, sortedEnds);
+        }
+    }
+}
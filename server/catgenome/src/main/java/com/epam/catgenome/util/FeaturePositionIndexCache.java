@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.epam.catgenome.constant.Constants;
+
+/**
+ * <p>
+ * Keeps {@link FeaturePositionIndex}es of feature files in memory between navigation requests. Indexes are cached by
+ * paths of their files. The total size of cached indexes is bounded, the least recently used indexes are dropped
+ * first.
+ * </p>
+ */
+public class FeaturePositionIndexCache {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long maxBytes;
+    private final Map<String, FeaturePositionIndex> indexes;
+    private long bytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxBytes maximum total size of cached indexes in bytes, 0 disables the cache
+     */
+    public FeaturePositionIndexCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        // access order for LRU eviction
+        this.indexes = new LinkedHashMap<>(INITIAL_CAPACITY, Constants.LRU_LOAD_FACTOR, true);
+    }
+
+    /**
+     * Returns a cached index, loaded from a specified file
+     *
+     * @param indexFile an index file
+     * @return a cached index or null, if the index isn't cached
+     */
+    public FeaturePositionIndex get(File indexFile) {
+        synchronized (indexes) {
+            FeaturePositionIndex index = indexes.get(indexFile.getAbsolutePath());
+            if (index != null) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Puts an index, loaded from or written to a specified file, into the cache. Indexes, that are larger than the
+     * cache, are not cached.
+     *
+     * @param indexFile an index file
+     * @param index an index to cache
+     */
+    public void put(File indexFile, FeaturePositionIndex index) {
+        if (index.getSizeInBytes() > maxBytes) {
+            return;
+        }
+
+        synchronized (indexes) {
+            FeaturePositionIndex previous = indexes.put(indexFile.getAbsolutePath(), index);
+            bytes += index.getSizeInBytes() - (previous == null ? 0 : previous.getSizeInBytes());
+
+            Iterator<FeaturePositionIndex> iterator = indexes.values().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                bytes -= iterator.next().getSizeInBytes();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes all indexes, located in a specified directory, should be called before the directory is deleted
+     *
+     * @param directory a directory of a feature file
+     */
+    public void invalidate(File directory) {
+        final String prefix = directory.getAbsolutePath() + File.separator;
+        synchronized (indexes) {
+            Iterator<Map.Entry<String, FeaturePositionIndex>> iterator = indexes.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, FeaturePositionIndex> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    bytes -= entry.getValue().getSizeInBytes();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (indexes) {
+            return indexes.size();
+        }
+    }
+
+    public long getBytes() {
+        synchronized (indexes) {
+            return bytes;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+}
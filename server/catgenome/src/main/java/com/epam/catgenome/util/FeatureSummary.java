@@ -0,0 +1,449 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+import com.epam.catgenome.entity.track.Block;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * <p>
+ * A precomputed multi-resolution summary of features on a single chromosome, that allows to load a zoomed out
+ * track without reading all features of the requested interval. Each level of a summary splits a chromosome into
+ * bins of equal size and keeps for each non-empty bin the number of features, that start in it, the start of the
+ * first of them, the maximum end of them and the first feature itself. Features, that should not be collapsed at a
+ * level, are kept aside as standalone features of this level.
+ * </p>
+ * <p>
+ * File layout: magic, version and the number of levels, followed by a header of each level (bin size and the
+ * number, offset and maximum feature span of bin entries and of standalone entries) and the offset of features.
+ * Bin entries are (bin, count, first start, maximum end, feature offset), sorted by bin, standalone entries have
+ * the same layout with the start of a feature instead of a bin. Maximum spans allow to find features, that start
+ * before a requested interval, but overlap it. Features are stored as length prefixed JSON, a feature, referenced
+ * by several levels, is stored once.
+ * </p>
+ */
+public final class FeatureSummary {
+
+    private static final int MAGIC = 0x4E474253; // "NGBS"
+    private static final int VERSION = 2;
+    private static final int ENTRY_BYTES = 4 * Integer.BYTES + Long.BYTES;
+    private static final int SECTION_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+    private static final int LEVEL_HEADER_BYTES = Integer.BYTES + 2 * SECTION_HEADER_BYTES;
+    private static final int COUNT_POSITION = Integer.BYTES;
+    private static final int FIRST_START_POSITION = 2 * Integer.BYTES;
+    private static final int MAX_END_POSITION = 3 * Integer.BYTES;
+    private static final int RECORD_POSITION = 4 * Integer.BYTES;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private FeatureSummary() {
+        // no operations by default
+    }
+
+    /**
+     * Combines features of a window of a track into a single feature to show
+     *
+     * @param <T> type of features
+     */
+    @FunctionalInterface
+    public interface Grouping<T extends Block> {
+
+        /**
+         * @param first the first feature of a window
+         * @param count the number of features of a window
+         * @param maxEnd the maximum end of features of a window
+         * @return a feature, representing the window
+         */
+        T group(T first, int count, int maxEnd);
+    }
+
+    /**
+     * Loads features of an interval from a summary file. The level with the largest bins, that are not larger, than
+     * the number of bases per pixel, is used. Bins are combined into windows of the pixel size, counted from the start
+     * of the interval, and each window is represented by a single feature, created by a {@code Grouping}. Bins, that
+     * start before the interval, but have features, overlapping it, are combined into the first window. Standalone
+     * features, overlapping the interval, are added as they are.
+     *
+     * @param file a summary file
+     * @param start start of an interval, inclusive
+     * @param end end of an interval, inclusive
+     * @param scaleFactor a scale factor of a track
+     * @param type a class of features
+     * @param grouping a function to represent a window by a single feature
+     * @param <T> type of features
+     * @return features of the interval, sorted by start, or {@code null}, if the bins of the summary are too large
+     * for the scale factor
+     * @throws IOException if the file can't be read or is corrupted
+     */
+    public static <T extends Block> List<T> load(File file, int start, int end, double scaleFactor, Class<T> type,
+                                                 Grouping<T> grouping) throws IOException {
+        final int step = (int) Math.ceil(1 / scaleFactor);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Corrupted feature summary file " + file.getAbsolutePath());
+            }
+
+            final int levelsCount = buffer.getInt();
+            int binSize = 0;
+            Section bins = null;
+            Section standalone = null;
+            for (int i = 0; i < levelsCount; i++) {
+                final int levelBinSize = buffer.getInt();
+                final Section levelBins = new Section(buffer);
+                final Section levelStandalone = new Section(buffer);
+                if (levelBinSize <= step) {
+                    binSize = levelBinSize;
+                    bins = levelBins;
+                    standalone = levelStandalone;
+                }
+            }
+            final int recordsOffset = (int) buffer.getLong();
+
+            if (binSize == 0) {
+                return null;
+            }
+
+            final List<T> features = new ArrayList<>();
+            if (start > end) {
+                return features;
+            }
+
+            final RecordReader<T> reader = new RecordReader<>(buffer, recordsOffset, type);
+            loadBins(buffer, bins, binSize, start, end, step, reader, grouping, features);
+            for (int i = standalone.firstEntry(buffer, Math.max(0, start - standalone.maxSpan));
+                 i < standalone.count && buffer.getInt(standalone.entry(i)) <= end; i++) {
+                final int position = standalone.entry(i);
+                if (buffer.getInt(position + MAX_END_POSITION) >= start) {
+                    features.add(reader.read(buffer.getLong(position + RECORD_POSITION)));
+                }
+            }
+
+            features.sort(Comparator.comparing(Block::getStartIndex));
+            return features;
+        }
+    }
+
+    private static <T extends Block> void loadBins(ByteBuffer buffer, Section bins, int binSize, int start, int end,
+                                                   int step, RecordReader<T> reader, Grouping<T> grouping,
+                                                   List<T> features) throws IOException {
+        final int firstBin = Math.max(0, start - bins.maxSpan - 1) / binSize;
+        final int lastBin = Math.max(0, end - 1) / binSize;
+        int window = -1;
+        int count = 0;
+        int maxEnd = 0;
+        T first = null;
+        for (int i = bins.firstEntry(buffer, firstBin); i < bins.count && buffer.getInt(bins.entry(i)) <= lastBin;
+             i++) {
+            final int position = bins.entry(i);
+            final int firstStart = buffer.getInt(position + FIRST_START_POSITION);
+            final int binMaxEnd = buffer.getInt(position + MAX_END_POSITION);
+            if (firstStart < start && binMaxEnd < start) {
+                continue;
+            }
+
+            final int binWindow = Math.max(0, firstStart - start) / step;
+            if (binWindow != window) {
+                if (first != null) {
+                    features.add(grouping.group(first, count, maxEnd));
+                }
+                window = binWindow;
+                first = reader.read(buffer.getLong(position + RECORD_POSITION));
+                count = 0;
+                maxEnd = 0;
+            }
+
+            count += buffer.getInt(position + COUNT_POSITION);
+            maxEnd = Math.max(maxEnd, binMaxEnd);
+        }
+        if (first != null) {
+            features.add(grouping.group(first, count, maxEnd));
+        }
+    }
+
+    /**
+     * Entries of a level in a summary file
+     */
+    private static final class Section {
+        private final int count;
+        private final int offset;
+        private final int maxSpan;
+
+        private Section(ByteBuffer header) {
+            this.count = header.getInt();
+            this.offset = (int) header.getLong();
+            this.maxSpan = header.getInt();
+        }
+
+        private int entry(int number) {
+            return offset + number * ENTRY_BYTES;
+        }
+
+        /**
+         * Finds the first entry, which key (a bin or a start) is not less than a specified value
+         */
+        private int firstEntry(ByteBuffer buffer, int value) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buffer.getInt(entry(mid)) < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+    }
+
+    private static final class RecordReader<T> {
+        private final ByteBuffer buffer;
+        private final int recordsOffset;
+        private final Class<T> type;
+
+        private RecordReader(ByteBuffer buffer, int recordsOffset, Class<T> type) {
+            this.buffer = buffer;
+            this.recordsOffset = recordsOffset;
+            this.type = type;
+        }
+
+        private T read(long recordOffset) throws IOException {
+            final ByteBuffer record = buffer.duplicate();
+            record.position(recordsOffset + (int) recordOffset);
+            final byte[] bytes = new byte[record.getInt()];
+            record.get(bytes);
+            return MAPPER.readValue(bytes, type);
+        }
+    }
+
+    /**
+     * Builds a summary in a single pass over features of a chromosome. Features should be added in the order of
+     * their start, as they are stored in a sorted and indexed feature file.
+     */
+    public static final class Builder {
+
+        private final int[] binSizes;
+        private final Level[] bins;
+        private final Level[] standalone;
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final DataOutputStream recordsOutput = new DataOutputStream(records);
+        private int lastStart;
+
+        /**
+         * @param binSizes sizes of bins of summary levels in ascending order
+         */
+        public Builder(int[] binSizes) {
+            Assert.isTrue(binSizes.length > 0 && binSizes[0] > 0, "Summary levels are not specified");
+            this.binSizes = binSizes.clone();
+            this.bins = new Level[binSizes.length];
+            this.standalone = new Level[binSizes.length];
+            for (int i = 0; i < binSizes.length; i++) {
+                Assert.isTrue(i == 0 || binSizes[i] > binSizes[i - 1], "Summary levels should be ascending");
+                bins[i] = new Level();
+                standalone[i] = new Level();
+            }
+        }
+
+        /**
+         * Adds a feature to bins of all levels
+         *
+         * @param feature a feature, that starts not before any of previously added features
+         * @throws IOException if the feature can't be serialized
+         */
+        public void add(Block feature) throws IOException {
+            add(feature, 0);
+        }
+
+        /**
+         * Adds a feature, that is kept standalone at levels, which bins are not larger, than the feature, and is
+         * added to bins of other levels. Such a feature is shown as it is, if it extends beyond a window of a track.
+         *
+         * @param feature a feature, that starts not before any of previously added features
+         * @throws IOException if the feature can't be serialized
+         */
+        public void addExtending(Block feature) throws IOException {
+            add(feature, feature.getEndIndex() - feature.getStartIndex());
+        }
+
+        /**
+         * Adds a feature, that is never grouped with other features
+         *
+         * @param feature a feature, that starts not before any of previously added features
+         * @throws IOException if the feature can't be serialized
+         */
+        public void addStandalone(Block feature) throws IOException {
+            add(feature, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Writes the summary
+         *
+         * @param output a stream to write the summary to
+         * @throws IOException if the summary can't be written
+         */
+        public void write(DataOutputStream output) throws IOException {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(binSizes.length);
+
+            // magic, version, levels count, headers of levels, features offset
+            long offset = Integer.BYTES * 3 + (long) LEVEL_HEADER_BYTES * binSizes.length + Long.BYTES;
+            for (int i = 0; i < binSizes.length; i++) {
+                output.writeInt(binSizes[i]);
+                offset = bins[i].writeHeader(output, offset);
+                offset = standalone[i].writeHeader(output, offset);
+            }
+            output.writeLong(offset);
+
+            for (int i = 0; i < binSizes.length; i++) {
+                bins[i].write(output);
+                standalone[i].write(output);
+            }
+            recordsOutput.flush();
+            records.writeTo(output);
+        }
+
+        /**
+         * Adds a feature to all levels, keeping it standalone at levels with bins up to a specified size
+         */
+        private void add(Block feature, int maxStandaloneBinSize) throws IOException {
+            final int start = feature.getStartIndex();
+            final int end = feature.getEndIndex();
+            Assert.isTrue(start >= lastStart, "Features should be sorted by start");
+            lastStart = start;
+
+            long recordOffset = -1;
+            for (int i = 0; i < binSizes.length; i++) {
+                final int bin = Math.max(0, start - 1) / binSizes[i];
+                if (binSizes[i] > maxStandaloneBinSize && bins[i].isLast(bin)) {
+                    bins[i].extendLast(start, end);
+                } else {
+                    if (recordOffset < 0) {
+                        recordOffset = writeRecord(feature);
+                    }
+                    if (binSizes[i] > maxStandaloneBinSize) {
+                        bins[i].add(bin, start, end, recordOffset);
+                    } else {
+                        standalone[i].add(start, start, end, recordOffset);
+                    }
+                }
+            }
+        }
+
+        private long writeRecord(Block feature) throws IOException {
+            final long recordOffset = recordsOutput.size();
+            final byte[] bytes = MAPPER.writeValueAsBytes(feature);
+            recordsOutput.writeInt(bytes.length);
+            recordsOutput.write(bytes);
+            return recordOffset;
+        }
+    }
+
+    /**
+     * Entries of a level, that are being built
+     */
+    private static final class Level {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int[] firstStarts = new int[INITIAL_CAPACITY];
+        private int[] maxEnds = new int[INITIAL_CAPACITY];
+        private long[] recordOffsets = new long[INITIAL_CAPACITY];
+        private int size;
+        private int maxSpan;
+
+        private boolean isLast(int key) {
+            return size > 0 && keys[size - 1] == key;
+        }
+
+        private void add(int key, int start, int end, long recordOffset) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+                firstStarts = Arrays.copyOf(firstStarts, size * 2);
+                maxEnds = Arrays.copyOf(maxEnds, size * 2);
+                recordOffsets = Arrays.copyOf(recordOffsets, size * 2);
+            }
+
+            keys[size] = key;
+            counts[size] = 1;
+            firstStarts[size] = start;
+            maxEnds[size] = end;
+            recordOffsets[size] = recordOffset;
+            maxSpan = Math.max(maxSpan, end - start);
+            size++;
+        }
+
+        private void extendLast(int start, int end) {
+            counts[size - 1]++;
+            maxEnds[size - 1] = Math.max(maxEnds[size - 1], end);
+            maxSpan = Math.max(maxSpan, end - start);
+        }
+
+        /**
+         * Writes the number, the offset and the maximum feature span of entries
+         *
+         * @return the offset of entries, following these ones
+         */
+        private long writeHeader(DataOutputStream output, long offset) throws IOException {
+            output.writeInt(size);
+            output.writeLong(offset);
+            output.writeInt(maxSpan);
+            return offset + (long) size * ENTRY_BYTES;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            for (int i = 0; i < size; i++) {
+                output.writeInt(keys[i]);
+                output.writeInt(counts[i]);
+                output.writeInt(firstStarts[i]);
+                output.writeInt(maxEnds[i]);
+                output.writeLong(recordOffsets[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.epam.catgenome.entity.wig.Wig;
+
+/**
+ * <p>
+ * Reads and writes histogram files of feature files. A histogram is stored in a columnar form: a header with a
+ * number of blocks, followed by arrays of blocks' starts, ends and values. Blocks are sorted by start and don't
+ * overlap, so a window of a histogram is found by a binary search in a memory mapped file, without reading the
+ * whole histogram.
+ * </p>
+ * <p>
+ * Histogram files of previous versions, that are plain sequences of (start, end, value) triples, are converted to
+ * the current format, when they are read for the first time.
+ * </p>
+ */
+public final class HistogramFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HistogramFile.class);
+
+    private static final int MAGIC = 0x4E474248;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int BYTES_PER_BLOCK = 2 * Integer.BYTES + Float.BYTES;
+
+    private HistogramFile() {
+        // no operations by default
+    }
+
+    /**
+     * Writes a histogram to a file. The file is replaced atomically, so concurrent readers see either the previous
+     * or the new version of the histogram.
+     *
+     * @param file a file to write histogram to
+     * @param histogram a {@code List} of {@code Wig} blocks, representing a histogram
+     * @throws IOException if writing fails
+     */
+    public static void write(File file, List<Wig> histogram) throws IOException {
+        List<Wig> sorted = new ArrayList<>(histogram);
+        sorted.sort(Comparator.comparingInt(Wig::getStartIndex));
+
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tmpFile)))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(sorted.size());
+                for (Wig wig : sorted) {
+                    outputStream.writeInt(wig.getStartIndex());
+                }
+                for (Wig wig : sorted) {
+                    outputStream.writeInt(wig.getEndIndex());
+                }
+                for (Wig wig : sorted) {
+                    outputStream.writeFloat(wig.getValue());
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+    /**
+     * Reads histogram blocks, that overlap a specified window. A file of a previous version is converted to the
+     * current format first.
+     *
+     * @param file a histogram file
+     * @param from start of the window, inclusive
+     * @param to end of the window, inclusive
+     * @return a {@code List} of {@code Wig} blocks, sorted by start
+     * @throws IOException if the file can't be read or is corrupted
+     */
+    public static List<Wig> read(File file, int from, int to) throws IOException {
+        if (isLegacy(file)) {
+            migrate(file);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = readHeader(buffer, file, channel.size());
+            if (count == 0 || from > to) {
+                return Collections.emptyList();
+            }
+
+            IntBuffer starts = slice(buffer, HEADER_SIZE).asIntBuffer();
+            IntBuffer ends = slice(buffer, HEADER_SIZE + count * Integer.BYTES).asIntBuffer();
+            FloatBuffer values = slice(buffer, HEADER_SIZE + 2 * count * Integer.BYTES).asFloatBuffer();
+
+            // blocks don't overlap, so their ends are sorted as well as starts
+            int first = firstGreaterOrEqual(ends, count, from);
+            List<Wig> histogram = new ArrayList<>();
+            for (int i = first; i < count && starts.get(i) <= to; i++) {
+                Wig wig = new Wig();
+                wig.setStartIndex(starts.get(i));
+                wig.setEndIndex(ends.get(i));
+                wig.setValue(values.get(i));
+                histogram.add(wig);
+            }
+
+            return histogram;
+        }
+    }
+
+    /**
+     * Checks if a histogram file is written in the format of a previous version
+     *
+     * @param file a histogram file
+     * @return true if the file doesn't start with a header of the current format
+     * @throws IOException if the file can't be read
+     */
+    public static boolean isLegacy(File file) throws IOException {
+        long length = file.length();
+        if (length < HEADER_SIZE) {
+            return true;
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(new FileInputStream(file))) {
+            return inputStream.readInt() != MAGIC;
+        }
+    }
+
+    private static void migrate(File file) throws IOException {
+        LOGGER.info("Converting histogram file {} to version {}", file.getAbsolutePath(), VERSION);
+
+        if (file.length() % BYTES_PER_BLOCK != 0) {
+            throw new IOException("Corrupted histogram file " + file.getAbsolutePath());
+        }
+
+        List<Wig> histogram = new ArrayList<>((int) (file.length() / BYTES_PER_BLOCK));
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)))) {
+            for (long i = file.length() / BYTES_PER_BLOCK; i > 0; i--) {
+                Wig wig = new Wig();
+                wig.setStartIndex(inputStream.readInt());
+                wig.setEndIndex(inputStream.readInt());
+                wig.setValue(inputStream.readFloat());
+                histogram.add(wig);
+            }
+        }
+
+        write(file, histogram);
+    }
+
+    private static int readHeader(ByteBuffer buffer, File file, long length) throws IOException {
+        int magic = buffer.getInt(0);
+        int version = buffer.getInt(Integer.BYTES);
+        int count = buffer.getInt(2 * Integer.BYTES);
+        if (magic != MAGIC || version != VERSION || count < 0
+                || length != HEADER_SIZE + (long) count * BYTES_PER_BLOCK) {
+            throw new IOException("Corrupted histogram file " + file.getAbsolutePath());
+        }
+
+        return count;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        return duplicate.slice();
+    }
+
+    private static int firstGreaterOrEqual(IntBuffer values, int count, int value) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values.get(mid) < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * <p>
+ * An immutable index of intervals of a single chromosome, that allows fast overlap queries. Intervals are kept in
+ * arrays, sorted by start, which are treated as an implicit binary search tree: a node at index {@code i} of level
+ * {@code k} has children at {@code i -/+ 2^(k-1)}. Each node holds the maximum end of its subtree, so subtrees,
+ * that can't overlap a query, are skipped. Compared to htsjdk {@code IntervalTree} the index needs no node objects
+ * and no rebalancing, and is safe to be queried from many threads.
+ * </p>
+ * <p>
+ * An index is created by a {@link Builder}. Builders aren't thread safe, parallel loaders should fill builders
+ * of their own and merge them with {@link Builder#addAll(Builder)}.
+ * </p>
+ * @param <T> a type of values, associated with intervals
+ */
+public final class IntervalIndex<T> {
+
+    private static final int STACK_SIZE = 64;
+    private static final int LINEAR_SCAN_LEVEL = 3;
+    private static final int INDEX_BITS = 32;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds;
+    private final Object[] values;
+    private final int rootLevel;
+    private final int maxEnd;
+
+    private IntervalIndex(int[] starts, int[] ends, Object[] values) {
+        this.starts = starts;
+        this.ends = ends;
+        this.values = values;
+        this.maxEnds = new int[starts.length];
+        this.rootLevel = buildMaxEnds();
+
+        int max = Integer.MIN_VALUE;
+        for (int end : ends) {
+            max = Math.max(max, end);
+        }
+        this.maxEnd = max;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Finds values of intervals, overlapping a specified one. Both query and indexed intervals are closed
+     *
+     * @param start a start of the query interval
+     * @param end an end of the query interval
+     * @return values of overlapping intervals, ordered by interval start
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> query(int start, int end) {
+        int n = starts.length;
+        if (n == 0) {
+            return Collections.emptyList();
+        }
+
+        List<T> result = new ArrayList<>();
+        int[] stackNodes = new int[STACK_SIZE];
+        int[] stackLevels = new int[STACK_SIZE];
+        boolean[] stackLeftDone = new boolean[STACK_SIZE];
+        int top = 0;
+
+        stackNodes[top] = (1 << rootLevel) - 1;
+        stackLevels[top] = rootLevel;
+        stackLeftDone[top++] = false;
+        while (top > 0) {
+            top--;
+            int node = stackNodes[top];
+            int level = stackLevels[top];
+
+            if (level <= LINEAR_SCAN_LEVEL) {
+                // a small subtree, scan it linearly
+                int from = node >> level << level;
+                int to = Math.min(from + (1 << (level + 1)) - 1, n);
+                for (int i = from; i < to && starts[i] <= end; i++) {
+                    if (ends[i] >= start) {
+                        result.add((T) values[i]);
+                    }
+                }
+            } else if (!stackLeftDone[top]) {
+                // re-add the node to process it after its left subtree
+                int left = node - (1 << (level - 1));
+                stackLeftDone[top++] = true;
+                // a left child may be out of range, while its subtree isn't
+                if (left >= n || maxEnds[left] >= start) {
+                    stackNodes[top] = left;
+                    stackLevels[top] = level - 1;
+                    stackLeftDone[top++] = false;
+                }
+            } else if (node < n && starts[node] <= end) {
+                if (ends[node] >= start) {
+                    result.add((T) values[node]);
+                }
+                stackNodes[top] = node + (1 << (level - 1));
+                stackLevels[top] = level - 1;
+                stackLeftDone[top++] = false;
+            }
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * @return the minimum start of indexed intervals, {@code Integer.MAX_VALUE} if the index is empty
+     */
+    public int getMinStart() {
+        return starts.length > 0 ? starts[0] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the maximum end of indexed intervals, {@code Integer.MIN_VALUE} if the index is empty
+     */
+    public int getMaxEnd() {
+        return maxEnd;
+    }
+
+    /**
+     * Fills maximum ends of the implicit tree bottom up
+     *
+     * @return a level of the tree root
+     */
+    private int buildMaxEnds() {
+        int n = starts.length;
+        if (n == 0) {
+            return 0;
+        }
+
+        int lastNode = 0;
+        int lastMax = 0;
+        for (int i = 0; i < n; i += 2) {
+            lastNode = i;
+            lastMax = ends[i];
+            maxEnds[i] = ends[i];
+        }
+
+        int level = 1;
+        for (; 1 << level <= n; level++) {
+            int half = 1 << (level - 1);
+            int step = half << 2;
+            for (int i = (half << 1) - 1; i < n; i += step) {
+                // a right child may be out of range, then the rightmost existing node stands for it
+                int rightMax = i + half < n ? maxEnds[i + half] : lastMax;
+                maxEnds[i] = Math.max(ends[i], Math.max(maxEnds[i - half], rightMax));
+            }
+
+            lastNode = ((lastNode >> level) & 1) != 0 ? lastNode - half : lastNode + half;
+            if (lastNode < n && maxEnds[lastNode] > lastMax) {
+                lastMax = maxEnds[lastNode];
+            }
+        }
+
+        return level - 1;
+    }
+
+    /**
+     * Collects intervals and creates an {@link IntervalIndex}
+     * @param <T> a type of values, associated with intervals
+     */
+    public static final class Builder<T> {
+
+        private final TIntArrayList starts = new TIntArrayList();
+        private final TIntArrayList ends = new TIntArrayList();
+        private final List<T> values = new ArrayList<>();
+
+        private Builder() {
+            // use IntervalIndex.builder()
+        }
+
+        /**
+         * Adds a closed interval
+         *
+         * @param start a start of an interval
+         * @param end an end of an interval
+         * @param value a value, associated with the interval
+         * @return this builder
+         */
+        public Builder<T> add(int start, int end, T value) {
+            starts.add(start);
+            ends.add(end);
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * Adds all intervals, collected by another builder
+         *
+         * @param other a builder to take intervals from
+         * @return this builder
+         */
+        public Builder<T> addAll(Builder<T> other) {
+            starts.addAll(other.starts);
+            ends.addAll(other.ends);
+            values.addAll(other.values);
+            return this;
+        }
+
+        public int size() {
+            return values.size();
+        }
+
+        /**
+         * @return an index of collected intervals, intervals with equal starts keep the order they were added in
+         */
+        public IntervalIndex<T> build() {
+            int n = values.size();
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = ((long) starts.get(i) << INDEX_BITS) | i;
+            }
+            Arrays.sort(keys);
+
+            int[] sortedStarts = new int[n];
+            int[] sortedEnds = new int[n];
+            Object[] sortedValues = new Object[n];
+            for (int i = 0; i < n; i++) {
+                int index = (int) (keys[i] & INDEX_MASK);
+                sortedStarts[i] = starts.get(index);
+                sortedEnds[i] = ends.get(index);
+                sortedValues[i] = values.get(index);
+            }
+
+            return new IntervalIndex<>(sortedStarts, sortedEnds, sortedValues);
+        }
+    }
+}
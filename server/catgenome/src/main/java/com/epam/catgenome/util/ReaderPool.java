@@ -0,0 +1,342 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Keeps readers of indexed files (BAM, VCF, BigWig, gene files) open between track requests, so that a file's header
+ * and index are parsed once and not on every request. A reader is not thread safe, so it is borrowed by a single
+ * request with {@link #acquire(String, ReaderOpener)} and is returned to the pool, when the {@link Handle} is closed.
+ * Several readers of the same file are opened for concurrent requests.
+ * </p>
+ * <p>
+ * The total number of pooled readers is bounded: when the limit is reached, the least recently used idle reader is
+ * closed, and if all readers are busy, a request gets a reader, that is closed right after use. Readers, that stay
+ * idle longer than a timeout or are open longer than a maximum lifetime, are closed on the next call to the pool.
+ * Readers of a file, that is modified or deleted, can be invalidated explicitly with {@link #invalidate(Predicate)}.
+ * </p>
+ */
+public class ReaderPool<R extends Closeable> implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReaderPool.class);
+
+    /**
+     * Opens a new reader for a pool key
+     */
+    @FunctionalInterface
+    public interface ReaderOpener<R> {
+        R open() throws IOException;
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final long maxLifetime;
+    private final Map<String, Deque<IdleReader<R>>> idleReaders = new HashMap<>();
+    private final Set<Handle> borrowedHandles = new HashSet<>();
+
+    private int openCount;
+    private boolean closed;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param name a name of pooled readers for logging, e.g. file format
+     * @param maxSize maximum number of readers to keep open
+     * @param idleTimeout time in milliseconds, after which an unused reader is closed
+     * @param maxLifetime time in milliseconds, after which a reader is closed even if it is used, e.g. because
+     *                    it reads a presigned URL, that expires
+     */
+    public ReaderPool(String name, int maxSize, long idleTimeout, long maxLifetime) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+    }
+
+    /**
+     * Borrows a reader for a file, opening a new one if there are no idle readers for it. The returned handle
+     * should be closed after use.
+     *
+     * @param key identifies a file and its index, readers with the same key are interchangeable
+     * @param opener a function to open a reader if there are no idle ones
+     * @return a {@code Handle} of a reader
+     * @throws IOException if a reader can't be opened
+     */
+    public Handle acquire(String key, ReaderOpener<R> opener) throws IOException {
+        List<R> evicted = new ArrayList<>();
+        Handle handle = null;
+        synchronized (this) {
+            evictExpired(System.currentTimeMillis(), evicted);
+
+            // a handle is registered as borrowed in the same lock, in which its reader is taken or reserved,
+            // so that a concurrent invalidation can't miss it
+            Deque<IdleReader<R>> readers = idleReaders.get(key);
+            if (readers != null) {
+                IdleReader<R> idleReader = readers.pollFirst(); // the most recently used one
+                if (readers.isEmpty()) {
+                    idleReaders.remove(key);
+                }
+                hitCount.incrementAndGet();
+                handle = new Handle(key, idleReader.reader, idleReader.created, true);
+                borrowedHandles.add(handle);
+            } else {
+                missCount.incrementAndGet();
+                if (openCount >= maxSize) {
+                    evictEldest(evicted);
+                }
+                if (!closed && openCount < maxSize) {
+                    openCount++;
+                    handle = new Handle(key, null, System.currentTimeMillis(), true);
+                    borrowedHandles.add(handle);
+                }
+            }
+        }
+
+        closeAll(evicted);
+        if (handle != null && handle.reader != null) {
+            return handle;
+        }
+
+        R reader = null;
+        try {
+            reader = opener.open();
+        } finally {
+            if (reader == null && handle != null) {
+                synchronized (this) {
+                    borrowedHandles.remove(handle);
+                    openCount--;
+                }
+            }
+        }
+        if (handle == null) {
+            return new Handle(key, reader, System.currentTimeMillis(), false);
+        }
+        handle.reader = reader;
+        return handle;
+    }
+
+    /**
+     * Closes idle readers, which keys match a predicate, readers, that are borrowed now, are closed instead of
+     * being returned to the pool. Should be called, when a file is reindexed or deleted.
+     *
+     * @param keyFilter selects keys of readers to close
+     * @return number of closed idle readers
+     */
+    public int invalidate(Predicate<String> keyFilter) {
+        List<R> invalidated = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Deque<IdleReader<R>>>> iterator = idleReaders.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Deque<IdleReader<R>>> entry = iterator.next();
+                if (keyFilter.test(entry.getKey())) {
+                    entry.getValue().forEach(idle -> invalidated.add(idle.reader));
+                    iterator.remove();
+                }
+            }
+            openCount -= invalidated.size();
+
+            borrowedHandles.stream()
+                .filter(handle -> keyFilter.test(handle.key))
+                .forEach(handle -> handle.invalidated = true);
+        }
+
+        closeAll(invalidated);
+        return invalidated.size();
+    }
+
+    @Override
+    public void close() {
+        List<R> readers = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            idleReaders.values().forEach(deque -> deque.forEach(idle -> readers.add(idle.reader)));
+            openCount -= readers.size();
+            idleReaders.clear();
+        }
+
+        closeAll(readers);
+    }
+
+    /**
+     * @return number of readers, that are open now, both idle and borrowed, excluding readers, that are closed
+     * right after use
+     */
+    public synchronized int size() {
+        return openCount;
+    }
+
+    public synchronized int idleSize() {
+        return idleReaders.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private void release(Handle handle) {
+        if (handle.pooled) {
+            synchronized (this) {
+                borrowedHandles.remove(handle);
+                if (!closed && !handle.invalidated) {
+                    idleReaders.computeIfAbsent(handle.key, k -> new ArrayDeque<>())
+                        .addFirst(new IdleReader<>(handle.reader, handle.created, System.currentTimeMillis()));
+                    return;
+                }
+                openCount--;
+            }
+        }
+
+        IOUtils.closeQuietly(handle.reader);
+    }
+
+    private void evictExpired(long now, List<R> evicted) {
+        Iterator<Deque<IdleReader<R>>> iterator = idleReaders.values().iterator();
+        while (iterator.hasNext()) {
+            Deque<IdleReader<R>> readers = iterator.next();
+            Iterator<IdleReader<R>> readersIterator = readers.iterator();
+            while (readersIterator.hasNext()) {
+                IdleReader<R> idle = readersIterator.next();
+                if (now - idle.lastUsed >= idleTimeout || now - idle.created >= maxLifetime) {
+                    readersIterator.remove();
+                    evict(idle, evicted);
+                }
+            }
+            if (readers.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void evictEldest(List<R> evicted) {
+        Map.Entry<String, Deque<IdleReader<R>>> eldest = null;
+        for (Map.Entry<String, Deque<IdleReader<R>>> entry : idleReaders.entrySet()) {
+            if (eldest == null || entry.getValue().peekLast().lastUsed < eldest.getValue().peekLast().lastUsed) {
+                eldest = entry;
+            }
+        }
+
+        if (eldest != null) {
+            evict(eldest.getValue().pollLast(), evicted);
+            if (eldest.getValue().isEmpty()) {
+                idleReaders.remove(eldest.getKey());
+            }
+            LOGGER.debug("{} reader for {} evicted from pool, hits: {}, misses: {}, evictions: {}",
+                         name, eldest.getKey(), hitCount.get(), missCount.get(), evictionCount.get());
+        }
+    }
+
+    private void evict(IdleReader<R> idle, List<R> evicted) {
+        evicted.add(idle.reader);
+        openCount--;
+        evictionCount.incrementAndGet();
+    }
+
+    private static void closeAll(List<? extends Closeable> readers) {
+        readers.forEach(IOUtils::closeQuietly);
+    }
+
+    /**
+     * A reader, borrowed from the pool. Closing the handle returns the reader to the pool, the reader itself
+     * shouldn't be closed. All iterators, opened by the reader, should be closed before the handle.
+     */
+    public final class Handle implements Closeable {
+        private final String key;
+        private R reader;
+        private final long created;
+        private final boolean pooled;
+        private boolean released;
+        private boolean invalidated;
+
+        private Handle(String key, R reader, long created, boolean pooled) {
+            this.key = key;
+            this.reader = reader;
+            this.created = created;
+            this.pooled = pooled;
+        }
+
+        public R getReader() {
+            return reader;
+        }
+
+        /**
+         * Marks the reader as broken, e.g. after a failed read, so that it is closed instead of being returned
+         * to the pool, when the handle is closed
+         */
+        public void invalidate() {
+            synchronized (ReaderPool.this) {
+                invalidated = true;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(this);
+            }
+        }
+    }
+
+    private static final class IdleReader<R> {
+        private R reader;
+        private final long created;
+        private final long lastUsed;
+
+        private IdleReader(R reader, long created, long lastUsed) {
+            this.reader = reader;
+            this.created = created;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
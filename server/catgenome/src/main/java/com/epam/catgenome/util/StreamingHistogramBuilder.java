@@ -0,0 +1,361 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.epam.catgenome.entity.reference.Chromosome;
+import com.epam.catgenome.entity.wig.Wig;
+
+/**
+ * <p>
+ * Builds histograms of a feature file for all chromosomes of a reference in a single sequential pass. Features are
+ * only counted: for each chromosome the builder keeps an array of histogram blocks, laid out the same way as
+ * {@link HistogramUtils#createIntervals(int, int)} does, and a feature increments all blocks, that it overlaps.
+ * </p>
+ * <p>
+ * Features may be passed one by one with {@link #add(String, int, int)}, e.g. during a registration, when they are
+ * parsed anyway, or the builder may scan a plain or gzipped text file with {@link #scan(File, LineFormat)}, parsing
+ * only chromosome and position columns of each line.
+ * </p>
+ */
+public class StreamingHistogramBuilder {
+
+    private static final char COLUMN_SEPARATOR = '\t';
+
+    /**
+     * Describes how to get a chromosome and a position of a feature from a line of a text feature file
+     */
+    public enum LineFormat {
+        /**
+         * GFF/GTF: 1-based start and end in the 4th and the 5th columns
+         */
+        GFF {
+            @Override
+            boolean parse(String line, int[] columnStarts, int[] position) {
+                return findColumns(line, columnStarts, GFF_END_COLUMN + 1)
+                        && parseColumns(line, columnStarts, GFF_START_COLUMN, GFF_END_COLUMN, 0, position);
+            }
+        },
+
+        /**
+         * BED: 0-based start and end in the 2nd and the 3rd columns
+         */
+        BED {
+            @Override
+            boolean isHeader(String line) {
+                return super.isHeader(line) || line.startsWith("track") || line.startsWith("browser");
+            }
+
+            @Override
+            boolean parse(String line, int[] columnStarts, int[] position) {
+                return findColumns(line, columnStarts, BED_END_COLUMN + 1)
+                        && parseColumns(line, columnStarts, BED_START_COLUMN, BED_END_COLUMN, 1, position);
+            }
+        },
+
+        /**
+         * VCF: 1-based position in the 2nd column, the end is defined by a length of the reference allele
+         */
+        VCF {
+            @Override
+            boolean parse(String line, int[] columnStarts, int[] position) {
+                if (!findColumns(line, columnStarts, VCF_REF_COLUMN + 1)) {
+                    return false;
+                }
+
+                int start = parseInt(line, columnStarts[VCF_POS_COLUMN], columnStarts[VCF_POS_COLUMN + 1] - 1);
+                int refLength = columnStarts[VCF_REF_COLUMN + 1] - 1 - columnStarts[VCF_REF_COLUMN];
+                if (start < 0 || refLength <= 0) {
+                    return false;
+                }
+
+                position[0] = start;
+                position[1] = start + refLength - 1;
+                return true;
+            }
+        };
+
+        private static final int GFF_START_COLUMN = 3;
+        private static final int GFF_END_COLUMN = 4;
+        private static final int BED_START_COLUMN = 1;
+        private static final int BED_END_COLUMN = 2;
+        private static final int VCF_POS_COLUMN = 1;
+        private static final int VCF_REF_COLUMN = 3;
+
+        boolean isHeader(String line) {
+            return line.isEmpty() || line.charAt(0) == '#';
+        }
+
+        /**
+         * Parses start and end of a feature, defined by a line
+         *
+         * @param line a line of a file
+         * @param columnStarts an array to store start offsets of columns to, the last element is set to the end of
+         *                     the last parsed column + 1
+         * @param position an array to store 1-based start and end of the feature
+         * @return false if the line doesn't define a feature
+         */
+        abstract boolean parse(String line, int[] columnStarts, int[] position);
+
+        /**
+         * @return a size of an array to store offsets of parsed columns
+         */
+        int getColumnsCount() {
+            return GFF_END_COLUMN + 2;
+        }
+    }
+
+    /**
+     * Receives a histogram, built for a chromosome
+     */
+    @FunctionalInterface
+    public interface HistogramWriter {
+        void write(Chromosome chromosome, List<Wig> histogram) throws IOException;
+    }
+
+    private final Map<String, Chromosome> chromosomeMap;
+    private final Map<String, Blocks> blocks = new LinkedHashMap<>();
+
+    private String lastContig;
+    private Blocks lastBlocks;
+    private long featuresCount;
+
+    /**
+     * @param chromosomeMap chromosomes of a reference, mapped by their names. Features on other chromosomes are
+     *                      ignored, chromosome names are matched with and without "chr" prefix
+     */
+    public StreamingHistogramBuilder(Map<String, Chromosome> chromosomeMap) {
+        this.chromosomeMap = chromosomeMap;
+    }
+
+    /**
+     * Counts a feature in the histogram of its chromosome
+     *
+     * @param contig a name of a chromosome of the feature, as it is specified in a file
+     * @param start 1-based start of the feature
+     * @param end 1-based end of the feature, inclusive
+     */
+    public void add(String contig, int start, int end) {
+        featuresCount++;
+        if (!contig.equals(lastContig)) {
+            lastContig = contig;
+            lastBlocks = getBlocks(contig);
+        }
+
+        if (lastBlocks != null) {
+            lastBlocks.add(start, end);
+        }
+    }
+
+    /**
+     * Reads a plain or gzipped (including bgzipped) text file line by line and counts features, defined by its lines
+     *
+     * @param file a file to scan
+     * @param format a format of the file
+     * @return this builder
+     * @throws IOException if reading of the file fails
+     */
+    public StreamingHistogramBuilder scan(File file, LineFormat format) throws IOException {
+        int[] columnStarts = new int[format.getColumnsCount()];
+        int[] position = new int[2];
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(IOHelper.openStream(file),
+                                                                              StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                if (!format.isHeader(line) && format.parse(line, columnStarts, position)) {
+                    addLineFeature(line, columnStarts[1] - 1, position[0], position[1]);
+                }
+                line = reader.readLine();
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * @return a number of counted features, including the ones on unknown chromosomes
+     */
+    public long getFeaturesCount() {
+        return featuresCount;
+    }
+
+    /**
+     * @return true if any feature was mapped to a chromosome of a reference
+     */
+    public boolean hasHistograms() {
+        return !blocks.isEmpty();
+    }
+
+    /**
+     * Returns a histogram of a chromosome
+     *
+     * @param chromosome a chromosome of a reference
+     * @return a {@code List} of non-empty {@code Wig} blocks, empty if there are no features on the chromosome
+     */
+    public List<Wig> getHistogram(Chromosome chromosome) {
+        Blocks chromosomeBlocks = blocks.get(chromosome.getName());
+        return chromosomeBlocks != null ? chromosomeBlocks.toHistogram() : Collections.emptyList();
+    }
+
+    /**
+     * Passes histograms of all chromosomes, that have features, to a writer
+     *
+     * @param writer a writer to pass histograms to
+     * @throws IOException if the writer fails
+     */
+    public void write(HistogramWriter writer) throws IOException {
+        for (Blocks chromosomeBlocks : blocks.values()) {
+            writer.write(chromosomeBlocks.chromosome, chromosomeBlocks.toHistogram());
+        }
+    }
+
+    private void addLineFeature(String line, int contigLength, int start, int end) {
+        // compare in place, not to make a string of a chromosome name for each line
+        if (lastContig != null && lastContig.length() == contigLength
+                && line.regionMatches(0, lastContig, 0, contigLength)) {
+            featuresCount++;
+            if (lastBlocks != null) {
+                lastBlocks.add(start, end);
+            }
+        } else {
+            add(line.substring(0, contigLength), start, end);
+        }
+    }
+
+    private Blocks getBlocks(String contig) {
+        Chromosome chromosome = Utils.getFromChromosomeMap(chromosomeMap, contig);
+        if (chromosome == null || chromosome.getSize() <= 0) {
+            return null;
+        }
+
+        return blocks.computeIfAbsent(chromosome.getName(), name -> new Blocks(chromosome));
+    }
+
+    private static boolean findColumns(String line, int[] columnStarts, int count) {
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            columnStarts[i] = offset;
+            int separator = line.indexOf(COLUMN_SEPARATOR, offset);
+            if (separator < 0) {
+                if (i != count - 1) {
+                    return false;
+                }
+                separator = line.length();
+            }
+            offset = separator + 1;
+        }
+
+        columnStarts[count] = offset;
+        return columnStarts[1] > 1;
+    }
+
+    private static boolean parseColumns(String line, int[] columnStarts, int startColumn, int endColumn,
+                                        int startShift, int[] position) {
+        int start = parseInt(line, columnStarts[startColumn], columnStarts[startColumn + 1] - 1);
+        int end = parseInt(line, columnStarts[endColumn], columnStarts[endColumn + 1] - 1);
+        if (start < 0 || end < 0) {
+            return false;
+        }
+
+        position[0] = start + startShift;
+        position[1] = Math.max(end, position[0]);
+        return true;
+    }
+
+    /**
+     * Parses a non-negative integer from a part of a string without creating a substring
+     *
+     * @return parsed value, or -1 if the part is not a non-negative integer
+     */
+    private static int parseInt(String line, int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Counters of features in histogram blocks of a chromosome. A feature is added to the first block it overlaps
+     * and subtracted from the block after the last one, the counts are summed up, when the histogram is requested.
+     */
+    private static final class Blocks {
+        private final Chromosome chromosome;
+        private final List<Pair<Integer, Integer>> intervals;
+        private final int intervalLength;
+        private final int[] deltas;
+
+        private Blocks(Chromosome chromosome) {
+            this.chromosome = chromosome;
+            this.intervals = HistogramUtils.createIntervals(0, chromosome.getSize());
+            this.intervalLength = Math.max(1, chromosome.getSize() / intervals.size());
+            this.deltas = new int[intervals.size() + 1];
+        }
+
+        private void add(int start, int end) {
+            deltas[toBlock(start)]++;
+            deltas[toBlock(end) + 1]--;
+        }
+
+        private int toBlock(int position) {
+            return Math.min(Math.max(position, 0) / intervalLength, intervals.size() - 1);
+        }
+
+        private List<Wig> toHistogram() {
+            List<Wig> histogram = new ArrayList<>();
+            int count = 0;
+            for (int i = 0; i < intervals.size(); i++) {
+                count += deltas[i];
+                HistogramUtils.addToHistogramPortion(histogram, count, intervals.get(i));
+            }
+            return histogram;
+        }
+    }
+}
@@ -247,6 +247,7 @@ public final class Utils {
             chromosomeName, final int start, final int end) throws IOException {
         CloseableIterator<T> iterator = featureReader.query(chromosomeName, start, end);
         if (!iterator.hasNext()) {
+            iterator.close();
             iterator = featureReader.query(Utils.changeChromosomeName(chromosomeName), start, end);
         }
 
@@ -267,6 +268,7 @@ public final class Utils {
                      featureReader, final String chromosomeName, final int start, final int end) throws IOException {
         CloseableIterator<T> iterator = featureReader.query(chromosomeName, start, end);
         if (!iterator.hasNext()) {
+            iterator.close();
             iterator = featureReader.query(Utils.changeChromosomeName(chromosomeName), start, end);
         }
 
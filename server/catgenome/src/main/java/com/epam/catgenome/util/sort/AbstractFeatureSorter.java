@@ -26,20 +26,46 @@ package com.epam.catgenome.util.sort;
 
 import com.epam.catgenome.util.NgbFileUtils;
 import htsjdk.samtools.util.BlockCompressedInputStream;
-import htsjdk.samtools.util.BlockCompressedOutputStream;
-import htsjdk.samtools.util.CloseableIterator;
-import htsjdk.samtools.util.SortingCollection;
+import htsjdk.tribble.index.tabix.TabixFormat;
 import htsjdk.tribble.readers.AsciiLineReader;
+import org.apache.commons.io.FileUtils;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * <p>
+ * Sorts feature files by chromosome and start with a parallel external merge sort. Data lines are read in chunks,
+ * that fit in the memory budget, each chunk is parsed and sorted by a separate thread into a binary run file, holding
+ * sort keys and raw lines. Runs are merged with a k-way merge directly into the output file, if there are too many
+ * runs to merge at once, they are merged in several passes. Compressed output is written as BGZF and is indexed
+ * with tabix on the fly.
+ * </p>
+ */
 public abstract class AbstractFeatureSorter {
 
-    private static final int ESTIMATED_RECORD_SIZE = 150;
-    private static final String UTF_8 = "UTF-8";
+    /**
+     * Estimated memory, taken by a parsed record in addition to characters of its line
+     */
+    private static final int ESTIMATED_RECORD_OVERHEAD = 150;
+    private static final long BYTES_IN_MEGABYTE = 1024 * 1024;
+    private static final long MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_MERGE_WIDTH = 128;
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BUFFER_SIZE = 8 * 1024 * 1024;
+    private static final int RUN_WRITE_BUFFER_SIZE = 256 * 1024;
+    private static final String RUN_FILE_PREFIX = "sort-run";
+    private static final String RUN_FILE_SUFFIX = ".tmp";
 
     private File inputFile;
     private File outputFile;
@@ -63,44 +89,78 @@ public abstract class AbstractFeatureSorter {
     }
 
     /**
+     * Sorts the file using all available processors
+     *
      * @param maxMemory - in megabytes
      * @throws IOException
      *
      */
     public void run(int maxMemory) throws IOException {
+        run(maxMemory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sorts the file. Memory budget is shared between the chunk, that is being read, and the chunks, that are being
+     * sorted, so the number of threads is reduced if the budget is too small to give each thread a chunk
+     * of reasonable size.
+     *
+     * @param maxMemory - in megabytes
+     * @param threads - maximum number of threads to parse and sort chunks
+     * @throws IOException
+     */
+    public void run(int maxMemory, int threads) throws IOException {
+        long memory = Math.max(1, maxMemory) * BYTES_IN_MEGABYTE;
+        int sortThreads = (int) Math.max(1, Math.min(threads, memory / MIN_CHUNK_SIZE - 1));
+        long chunkSize = memory / (sortThreads + 1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(sortThreads);
+        List<File> runs = new ArrayList<>();
         try (
-                PrintWriter writer = NgbFileUtils.isGzCompressed(outputFile.getName()) ?
-                        new PrintWriter(new OutputStreamWriter(new BlockCompressedOutputStream(outputFile), UTF_8)) :
-                        new PrintWriter(outputFile, UTF_8);
+                SortedFileWriter writer = new SortedFileWriter(outputFile, getTabixFormat());
                 AsciiLineReader reader = NgbFileUtils.isGzCompressed(inputFile.getName()) ?
                         new AsciiLineReader(new BlockCompressedInputStream(inputFile)) :
                         new AsciiLineReader(new FileInputStream(inputFile))
         ) {
-
-            SortableRecordCodec codec = new SortableRecordCodec();
-
-            SortingCollection cltn = SortingCollection.newInstance(
-                    SortableRecord.class, codec, comparator, maxMemory * 1024 * 1024 / ESTIMATED_RECORD_SIZE, tmpDir);
-
             Parser parser = getParser();
+            Semaphore chunkPermits = new Semaphore(sortThreads);
+            List<Future<File>> futures = new ArrayList<>();
 
-            String firstDataRow = writeHeader(reader, writer);
-            if (firstDataRow != null && !firstDataRow.isEmpty()) {
-                cltn.add(parser.createRecord(firstDataRow));
-            }
+            List<String> chunk = new ArrayList<>();
+            long chunkBytes = 0;
+            String line = writeHeader(reader, writer.getHeaderWriter());
+            while (line != null) {
+                if (parser.isRecord(line)) {
+                    chunk.add(line);
+                    chunkBytes += 2L * line.length() + ESTIMATED_RECORD_OVERHEAD;
+                }
 
-            SortableRecord next;
-            while ((next = parser.readNextRecord(reader)) != null) {
-                cltn.add(next);
+                if (chunkBytes >= chunkSize) {
+                    futures.add(submitRun(chunk, parser, runs, executor, chunkPermits));
+                    chunk = new ArrayList<>();
+                    chunkBytes = 0;
+                }
+                line = reader.readLine();
             }
 
-            CloseableIterator<SortableRecord> iter = cltn.iterator();
-            while (iter.hasNext()) {
-                SortableRecord al = iter.next();
-                writer.println(al.getText());
+            if (futures.isEmpty()) {
+                // the whole file fits in memory, no runs are required
+                for (SortableRecord record : sortChunk(chunk, parser)) {
+                    writer.add(record, record.getText().getBytes(StandardCharsets.UTF_8));
+                }
+                return;
+            }
 
+            if (!chunk.isEmpty()) {
+                futures.add(submitRun(chunk, parser, runs, executor, chunkPermits));
+            }
+            for (Future<File> future : futures) {
+                await(future);
             }
-            iter.close();
+
+            mergeRuns(new ArrayList<>(runs), runs, executor, memory, writer);
+        } finally {
+            executor.shutdownNow();
+            runs.forEach(FileUtils::deleteQuietly);
         }
     }
 
@@ -117,6 +177,11 @@ public abstract class AbstractFeatureSorter {
 
     abstract Parser getParser() throws IOException;
 
+    /**
+     * @return a tabix format of sorted file, used to index compressed output
+     */
+    abstract TabixFormat getTabixFormat();
+
     /**
      * Write the header to the output file. Since many readers can't help but read
      * one feature line, that line should be returned and will then be treated as a record
@@ -128,6 +193,90 @@ public abstract class AbstractFeatureSorter {
      */
     abstract String writeHeader(AsciiLineReader reader, PrintWriter writer) throws IOException;
 
+    private Future<File> submitRun(List<String> chunk, Parser parser, List<File> runs, ExecutorService executor,
+                                   Semaphore chunkPermits) throws IOException {
+        File run = File.createTempFile(RUN_FILE_PREFIX, RUN_FILE_SUFFIX, tmpDir);
+        runs.add(run);
+
+        try {
+            chunkPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+
+        return executor.submit(() -> {
+            try (RunFile.Writer runWriter = new RunFile.Writer(run, RUN_WRITE_BUFFER_SIZE)) {
+                for (SortableRecord record : sortChunk(chunk, parser)) {
+                    runWriter.add(record, record.getText().getBytes(StandardCharsets.UTF_8));
+                }
+            } finally {
+                chunkPermits.release();
+            }
+            return run;
+        });
+    }
+
+    private List<SortableRecord> sortChunk(List<String> chunk, Parser parser) {
+        List<SortableRecord> records = new ArrayList<>(chunk.size());
+        for (String line : chunk) {
+            records.add(parser.createRecord(line));
+        }
+
+        records.sort(comparator);
+        return records;
+    }
+
+    /**
+     * Merges runs into the output. If there are more than {@code MAX_MERGE_WIDTH} runs, groups of adjacent runs
+     * are merged in parallel into larger runs first, adjacent groups keep the merge stable.
+     */
+    private void mergeRuns(List<File> level, List<File> runs, ExecutorService executor, long memory,
+                           RunFile.RecordSink output) throws IOException {
+        List<File> current = level;
+        while (current.size() > MAX_MERGE_WIDTH) {
+            int bufferSize = getBufferSize(memory / current.size());
+            List<File> next = new ArrayList<>();
+            List<Future<File>> futures = new ArrayList<>();
+            for (int i = 0; i < current.size(); i += MAX_MERGE_WIDTH) {
+                List<File> group = current.subList(i, Math.min(i + MAX_MERGE_WIDTH, current.size()));
+                File merged = File.createTempFile(RUN_FILE_PREFIX, RUN_FILE_SUFFIX, tmpDir);
+                runs.add(merged);
+                next.add(merged);
+
+                futures.add(executor.submit(() -> {
+                    try (RunFile.Writer runWriter = new RunFile.Writer(merged, bufferSize)) {
+                        RunMerger.merge(group, comparator, runWriter, bufferSize);
+                    }
+                    return merged;
+                }));
+            }
+
+            for (Future<File> future : futures) {
+                await(future);
+            }
+            current.forEach(FileUtils::deleteQuietly);
+            current = next;
+        }
+
+        RunMerger.merge(current, comparator, output, getBufferSize(memory / current.size()));
+    }
+
+    private static int getBufferSize(long available) {
+        return (int) Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, available));
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
     static boolean isEmptyLine(String line) {
         for (char c : line.toCharArray()) {
             if (!Character.isWhitespace(c)) {
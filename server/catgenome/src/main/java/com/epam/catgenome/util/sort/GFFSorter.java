@@ -25,6 +25,7 @@
 package com.epam.catgenome.util.sort;
 
 import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.index.tabix.TabixFormat;
 import htsjdk.tribble.readers.AsciiLineReader;
 
 import java.io.File;
@@ -34,6 +35,7 @@ import java.io.PrintWriter;
 public class GFFSorter extends AbstractFeatureSorter {
     private static final int CHR_COL = 0;
     private static final int START_COL = 3;
+    private static final int END_COL = 4;
 
 
     public GFFSorter(File inputFile, File outputFile, File tmpDir) {
@@ -42,7 +44,12 @@ public class GFFSorter extends AbstractFeatureSorter {
 
     @Override
     Parser getParser() {
-        return new Parser(CHR_COL, START_COL);
+        return new Parser(CHR_COL, START_COL, END_COL);
+    }
+
+    @Override
+    TabixFormat getTabixFormat() {
+        return TabixFormat.GFF;
     }
 
     @Override
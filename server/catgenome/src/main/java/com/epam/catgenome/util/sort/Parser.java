@@ -29,24 +29,36 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.regex.Pattern;
 
 import static com.epam.catgenome.util.sort.AbstractFeatureSorter.isEmptyLine;
 
 
 public class Parser {
 
-    private static final Pattern TAB_PATTERN = Pattern.compile("\t");
+    private static final char TAB = '\t';
 
     private int chrCol;
     private int startCol;
+    private int endCol;
+    private int lastCol;
     private String commentPrefix;
 
-    private static final Logger LOG = LoggerFactory.getLogger(SortableRecordCodec.class);
+    private static final Logger LOG = LoggerFactory.getLogger(Parser.class);
 
     public Parser(int chrCol, int startCol) {
+        this(chrCol, startCol, -1);
+    }
+
+    /**
+     * @param chrCol a column of chromosome name
+     * @param startCol a column of feature start
+     * @param endCol a column, that defines feature end, -1 if records don't have it
+     */
+    public Parser(int chrCol, int startCol, int endCol) {
         this.chrCol = chrCol;
         this.startCol = startCol;
+        this.endCol = endCol;
+        this.lastCol = Math.max(Math.max(chrCol, startCol), endCol);
         this.commentPrefix = "#";
     }
 
@@ -60,7 +72,7 @@ public class Parser {
         }
         if (nextLine == null) {
             return null;
-        } else if (isEmptyLine(nextLine) || nextLine.startsWith(commentPrefix)) {
+        } else if (!isRecord(nextLine)) {
             return readNextRecord(reader);
         }
 
@@ -72,18 +84,66 @@ public class Parser {
         }
     }
 
+    /**
+     * @param line a line of a feature file
+     * @return false for empty and comment lines, that are skipped during sorting
+     */
+    public boolean isRecord(String line) {
+        return !isEmptyLine(line) && !line.startsWith(commentPrefix);
+    }
+
+    /**
+     * Creates a record from a line, only the columns up to the last key column are split out of the line
+     */
     public SortableRecord createRecord(String nextLine) {
-        String[] fields = TAB_PATTERN.split(nextLine, -1);
+        String chr = null;
+        String startField = null;
+        String endField = null;
+
+        int from = 0;
+        for (int col = 0; col <= lastCol && from <= nextLine.length(); col++) {
+            int to = nextLine.indexOf(TAB, from);
+            if (to < 0) {
+                to = nextLine.length();
+            }
+
+            if (col == chrCol) {
+                chr = nextLine.substring(from, to);
+            }
+            if (col == startCol) {
+                startField = nextLine.substring(from, to);
+            }
+            if (col == endCol) {
+                endField = nextLine.substring(from, to);
+            }
+            from = to + 1;
+        }
 
-        String chr = fields[chrCol];
+        if (chr == null || startField == null) {
+            throw new ArrayIndexOutOfBoundsException(Math.max(chrCol, startCol));
+        }
 
-        int start;
+        int start = parseInt(startField, Integer.MAX_VALUE);
+        int end = endField != null ? parseEnd(endField, start) : start;
+        return new SortableRecord(chr, start, Math.max(start, end), nextLine);
+    }
+
+    /**
+     * Defines feature end from the value of end column, by default the column holds the end coordinate
+     *
+     * @param value a value of end column
+     * @param start feature start
+     * @return feature end
+     */
+    protected int parseEnd(String value, int start) {
+        return parseInt(value, start);
+    }
+
+    private static int parseInt(String value, int defaultValue) {
         try {
-            start = Integer.parseInt(fields[startCol].trim());
+            return Integer.parseInt(value.trim());
         } catch (NumberFormatException e) {
-            start = Integer.MAX_VALUE;
+            return defaultValue;
         }
-
-        return new SortableRecord(chr, start, nextLine);
     }
 }
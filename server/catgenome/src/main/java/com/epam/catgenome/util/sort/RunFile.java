@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util.sort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * <p>
+ * A binary file, that holds a sorted run of records during external sorting. Each record is stored as its sort key:
+ * chromosome, start and end, followed by the raw bytes of the original line. Records of a run are sorted, so the
+ * chromosome name is written only when it changes. Lines are kept as bytes and are never decoded back to strings
+ * until they are written to the sorted file.
+ * </p>
+ */
+final class RunFile {
+
+    private static final int SAME_CHROMOSOME = 0;
+    private static final int NEW_CHROMOSOME = 1;
+
+    private RunFile() {
+        // no operations by default
+    }
+
+    /**
+     * Receives sorted records together with the bytes of their lines
+     */
+    @FunctionalInterface
+    interface RecordSink {
+        void add(SortableRecord key, byte[] text) throws IOException;
+    }
+
+    /**
+     * Writes a sorted run of records to a file
+     */
+    static final class Writer implements RecordSink, Closeable {
+
+        private final DataOutputStream outputStream;
+        private String lastChromosome;
+
+        Writer(File file, int bufferSize) throws IOException {
+            this.outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), bufferSize));
+        }
+
+        @Override
+        public void add(SortableRecord key, byte[] text) throws IOException {
+            if (key.getChromosome().equals(lastChromosome)) {
+                outputStream.writeByte(SAME_CHROMOSOME);
+            } else {
+                outputStream.writeByte(NEW_CHROMOSOME);
+                outputStream.writeUTF(key.getChromosome());
+                lastChromosome = key.getChromosome();
+            }
+
+            outputStream.writeInt(key.getStart());
+            outputStream.writeInt(key.getEnd());
+            outputStream.writeInt(text.length);
+            outputStream.write(text);
+        }
+
+        @Override
+        public void close() throws IOException {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Reads records of a run one by one, a key of the current record has an empty text, the line is available
+     * as bytes through {@link #getText()}
+     */
+    static final class Reader implements Closeable {
+
+        private final DataInputStream inputStream;
+        private String chromosome;
+        private SortableRecord key;
+        private byte[] text;
+
+        Reader(File file, int bufferSize) throws IOException {
+            this.inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), bufferSize));
+        }
+
+        /**
+         * Moves to the next record of the run
+         *
+         * @return false if the run is exhausted
+         * @throws IOException if the run file is corrupted
+         */
+        boolean next() throws IOException {
+            int flag = inputStream.read();
+            if (flag < 0) {
+                key = null;
+                text = null;
+                return false;
+            }
+
+            if (flag == NEW_CHROMOSOME) {
+                chromosome = inputStream.readUTF();
+            }
+
+            int start = inputStream.readInt();
+            int end = inputStream.readInt();
+            text = new byte[inputStream.readInt()];
+            inputStream.readFully(text);
+            key = new SortableRecord(chromosome, start, end, null);
+            return true;
+        }
+
+        SortableRecord getKey() {
+            return key;
+        }
+
+        byte[] getText() {
+            return text;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util.sort;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>
+ * Merges sorted runs into a single sorted sequence of records with a k-way merge. Records with equal keys are
+ * emitted in the order of runs, so the merge is stable if runs are passed in the order they were produced.
+ * </p>
+ */
+final class RunMerger {
+
+    private RunMerger() {
+        // no operations by default
+    }
+
+    /**
+     * @param runs sorted run files
+     * @param comparator a comparator, that was used to sort runs
+     * @param sink receives merged records
+     * @param bufferSize a size of read buffer for each run
+     * @throws IOException if run files can't be read
+     */
+    static void merge(List<File> runs, Comparator<SortableRecord> comparator, RunFile.RecordSink sink,
+                      int bufferSize) throws IOException {
+        List<RunFile.Reader> readers = new ArrayList<>(runs.size());
+        try {
+            PriorityQueue<IndexedReader> queue = new PriorityQueue<>(Math.max(1, runs.size()), (r1, r2) -> {
+                int keyComp = comparator.compare(r1.reader.getKey(), r2.reader.getKey());
+                return keyComp != 0 ? keyComp : Integer.compare(r1.index, r2.index);
+            });
+
+            for (File run : runs) {
+                RunFile.Reader reader = new RunFile.Reader(run, bufferSize);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(new IndexedReader(reader, readers.size() - 1));
+                }
+            }
+
+            while (!queue.isEmpty()) {
+                IndexedReader head = queue.poll();
+                sink.add(head.reader.getKey(), head.reader.getText());
+                if (head.reader.next()) {
+                    queue.add(head);
+                }
+            }
+        } finally {
+            readers.forEach(IOUtils::closeQuietly);
+        }
+    }
+
+    private static final class IndexedReader {
+        private final RunFile.Reader reader;
+        private final int index;
+
+        private IndexedReader(RunFile.Reader reader, int index) {
+            this.reader = reader;
+            this.index = index;
+        }
+    }
+}
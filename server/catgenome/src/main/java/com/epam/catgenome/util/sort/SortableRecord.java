@@ -28,11 +28,17 @@ package com.epam.catgenome.util.sort;
 public class SortableRecord {
     private String chromosome;
     private int start;
+    private int end;
     private String text;
 
     public SortableRecord(String chromosome, int start, String text) {
+        this(chromosome, start, start, text);
+    }
+
+    public SortableRecord(String chromosome, int start, int end, String text) {
         this.chromosome = chromosome;
         this.start = start;
+        this.end = end;
         this.text = text;
     }
 
@@ -44,6 +50,10 @@ public class SortableRecord {
         return start;
     }
 
+    public int getEnd() {
+        return end;
+    }
+
     public String getText() {
         return text;
     }
@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util.sort;
+
+import com.epam.catgenome.util.NgbFileUtils;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.util.LittleEndianOutputStream;
+import htsjdk.tribble.util.TabixUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Writes a header and sorted records to the output file of a sorter. A file with .gz extension is written as BGZF,
+ * in this case a tabix index is built on the fly from the keys of the written records and is saved next to the file
+ * with .tbi extension. Indexing is skipped if some records have no valid start, such files can't be indexed.
+ * </p>
+ */
+class SortedFileWriter implements RunFile.RecordSink, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SortedFileWriter.class);
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final File outputFile;
+    private final OutputStream outputStream;
+    private final BlockCompressedOutputStream compressedStream;
+    private final PrintWriter headerWriter;
+    private final int startOffset;
+    private TabixIndexCreator indexCreator;
+
+    /**
+     * @param outputFile a file to write
+     * @param format a tabix format of the file, if null an index isn't created
+     * @throws IOException if the file can't be created
+     */
+    SortedFileWriter(File outputFile, TabixFormat format) throws IOException {
+        this.outputFile = outputFile;
+        if (NgbFileUtils.isGzCompressed(outputFile.getName())) {
+            compressedStream = new BlockCompressedOutputStream(outputFile);
+            outputStream = compressedStream;
+            indexCreator = format != null ? new TabixIndexCreator(format) : null;
+        } else {
+            compressedStream = null;
+            outputStream = new BufferedOutputStream(new FileOutputStream(outputFile), BUFFER_SIZE);
+        }
+
+        // tabix index holds 1-based coordinates, while records of zero-based formats keep original starts
+        startOffset = format != null && (format.flags & TabixFormat.ZERO_BASED) != 0 ? 1 : 0;
+        headerWriter = new PrintWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return a writer for header lines, header should be written before the first record is added
+     */
+    PrintWriter getHeaderWriter() {
+        return headerWriter;
+    }
+
+    @Override
+    public void add(SortableRecord key, byte[] text) throws IOException {
+        headerWriter.flush();
+
+        if (indexCreator != null) {
+            if (key.getStart() == Integer.MAX_VALUE) {
+                LOG.warn("Record without valid start found, index won't be created for {}", outputFile.getName());
+                indexCreator = null;
+            } else {
+                indexCreator.addFeature(new SimpleFeature(key.getChromosome(), key.getStart() + startOffset,
+                        key.getEnd()), compressedStream.getFilePointer());
+            }
+        }
+
+        outputStream.write(text);
+        outputStream.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void close() throws IOException {
+        headerWriter.flush();
+
+        Index index = indexCreator != null ? indexCreator.finalizeIndex(compressedStream.getFilePointer()) : null;
+        outputStream.close();
+
+        if (index != null) {
+            File indexFile = new File(outputFile.getPath() + TabixUtils.STANDARD_INDEX_EXTENSION);
+            try (LittleEndianOutputStream indexStream = new LittleEndianOutputStream(
+                    new BlockCompressedOutputStream(indexFile))) {
+                index.write(indexStream);
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@
 
 package com.epam.catgenome.util.sort;
 
+import htsjdk.tribble.index.tabix.TabixFormat;
 import htsjdk.tribble.readers.AsciiLineReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,13 +38,22 @@ public class VCFSorter extends AbstractFeatureSorter {
 
     private static final Logger LOG = LoggerFactory.getLogger(VCFSorter.class);
 
+    private static final int CHR_COL = 0;
+    private static final int POS_COL = 1;
+    private static final int REF_COL = 3;
+
     public VCFSorter(File inputFile, File outputFile, File tmpDir) {
         super(inputFile, outputFile, tmpDir);
     }
 
     @Override
     Parser getParser() {
-        return new Parser(0, 1);
+        return new VariantParser();
+    }
+
+    @Override
+    TabixFormat getTabixFormat() {
+        return TabixFormat.VCF;
     }
 
     @Override
@@ -63,4 +73,19 @@ public class VCFSorter extends AbstractFeatureSorter {
 
 
     }
+
+    /**
+     * Variant end is defined by the length of reference allele
+     */
+    private static final class VariantParser extends Parser {
+
+        private VariantParser() {
+            super(CHR_COL, POS_COL, REF_COL);
+        }
+
+        @Override
+        protected int parseEnd(String value, int start) {
+            return start + value.trim().length() - 1;
+        }
+    }
 }
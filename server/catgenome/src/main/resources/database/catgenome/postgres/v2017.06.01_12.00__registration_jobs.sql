@@ -0,0 +1,19 @@
+-- creates a sequence used to generate primary key values for "registration_job" table
+CREATE SEQUENCE CATGENOME.S_REGISTRATION_JOB START WITH 1 INCREMENT BY 1;
+
+-- creates "registration_job" table, used to track files and references, registered asynchronously
+CREATE TABLE IF NOT EXISTS CATGENOME.REGISTRATION_JOB (
+  REGISTRATION_JOB_ID   BIGINT          NOT NULL PRIMARY KEY,
+  FORMAT                BIGINT          NOT NULL,
+  PATH                  VARCHAR(500)    NOT NULL,
+  STATUS                VARCHAR(16)     NOT NULL,
+  BIO_DATA_ITEM_ID      BIGINT,
+  ERROR_MESSAGE         VARCHAR(4000),
+  RECORDS_PARSED        BIGINT          NOT NULL DEFAULT 0,
+  CHROMOSOMES_INDEXED   BIGINT          NOT NULL DEFAULT 0,
+  CREATED_BY            BIGINT          NOT NULL,
+  CREATED_DATE          TIMESTAMP       NOT NULL,
+  STARTED_DATE          TIMESTAMP,
+  FINISHED_DATE         TIMESTAMP
+);
+CREATE INDEX registration_job_status_idx ON CATGENOME.REGISTRATION_JOB(STATUS);
@@ -58,7 +58,17 @@ public final class UrlTestingUtils {
 
     public static Server getFileServer(ApplicationContext context) {
         Resource resource = context.getResource("classpath:templates");
+        try {
+            return getFileServer(resource.getFile());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
+    /**
+     * Creates a server, that serves files of a directory, supporting range requests
+     */
+    public static Server getFileServer(File directory) {
         Server server = new Server(UrlTestingUtils.TEST_FILE_SERVER_PORT);
         server.setHandler(new AbstractHandler() {
                 @Override
@@ -66,7 +76,7 @@ public final class UrlTestingUtils {
                                    HttpServletResponse response) throws IOException, ServletException {
                 String uri = baseRequest.getRequestURI();
                 LOGGER.info(uri);
-                File file = new File(resource.getFile().getAbsolutePath() + uri);
+                File file = new File(directory.getAbsolutePath() + uri);
                 MultipartFileSender fileSender = MultipartFileSender.fromFile(file);
                 try {
                     fileSender.with(request).with(response).serveResource();
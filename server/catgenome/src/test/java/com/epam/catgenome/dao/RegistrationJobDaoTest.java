@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.epam.catgenome.dao.job.RegistrationJobDao;
+import com.epam.catgenome.entity.BiologicalDataItemFormat;
+import com.epam.catgenome.entity.job.RegistrationJob;
+import com.epam.catgenome.entity.job.RegistrationJobStatus;
+import com.epam.catgenome.util.AuthUtils;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration({"classpath:applicationContext-test.xml"})
+public class RegistrationJobDaoTest extends AbstractDaoTest {
+
+    private static final String VCF_PATH = "/data/sample.vcf";
+    private static final String BED_PATH = "/data/sample.bed";
+    private static final long RECORDS_PARSED = 1500L;
+    private static final long CHROMOSOMES_INDEXED = 24L;
+    private static final String ERROR_MESSAGE = "Server restart";
+
+    @Autowired
+    private RegistrationJobDao registrationJobDao;
+
+    @Override
+    public void setup() throws Exception {
+        assertNotNull("RegistrationJobDao isn't provided.", registrationJobDao);
+        super.setup();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testSaveLoadUpdate() {
+        RegistrationJob job = createJob(BiologicalDataItemFormat.VCF, VCF_PATH);
+        assertNotNull(job.getId());
+
+        RegistrationJob loaded = registrationJobDao.loadRegistrationJobs(Collections.singletonList(job.getId()))
+            .get(0);
+        assertEquals(BiologicalDataItemFormat.VCF, loaded.getFormat());
+        assertEquals(VCF_PATH, loaded.getPath());
+        assertEquals(RegistrationJobStatus.QUEUED, loaded.getStatus());
+        assertNull(loaded.getBioDataItemId());
+        assertNull(loaded.getStartedDate());
+
+        job.setStatus(RegistrationJobStatus.COMPLETED);
+        job.setBioDataItemId(reference.getBioDataItemId());
+        job.setRecordsParsed(RECORDS_PARSED);
+        job.setChromosomesIndexed(CHROMOSOMES_INDEXED);
+        job.setStartedDate(new Date());
+        job.setFinishedDate(new Date());
+        registrationJobDao.updateRegistrationJob(job);
+
+        loaded = registrationJobDao.loadRegistrationJobs(Collections.singletonList(job.getId())).get(0);
+        assertEquals(RegistrationJobStatus.COMPLETED, loaded.getStatus());
+        assertEquals(reference.getBioDataItemId(), loaded.getBioDataItemId());
+        assertEquals(RECORDS_PARSED, loaded.getRecordsParsed());
+        assertEquals(CHROMOSOMES_INDEXED, loaded.getChromosomesIndexed());
+        assertNotNull(loaded.getStartedDate());
+        assertNotNull(loaded.getFinishedDate());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testFailUnfinished() {
+        RegistrationJob queued = createJob(BiologicalDataItemFormat.VCF, VCF_PATH);
+        RegistrationJob completed = createJob(BiologicalDataItemFormat.BED, BED_PATH);
+        completed.setStatus(RegistrationJobStatus.COMPLETED);
+        registrationJobDao.updateRegistrationJob(completed);
+
+        assertTrue(registrationJobDao.failUnfinishedRegistrationJobs(ERROR_MESSAGE) >= 1);
+
+        List<RegistrationJob> loaded = registrationJobDao.loadRegistrationJobs(
+                Arrays.asList(completed.getId(), queued.getId()));
+        assertEquals(2, loaded.size());
+        assertEquals(queued.getId(), loaded.get(0).getId());
+        assertEquals(RegistrationJobStatus.FAILED, loaded.get(0).getStatus());
+        assertEquals(ERROR_MESSAGE, loaded.get(0).getErrorMessage());
+        assertNotNull(loaded.get(0).getFinishedDate());
+        assertEquals(RegistrationJobStatus.COMPLETED, loaded.get(1).getStatus());
+    }
+
+    private RegistrationJob createJob(BiologicalDataItemFormat format, String path) {
+        RegistrationJob job = new RegistrationJob();
+        job.setFormat(format);
+        job.setPath(path);
+        job.setStatus(RegistrationJobStatus.QUEUED);
+        job.setCreatedBy(AuthUtils.getCurrentUserId());
+        job.setCreatedDate(new Date());
+        registrationJobDao.createRegistrationJob(job);
+        return job;
+    }
+}
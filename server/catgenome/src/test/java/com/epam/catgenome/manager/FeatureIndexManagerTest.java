@@ -25,6 +25,7 @@
 package com.epam.catgenome.manager;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,6 +36,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
@@ -43,7 +48,14 @@ import com.epam.catgenome.manager.bed.BedManager;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.FSDirectory;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -62,8 +74,11 @@ import org.springframework.transaction.annotation.Transactional;
 import com.epam.catgenome.common.AbstractManagerTest;
 import com.epam.catgenome.controller.vo.registration.FeatureIndexedFileRegistrationRequest;
 import com.epam.catgenome.dao.index.FeatureIndexDao;
+import com.epam.catgenome.dao.index.FeatureIndexReaderCache;
+import com.epam.catgenome.dao.index.IndexDirectoryType;
 import com.epam.catgenome.dao.index.field.IndexSortField;
 import com.epam.catgenome.entity.BiologicalDataItem;
+import com.epam.catgenome.entity.FeatureFile;
 import com.epam.catgenome.entity.gene.GeneFile;
 import com.epam.catgenome.entity.index.BookmarkIndexEntry;
 import com.epam.catgenome.entity.index.FeatureIndexEntry;
@@ -93,6 +108,10 @@ import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.manager.vcf.VcfManager;
 import com.epam.catgenome.util.TestUtils;
 import com.epam.catgenome.util.Utils;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
 
 /**
  * Source:      FeatureIndexManagerTest
@@ -116,6 +135,8 @@ public class FeatureIndexManagerTest extends AbstractManagerTest {
     private static final int PERFORMANCE_TEST_WARMING_COUNT = 20;
     private static final int PERFORMANCE_TEST_ATTEMPTS_COUNT = 20;
     private static final int PERFORMANCE_TEST_PAGE_SIZE = 20;
+    private static final int PERFORMANCE_TEST_THREADS_COUNT = 8;
+    private static final double MILLIS_IN_SECOND = 1000;
     private static final int INTERVAL1_START = 400_000;
     private static final int INTERVAL1_END = 500_000;
     private static final int INTERVAL2_START = 550_000;
@@ -914,6 +935,78 @@ public class FeatureIndexManagerTest extends AbstractManagerTest {
         Assert.assertFalse(entryList.getEntries().isEmpty());
     }
 
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void testParallelVcfIndexMatchesSequential() throws IOException, FeatureIndexException {
+        Resource resource = context.getResource(CLASSPATH_TEMPLATES_FELIS_CATUS_VCF);
+
+        FeatureIndexedFileRegistrationRequest request = new FeatureIndexedFileRegistrationRequest();
+        request.setReferenceId(referenceId);
+        request.setPath(resource.getFile().getAbsolutePath());
+        request.setName(UUID.randomUUID().toString());
+
+        VcfFile vcfFile = vcfManager.registerVcfFile(request); // indexed in parallel
+        List<VcfFile> files = Collections.singletonList(vcfFile);
+        List<String> parallelEntries = describeEntries(featureIndexDao.searchFileIndexes(files,
+                                                                    new MatchAllDocsQuery(), null, null, null));
+        Assert.assertFalse(parallelEntries.isEmpty());
+
+        fileManager.deleteFileFeatureIndex(vcfFile);
+        Reference reference = referenceGenomeManager.loadReferenceGenome(referenceId);
+        Map<String, Chromosome> chromosomeMap = reference.getChromosomes().stream()
+            .collect(Collectors.toMap(Chromosome::getName, c -> c));
+        try (FeatureReader<VariantContext> reader = AbstractFeatureReader.getFeatureReader(vcfFile.getPath(),
+                                                                                    new VCFCodec(), false)) {
+            featureIndexManager.makeIndexForVcfReader(vcfFile, reader,
+                                                      Collections.singletonList(reference.getGeneFile()),
+                                                      chromosomeMap, vcfManager.getFiltersInfo(
+                                                          Collections.singletonList(vcfFile.getId())));
+        }
+
+        List<String> sequentialEntries = describeEntries(featureIndexDao.searchFileIndexes(files,
+                                                                    new MatchAllDocsQuery(), null, null, null));
+        Assert.assertEquals(sequentialEntries, parallelEntries);
+    }
+
+    private List<String> describeEntries(IndexSearchResult<VcfIndexEntry> searchResult) {
+        return searchResult.getEntries().stream()
+            .map(e -> String.join(":", e.getChromosome().getId().toString(), e.getStartIndex().toString(),
+                                  e.getFeatureId(), String.valueOf(e.getVariationType()), String.valueOf(e.getGene()),
+                                  String.valueOf(e.getFailedFilter())))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void testIndexReadersAreReusedAndRefreshed() throws IOException {
+        Resource resource = context.getResource(CLASSPATH_TEMPLATES_FELIS_CATUS_VCF);
+
+        FeatureIndexedFileRegistrationRequest request = new FeatureIndexedFileRegistrationRequest();
+        request.setReferenceId(referenceId);
+        request.setPath(resource.getFile().getAbsolutePath());
+        request.setName(UUID.randomUUID().toString());
+
+        VcfFile vcfFile = vcfManager.registerVcfFile(request);
+        List<VcfFile> files = Collections.singletonList(vcfFile);
+
+        int count = featureIndexDao.getTotalVariationsCountFacet(files, new MatchAllDocsQuery());
+        Assert.assertTrue(count > 0);
+
+        long hits = fileManager.getIndexReaderCache().getHitCount();
+        Assert.assertEquals(count, featureIndexDao.getTotalVariationsCountFacet(files, new MatchAllDocsQuery()));
+        Assert.assertEquals(hits + 1, fileManager.getIndexReaderCache().getHitCount());
+
+        IndexSearchResult<VcfIndexEntry> searchResult = featureIndexDao.searchFileIndexes(files,
+                                                                    new MatchAllDocsQuery(), null, 1, null);
+        VcfIndexEntry entry = searchResult.getEntries().get(0);
+        entry.setUuid(UUID.randomUUID());
+        entry.setInfo(null);
+        featureIndexDao.writeLuceneIndexForFile(vcfFile, Collections.singletonList(entry));
+
+        Assert.assertEquals(count + 1, featureIndexDao.getTotalVariationsCountFacet(files, new MatchAllDocsQuery()));
+    }
+
     @Test
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void testReindexGene() throws IOException {
@@ -1286,6 +1379,69 @@ public class FeatureIndexManagerTest extends AbstractManagerTest {
         Assert.assertFalse(counts.isEmpty());
     }
 
+    @Test
+    @Ignore // compares Lucene directory implementations, takes a while
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void directoryTypesConcurrentSearchPerformanceTest() throws Exception {
+        Path indexPath = getIndexPath(testVcf);
+        for (IndexDirectoryType type : Arrays.asList(IndexDirectoryType.SIMPLE, IndexDirectoryType.NIO,
+                                                     IndexDirectoryType.MMAP)) {
+            try (FeatureIndexReaderCache readerCache = new FeatureIndexReaderCache(1, type.resolve())) {
+                TestUtils.TestTask searchRandomPage = () -> searchRandomPage(readerCache, indexPath);
+                TestUtils.warmUp(searchRandomPage, PERFORMANCE_TEST_WARMING_COUNT);
+
+                ExecutorService executor = Executors.newFixedThreadPool(PERFORMANCE_TEST_THREADS_COUNT);
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < PERFORMANCE_TEST_THREADS_COUNT; i++) {
+                    tasks.add(() -> {
+                        TestUtils.warmUp(searchRandomPage, PERFORMANCE_TEST_ATTEMPTS_COUNT);
+                        return null;
+                    });
+                }
+
+                double time1 = Utils.getSystemTimeMilliseconds();
+                for (Future<Void> future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+                double time2 = Utils.getSystemTimeMilliseconds();
+                executor.shutdown();
+
+                logger.info("!! {} directory: {} concurrent paging searches per second", type,
+                            PERFORMANCE_TEST_THREADS_COUNT * PERFORMANCE_TEST_ATTEMPTS_COUNT * MILLIS_IN_SECOND /
+                            (time2 - time1));
+            }
+        }
+    }
+
+    private Path getIndexPath(FeatureFile featureFile) throws IOException {
+        DirectoryReader[] readers = fileManager.acquireIndexReaders(Collections.singletonList(featureFile));
+        try {
+            return ((FSDirectory) readers[0].directory()).getDirectory();
+        } finally {
+            fileManager.releaseIndexReaders(readers);
+        }
+    }
+
+    /**
+     * Reads a random page of an index, sorted by start index, the same way as a paging search of variations
+     */
+    private static void searchRandomPage(FeatureIndexReaderCache readerCache, Path indexPath) throws IOException {
+        DirectoryReader reader = readerCache.acquire(indexPath);
+        try {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            int page = ThreadLocalRandom.current().nextInt(reader.numDocs() / PERFORMANCE_TEST_PAGE_SIZE + 1);
+            Sort sort = new Sort(new SortField(IndexSortField.START_INDEX.getField().getFieldName(),
+                                               IndexSortField.START_INDEX.getType()));
+            ScoreDoc[] docs = searcher.search(new MatchAllDocsQuery(), (page + 1) * PERFORMANCE_TEST_PAGE_SIZE,
+                                              sort).scoreDocs;
+            for (int i = page * PERFORMANCE_TEST_PAGE_SIZE; i < docs.length; i++) {
+                searcher.doc(docs[i].doc);
+            }
+        } finally {
+            readerCache.release(reader);
+        }
+    }
+
     @Test
     @Ignore // TODO: remove this test before merging to master
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import com.epam.catgenome.entity.bam.BaseCoverage;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BamCoveragePyramidTest {
+
+    private static final String CHROMOSOME = "A1";
+    private static final int CHROMOSOME_LENGTH = 100000;
+    private static final int BIN_SIZE = 16;
+    private static final int READS_COUNT = 3000;
+    private static final int READ_LENGTH = 50;
+    private static final int[] BASES_PER_PIXEL = {16, 50, 100, 1000, 5000, 100000};
+    private static final int START = 777;
+    private static final int END = CHROMOSOME_LENGTH - 333;
+    private static final double DELTA = 1e-4;
+    private static final String[] CIGARS = {"50M", "20M5D30M", "10M300N40M", "5S40M5S", "20M2I28M"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCoverageMatchesReads() throws IOException {
+        List<SAMRecord> records = createRecords();
+        int[] depth = calculateDepth(records);
+        File file = writePyramid(records);
+
+        // levels of 16, 64 and 256 bases per bin are expected
+        for (int basesPerPixel : BASES_PER_PIXEL) {
+            double scaleFactor = 1.0 / basesPerPixel;
+            List<BaseCoverage> coverage = BamCoveragePyramid.loadCoverage(file, START, END, scaleFactor);
+            Assert.assertNotNull(coverage);
+            Assert.assertFalse(coverage.isEmpty());
+
+            int covered = START;
+            for (BaseCoverage bin : coverage) {
+                Assert.assertTrue(bin.getStartIndex() >= covered);
+                Assert.assertTrue(bin.getEndIndex() - bin.getStartIndex() < basesPerPixel);
+                for (int i = covered; i < bin.getStartIndex(); i++) {
+                    Assert.assertEquals(0, depth[i]);
+                }
+
+                int max = 0;
+                for (int i = bin.getStartIndex(); i <= bin.getEndIndex(); i++) {
+                    max = Math.max(max, depth[i]);
+                }
+                Assert.assertEquals(max, bin.getValue(), 0);
+                covered = bin.getEndIndex() + 1;
+            }
+        }
+    }
+
+    @Test
+    public void testFirstLevelStatistics() throws IOException {
+        List<SAMRecord> records = createRecords();
+        int[] depth = calculateDepth(records);
+        File file = writePyramid(records);
+
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            Assert.assertEquals(BamCoveragePyramid.MAGIC, input.readInt());
+            Assert.assertEquals(BamCoveragePyramid.VERSION, input.readInt());
+            Assert.assertEquals(CHROMOSOME_LENGTH, input.readInt());
+            Assert.assertTrue(input.readInt() > 1);
+            Assert.assertEquals(BIN_SIZE, input.readInt());
+            int binsCount = input.readInt();
+            Assert.assertEquals((CHROMOSOME_LENGTH - 1) / BIN_SIZE + 1, binsCount);
+            input.seek(input.readLong());
+
+            for (int bin = 0; bin < binsCount; bin++) {
+                int min = Integer.MAX_VALUE;
+                int max = 0;
+                long sum = 0;
+                int to = Math.min(CHROMOSOME_LENGTH, (bin + 1) * BIN_SIZE);
+                for (int i = bin * BIN_SIZE + 1; i <= to; i++) {
+                    min = Math.min(min, depth[i]);
+                    max = Math.max(max, depth[i]);
+                    sum += depth[i];
+                }
+
+                Assert.assertEquals(min, input.readFloat(), 0);
+                Assert.assertEquals(max, input.readFloat(), 0);
+                Assert.assertEquals((double) sum / (to - bin * BIN_SIZE), input.readFloat(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testDetailedScaleIsNotServed() throws IOException {
+        File file = writePyramid(createRecords());
+        Assert.assertNull(BamCoveragePyramid.loadCoverage(file, START, END, 1.0 / (BIN_SIZE - 1)));
+    }
+
+    private File writePyramid(List<SAMRecord> records) throws IOException {
+        BamCoveragePyramidBuilder builder = new BamCoveragePyramidBuilder(CHROMOSOME_LENGTH, BIN_SIZE);
+        records.forEach(builder::add);
+        File file = folder.newFile();
+        builder.write(file);
+        return file;
+    }
+
+    private List<SAMRecord> createRecords() {
+        SAMFileHeader header = new SAMFileHeader();
+        header.addSequence(new SAMSequenceRecord(CHROMOSOME, CHROMOSOME_LENGTH));
+
+        Random random = new Random(1);
+        int start = 1;
+        List<SAMRecord> records = new ArrayList<>(READS_COUNT);
+        for (int i = 0; i < READS_COUNT; i++) {
+            start += random.nextInt(READ_LENGTH);
+            SAMRecord record = new SAMRecord(header);
+            record.setReadName("read" + i);
+            record.setReferenceName(CHROMOSOME);
+            record.setAlignmentStart(start);
+            record.setCigarString(CIGARS[random.nextInt(CIGARS.length)]);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private int[] calculateDepth(List<SAMRecord> records) {
+        int[] depth = new int[CHROMOSOME_LENGTH + 1];
+        for (SAMRecord record : records) {
+            record.getAlignmentBlocks().forEach(block -> {
+                for (int i = 0; i < block.getLength(); i++) {
+                    int position = block.getReferenceStart() + i;
+                    if (position <= CHROMOSOME_LENGTH) {
+                        depth[position]++;
+                    }
+                }
+            });
+        }
+        return depth;
+    }
+}
@@ -127,6 +127,7 @@ public class BamManagerTest extends AbstractManagerTest {
     private static final int TEST_COUNT = 30;
     private static final int LARGE_TEST_COUNT = 10000000;
     private static final String BAI_EXTENSION = ".bai";
+    private static final int PERFORMANCE_TEST_ITERATIONS = 10;
 
     private static final String PRETTY_NAME = "pretty";
     private static final long WRONG_FILE_ID = 123L;
@@ -384,6 +385,39 @@ public class BamManagerTest extends AbstractManagerTest {
         Assert.assertEquals(read.getName(), loadedRead.getName());
     }
 
+    @Ignore
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testLoadTrackBinaryPerformance() throws IOException {
+        BamFile bamFile = setUpTestFile();
+        Track<Read> fullTrackQ = getBaseReadTrack(bamFile);
+        fullTrackQ.setStartIndex(TEST_START_INDEX_LARGE_RANGE);
+        BamQueryOption option = getBaseBamQueryOption();
+        option.setFrame(LARGE_FRAME_SIZE);
+        option.setCount(LARGE_TEST_COUNT);
+
+        long jsonTime = 0;
+        long binaryTime = 0;
+        int jsonSize = 0;
+        int binarySize = 0;
+        for (int i = 0; i < PERFORMANCE_TEST_ITERATIONS; i++) {
+            ResponseEmitterMock jsonEmitterMock = new ResponseEmitterMock();
+            long start = System.currentTimeMillis();
+            bamManager.sendBamTrackToEmitter(fullTrackQ, option, jsonEmitterMock);
+            jsonTime += System.currentTimeMillis() - start;
+            jsonSize = jsonEmitterMock.getSize();
+
+            BinaryResponseEmitterMock binaryEmitterMock = new BinaryResponseEmitterMock();
+            start = System.currentTimeMillis();
+            bamManager.sendBamTrackToEmitter(fullTrackQ, option, new BinaryBamTrackEmitter(binaryEmitterMock));
+            binaryTime += System.currentTimeMillis() - start;
+            binarySize = binaryEmitterMock.getSize();
+        }
+
+        logger.info("!! JSON reads stream: {} ms, {} bytes", jsonTime / PERFORMANCE_TEST_ITERATIONS, jsonSize);
+        logger.info("!! Binary reads stream: {} ms, {} bytes", binaryTime / PERFORMANCE_TEST_ITERATIONS, binarySize);
+    }
+
     @NotNull
     private BamQueryOption getBaseBamQueryOption() {
         BamQueryOption option = new BamQueryOption();
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import com.epam.catgenome.controller.JsonMapper;
+import com.epam.catgenome.entity.bam.BamTrack;
+import com.epam.catgenome.entity.bam.BasePosition;
+import com.epam.catgenome.entity.bam.NgbSamTagAndValue;
+import com.epam.catgenome.entity.bam.Read;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BinaryBamTrackEmitterTest {
+
+    private static final ObjectMapper MAPPER = new JsonMapper();
+
+    private static final int READS_COUNT = 5000;
+    private static final int READ_LENGTH = 100;
+    private static final int LONG_READ_LENGTH = 1024 * 1024;
+    private static final int TRACK_START = 12589188;
+    private static final int TRACK_END = 12689188;
+    private static final int FLAG_MASK = 99;
+    private static final int MAPPING_QUALITY = 60;
+    private static final String ERROR_MESSAGE = "Test error";
+
+    @Test
+    public void testWriteReads() throws IOException {
+        List<Read> reads = new ArrayList<>();
+        for (int i = 0; i < READS_COUNT; i++) {
+            reads.add(createRead(TRACK_START + i, StringUtils.repeat('A', READ_LENGTH)));
+        }
+        reads.add(new Read()); // all fields are empty
+        Read unicodeRead = createRead(TRACK_START, "ACGT");
+        unicodeRead.setName("read_é中");
+        reads.add(unicodeRead);
+        reads.add(createRead(TRACK_START, StringUtils.repeat('C', LONG_READ_LENGTH))); // larger than a buffer
+
+        BamTrack<Read> track = new BamTrack<>();
+        track.setStartIndex(TRACK_START);
+        track.setEndIndex(TRACK_END);
+        track.setMinPosition(TRACK_START);
+
+        BinaryResponseEmitterMock emitterMock = new BinaryResponseEmitterMock();
+        BinaryBamTrackEmitter trackEmitter = new BinaryBamTrackEmitter(emitterMock);
+        for (Read read : reads) {
+            trackEmitter.writeRecord(read);
+        }
+        trackEmitter.writeTrackAndFinish(track);
+
+        BamTrack<Read> loadedTrack = emitterMock.getBamTrack();
+        Assert.assertNotNull(loadedTrack);
+        Assert.assertEquals(reads.size(), loadedTrack.getBlocks().size());
+        Assert.assertEquals(MAPPER.writeValueAsString(reads), MAPPER.writeValueAsString(loadedTrack.getBlocks()));
+        Assert.assertEquals(track.getStartIndex(), loadedTrack.getStartIndex());
+        Assert.assertEquals(track.getEndIndex(), loadedTrack.getEndIndex());
+        Assert.assertEquals(track.getMinPosition(), loadedTrack.getMinPosition());
+    }
+
+    @Test
+    public void testWriteError() throws IOException {
+        BinaryResponseEmitterMock emitterMock = new BinaryResponseEmitterMock();
+        BinaryBamTrackEmitter trackEmitter = new BinaryBamTrackEmitter(emitterMock);
+        trackEmitter.writeRecord(createRead(TRACK_START, "ACGT"));
+        trackEmitter.finishWithException(new IllegalStateException(ERROR_MESSAGE));
+
+        Assert.assertEquals(ERROR_MESSAGE, emitterMock.getMessage());
+    }
+
+    @Test
+    public void testIsAccepted() {
+        Assert.assertTrue(BinaryBamTrackEmitter.isAccepted("application/json, "
+                                                           + BinaryBamTrackEmitter.MEDIA_TYPE_VALUE));
+        Assert.assertFalse(BinaryBamTrackEmitter.isAccepted("application/json, */*"));
+        Assert.assertFalse(BinaryBamTrackEmitter.isAccepted(null));
+        Assert.assertFalse(BinaryBamTrackEmitter.isAccepted("application/json;q=x"));
+        Assert.assertFalse(BinaryBamTrackEmitter.isAccepted("not a media type"));
+    }
+
+    private Read createRead(int start, String sequence) {
+        Read read = new Read();
+        read.setStartIndex(start);
+        read.setEndIndex(start + sequence.length() - 1);
+        read.setName("read" + start);
+        read.setFlagMask(FLAG_MASK);
+        read.setMappingQuality(MAPPING_QUALITY);
+        read.setTLen(-sequence.length());
+        read.setPNext(start);
+        read.setStand(start % 2 == 0);
+        read.setCigarString(sequence.length() + "M");
+        read.setRName("X");
+        read.setRNext("=");
+        read.setSequence(sequence);
+        read.setQualities(StringUtils.repeat('I', sequence.length()));
+        read.setDifferentBase(Collections.singletonList(new BasePosition(1, 'T')));
+
+        NgbSamTagAndValue tag = new NgbSamTagAndValue();
+        tag.setTag("RG");
+        tag.setValue("group");
+        read.setTags(Collections.singletonList(tag));
+        return read;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import com.epam.catgenome.controller.JsonMapper;
+import com.epam.catgenome.entity.bam.BamTrack;
+import com.epam.catgenome.entity.bam.BasePosition;
+import com.epam.catgenome.entity.bam.NgbSamTagAndValue;
+import com.epam.catgenome.entity.bam.Read;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects data, written by {@link BinaryBamTrackEmitter}, and decodes it back to a {@link BamTrack}
+ */
+class BinaryResponseEmitterMock extends ResponseBodyEmitter {
+
+    private static final ObjectMapper MAPPER = new JsonMapper();
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private String message;
+
+    @Override
+    public synchronized void send(Object object, MediaType mediaType) throws IOException {
+        if (!BinaryBamTrackEmitter.MEDIA_TYPE.equals(mediaType) || !(object instanceof byte[])) {
+            throw new IllegalArgumentException("Only binary values are available for testing");
+        }
+
+        buffer.write((byte[]) object);
+    }
+
+    public int getSize() {
+        return buffer.size();
+    }
+
+    public BamTrack<Read> getBamTrack() throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        byte[] magic = new byte[BinaryBamTrackEmitter.MAGIC.length];
+        input.readFully(magic);
+        Assert.assertTrue(Arrays.equals(BinaryBamTrackEmitter.MAGIC, magic));
+        Assert.assertEquals(BinaryBamTrackEmitter.VERSION, input.readByte());
+
+        List<Read> reads = new ArrayList<>();
+        while (true) {
+            byte type = input.readByte();
+            int length = input.readInt();
+            switch (type) {
+                case BinaryBamTrackEmitter.FRAME_READ:
+                    reads.add(readRead(input));
+                    break;
+                case BinaryBamTrackEmitter.FRAME_TRACK:
+                    BamTrack<Read> track = MAPPER.readValue(readBytes(input, length),
+                                                            new TypeReference<BamTrack<Read>>() {});
+                    track.setBlocks(reads);
+                    return track;
+                case BinaryBamTrackEmitter.FRAME_ERROR:
+                    message = new String(readBytes(input, length), StandardCharsets.UTF_8);
+                    return null;
+                default:
+                    throw new IllegalStateException("Unexpected frame type " + type);
+            }
+        }
+    }
+
+    public String getMessage() throws IOException {
+        getBamTrack();
+        return message;
+    }
+
+    private static Read readRead(DataInputStream input) throws IOException {
+        Read read = new Read();
+        read.setStartIndex(readInt(input));
+        read.setEndIndex(readInt(input));
+        read.setFlagMask(readInt(input));
+        read.setMappingQuality(readInt(input));
+        read.setTLen(readInt(input));
+        read.setPNext(readInt(input));
+        byte stand = input.readByte();
+        read.setStand(stand == BinaryBamTrackEmitter.NULL_BYTE ? null : stand == 1);
+
+        read.setName(readString(input));
+        read.setCigarString(readString(input));
+        read.setRName(readString(input));
+        read.setRNext(readString(input));
+        read.setPairedReadName(readString(input));
+        read.setHeadSequence(readString(input));
+        read.setTailSequence(readString(input));
+        read.setSequence(readString(input));
+        read.setQualities(readString(input));
+
+        int basesCount = input.readInt();
+        if (basesCount > 0) {
+            List<BasePosition> bases = new ArrayList<>(basesCount);
+            for (int i = 0; i < basesCount; i++) {
+                bases.add(new BasePosition(input.readInt(), input.readByte()));
+            }
+            read.setDifferentBase(bases);
+        }
+
+        int tagsCount = input.readInt();
+        if (tagsCount > 0) {
+            List<NgbSamTagAndValue> tags = new ArrayList<>(tagsCount);
+            for (int i = 0; i < tagsCount; i++) {
+                NgbSamTagAndValue tag = new NgbSamTagAndValue();
+                tag.setTag(readString(input));
+                tag.setValue(readString(input));
+                tags.add(tag);
+            }
+            read.setTags(tags);
+        }
+        return read;
+    }
+
+    private static Integer readInt(DataInputStream input) throws IOException {
+        int value = input.readInt();
+        return value == BinaryBamTrackEmitter.NULL_INT ? null : value;
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == BinaryBamTrackEmitter.NULL_LENGTH) {
+            return null;
+        }
+        return new String(readBytes(input, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream input, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+}
@@ -52,6 +52,10 @@ class ResponseEmitterMock extends ResponseBodyEmitter {
         buffer.append(data);
     }
 
+    public int getSize() {
+        return buffer.length();
+    }
+
     public BamTrack<Read> getBamTrack() throws IOException {
         JsonNode resultJson = MAPPER.readTree(buffer.toString());
         JsonNode trackJson = resultJson.findValue("payload");
@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import com.epam.catgenome.controller.JsonMapper;
+import com.epam.catgenome.entity.bam.BamQueryOption;
+import com.epam.catgenome.entity.bam.BamTrackMode;
+import com.epam.catgenome.entity.bam.Read;
+import com.epam.catgenome.entity.bam.SpliceJunctionsEntity;
+import com.epam.catgenome.entity.bam.TrackDirectionType;
+import com.epam.catgenome.entity.track.Track;
+import com.epam.catgenome.manager.bam.handlers.SAMRecordHandler;
+import com.epam.catgenome.util.BamUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class SAMRecordHandlerTest {
+
+    private static final ObjectMapper MAPPER = new JsonMapper();
+
+    private static final String CHROMOSOME_NAME = "X";
+    private static final int CHROMOSOME_LENGTH = 100000;
+    private static final int TRACK_START = 1000;
+    private static final int TRACK_END = 21000;
+    private static final int READS_COUNT = 3000;
+    private static final int READ_LENGTH = 50;
+    private static final int MAX_INTRON_LENGTH = 2000;
+    private static final int REGIONS_NUMBER = 7;
+    private static final double SCALE_FACTOR_SMALL = 0.01;
+
+    private SAMFileHeader header;
+    private List<SAMRecord> records;
+
+    @Before
+    public void setUp() {
+        header = new SAMFileHeader();
+        header.addSequence(new SAMSequenceRecord(CHROMOSOME_NAME, CHROMOSOME_LENGTH));
+
+        // records with deletions, insertions and long splice junctions, spanning region borders
+        Random random = new Random(1);
+        records = new ArrayList<>(READS_COUNT);
+        for (int i = 0; i < READS_COUNT; i++) {
+            SAMRecord record = new SAMRecord(header);
+            record.setReadName("read" + i);
+            record.setReferenceName(CHROMOSOME_NAME);
+            record.setAlignmentStart(TRACK_START - READ_LENGTH + random.nextInt(TRACK_END - TRACK_START));
+            record.setReadString(StringUtils.repeat('A', READ_LENGTH));
+            record.setCigarString(random.nextBoolean()
+                    ? "10M2D10M1I19M" + random.nextInt(MAX_INTRON_LENGTH) + "N10M"
+                    : READ_LENGTH + "M");
+            record.setReadNegativeStrandFlag(random.nextBoolean());
+            records.add(record);
+        }
+        records.sort(Comparator.comparingInt(SAMRecord::getAlignmentStart));
+    }
+
+    @Test
+    public void testMergeRegions() throws IOException {
+        assertRegionsMatchWholeTrack(1);
+    }
+
+    @Test
+    public void testMergeRegionsSummarized() throws IOException {
+        assertRegionsMatchWholeTrack(SCALE_FACTOR_SMALL);
+    }
+
+    private void assertRegionsMatchWholeTrack(double scaleFactor) throws IOException {
+        Track<Read> track = new Track<>();
+        track.setStartIndex(TRACK_START);
+        track.setEndIndex(TRACK_END);
+        BamQueryOption options = new BamQueryOption();
+        options.setMode(BamTrackMode.COVERAGE);
+        options.setTrackDirection(TrackDirectionType.MIDDLE);
+        options.setShowSpliceJunction(true);
+        options.setShowClipping(false);
+        options.setChromosomeName(CHROMOSOME_NAME);
+        options.setRefID(1L);
+
+        SAMRecordHandler expected = BamUtil.createSAMRecordHandler(track, options, null, true, null);
+        for (SAMRecord record : records) {
+            if (record.getAlignmentEnd() >= TRACK_START) {
+                expected.add(record);
+            }
+        }
+
+        SAMRecordHandler actual = BamUtil.createSAMRecordHandler(track, options, null, true, null);
+        List<SAMRecordHandler> regions = new ArrayList<>();
+        int length = TRACK_END - TRACK_START + 1;
+        for (int i = 0; i < REGIONS_NUMBER; i++) {
+            int regionStart = TRACK_START + length * i / REGIONS_NUMBER;
+            int regionEnd = TRACK_START + length * (i + 1) / REGIONS_NUMBER - 1;
+            SAMRecordHandler region = actual.createRegionHandler(regionStart, regionEnd, i == 0,
+                    BamUtil.createSAMRecordFilter(track, options, true, null));
+            regions.add(region);
+            // like an indexed query, returns all the records, overlapping the region
+            for (SAMRecord record : records) {
+                if (record.getAlignmentStart() <= regionEnd && record.getAlignmentEnd() >= regionStart) {
+                    region.add(record);
+                }
+            }
+        }
+        // regions may be completed in any order
+        actual.mergeRegions(Lists.reverse(regions));
+
+        Assert.assertEquals(MAPPER.writeValueAsString(expected.getBaseCoverage(scaleFactor)),
+                MAPPER.writeValueAsString(actual.getBaseCoverage(scaleFactor)));
+        Assert.assertFalse(expected.getSpliceJunctions().isEmpty());
+        Assert.assertEquals(describe(expected.getSpliceJunctions()), describe(actual.getSpliceJunctions()));
+    }
+
+    private List<String> describe(List<SpliceJunctionsEntity> junctions) {
+        return junctions.stream()
+                .map(j -> j.getStart() + "-" + j.getEnd() + ":" + j.isStrand() + "=" + j.getCount())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.bam;
+
+import htsjdk.samtools.SamReader;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class SamReaderPoolTest {
+
+    private static final String FIRST_KEY = "first";
+    private static final String SECOND_KEY = "second";
+    private static final long TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void testReuseReader() throws IOException {
+        SamReaderPool pool = new SamReaderPool(2, TIMEOUT, TIMEOUT);
+        SamReader reader = Mockito.mock(SamReader.class);
+
+        try (SamReaderPool.Handle handle = pool.acquire(FIRST_KEY, () -> reader)) {
+            Assert.assertSame(reader, handle.getReader());
+        }
+        try (SamReaderPool.Handle handle = pool.acquire(FIRST_KEY, () -> Mockito.mock(SamReader.class))) {
+            Assert.assertSame(reader, handle.getReader());
+        }
+
+        Assert.assertEquals(1, pool.getHitCount());
+        Assert.assertEquals(1, pool.getMissCount());
+        Assert.assertEquals(1, pool.idleSize());
+        Mockito.verify(reader, Mockito.never()).close();
+
+        pool.close();
+        Mockito.verify(reader).close();
+        Assert.assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testConcurrentRequestsGetDifferentReaders() throws IOException {
+        SamReaderPool pool = new SamReaderPool(2, TIMEOUT, TIMEOUT);
+        SamReader first = Mockito.mock(SamReader.class);
+        SamReader second = Mockito.mock(SamReader.class);
+        SamReader overflow = Mockito.mock(SamReader.class);
+
+        try (SamReaderPool.Handle firstHandle = pool.acquire(FIRST_KEY, () -> first);
+             SamReaderPool.Handle secondHandle = pool.acquire(FIRST_KEY, () -> second);
+             SamReaderPool.Handle overflowHandle = pool.acquire(FIRST_KEY, () -> overflow)) {
+            Assert.assertSame(first, firstHandle.getReader());
+            Assert.assertSame(second, secondHandle.getReader());
+            Assert.assertSame(overflow, overflowHandle.getReader());
+            Assert.assertEquals(2, pool.size());
+        }
+
+        // a reader, opened over the limit, isn't pooled
+        Mockito.verify(overflow).close();
+        Mockito.verify(first, Mockito.never()).close();
+        Mockito.verify(second, Mockito.never()).close();
+        Assert.assertEquals(2, pool.idleSize());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws IOException {
+        SamReaderPool pool = new SamReaderPool(1, TIMEOUT, TIMEOUT);
+        SamReader first = Mockito.mock(SamReader.class);
+        SamReader second = Mockito.mock(SamReader.class);
+
+        pool.acquire(FIRST_KEY, () -> first).close();
+        pool.acquire(SECOND_KEY, () -> second).close();
+
+        Mockito.verify(first).close();
+        Assert.assertEquals(1, pool.getEvictionCount());
+        Assert.assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testEvictIdleReaders() throws IOException {
+        SamReaderPool pool = new SamReaderPool(2, 0, TIMEOUT);
+        SamReader first = Mockito.mock(SamReader.class);
+
+        pool.acquire(FIRST_KEY, () -> first).close();
+        pool.acquire(SECOND_KEY, () -> Mockito.mock(SamReader.class)).close();
+
+        Mockito.verify(first).close();
+        Assert.assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void testInvalidatedReaderIsNotReused() throws IOException {
+        SamReaderPool pool = new SamReaderPool(2, TIMEOUT, TIMEOUT);
+        SamReader failed = Mockito.mock(SamReader.class);
+
+        try (SamReaderPool.Handle handle = pool.acquire(FIRST_KEY, () -> failed)) {
+            handle.invalidate();
+        }
+        Mockito.verify(failed).close();
+        Assert.assertEquals(0, pool.size());
+
+        SamReader reader = Mockito.mock(SamReader.class);
+        try (SamReaderPool.Handle handle = pool.acquire(FIRST_KEY, () -> reader)) {
+            Assert.assertSame(reader, handle.getReader());
+        }
+        Assert.assertEquals(1, pool.idleSize());
+    }
+
+    @Test
+    public void testFailedOpeningReleasesSlot() {
+        SamReaderPool pool = new SamReaderPool(1, TIMEOUT, TIMEOUT);
+        try {
+            pool.acquire(FIRST_KEY, () -> {
+                throw new IOException("Can't open");
+            });
+            Assert.fail("Exception is expected");
+        } catch (IOException e) {
+            Assert.assertEquals(0, pool.size());
+        }
+    }
+}
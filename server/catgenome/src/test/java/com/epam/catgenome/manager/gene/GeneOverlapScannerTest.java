@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.epam.catgenome.manager.gene;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.epam.catgenome.entity.gene.GeneFile;
+import com.epam.catgenome.entity.gene.GeneFileType;
+import com.epam.catgenome.entity.reference.Chromosome;
+import com.epam.catgenome.manager.FileManager;
+import com.epam.catgenome.manager.gene.parser.GeneFeature;
+import com.epam.catgenome.manager.gene.parser.GffFeature;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.readers.LineIterator;
+
+public class GeneOverlapScannerTest {
+
+    private static final String CHROMOSOME_NAME = "A1";
+    private static final int CHROMOSOME_SIZE = 10000;
+
+    private static final int FIRST_END = 200;
+    private static final int SECOND_START = FIRST_END + 1;
+    private static final int SECOND_END = 300;
+
+    private static final GeneFeature FIRST_GENE = makeFeature(GffFeature.GENE_FEATURE_NAME, 100, FIRST_END);
+    private static final GeneFeature FIRST_EXON = makeFeature(GffFeature.EXON_FEATURE_NAME, 150, FIRST_END);
+    private static final GeneFeature SECOND_GENE = makeFeature(GffFeature.GENE_FEATURE_NAME, SECOND_START, SECOND_END);
+    private static final GeneFeature OUTER_GENE = makeFeature(GffFeature.GENE_FEATURE_NAME, 1000, 2000);
+    private static final GeneFeature TRANSCRIPT = makeFeature("transcript", 1000, 2000);
+    private static final GeneFeature INNER_GENE = makeFeature(GffFeature.GENE_FEATURE_NAME, 1200, 1300);
+    private static final GeneFeature INNER_EXON = makeFeature(GffFeature.EXON_FEATURE_NAME, 1250, 1260);
+
+    private static final int OUTER_POSITION = 1100;
+    private static final int INNER_POSITION = 1255;
+    private static final int AFTER_INNER_POSITION = 1500;
+
+    private Chromosome chromosome;
+    private GeneFile geneFile;
+    private FileManager fileManager;
+    private AbstractFeatureReader<GeneFeature, LineIterator> reader;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        chromosome = new Chromosome();
+        chromosome.setName(CHROMOSOME_NAME);
+        chromosome.setSize(CHROMOSOME_SIZE);
+        geneFile = new GeneFile();
+
+        List<GeneFeature> features = Arrays.asList(FIRST_GENE, FIRST_EXON, SECOND_GENE, OUTER_GENE, TRANSCRIPT,
+                                                   INNER_GENE, INNER_EXON);
+        reader = Mockito.mock(AbstractFeatureReader.class);
+        when(reader.query(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int start = (Integer) invocation.getArguments()[1];
+            int end = (Integer) invocation.getArguments()[2];
+            return makeIterator(features.stream()
+                                    .filter(f -> f.getStart() <= end && f.getEnd() >= start)
+                                    .collect(Collectors.toList()));
+        });
+        fileManager = Mockito.mock(FileManager.class);
+        when(fileManager.makeGeneReader(any(GeneFile.class), any(GeneFileType.class))).thenReturn(reader);
+    }
+
+    @Test
+    public void testAdjacentGenes() throws Exception {
+        try (GeneOverlapScanner scanner = new GeneOverlapScanner(fileManager, geneFile, chromosome, FIRST_END)) {
+            Assert.assertEquals(Arrays.asList(FIRST_GENE, FIRST_EXON), scanner.getOverlapping(FIRST_END));
+
+            scanner.moveTo(SECOND_START);
+            Assert.assertEquals(Arrays.asList(SECOND_GENE), scanner.getOverlapping(SECOND_START));
+            Assert.assertTrue(scanner.getOverlapping(SECOND_END + 1).isEmpty());
+        }
+    }
+
+    @Test
+    public void testNestedGenes() throws Exception {
+        try (GeneOverlapScanner scanner = new GeneOverlapScanner(fileManager, geneFile, chromosome,
+                                                                 OUTER_POSITION)) {
+            Assert.assertEquals(Arrays.asList(OUTER_GENE), scanner.getOverlapping(OUTER_POSITION));
+            // a position of a long variation, that starts before the inner gene
+            Assert.assertEquals(Arrays.asList(OUTER_GENE, INNER_GENE, INNER_EXON),
+                                scanner.getOverlapping(INNER_POSITION));
+
+            scanner.moveTo(INNER_POSITION);
+            Assert.assertEquals(Arrays.asList(OUTER_GENE, INNER_GENE, INNER_EXON),
+                                scanner.getOverlapping(INNER_POSITION));
+
+            scanner.moveTo(AFTER_INNER_POSITION);
+            Assert.assertEquals(Arrays.asList(OUTER_GENE), scanner.getOverlapping(AFTER_INNER_POSITION));
+        }
+    }
+
+    @Test
+    public void testUnsortedVariations() throws Exception {
+        try (GeneOverlapScanner scanner = new GeneOverlapScanner(fileManager, geneFile, chromosome, SECOND_START)) {
+            Assert.assertEquals(Arrays.asList(SECOND_GENE), scanner.getOverlapping(SECOND_START));
+
+            // a variation before the previous one, right at the end of the first gene, makes the scanner seek back
+            scanner.moveTo(FIRST_END);
+            Assert.assertEquals(Arrays.asList(FIRST_GENE, FIRST_EXON), scanner.getOverlapping(FIRST_END));
+            Mockito.verify(reader, Mockito.times(2)).query(anyString(), anyInt(), anyInt());
+
+            scanner.moveTo(SECOND_START);
+            Assert.assertEquals(Arrays.asList(SECOND_GENE), scanner.getOverlapping(SECOND_START));
+        }
+    }
+
+    private static GeneFeature makeFeature(String type, int start, int end) {
+        return new GffFeature(String.join("\t", CHROMOSOME_NAME, "test", type, String.valueOf(start),
+                                          String.valueOf(end), ".", "+", ".", "ID=" + type + start));
+    }
+
+    private static CloseableTribbleIterator<GeneFeature> makeIterator(List<GeneFeature> features) {
+        Iterator<GeneFeature> iterator = new ArrayList<>(features).iterator();
+        return new CloseableTribbleIterator<GeneFeature>() {
+            @Override
+            public Iterator<GeneFeature> iterator() {
+                return this;
+            }
+
+            @Override
+            public void close() {
+                // nothing to close
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public GeneFeature next() {
+                return iterator.next();
+            }
+        };
+    }
+}
@@ -31,6 +31,7 @@ import com.epam.catgenome.manager.gene.parser.GeneFeature;
 import com.epam.catgenome.manager.gene.parser.GffCodec;
 import com.epam.catgenome.manager.reference.ReferenceGenomeManager;
 import com.epam.catgenome.util.CachedFeatureReader;
+import com.epam.catgenome.util.ReaderPool;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.readers.LineIterator;
@@ -51,6 +52,7 @@ public class GffManagerUnitTest {
     private static final long TEST_CHROMOSOME_ID = 1;
     //private static final int TEST_END_INDEX = 239107476;
     private static final int TEST_CHROMOSOME_SIZE = 239107476;
+    private static final long TEST_READER_TIMEOUT = 60000;
 
     @InjectMocks
     @Spy
@@ -95,7 +97,10 @@ public class GffManagerUnitTest {
             GffCodec.GffType.GTF));
 
         Mockito.when(geneFileManager.loadGeneFile(TEST_GENE_FILE_ID)).thenReturn(testGeneFile);
-        Mockito.when(fileManager.makeGeneReader(testGeneFile, GeneFileType.ORIGINAL)).thenReturn(reader);
+        ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>> readerPool = new ReaderPool<>("gene", 1,
+            TEST_READER_TIMEOUT, TEST_READER_TIMEOUT);
+        Mockito.when(fileManager.acquireGeneReader(testGeneFile, GeneFileType.ORIGINAL)).thenAnswer(
+            invocation -> readerPool.acquire(String.valueOf(TEST_GENE_FILE_ID), () -> reader));
         Mockito.when(referenceGenomeManager.loadChromosome(TEST_CHROMOSOME_ID)).thenReturn(testChromosome);
 
         List<GeneFeature> exons = featureList.stream().filter(s -> "exon".equals(s.getFeature())).collect(
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.gene.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.epam.catgenome.entity.gene.Gene;
+import com.epam.catgenome.entity.gene.GeneFile;
+import com.epam.catgenome.entity.gene.GeneFileType;
+import com.epam.catgenome.entity.reference.Chromosome;
+import com.epam.catgenome.entity.track.Track;
+import com.epam.catgenome.exception.GeneReadingException;
+import com.epam.catgenome.manager.FileManager;
+import com.epam.catgenome.manager.gene.parser.GeneFeature;
+import com.epam.catgenome.manager.gene.parser.GffCodec;
+import com.epam.catgenome.manager.parallel.ParallelTaskExecutionUtils;
+import com.epam.catgenome.util.ReaderPool;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.readers.LineIterator;
+
+public class GtfReaderTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GtfReaderTest.class);
+
+    private static final String CHROMOSOME = "A1";
+    private static final int GENES_COUNT = 2000;
+    // about the number of genes in GENCODE human annotation
+    private static final int BENCHMARK_GENES_COUNT = 60000;
+    private static final int BENCHMARK_RUNS = 2;
+    private static final int READS_COUNT = 3;
+    private static final int TRANSCRIPTS_COUNT = 2;
+    private static final int EXONS_COUNT = 4;
+    private static final int GENE_STEP = 5000;
+    private static final int GENE_LENGTH = 4000;
+    private static final int EXON_STEP = 1000;
+    private static final int EXON_LENGTH = 300;
+    private static final int TASKS_COUNT = 8;
+    private static final long READER_TIMEOUT = 60000;
+    private static final int START_COLUMN = 3;
+    // a gene, which exons are read by the tasks of both sides of the first split point
+    private static final String SPANNING_GENE_ID = "SPANNING";
+    private static final int SPANNING_GENE_START = ParallelTaskExecutionUtils.MAX_BLOCK_SIZE - EXON_STEP;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setup() {
+        executorService = Executors.newFixedThreadPool(TASKS_COUNT);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testParallelReadingMatchesSingleTask() throws IOException, GeneReadingException {
+        File gtf = writeGtf(GENES_COUNT);
+        Chromosome chromosome = new Chromosome(CHROMOSOME, GENES_COUNT * GENE_STEP);
+
+        for (boolean collapse : new boolean[] {false, true}) {
+            List<Gene> expected = readGenes(gtf, chromosome, collapse, 1);
+            Assert.assertEquals(GENES_COUNT + 1, expected.size());
+            Assert.assertTrue(expected.stream().anyMatch(g -> SPANNING_GENE_ID.equals(g.getGroupId())));
+
+            for (int i = 0; i < READS_COUNT; i++) {
+                List<Gene> actual = readGenes(gtf, chromosome, collapse, TASKS_COUNT);
+                Assert.assertEquals(describe(expected), describe(actual));
+            }
+        }
+    }
+
+    /**
+     * Measures throughput of reading and assembly of a whole chromosome track of a GENCODE sized file
+     */
+    @Ignore
+    @Test
+    public void benchmarkParallelReading() throws IOException, GeneReadingException {
+        File gtf = writeGtf(BENCHMARK_GENES_COUNT);
+        Chromosome chromosome = new Chromosome(CHROMOSOME, BENCHMARK_GENES_COUNT * GENE_STEP);
+
+        // a task per block of the chromosome, executed by a fixed number of threads
+        int taskCount = chromosome.getSize() / ParallelTaskExecutionUtils.MAX_BLOCK_SIZE;
+        long time = Long.MAX_VALUE;
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            long start = System.nanoTime();
+            List<Gene> genes = readGenes(gtf, chromosome, false, taskCount);
+            time = Math.min(time, System.nanoTime() - start);
+            Assert.assertEquals(BENCHMARK_GENES_COUNT + 1, genes.size());
+        }
+
+        LOGGER.info("Reading of {} genes in {} tasks took {} ms, {} genes/s", BENCHMARK_GENES_COUNT, taskCount,
+                    TimeUnit.NANOSECONDS.toMillis(time),
+                    BENCHMARK_GENES_COUNT * TimeUnit.SECONDS.toNanos(1) / time);
+    }
+
+    private List<Gene> readGenes(File gtf, Chromosome chromosome, boolean collapse, int taskCount)
+            throws IOException, GeneReadingException {
+        GeneFile geneFile = new GeneFile();
+        geneFile.setPath(gtf.getAbsolutePath());
+        geneFile.setCompressed(false);
+
+        Index index = IndexFactory.createDynamicIndex(gtf, new GffCodec(GffCodec.GffType.GTF));
+        ReaderPool<AbstractFeatureReader<GeneFeature, LineIterator>> readerPool = new ReaderPool<>("gene",
+            TASKS_COUNT, READER_TIMEOUT, READER_TIMEOUT);
+        FileManager fileManager = Mockito.mock(FileManager.class);
+        Mockito.when(fileManager.acquireGeneReader(Matchers.any(GeneFile.class), Matchers.any(GeneFileType.class)))
+            .thenAnswer(invocation -> readerPool.acquire(gtf.getName(), () -> AbstractFeatureReader
+                .getFeatureReader(gtf.getAbsolutePath(), new GffCodec(GffCodec.GffType.GTF), index)));
+
+        Track<Gene> track = new Track<>();
+        track.setChromosome(chromosome);
+        track.setStartIndex(1);
+        track.setEndIndex(chromosome.getSize());
+        track.setScaleFactor(1.0);
+
+        try {
+            return AbstractGeneReader.createGeneReader(executorService, fileManager, geneFile)
+                .readGenesFromGeneFile(track, chromosome, collapse, taskCount);
+        } finally {
+            readerPool.close();
+        }
+    }
+
+    private List<String> describe(List<Gene> genes) {
+        return genes.stream()
+            .map(g -> g.getGroupId() + ':' + g.getStartIndex() + '-' + g.getEndIndex() + ':' + g.getExonsCount() + ':'
+                      + g.getItems().stream()
+                          .map(t -> t.getFeatureId() + '/' + t.getItems().size())
+                          .sorted()
+                          .collect(Collectors.joining(",")))
+            .collect(Collectors.toList());
+    }
+
+    private File writeGtf(int genesCount) throws IOException {
+        List<String[]> features = new ArrayList<>();
+        for (int i = 0; i < genesCount; i++) {
+            addGene(features, "G" + i, i * GENE_STEP + 1);
+        }
+        addGene(features, SPANNING_GENE_ID, SPANNING_GENE_START);
+        // a stable sort keeps a gene before its transcripts and a transcript before its exons
+        features.sort(Comparator.comparingInt(f -> Integer.parseInt(f[START_COLUMN])));
+
+        File gtf = folder.newFile("genes.gtf");
+        try (PrintWriter writer = new PrintWriter(gtf)) {
+            features.forEach(f -> writer.println(String.join("\t", f)));
+        }
+
+        return gtf;
+    }
+
+    private void addGene(List<String[]> features, String geneId, int geneStart) {
+        features.add(feature("gene", geneStart, geneStart + GENE_LENGTH, "gene_id \"" + geneId + "\";"));
+
+        for (int j = 0; j < TRANSCRIPTS_COUNT; j++) {
+            String attributes = "gene_id \"" + geneId + "\"; transcript_id \"" + geneId + ".T" + j + "\";";
+            features.add(feature("transcript", geneStart + j, geneStart + GENE_LENGTH, attributes));
+            for (int k = 0; k < EXONS_COUNT; k++) {
+                int exonStart = geneStart + j + k * EXON_STEP;
+                features.add(feature("exon", exonStart, exonStart + EXON_LENGTH,
+                                     attributes + " exon_number \"" + k + "\";"));
+                features.add(feature("CDS", exonStart, exonStart + EXON_LENGTH, attributes));
+            }
+        }
+    }
+
+    private String[] feature(String feature, int start, int end, String attributes) {
+        return new String[] {CHROMOSOME, "test", feature, String.valueOf(start), String.valueOf(end), ".", "+", ".",
+                             attributes};
+    }
+}
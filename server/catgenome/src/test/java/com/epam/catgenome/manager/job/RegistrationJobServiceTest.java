@@ -0,0 +1,244 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.job;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.epam.catgenome.component.MessageHelper;
+import com.epam.catgenome.constant.MessagesConstants;
+import com.epam.catgenome.controller.vo.registration.FeatureIndexedFileRegistrationRequest;
+import com.epam.catgenome.controller.vo.registration.IndexedFileRegistrationRequest;
+import com.epam.catgenome.entity.BiologicalDataItemFormat;
+import com.epam.catgenome.entity.bed.BedFile;
+import com.epam.catgenome.entity.job.RegistrationJob;
+import com.epam.catgenome.entity.job.RegistrationJobStatus;
+import com.epam.catgenome.manager.bed.BedManager;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration({"classpath:applicationContext-test.xml"})
+public class RegistrationJobServiceTest {
+
+    private static final String BED_PATH = "/data/genes.bed";
+    private static final long BIO_DATA_ITEM_ID = 15L;
+    private static final int RECORDS_COUNT = 100;
+    private static final int CHROMOSOMES_COUNT = 3;
+    private static final long TIMEOUT_SECONDS = 10L;
+    private static final String ERROR_MESSAGE = "Unsorted file";
+
+    @Mock
+    private RegistrationJobManager registrationJobManager;
+
+    @Mock
+    private BedManager bedManager;
+
+    @InjectMocks
+    private RegistrationJobService registrationJobService;
+
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Map<Long, RegistrationJob> finishedJobs = new ConcurrentHashMap<>();
+    private CountDownLatch finishedLatch;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(registrationJobService, "threadCount", 1);
+        ReflectionTestUtils.setField(registrationJobService, "queueSize", 1);
+
+        when(registrationJobManager.createJob(any(BiologicalDataItemFormat.class), anyString()))
+            .thenAnswer(invocation -> {
+                RegistrationJob job = new RegistrationJob();
+                job.setId(jobIds.incrementAndGet());
+                job.setFormat((BiologicalDataItemFormat) invocation.getArguments()[0]);
+                job.setPath((String) invocation.getArguments()[1]);
+                job.setStatus(RegistrationJobStatus.QUEUED);
+                return job;
+            });
+        when(registrationJobManager.loadJob(anyLong())).thenAnswer(invocation -> {
+            RegistrationJob job = new RegistrationJob();
+            job.setId((Long) invocation.getArguments()[0]);
+            return job;
+        });
+        Mockito.doAnswer(invocation -> {
+            RegistrationJob job = (RegistrationJob) invocation.getArguments()[0];
+            if (job.getStatus().isFinished()) {
+                finishedJobs.put(job.getId(), job);
+                finishedLatch.countDown();
+            }
+            return null;
+        }).when(registrationJobManager).updateJob(any(RegistrationJob.class));
+
+        registrationJobService.init();
+    }
+
+    @After
+    public void tearDown() {
+        registrationJobService.destroy();
+    }
+
+    @Test
+    public void testCompletedJob() throws InterruptedException {
+        finishedLatch = new CountDownLatch(1);
+        when(bedManager.registerBed(any(IndexedFileRegistrationRequest.class))).thenAnswer(invocation -> {
+            RegistrationProgress progress = RegistrationProgress.current();
+            for (int i = 0; i < RECORDS_COUNT; i++) {
+                progress.recordParsed();
+            }
+            progress.addChromosomesIndexed(CHROMOSOMES_COUNT);
+
+            BedFile bedFile = new BedFile();
+            bedFile.setBioDataItemId(BIO_DATA_ITEM_ID);
+            return bedFile;
+        });
+
+        RegistrationJob submitted = registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED,
+                                                                                  makeRequest());
+        Assert.assertTrue(finishedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        RegistrationJob job = finishedJobs.get(submitted.getId());
+        Assert.assertEquals(RegistrationJobStatus.COMPLETED, job.getStatus());
+        Assert.assertEquals(BIO_DATA_ITEM_ID, job.getBioDataItemId().longValue());
+        Assert.assertEquals(RECORDS_COUNT, job.getRecordsParsed());
+        Assert.assertEquals(CHROMOSOMES_COUNT, job.getChromosomesIndexed());
+    }
+
+    @Test
+    public void testFailedJob() throws InterruptedException {
+        finishedLatch = new CountDownLatch(1);
+        when(bedManager.registerBed(any(IndexedFileRegistrationRequest.class)))
+            .thenThrow(new IllegalArgumentException(ERROR_MESSAGE));
+
+        RegistrationJob submitted = registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED,
+                                                                                  makeRequest());
+        Assert.assertTrue(finishedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        RegistrationJob job = finishedJobs.get(submitted.getId());
+        Assert.assertEquals(RegistrationJobStatus.FAILED, job.getStatus());
+        Assert.assertEquals(ERROR_MESSAGE, job.getErrorMessage());
+    }
+
+    @Test
+    public void testCancelRunningAndQueuedJobs() throws InterruptedException {
+        finishedLatch = new CountDownLatch(2);
+        CountDownLatch startedLatch = new CountDownLatch(1);
+        when(bedManager.registerBed(any(IndexedFileRegistrationRequest.class))).thenAnswer(invocation -> {
+            startedLatch.countDown();
+            RegistrationProgress progress = RegistrationProgress.current();
+            while (!Thread.currentThread().isInterrupted()) {
+                progress.recordParsed(); // throws once the job is cancelled
+            }
+            return null;
+        });
+
+        RegistrationJob running = registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED,
+                                                                                makeRequest());
+        Assert.assertTrue(startedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        RegistrationJob queued = registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED,
+                                                                               makeRequest());
+
+        registrationJobService.cancelJob(queued.getId());
+        registrationJobService.cancelJob(running.getId());
+        Assert.assertTrue(finishedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Assert.assertEquals(RegistrationJobStatus.CANCELLED, finishedJobs.get(running.getId()).getStatus());
+        Assert.assertTrue(finishedJobs.get(running.getId()).getRecordsParsed() > 0);
+        Assert.assertEquals(RegistrationJobStatus.CANCELLED, finishedJobs.get(queued.getId()).getStatus());
+        Assert.assertNull(finishedJobs.get(queued.getId()).getStartedDate());
+    }
+
+    @Test
+    public void testShutdownFailsRunningJob() throws InterruptedException {
+        finishedLatch = new CountDownLatch(1);
+        CountDownLatch startedLatch = new CountDownLatch(1);
+        when(bedManager.registerBed(any(IndexedFileRegistrationRequest.class))).thenAnswer(invocation -> {
+            startedLatch.countDown();
+            RegistrationProgress progress = RegistrationProgress.current();
+            while (!Thread.currentThread().isInterrupted()) {
+                progress.recordParsed(); // throws once the service is shut down
+            }
+            return new BedFile();
+        });
+
+        RegistrationJob running = registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED,
+                                                                                makeRequest());
+        Assert.assertTrue(startedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        registrationJobService.destroy();
+        Assert.assertTrue(finishedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        RegistrationJob job = finishedJobs.get(running.getId());
+        Assert.assertEquals(RegistrationJobStatus.FAILED, job.getStatus());
+        Assert.assertEquals(MessageHelper.getMessage(MessagesConstants.ERROR_REGISTRATION_JOB_INTERRUPTED),
+                            job.getErrorMessage());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRejectWhenQueueIsFull() throws InterruptedException {
+        finishedLatch = new CountDownLatch(1);
+        CountDownLatch startedLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        when(bedManager.registerBed(any(IndexedFileRegistrationRequest.class))).thenAnswer(invocation -> {
+            startedLatch.countDown();
+            releaseLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return new BedFile();
+        });
+
+        try {
+            registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED, makeRequest());
+            Assert.assertTrue(startedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED, makeRequest());
+            registrationJobService.submitFileRegistration(BiologicalDataItemFormat.BED, makeRequest());
+        } finally {
+            releaseLatch.countDown();
+        }
+    }
+
+    private FeatureIndexedFileRegistrationRequest makeRequest() {
+        FeatureIndexedFileRegistrationRequest request = new FeatureIndexedFileRegistrationRequest();
+        request.setPath(BED_PATH);
+        return request;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.reference.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class BlockOffsetIndexTest {
+
+    private static final long[] BLOCK_SIZES = {65280, 65280, 0, 1000, 65280, 12};
+    private static final int SHIFT = 16;
+    private static final long BLOCK_DISTANCE = 1000;
+
+    @Test
+    public void testFilePointerMatchesLinearScan() throws IOException {
+        BlockOffsetIndex index = BlockOffsetIndex.read(new DataInputStream(new ByteArrayInputStream(writeIndex())));
+        Assert.assertEquals(BLOCK_SIZES.length, index.size());
+
+        long length = 0;
+        for (long size : BLOCK_SIZES) {
+            length += size;
+        }
+        for (long position = 0; position < length; position++) {
+            Assert.assertEquals(scan(position), index.getFilePointer(position));
+        }
+    }
+
+    private byte[] writeIndex() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            for (int i = 0; i < BLOCK_SIZES.length; i++) {
+                output.writeLong(blockPointer(i));
+                output.writeLong(BLOCK_SIZES[i]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The lookup, that was done by reading an index file from the start for each request
+     */
+    private long scan(long position) {
+        long seekPosition = position;
+        int block = 0;
+        while (seekPosition - BLOCK_SIZES[block] >= 0) {
+            seekPosition -= BLOCK_SIZES[block];
+            block++;
+        }
+        return blockPointer(block) + seekPosition;
+    }
+
+    private static long blockPointer(int block) {
+        return block * BLOCK_DISTANCE << SHIFT;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.reference.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.epam.catgenome.controller.util.UrlTestingUtils;
+
+public class FastaSequenceFileTest {
+
+    private static final String[] CHROMOSOMES = FastaTestUtils.CHROMOSOMES;
+    private static final int[] LENGTHS = {100003, 1234};
+    private static final int BASES_PER_LINE = 70;
+    private static final String LINE_END = "\r\n";
+    private static final int RANGE_COUNT = 1000;
+    private static final int MAX_RANGE_LENGTH = 5000;
+    private static final int TRUNCATED_LENGTH = BASES_PER_LINE * 7;
+    private static final long SEED = FastaTestUtils.SEED;
+    private static final int REMOTE_BLOCK_COUNT = 4;
+    private static final long MODIFICATION_SHIFT = TimeUnit.MINUTES.toMillis(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File fasta;
+    private File index;
+    private String[] sequences;
+
+    @Before
+    public void setup() throws IOException {
+        fasta = folder.newFile("reference.fa");
+        index = folder.newFile("reference.fa.fai");
+        sequences = FastaTestUtils.generateSequences(LENGTHS);
+        writeFasta(sequences, LENGTHS);
+    }
+
+    @Test
+    public void testGetSequence() throws IOException {
+        try (FastaSequenceFile fastaFile = new FastaSequenceFile(fasta.getAbsolutePath(), index.getAbsolutePath())) {
+            Random random = new Random(SEED);
+            for (int i = 0; i < CHROMOSOMES.length; i++) {
+                Assert.assertEquals(sequences[i], new String(fastaFile.getChromosome(CHROMOSOMES[i]),
+                                                             StandardCharsets.US_ASCII));
+                assertSequence(fastaFile, i, 1, 1);
+                assertSequence(fastaFile, i, 1, BASES_PER_LINE);
+                assertSequence(fastaFile, i, BASES_PER_LINE, BASES_PER_LINE + 1);
+                assertSequence(fastaFile, i, BASES_PER_LINE + 1, LENGTHS[i]);
+                assertSequence(fastaFile, i, LENGTHS[i], LENGTHS[i]);
+
+                for (int j = 0; j < RANGE_COUNT; j++) {
+                    int start = random.nextInt(LENGTHS[i]) + 1;
+                    assertSequence(fastaFile, i, start, start + random.nextInt(MAX_RANGE_LENGTH));
+                }
+            }
+
+            Assert.assertEquals(0, fastaFile.getSequence("unknown", 1, BASES_PER_LINE).length);
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() throws IOException {
+        try (FastaSequenceFile fastaFile = new FastaSequenceFile(fasta.getAbsolutePath(), index.getAbsolutePath())) {
+            IntStream.range(0, RANGE_COUNT).parallel().forEach(j -> {
+                Random random = new Random(SEED + j);
+                int i = random.nextInt(CHROMOSOMES.length);
+                int start = random.nextInt(LENGTHS[i]) + 1;
+                assertSequence(fastaFile, i, start, start + random.nextInt(MAX_RANGE_LENGTH));
+            });
+        }
+    }
+
+    @Test
+    public void testRemoteReads() throws Exception {
+        String url = UrlTestingUtils.TEST_FILE_SERVER_URL + '/' + fasta.getName();
+        Server server = UrlTestingUtils.getFileServer(folder.getRoot());
+        try {
+            server.start();
+            // only a few blocks are cached, so that concurrent requests load and evict the same blocks
+            try (FastaSequenceFile fastaFile = new FastaSequenceFile(url, index.getAbsolutePath(),
+                                                                     REMOTE_BLOCK_COUNT)) {
+                for (int i = 0; i < CHROMOSOMES.length; i++) {
+                    Assert.assertEquals(sequences[i], new String(fastaFile.getChromosome(CHROMOSOMES[i]),
+                                                                 StandardCharsets.US_ASCII));
+                    assertSequence(fastaFile, i, BASES_PER_LINE, BASES_PER_LINE + 1);
+                    assertSequence(fastaFile, i, LENGTHS[i], LENGTHS[i]);
+                }
+
+                IntStream.range(0, RANGE_COUNT).parallel().forEach(j -> {
+                    Random random = new Random(SEED + j);
+                    int i = random.nextInt(CHROMOSOMES.length);
+                    int start = random.nextInt(LENGTHS[i]) + 1;
+                    assertSequence(fastaFile, i, start, start + random.nextInt(MAX_RANGE_LENGTH));
+                });
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testReadTruncatedFile() throws IOException {
+        writeFasta(new String[] {sequences[0], sequences[1].substring(0, TRUNCATED_LENGTH)}, LENGTHS);
+        try (FastaSequenceFile fastaFile = new FastaSequenceFile(fasta.getAbsolutePath(), index.getAbsolutePath())) {
+            Assert.assertEquals(sequences[0], new String(fastaFile.getChromosome(CHROMOSOMES[0]),
+                                                         StandardCharsets.US_ASCII));
+            Assert.assertEquals(sequences[1].substring(0, TRUNCATED_LENGTH),
+                                new String(fastaFile.getChromosome(CHROMOSOMES[1]), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testDetectModification() throws IOException {
+        FastaSequenceFile fastaFile = new FastaSequenceFile(fasta.getAbsolutePath(), index.getAbsolutePath());
+        Assert.assertFalse(fastaFile.isModified());
+
+        Assert.assertTrue(fasta.setLastModified(fasta.lastModified() - MODIFICATION_SHIFT));
+        Assert.assertTrue(fastaFile.isModified());
+        fastaFile.close();
+    }
+
+    private void assertSequence(FastaSequenceFile fastaFile, int chromosome, int start, int end) {
+        String expected = sequences[chromosome].substring(start - 1, Math.min(end, LENGTHS[chromosome]));
+        Assert.assertEquals(expected, new String(fastaFile.getSequence(CHROMOSOMES[chromosome], start, end),
+                                                 StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Writes sequences with Windows line endings and an index, stating specified lengths of the sequences
+     */
+    private void writeFasta(String[] fastaSequences, int[] indexedLengths) throws IOException {
+        FastaTestUtils.writeFasta(fasta, index, fastaSequences, indexedLengths, BASES_PER_LINE, LINE_END);
+    }
+}
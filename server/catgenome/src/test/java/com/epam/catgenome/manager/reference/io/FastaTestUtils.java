@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.epam.catgenome.manager.reference.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates indexed FASTA files with random sequences for tests of reference readers and writers
+ */
+public final class FastaTestUtils {
+
+    public static final String[] CHROMOSOMES = {"A1", "A2"};
+    public static final long SEED = 42;
+
+    private static final String NUCLEOTIDES = "ACGTNacgtn";
+
+    private FastaTestUtils() {
+    }
+
+    /**
+     * Generates a random sequence for each of {@link #CHROMOSOMES}, mixing upper and lower case and N bases.
+     * Sequences are the same for the same lengths.
+     */
+    public static String[] generateSequences(int[] lengths) {
+        String[] sequences = new String[CHROMOSOMES.length];
+        Random random = new Random(SEED);
+        for (int i = 0; i < CHROMOSOMES.length; i++) {
+            StringBuilder sequence = new StringBuilder(lengths[i]);
+            for (int j = 0; j < lengths[i]; j++) {
+                sequence.append(NUCLEOTIDES.charAt(random.nextInt(NUCLEOTIDES.length())));
+            }
+            sequences[i] = sequence.toString();
+        }
+        return sequences;
+    }
+
+    /**
+     * Writes sequences of {@link #CHROMOSOMES} to a FASTA file and its index
+     *
+     * @param fasta a FASTA file to write
+     * @param index an index file to write
+     * @param sequences sequences to write
+     * @param indexedLengths lengths of the sequences, stated in the index, may differ from the written ones
+     * @param basesPerLine number of bases in a line
+     * @param lineEnd line ending of the FASTA file
+     */
+    public static void writeFasta(File fasta, File index, String[] sequences, int[] indexedLengths,
+                                  int basesPerLine, String lineEnd) throws IOException {
+        long offset = 0;
+        try (PrintWriter fastaWriter = new PrintWriter(fasta, StandardCharsets.US_ASCII.name());
+             PrintWriter indexWriter = new PrintWriter(index, StandardCharsets.US_ASCII.name())) {
+            for (int i = 0; i < CHROMOSOMES.length; i++) {
+                String header = '>' + CHROMOSOMES[i] + lineEnd;
+                indexWriter.print(String.join("\t", CHROMOSOMES[i], String.valueOf(indexedLengths[i]),
+                                              String.valueOf(offset + header.length()),
+                                              String.valueOf(basesPerLine),
+                                              String.valueOf(basesPerLine + lineEnd.length())) + '\n');
+                StringBuilder content = new StringBuilder(header);
+                for (int j = 0; j < sequences[i].length(); j += basesPerLine) {
+                    content.append(sequences[i], j, Math.min(j + basesPerLine, sequences[i].length()))
+                        .append(lineEnd);
+                }
+                fastaWriter.print(content);
+                offset += content.length();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.reference.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.epam.catgenome.util.BlockCompressedDataOutputStream;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration({"classpath:applicationContext-test.xml"})
+public class NibDataWriterTest {
+
+    private static final String[] CHROMOSOMES = FastaTestUtils.CHROMOSOMES;
+    private static final int[] LENGTHS = {300007, 1234};
+    private static final int BASES_PER_LINE = 60;
+    private static final int[] WINDOW_SIZES = {7, BASES_PER_LINE, 4096, 1024 * 1024};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private NibDataWriter nibDataWriter;
+
+    private FastaSequenceFile fastaFile;
+
+    @Before
+    public void setup() throws IOException {
+        File fasta = folder.newFile("reference.fa");
+        File index = folder.newFile("reference.fa.fai");
+        FastaTestUtils.writeFasta(fasta, index, FastaTestUtils.generateSequences(LENGTHS), LENGTHS, BASES_PER_LINE,
+                                  "\n");
+
+        fastaFile = new FastaSequenceFile(fasta.getAbsolutePath(), index.getAbsolutePath());
+    }
+
+    @Test
+    public void testReadSequenceInWindows() throws IOException {
+        for (String chromosome : CHROMOSOMES) {
+            byte[] expected = fastaFile.getChromosome(chromosome);
+            for (int windowSize : WINDOW_SIZES) {
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                fastaFile.readSequence(chromosome, windowSize, (bases, length) -> {
+                    Assert.assertTrue(length <= windowSize);
+                    actual.write(bases, 0, length);
+                });
+                Assert.assertArrayEquals(expected, actual.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingGCContentMatchesArray() throws IOException {
+        for (String chromosome : CHROMOSOMES) {
+            File expected = folder.newFile(chromosome + ".expected.gc");
+            try (BlockCompressedDataOutputStream stream = new BlockCompressedDataOutputStream(expected)) {
+                nibDataWriter.byteArrayToGCFile(fastaFile.getChromosome(chromosome), stream);
+            }
+
+            for (int windowSize : WINDOW_SIZES) {
+                File actual = folder.newFile(chromosome + '.' + windowSize + ".gc");
+                try (BlockCompressedDataOutputStream stream = new BlockCompressedDataOutputStream(actual)) {
+                    NibDataWriter.GCContentWriter writer = nibDataWriter.makeGCContentWriter(
+                        fastaFile.getSequenceSize(chromosome), stream);
+                    fastaFile.readSequence(chromosome, windowSize, writer::add);
+                    writer.finish();
+                }
+
+                Assert.assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.reference.io;
+
+import com.epam.catgenome.util.BlockCompressedDataInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+public class NibFileCacheTest {
+
+    private static final int DATA_LENGTH = 300000;
+    private static final int READ_LENGTH = 5000;
+    private static final int READS_COUNT = 50;
+    private static final int MAX_INDEXES = 10;
+    private static final int MAX_STREAMS = 2;
+    private static final long MAX_BLOCKS_BYTES = 1024 * 1024;
+    private static final long SMALL_BLOCKS_BYTES = 100000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] data;
+    private File file;
+    private BlockOffsetIndex index;
+
+    @Before
+    public void setup() throws IOException {
+        data = new byte[DATA_LENGTH];
+        new Random(1).nextBytes(data);
+        file = folder.newFile("data.gz");
+        try (BlockCompressedOutputStream output = new BlockCompressedOutputStream(file)) {
+            output.write(data);
+        }
+        index = BlockOffsetIndex.read(new DataInputStream(new ByteArrayInputStream(writeIndex(file))));
+        Assert.assertTrue(index.size() > 1);
+        Assert.assertEquals(DATA_LENGTH, index.getLength());
+    }
+
+    @Test
+    public void testReadsMatchDataAndHitCache() throws IOException {
+        NibFileCache cache = new NibFileCache(MAX_INDEXES, MAX_STREAMS, MAX_BLOCKS_BYTES);
+        Random random = new Random(2);
+        for (int i = 0; i < READS_COUNT; i++) {
+            int position = random.nextInt(DATA_LENGTH - READ_LENGTH);
+            byte[] buffer = new byte[READ_LENGTH];
+            try (NibBlockReader reader = cache.openReader(file, index)) {
+                reader.seek(position);
+                reader.readFully(buffer);
+            }
+            Assert.assertArrayEquals(Arrays.copyOfRange(data, position, position + READ_LENGTH), buffer);
+        }
+
+        Assert.assertEquals(index.size(), cache.getBlockMissCount());
+        Assert.assertTrue(cache.getBlockHitRate() > 0);
+        Assert.assertEquals(DATA_LENGTH, cache.getBlocksBytes());
+        Assert.assertEquals(1, cache.idleStreamsSize());
+
+        cache.invalidate(folder.getRoot());
+        Assert.assertEquals(0, cache.getBlocksBytes());
+        Assert.assertEquals(0, cache.idleStreamsSize());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedBlocks() throws IOException {
+        NibFileCache cache = new NibFileCache(MAX_INDEXES, MAX_STREAMS, SMALL_BLOCKS_BYTES);
+        byte[] buffer = new byte[DATA_LENGTH];
+        try (NibBlockReader reader = cache.openReader(file, index)) {
+            reader.readFully(buffer);
+        }
+        Assert.assertArrayEquals(data, buffer);
+        Assert.assertTrue(cache.getBlocksBytes() <= SMALL_BLOCKS_BYTES);
+        Assert.assertTrue(cache.getBlockEvictionCount() > 0);
+
+        // the last block is still cached
+        long misses = cache.getBlockMissCount();
+        try (NibBlockReader reader = cache.openReader(file, index)) {
+            reader.seek(DATA_LENGTH - 1);
+            reader.readFully(new byte[1]);
+        }
+        Assert.assertEquals(misses, cache.getBlockMissCount());
+    }
+
+    @Test
+    public void testStreamBorrowedDuringInvalidationIsNotReused() throws IOException {
+        NibFileCache cache = new NibFileCache(MAX_INDEXES, MAX_STREAMS, MAX_BLOCKS_BYTES);
+        NibFileCache.StreamHandle handle = cache.acquireStream(file);
+        BlockCompressedDataInputStream borrowed = handle.getStream();
+
+        cache.invalidate(folder.getRoot());
+        handle.close();
+        Assert.assertEquals(0, cache.idleStreamsSize());
+
+        try (NibFileCache.StreamHandle next = cache.acquireStream(file)) {
+            Assert.assertNotSame(borrowed, next.getStream());
+        }
+        Assert.assertEquals(1, cache.idleStreamsSize());
+    }
+
+    @Test
+    public void testFailedSeekOpensNewStream() throws IOException {
+        NibFileCache cache = new NibFileCache(MAX_INDEXES, MAX_STREAMS, MAX_BLOCKS_BYTES);
+        BlockCompressedDataInputStream broken;
+        try (NibFileCache.StreamHandle handle = cache.acquireStream(file)) {
+            broken = handle.getStream();
+        }
+        broken.close(); // a closed stream can't seek
+
+        try (NibFileCache.StreamHandle handle = cache.acquireStream(file)) {
+            Assert.assertNotSame(broken, handle.getStream());
+            byte[] buffer = new byte[READ_LENGTH];
+            Assert.assertEquals(READ_LENGTH, handle.getStream().read(buffer));
+            Assert.assertArrayEquals(Arrays.copyOf(data, READ_LENGTH), buffer);
+        }
+    }
+
+    /**
+     * Writes an index the same way, as {@code FileManager} does for reference files
+     */
+    private byte[] writeIndex(File compressed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BlockCompressedDataInputStream stream = new BlockCompressedDataInputStream(compressed);
+             DataOutputStream indexStream = new DataOutputStream(bytes)) {
+            do {
+                final long seekPos = stream.available();
+                final long filePosition = stream.getFilePointer();
+                indexStream.writeLong(filePosition);
+                indexStream.writeLong(seekPos);
+                stream.seek(filePosition + seekPos - 1);
+                stream.read();
+            } while (stream.available() != 0);
+        }
+        return bytes.toByteArray();
+    }
+}
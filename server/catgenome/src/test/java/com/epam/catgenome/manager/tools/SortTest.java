@@ -28,11 +28,15 @@ import com.epam.catgenome.common.AbstractJUnitTest;
 import com.epam.catgenome.controller.tools.FeatureFileSortRequest;
 import com.epam.catgenome.manager.gene.parser.GffCodec;
 import com.epam.catgenome.util.NgbFileUtils;
+import com.epam.catgenome.util.sort.FeatureSorterFactory;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.CloseableTribbleIterator;
 import htsjdk.tribble.Feature;
 import htsjdk.tribble.FeatureCodec;
 import htsjdk.tribble.bed.BEDCodec;
+import htsjdk.tribble.bed.BEDFeature;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.tribble.util.TabixUtils;
 import htsjdk.variant.vcf.VCFCodec;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -58,6 +62,8 @@ public class SortTest extends AbstractJUnitTest {
     private static final int UNSORTED_BED_EXPECTED_LINES = 9;
     private static final int GENE_SORTED_BED_EXPECTED_LINES = 141;
     private static final int BIG_BED_EXPECTED_LINES = 8178;
+    private static final int SORT_THREADS = 4;
+    private static final int QUERY_END = 1000000;
 
     @Autowired
     private ToolsManager toolsManager;
@@ -77,6 +83,38 @@ public class SortTest extends AbstractJUnitTest {
         testSort(getTemplate("big.bed.gz"), new BEDCodec(), BIG_BED_EXPECTED_LINES, 1);
     }
 
+    @Test
+    public void testSortedCompressedFileIndexed() throws Exception {
+        File infile = getTemplate("big.bed.gz");
+        File ofile = new File(infile + ".sorted.gz");
+        File indexFile = new File(ofile + TabixUtils.STANDARD_INDEX_EXTENSION);
+        ofile.deleteOnExit();
+        indexFile.deleteOnExit();
+
+        FeatureSorterFactory.getSorter(infile, ofile, fileManager.getTempDir()).run(1, SORT_THREADS);
+        assertEquals(BIG_BED_EXPECTED_LINES, checkFileSorted(ofile, new BEDCodec()));
+        assertTrue(indexFile.exists());
+
+        try (AbstractFeatureReader<BEDFeature, LineIterator> reader = AbstractFeatureReader.getFeatureReader(
+                ofile.getAbsolutePath(), indexFile.getAbsolutePath(), new BEDCodec(), true)) {
+            BEDFeature first = reader.iterator().next();
+            int expected = 0;
+            for (BEDFeature feature : reader.iterator()) {
+                if (feature.getContig().equals(first.getContig()) && feature.getStart() <= QUERY_END) {
+                    expected++;
+                }
+            }
+
+            int queried = 0;
+            for (BEDFeature feature : reader.query(first.getContig(), 1, QUERY_END)) {
+                assertEquals(first.getContig(), feature.getContig());
+                queried++;
+            }
+            assertTrue(expected > 0);
+            assertEquals(expected, queried);
+        }
+    }
+
     @Test
     public void testSortVCF() throws Exception {
         testSort(getTemplate("invalid/unsorted.vcf"), new VCFCodec());
@@ -32,6 +32,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.epam.catgenome.component.MessageHelper;
@@ -175,6 +176,12 @@ public class VcfManagerTest extends AbstractManagerTest {
     private static final double TEST_SMALL_SCALE_FACTOR = 0.000007682737;
 
     private static final int TEST_CHROMOSOME_SIZE = 239107476;
+    private static final String CLASSPATH_TEMPLATES_SAMPLES_VCF = "classpath:templates/samples.vcf";
+    private static final double SV_SCALE_FACTOR = 0.00001;
+    private static final int NUMBER_OF_STRUCTURAL_VARIATIONS = 2;
+    private static final String CLASSPATH_TEMPLATES_NO_VARIATION_VCF = "classpath:templates/no_variation.vcf";
+    private static final int NO_VARIATION_FIRST = 100;
+    private static final int NO_VARIATION_LAST = 400;
     private static final int GENE_POSTION = 35471;
     private static final String SAMPLE_NAME = "HG00702";
     private static final int NUMBER_OF_FILTERS = 2;
@@ -284,6 +291,47 @@ public class VcfManagerTest extends AbstractManagerTest {
         Assert.assertTrue(ambiguousVariations.isEmpty());
     }
 
+    /**
+     * Tests loading of a zoomed out track from a summary, built on registration. Each variation should be counted
+     * by a single collapsed variation
+     */
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testLoadSmallScaleVcfFileFromSummary() throws IOException, InterruptedException, VcfReadingException {
+        VcfFile vcfFile = testSave(CLASSPATH_TEMPLATES_FELIS_CATUS_VCF);
+
+        List<Variation> variations = loadChromosome(vcfFile, 1.0);
+        List<Variation> collapsed = loadChromosome(vcfFile, TEST_SMALL_SCALE_FACTOR);
+        Assert.assertTrue(collapsed.size() < variations.size());
+        Assert.assertTrue(collapsed.stream().anyMatch(v -> v.getType() == VariationType.STATISTIC));
+
+        int counted = collapsed.stream()
+            .mapToInt(v -> v.getType() == VariationType.BND ? 1 : v.getVariationsCount())
+            .sum();
+        Assert.assertEquals(variations.size(), counted);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testLoadStructuralVariationsFromSummary()
+        throws IOException, InterruptedException, VcfReadingException {
+        VcfFile vcfFile = testSave(CLASSPATH_TEMPLATES_SAMPLES_VCF);
+
+        // loading info makes variations to be collapsed from the file instead of the summary
+        List<Variation> variations = loadChromosome(vcfFile, 1.0, false);
+        List<Variation> fromSummary = loadChromosome(vcfFile, SV_SCALE_FACTOR, false);
+        List<Variation> fromFile = loadChromosome(vcfFile, SV_SCALE_FACTOR, true);
+
+        Set<String> summaryExtending = getExtendingVariations(fromSummary);
+        Assert.assertEquals(NUMBER_OF_STRUCTURAL_VARIATIONS, summaryExtending.size());
+        Assert.assertEquals(getExtendingVariations(fromFile), summaryExtending);
+
+        int counted = fromSummary.stream()
+            .mapToInt(v -> v.getVariationsCount() == null ? 1 : v.getVariationsCount())
+            .sum();
+        Assert.assertEquals(variations.size(), counted);
+    }
+
     @Test
     @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
     public void testLoadSmallScaleVcfFileGa4GH() throws IOException, InterruptedException, NoSuchAlgorithmException,
@@ -656,6 +704,25 @@ public class VcfManagerTest extends AbstractManagerTest {
         logger.info("success, next feature variation for GA4GH");
     }
 
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testGetNextFeatureSkipsNoVariation() throws IOException, InterruptedException,
+                                                           VcfReadingException {
+        VcfFile vcfFile = testSave(CLASSPATH_TEMPLATES_NO_VARIATION_VCF);
+        Long sampleId = vcfFile.getSamples().get(0).getId();
+
+        // a site without alternative alleles and a homozygous reference call are skipped
+        Variation next = vcfManager.getNextOrPreviousVariation(NO_VARIATION_FIRST, vcfFile.getId(), sampleId,
+                                                               testChromosome.getId(), true, null, null);
+        Assert.assertNotNull(next);
+        Assert.assertEquals(NO_VARIATION_LAST, next.getStartIndex().intValue());
+
+        Variation previous = vcfManager.getNextOrPreviousVariation(NO_VARIATION_LAST, vcfFile.getId(), sampleId,
+                                                                   testChromosome.getId(), false, null, null);
+        Assert.assertNotNull(previous);
+        Assert.assertEquals(NO_VARIATION_FIRST, previous.getStartIndex().intValue());
+    }
+
     @Test
     @Ignore
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -922,6 +989,35 @@ public class VcfManagerTest extends AbstractManagerTest {
         return trackResult;
     }
 
+    private List<Variation> loadChromosome(VcfFile vcfFile, double scaleFactor) throws VcfReadingException {
+        return loadChromosome(vcfFile, scaleFactor, false);
+    }
+
+    private List<Variation> loadChromosome(VcfFile vcfFile, double scaleFactor, boolean loadInfo)
+        throws VcfReadingException {
+        TrackQuery vcfTrackQuery = new TrackQuery();
+        vcfTrackQuery.setChromosomeId(testChromosome.getId());
+        vcfTrackQuery.setStartIndex(1);
+        vcfTrackQuery.setEndIndex(testChromosome.getSize());
+        vcfTrackQuery.setId(vcfFile.getId());
+        vcfTrackQuery.setScaleFactor(scaleFactor);
+
+        Track<Variation> variationTrack = Query2TrackConverter.convertToTrack(vcfTrackQuery);
+        return vcfManager.loadVariations(variationTrack, null, loadInfo, true).getBlocks();
+    }
+
+    /**
+     * @return intervals of variations, that are longer, than a window of {@code SV_SCALE_FACTOR}, and so should be
+     * shown as they are
+     */
+    private Set<String> getExtendingVariations(List<Variation> variations) {
+        int step = (int) Math.ceil(1 / SV_SCALE_FACTOR);
+        return variations.stream()
+            .filter(v -> v.getType() != VariationType.STATISTIC && v.getEndIndex() - v.getStartIndex() > step)
+            .map(v -> v.getStartIndex() + "-" + v.getEndIndex())
+            .collect(Collectors.toSet());
+    }
+
     private Track<Variation> testLoadGA4GH(VcfFile vcfFile, Double scaleFactor, boolean checkBlocks, Long sampleIndex)
         throws VcfReadingException {
         TrackQuery vcfTrackQuery = new TrackQuery();
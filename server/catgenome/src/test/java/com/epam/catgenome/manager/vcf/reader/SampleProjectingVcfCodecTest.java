@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.manager.vcf.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
+
+public class SampleProjectingVcfCodecTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SampleProjectingVcfCodecTest.class);
+
+    private static final int SAMPLES_COUNT = 300;
+    private static final int VARIATIONS_COUNT = 2000;
+    private static final int BENCHMARK_SAMPLES_COUNT = 2000;
+    private static final int BENCHMARK_VARIATIONS_COUNT = 1000;
+    private static final int BENCHMARK_RUNS = 3;
+    private static final int PROJECTED_SAMPLE = 137;
+    private static final int STEP = 100;
+    private static final int STRUCTURAL_PERIOD = 10;
+    private static final int STRUCTURAL_LENGTH = 50;
+    private static final String[] GENOTYPES = {"0/0", "0/1", "1/1", "./.", "1|0"};
+    private static final String CHROMOSOME = "A1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testProjectedSampleMatchesFullDecoding() throws IOException {
+        File vcf = writeVcf(SAMPLES_COUNT, VARIATIONS_COUNT);
+        List<VariantContext> full = readAll(vcf, new VCFCodec(), null, true);
+        List<VariantContext> projected = readAll(vcf, new SampleProjectingVcfCodec(), PROJECTED_SAMPLE, false);
+
+        Assert.assertEquals(full.size(), projected.size());
+        for (int i = 0; i < full.size(); i++) {
+            VariantContext expected = full.get(i);
+            VariantContext actual = projected.get(i);
+            Assert.assertEquals(expected.getStart(), actual.getStart());
+            Assert.assertEquals(expected.getEnd(), actual.getEnd());
+            Assert.assertEquals(expected.getAlleles(), actual.getAlleles());
+            Assert.assertEquals(expected.getType(), actual.getType());
+            Assert.assertEquals(1, actual.getNSamples());
+
+            Genotype expectedGenotype = expected.getGenotype(PROJECTED_SAMPLE);
+            Genotype actualGenotype = actual.getGenotype(SampleProjectingVcfCodec.PROJECTED_SAMPLE_INDEX);
+            Assert.assertEquals(expectedGenotype.getSampleName(), actualGenotype.getSampleName());
+            Assert.assertEquals(expectedGenotype.getType(), actualGenotype.getType());
+            Assert.assertEquals(expectedGenotype.getAlleles(), actualGenotype.getAlleles());
+            Assert.assertEquals(expectedGenotype.getDP(), actualGenotype.getDP());
+
+            // only INFO fields, required to build a variation, are decoded
+            Assert.assertFalse(actual.hasAttribute("DP"));
+            Assert.assertEquals(expected.hasAttribute(VCFConstants.END_KEY),
+                                actual.hasAttribute(VCFConstants.END_KEY));
+        }
+    }
+
+    @Test
+    public void testNoSampleAndInfoProjection() throws IOException {
+        File vcf = writeVcf(SAMPLES_COUNT, VARIATIONS_COUNT);
+        List<VariantContext> projected = readAll(vcf, new SampleProjectingVcfCodec(), null, true);
+
+        Assert.assertEquals(VARIATIONS_COUNT, projected.size());
+        for (VariantContext context : projected) {
+            Assert.assertEquals(0, context.getNSamples());
+            Assert.assertTrue(context.hasAttribute("DP"));
+        }
+    }
+
+    /**
+     * Compares decoding of a synthetic cohort VCF with all samples to decoding of a single projected sample
+     */
+    @Ignore
+    @Test
+    public void benchmarkProjectedDecoding() throws IOException {
+        File vcf = writeVcf(BENCHMARK_SAMPLES_COUNT, BENCHMARK_VARIATIONS_COUNT);
+        long fullTime = Long.MAX_VALUE;
+        long projectedTime = Long.MAX_VALUE;
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            long start = System.nanoTime();
+            readAll(vcf, new VCFCodec(), PROJECTED_SAMPLE, true);
+            fullTime = Math.min(fullTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            readAll(vcf, new SampleProjectingVcfCodec(), PROJECTED_SAMPLE, false);
+            projectedTime = Math.min(projectedTime, System.nanoTime() - start);
+        }
+
+        LOGGER.info("Decoding of {} variations with {} samples: full {} ms, projected {} ms",
+                    BENCHMARK_VARIATIONS_COUNT, BENCHMARK_SAMPLES_COUNT, TimeUnit.NANOSECONDS.toMillis(fullTime),
+                    TimeUnit.NANOSECONDS.toMillis(projectedTime));
+    }
+
+    /**
+     * Reads all variations of a file and accesses a genotype of a sample, as a track request does
+     */
+    private List<VariantContext> readAll(File vcf, VCFCodec codec, Integer sampleIndex, boolean loadInfo)
+            throws IOException {
+        List<VariantContext> contexts = new ArrayList<>();
+        try (FeatureReader<VariantContext> reader = AbstractFeatureReader.getFeatureReader(vcf.getAbsolutePath(),
+                codec, false)) {
+            Integer index = sampleIndex;
+            if (codec instanceof SampleProjectingVcfCodec) {
+                index = ((SampleProjectingVcfCodec) codec).project(sampleIndex, loadInfo);
+            }
+
+            try (CloseableIterator<VariantContext> iterator = reader.iterator()) {
+                while (iterator.hasNext()) {
+                    VariantContext context = iterator.next();
+                    if (index != null) {
+                        context.getGenotype(index).getType();
+                    }
+                    contexts.add(context);
+                }
+            }
+        }
+        return contexts;
+    }
+
+    private File writeVcf(int samplesCount, int variationsCount) throws IOException {
+        File vcf = folder.newFile();
+        Random random = new Random(samplesCount);
+        try (PrintWriter writer = new PrintWriter(vcf)) {
+            writer.println("##fileformat=VCFv4.2");
+            writer.println("##contig=<ID=" + CHROMOSOME + ">");
+            writer.println("##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Total Depth\">");
+            writer.println("##INFO=<ID=END,Number=1,Type=Integer,Description=\"End position\">");
+            writer.println("##INFO=<ID=SVTYPE,Number=1,Type=String,Description=\"Type of variant\">");
+            writer.println("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">");
+            writer.println("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read Depth\">");
+            StringBuilder header = new StringBuilder("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT");
+            for (int i = 0; i < samplesCount; i++) {
+                header.append("\tS").append(i);
+            }
+            writer.println(header);
+
+            for (int i = 1; i <= variationsCount; i++) {
+                int position = i * STEP;
+                StringBuilder line = new StringBuilder(CHROMOSOME).append('\t').append(position).append("\t.\tA\t");
+                if (i % STRUCTURAL_PERIOD == 0) {
+                    line.append("<DEL>\t50\tPASS\tSVTYPE=DEL;END=").append(position + STRUCTURAL_LENGTH)
+                        .append(";DP=").append(i);
+                } else {
+                    line.append("G\t50\tPASS\tDP=").append(i);
+                }
+                line.append("\tGT:DP");
+                for (int j = 0; j < samplesCount; j++) {
+                    line.append('\t').append(GENOTYPES[random.nextInt(GENOTYPES.length)]).append(':')
+                        .append(random.nextInt(STEP));
+                }
+                writer.println(line);
+            }
+        }
+        return vcf;
+    }
+}
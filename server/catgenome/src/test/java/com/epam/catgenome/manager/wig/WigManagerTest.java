@@ -25,10 +25,14 @@
 package com.epam.catgenome.manager.wig;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
+import org.jetbrains.bio.big.WigSection;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -53,8 +57,12 @@ import com.epam.catgenome.entity.track.Track;
 import com.epam.catgenome.entity.wig.Wig;
 import com.epam.catgenome.entity.wig.WigFile;
 import com.epam.catgenome.exception.FeatureFileReadingException;
+import com.epam.catgenome.manager.FileManager;
+import com.epam.catgenome.manager.TrackHelper;
 import com.epam.catgenome.manager.reference.ReferenceManager;
 import com.epam.catgenome.util.Utils;
+import gnu.trove.list.TFloatList;
+import gnu.trove.list.array.TFloatArrayList;
 /**
  * Source:      WigManagerTest.java
  * Created:     1/26/2016
@@ -81,6 +89,9 @@ public class WigManagerTest extends AbstractManagerTest {
     @Autowired
     private ReferenceManager referenceManager;
 
+    @Autowired
+    private FileManager fileManager;
+
     private Logger logger = LoggerFactory.getLogger(WigManagerTest.class);
 
     private static final String TEST_NSAME = "BIG " + WigManagerTest.class.getSimpleName();
@@ -89,11 +100,22 @@ public class WigManagerTest extends AbstractManagerTest {
     private Resource resource;
     private Reference testReference;
     private long testChromosomeId;
+    private Chromosome testChromosome;
     private String chromosomeName = "X";
     private static final int TEST_START_INDEX = 12587700;
     private static final int TEST_END_INDEX = 12589800;
     private static final double TEST_SCALE_FACTOR = 0.01;
     private static final double TEST_SMALL_SCALE_FACTOR = 0.00001;
+    private static final int BENCHMARK_BLOCKS_COUNT = 2000;
+    private static final int BENCHMARK_RUNS = 5;
+    private static final float DELTA = 0.0001f;
+    private static final int[] DOWNSAMPLING_LEVELS = {1000, 10000, 100000, 1000000};
+    private static final int SUMMARY_WINDOW = 100000;
+    private static final int MERGE_FACTOR = 3;
+    private static final float[] WINDOW_VALUES = {1F, 5F, 2F, 0F, 7F, 3F, 4F};
+    private static final float[] MERGED_VALUES = {5F, 7F, 4F};
+    private static final int SECTION_WINDOW = 100;
+    private static final int SECTION_CHROMOSOME_LENGTH = 650;
 
     @Before
     public void setup() throws IOException {
@@ -109,6 +131,7 @@ public class WigManagerTest extends AbstractManagerTest {
         for (Chromosome chromosome : chromosomeList) {
             if (chromosome.getName().equals(chromosomeName)) {
                 testChromosomeId = chromosome.getId();
+                testChromosome = chromosome;
                 break;
             }
         }
@@ -163,6 +186,135 @@ public class WigManagerTest extends AbstractManagerTest {
         Assert.assertNull(loadWigFile);
     }
 
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testBatchedSummarizeMatchesPerBlock() throws IOException {
+        final String path = resource.getFile().getAbsolutePath() + TEST_WIG;
+        Track<Wig> track = new Track<>();
+        track.setStartIndex(1);
+        track.setEndIndex(TEST_END_INDEX);
+        track.setScaleFactor((double) BENCHMARK_BLOCKS_COUNT / TEST_END_INDEX);
+
+        try (BigWigReader reader = BigWigReader.open(Paths.get(path))) {
+            String realName = reader.findChromosome(chromosomeName);
+            Assert.assertNotNull(realName);
+
+            List<Wig> perBlock = Collections.emptyList();
+            List<Wig> batched = Collections.emptyList();
+            double perBlockTime = 0;
+            double batchedTime = 0;
+            for (int i = 0; i < BENCHMARK_RUNS; i++) {
+                TrackHelper.fillBlocks(track, indexes -> new Wig(indexes.getLeft(), indexes.getRight()));
+                perBlock = track.getBlocks();
+                double time1 = Utils.getSystemTimeMilliseconds();
+                reader.fillEachBlock(realName, perBlock);
+                double time2 = Utils.getSystemTimeMilliseconds();
+                perBlockTime += time2 - time1;
+
+                TrackHelper.fillBlocks(track, indexes -> new Wig(indexes.getLeft(), indexes.getRight()));
+                batched = track.getBlocks();
+                time1 = Utils.getSystemTimeMilliseconds();
+                reader.fillBlocks(chromosomeName, batched);
+                time2 = Utils.getSystemTimeMilliseconds();
+                batchedTime += time2 - time1;
+            }
+
+            logger.info("Summarizing {} blocks took {} ms per block and {} ms batched on average", perBlock.size(),
+                        perBlockTime / BENCHMARK_RUNS, batchedTime / BENCHMARK_RUNS);
+
+            Assert.assertEquals(perBlock.size(), batched.size());
+            for (int i = 0; i < perBlock.size(); i++) {
+                Assert.assertEquals(perBlock.get(i).getValue(), batched.get(i).getValue(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testSummarizeWindowsMatchesPerBlock() throws IOException {
+        final String path = resource.getFile().getAbsolutePath() + TEST_WIG;
+        try (BigWigReader reader = BigWigReader.open(Paths.get(path))) {
+            String realName = reader.findChromosome(chromosomeName);
+            Assert.assertNotNull(realName);
+
+            int length = testChromosome.getSize();
+            TFloatList windows = reader.summarizeWindows(realName, length, SUMMARY_WINDOW);
+
+            List<Wig> blocks = new ArrayList<>();
+            for (int start = 0; start < length; start += SUMMARY_WINDOW) {
+                blocks.add(new Wig(start + 1, Math.min(start + SUMMARY_WINDOW, length)));
+            }
+            reader.fillEachBlock(realName, blocks);
+
+            Assert.assertEquals(blocks.size(), windows.size());
+            for (int i = 0; i < blocks.size(); i++) {
+                Assert.assertEquals(blocks.get(i).getValue(), windows.get(i), DELTA);
+            }
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testMergeWindows() {
+        // the last group of windows is incomplete
+        TFloatList merged = BigWigReader.mergeWindows(new TFloatArrayList(WINDOW_VALUES), MERGE_FACTOR);
+        Assert.assertArrayEquals(MERGED_VALUES, merged.toArray(), DELTA);
+
+        Assert.assertArrayEquals(WINDOW_VALUES, BigWigReader.mergeWindows(new TFloatArrayList(WINDOW_VALUES), 1)
+            .toArray(), DELTA);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testLevelSectionsAreClampedToChromosome() {
+        TFloatList values = new TFloatArrayList(WINDOW_VALUES);
+        List<WigSection> sections = WigManager.createLevelSections(chromosomeName, SECTION_CHROMOSOME_LENGTH,
+                                                                   SECTION_WINDOW, values);
+        Assert.assertEquals(2, sections.size());
+        Assert.assertEquals(0, sections.get(0).getStart());
+        Assert.assertEquals(SECTION_CHROMOSOME_LENGTH / SECTION_WINDOW * SECTION_WINDOW, sections.get(0).getEnd());
+        Assert.assertEquals(sections.get(0).getEnd(), sections.get(1).getStart());
+        Assert.assertEquals(SECTION_CHROMOSOME_LENGTH, sections.get(1).getEnd());
+
+        // a chromosome, which length is a multiple of the window, has no short window
+        int length = (WINDOW_VALUES.length - 1) * SECTION_WINDOW;
+        sections = WigManager.createLevelSections(chromosomeName, length, SECTION_WINDOW,
+                                                  values.subList(0, WINDOW_VALUES.length - 1));
+        Assert.assertEquals(1, sections.size());
+        Assert.assertEquals(length, sections.get(0).getEnd());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void testDownsampledLevelChoice() throws IOException {
+        FileRegistrationRequest request = new FileRegistrationRequest();
+        request.setPath(resource.getFile().getAbsolutePath() + TEST_WIG);
+        request.setReferenceId(testReference.getId());
+        WigFile wigFile = wigManager.registerWigFile(request);
+
+        for (int level : DOWNSAMPLING_LEVELS) {
+            String levelPath = fileManager.getWigFilePath(wigFile, testChromosome, level);
+            Assert.assertNotNull(levelPath);
+            // a block of a level's window and a block, that is a bit larger, are read from the level
+            Assert.assertEquals(levelPath, wigManager.getDownsampledPath(wigFile, makeTrack(1.0 / level),
+                                                                         testChromosome));
+            Assert.assertEquals(levelPath, wigManager.getDownsampledPath(wigFile, makeTrack(1.0 / (level + 1)),
+                                                                         testChromosome));
+        }
+
+        // blocks, that are smaller than any level, are read from the original file
+        Assert.assertEquals(wigFile.getPath(), wigManager.getDownsampledPath(wigFile, makeTrack(1.0),
+                                                                             testChromosome));
+        Assert.assertEquals(wigFile.getPath(), wigManager.getDownsampledPath(
+            wigFile, makeTrack(1.0 / (DOWNSAMPLING_LEVELS[0] - 1)), testChromosome));
+    }
+
+    private Track<Wig> makeTrack(double scaleFactor) {
+        Track<Wig> track = new Track<>();
+        track.setScaleFactor(scaleFactor);
+        return track;
+    }
+
     @Test
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void testRegisterUnsorted()
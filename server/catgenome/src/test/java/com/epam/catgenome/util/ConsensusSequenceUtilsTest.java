@@ -24,21 +24,22 @@
 
 package com.epam.catgenome.util;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.Mockito;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import com.epam.catgenome.entity.reference.Sequence;
 import com.epam.catgenome.entity.track.Track;
 import com.epam.catgenome.entity.track.TrackType;
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 
 /**
@@ -58,6 +59,8 @@ public class ConsensusSequenceUtilsTest {
     private static final String READ_5 = "ATGCC";
     private static final String READ_6 = "ATGGC";
     private static final String READ_7 = "CTGA";
+    private static final String MATCH_5 = "5M";
+    private static final String MATCH_4 = "4M";
     private static final int TRACK_START_INDEX = 1;
     private static final int SEQUENCE_1_START_INDEX = 1;
     private static final int SEQUENCE_2_START_INDEX = 6;
@@ -66,7 +69,18 @@ public class ConsensusSequenceUtilsTest {
     private static final int SEQUENCE_1_END_INDEX = 5;
     private static final int SEQUENCE_2_END_INDEX = 10;
     private static final int SEQUENCE_3_END_INDEX = 14;
-    private static final int INITIAL_CAPACITY = 3;
+
+    // soft clip, match, insertion, match, deletion, match and a skipped region
+    private static final String CIGAR_READ = "ccGGGGGttAAAAACCCCCTTTTT";
+    private static final String CIGAR = "2S5M2I5M3D5M4N5M";
+    private static final int CIGAR_READ_START = 3;
+
+    private static final int RANDOM_TRACK_LENGTH = 5000;
+    private static final int RANDOM_BLOCK_SIZE = 7;
+    private static final int RANDOM_READS_COUNT = 2000;
+    private static final int RANDOM_READ_LENGTH = 100;
+    private static final int REGIONS_COUNT = 3;
+    private static final long SEED = 42;
 
     @Test
     public void testCalculateConsensusSequence() {
@@ -79,27 +93,16 @@ public class ConsensusSequenceUtilsTest {
         track.setBlocks(Arrays.asList(sequence1, sequence2, sequence3));
 
         // Init test reads.
-        Map<Sequence, List<SAMRecord>> blockToReadsMap = new HashMap<>(INITIAL_CAPACITY);
-        SAMRecord samRecord1 = Mockito.mock(SAMRecord.class);
-        Mockito.when(samRecord1.getReadString()).thenReturn(READ_1);
-        SAMRecord samRecord2 = Mockito.mock(SAMRecord.class);
-        Mockito.when(samRecord2.getReadString()).thenReturn(READ_2);
-        SAMRecord samRecord3 = Mockito.mock(SAMRecord.class);
-        Mockito.when(samRecord3.getReadString()).thenReturn(READ_3);
-        SAMRecord samRecord4 = Mockito.mock(SAMRecord.class);
-        Mockito.when(samRecord4.getReadString()).thenReturn(READ_4);
-        SAMRecord samRecord5 = Mockito.mock(SAMRecord.class);
-        Mockito.when(samRecord5.getReadString()).thenReturn(READ_5);
-        SAMRecord samRecord6 = Mockito.mock(SAMRecord.class);
-        Mockito.when(samRecord6.getReadString()).thenReturn(READ_6);
-        SAMRecord samRecord7 = Mockito.mock(SAMRecord.class);
-        Mockito.when(samRecord7.getReadString()).thenReturn(READ_7);
-
-        blockToReadsMap.put(sequence1, Arrays.asList(samRecord1, samRecord2, samRecord3));
-        blockToReadsMap.put(sequence2, Arrays.asList(samRecord4, samRecord5));
-        blockToReadsMap.put(sequence3, Arrays.asList(samRecord6, samRecord7));
-
-        ConsensusSequenceUtils.calculateConsensusSequence(track, blockToReadsMap);
+        ConsensusPileup pileup = new ConsensusPileup(track.getBlocks(), TRACK_START_INDEX, TRACK_END_INDEX);
+        pileup.add(makeRead(SEQUENCE_1_START_INDEX, MATCH_5, READ_1));
+        pileup.add(makeRead(SEQUENCE_1_START_INDEX, MATCH_5, READ_2));
+        pileup.add(makeRead(SEQUENCE_1_START_INDEX, MATCH_5, READ_3));
+        pileup.add(makeRead(SEQUENCE_2_START_INDEX, MATCH_5, READ_4));
+        pileup.add(makeRead(SEQUENCE_2_START_INDEX, MATCH_5, READ_5));
+        pileup.add(makeRead(SEQUENCE_3_START_INDEX, MATCH_5, READ_6));
+        pileup.add(makeRead(SEQUENCE_3_START_INDEX, MATCH_4, READ_7));
+
+        ConsensusSequenceUtils.calculateConsensusSequence(track, pileup);
 
         Assert.assertNotNull(track);
         Assert.assertNotNull(track.getBlocks());
@@ -111,4 +114,70 @@ public class ConsensusSequenceUtilsTest {
         Assert.assertEquals(track.getBlocks().get(2).getText(), "N");
     }
 
+    @Test
+    public void testPileupFollowsCigar() {
+        List<Sequence> blocks = new ArrayList<>();
+        for (int i = 1; i <= CIGAR_READ.length() * 2; i++) {
+            blocks.add(new Sequence(i, i));
+        }
+        ConsensusPileup pileup = new ConsensusPileup(blocks, 1, blocks.size());
+        pileup.add(makeRead(CIGAR_READ_START, CIGAR, CIGAR_READ));
+
+        // reference positions of aligned bases, clipped and inserted bases are skipped, deletions are gaps
+        String expected = "..GGGGGAAAAA...CCCCC....TTTTT";
+        for (int i = 0; i < blocks.size(); i++) {
+            char base = i < expected.length() ? expected.charAt(i) : '.';
+            Assert.assertEquals(base == '.' ? 0 : 1, pileup.getTotalCount(i));
+            if (base != '.') {
+                Assert.assertEquals(1, pileup.getCount(i, "ACGT".indexOf(base)));
+            }
+        }
+    }
+
+    @Test
+    public void testMergedRegionsMatchWholeInterval() {
+        Random random = new Random(SEED);
+        List<Sequence> blocks = new ArrayList<>();
+        for (int i = 1; i <= RANDOM_TRACK_LENGTH; i += RANDOM_BLOCK_SIZE) {
+            blocks.add(new Sequence(i, Math.min(i + RANDOM_BLOCK_SIZE - 1, RANDOM_TRACK_LENGTH)));
+        }
+
+        List<SAMRecord> reads = new ArrayList<>(RANDOM_READS_COUNT);
+        for (int i = 0; i < RANDOM_READS_COUNT; i++) {
+            StringBuilder bases = new StringBuilder(RANDOM_READ_LENGTH);
+            for (int j = 0; j < RANDOM_READ_LENGTH; j++) {
+                bases.append("ACGTN".charAt(random.nextInt(ConsensusPileup.BASES_COUNT)));
+            }
+            int split = random.nextInt(RANDOM_READ_LENGTH - 1) + 1;
+            String cigar = split + "M" + random.nextInt(RANDOM_BLOCK_SIZE) + "N" + (RANDOM_READ_LENGTH - split) + "M";
+            reads.add(makeRead(random.nextInt(RANDOM_TRACK_LENGTH) + 1, cigar, bases.toString()));
+        }
+
+        ConsensusPileup whole = new ConsensusPileup(blocks, 1, RANDOM_TRACK_LENGTH);
+        reads.forEach(whole::add);
+
+        List<ConsensusPileup> regions = new ArrayList<>(REGIONS_COUNT);
+        for (int i = 0; i < REGIONS_COUNT; i++) {
+            ConsensusPileup region = new ConsensusPileup(blocks, RANDOM_TRACK_LENGTH * i / REGIONS_COUNT + 1,
+                                                         RANDOM_TRACK_LENGTH * (i + 1) / REGIONS_COUNT);
+            reads.forEach(region::add);
+            regions.add(region);
+        }
+        Collections.shuffle(regions, random);
+        ConsensusPileup merged = regions.get(0).merge(regions);
+
+        for (int i = 0; i < blocks.size(); i++) {
+            for (int base = 0; base < ConsensusPileup.BASES_COUNT; base++) {
+                Assert.assertEquals(whole.getCount(i, base), merged.getCount(i, base));
+            }
+        }
+    }
+
+    private static SAMRecord makeRead(int start, String cigar, String bases) {
+        SAMRecord record = new SAMRecord(new SAMFileHeader());
+        record.setAlignmentStart(start);
+        record.setCigarString(cigar);
+        record.setReadString(bases);
+        return record;
+    }
 }
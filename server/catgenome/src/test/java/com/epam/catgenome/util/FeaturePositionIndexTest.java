@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FeaturePositionIndexTest {
+
+    private static final int[][] FEATURES = {{10, 20}, {15, 100}, {30, 40}, {50, 55}, {50, 60}, {70, 80}};
+    private static final int INSIDE_LONG_FEATURE = 45;
+    private static final int AFTER_ALL = 200;
+
+    @Test
+    public void testFindNextAndPrevious() {
+        FeaturePositionIndex index = buildIndex(false);
+
+        Assert.assertEquals(FEATURES.length, index.size());
+        Assert.assertEquals(FEATURES[3][0], index.getStart(index.findFirstStartingAfter(INSIDE_LONG_FEATURE)));
+        Assert.assertEquals(-1, index.findFirstStartingAfter(AFTER_ALL));
+
+        // the long feature overlaps the position, so it is the first one, ending after it
+        Assert.assertEquals(1, index.findFirstEndingAfter(INSIDE_LONG_FEATURE));
+        Assert.assertEquals(-1, index.findFirstEndingAfter(AFTER_ALL));
+
+        Assert.assertEquals(2, index.findLastStartingBefore(INSIDE_LONG_FEATURE));
+        Assert.assertEquals(-1, index.findLastStartingBefore(FEATURES[0][0]));
+
+        // the long feature doesn't end before the position, so the previous one is found
+        Assert.assertEquals(2, index.findLastEndingBefore(INSIDE_LONG_FEATURE));
+        Assert.assertEquals(FEATURES.length - 1, index.findLastEndingBefore(AFTER_ALL));
+        Assert.assertEquals(-1, index.findLastEndingBefore(FEATURES[0][1]));
+    }
+
+    @Test
+    public void testUnsortedFeaturesAreSorted() {
+        FeaturePositionIndex sorted = buildIndex(false);
+        FeaturePositionIndex unsorted = buildIndex(true);
+
+        for (int i = 0; i < sorted.size(); i++) {
+            Assert.assertEquals(sorted.getStart(i), unsorted.getStart(i));
+            Assert.assertEquals(sorted.getEnd(i), unsorted.getEnd(i));
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        FeaturePositionIndex index = buildIndex(false);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream outputStream = new DataOutputStream(bytes)) {
+            index.write(outputStream);
+        }
+
+        FeaturePositionIndex loaded;
+        try (DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = FeaturePositionIndex.read(inputStream);
+        }
+
+        Assert.assertEquals(index.size(), loaded.size());
+        for (int i = 0; i < index.size(); i++) {
+            Assert.assertEquals(index.getStart(i), loaded.getStart(i));
+            Assert.assertEquals(index.getEnd(i), loaded.getEnd(i));
+        }
+        Assert.assertEquals(index.findLastEndingBefore(INSIDE_LONG_FEATURE),
+                            loaded.findLastEndingBefore(INSIDE_LONG_FEATURE));
+    }
+
+    private FeaturePositionIndex buildIndex(boolean reverse) {
+        FeaturePositionIndex.Builder builder = new FeaturePositionIndex.Builder();
+        for (int i = 0; i < FEATURES.length; i++) {
+            int[] feature = FEATURES[reverse ? FEATURES.length - 1 - i : i];
+            builder.add(feature[0], feature[1]);
+        }
+        return builder.build();
+    }
+}
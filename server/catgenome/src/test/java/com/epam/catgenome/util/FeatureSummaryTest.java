@@ -0,0 +1,226 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.epam.catgenome.entity.bed.BedRecord;
+import com.epam.catgenome.entity.vcf.GenotypeData;
+import com.epam.catgenome.entity.vcf.OrganismType;
+import com.epam.catgenome.entity.vcf.Variation;
+import com.epam.catgenome.entity.vcf.VariationType;
+
+public class FeatureSummaryTest {
+
+    private static final int[] LEVELS = {10, 100};
+    private static final int[][] FEATURES = {{5, 8}, {12, 30}, {15, 250}, {150, 160}, {420, 430}};
+    private static final String[] NAMES = {"a", "b", "c", "d", "e"};
+    private static final int[] STANDALONE = {300, 5000};
+    private static final int END = 500;
+    private static final int WINDOW_START = 140;
+    private static final double COARSE_SCALE = 0.01;
+    private static final double FINE_SCALE = 0.1;
+    private static final double TOO_FINE_SCALE = 0.5;
+    private static final int GROUPED_END = 250;
+    private static final double QUALITY = 42.5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLoadWindows() throws IOException {
+        File file = writeSummary();
+
+        // features, starting in the first 100 bps, are grouped, others are returned as is
+        List<BedRecord> records = load(file, 1, END, COARSE_SCALE);
+        Assert.assertEquals(3, records.size());
+        assertGroup(records.get(0), 3, FEATURES[0][0], GROUPED_END);
+        assertRecord(records.get(1), 3);
+        assertRecord(records.get(2), 4);
+
+        List<BedRecord> fine = load(file, 1, END, FINE_SCALE);
+        Assert.assertEquals(4, fine.size());
+        assertRecord(fine.get(0), 0);
+        assertGroup(fine.get(1), 2, FEATURES[1][0], GROUPED_END);
+
+        // the window is counted from the start of the interval, a bin before the start is added to the first
+        // window, if its features overlap the interval
+        List<BedRecord> window = load(file, WINDOW_START, END, COARSE_SCALE);
+        Assert.assertEquals(2, window.size());
+        assertGroup(window.get(0), 4, FEATURES[0][0], GROUPED_END);
+        assertRecord(window.get(1), 4);
+
+        List<BedRecord> after = load(file, GROUPED_END + 1, END, COARSE_SCALE);
+        Assert.assertEquals(1, after.size());
+        assertRecord(after.get(0), 4);
+
+        Assert.assertNull(load(file, 1, END, TOO_FINE_SCALE));
+    }
+
+    @Test
+    public void testStandaloneFeatures() throws IOException {
+        FeatureSummary.Builder builder = new FeatureSummary.Builder(LEVELS);
+        BedRecord standalone = new BedRecord();
+        standalone.setStartIndex(STANDALONE[0]);
+        standalone.setEndIndex(STANDALONE[1]);
+        // features are added in the order of their start
+        for (int i = 0; i < FEATURES.length - 1; i++) {
+            builder.add(makeRecord(i));
+        }
+        builder.addStandalone(standalone);
+        builder.add(makeRecord(FEATURES.length - 1));
+        File file = write(builder);
+
+        List<BedRecord> records = load(file, WINDOW_START, END, COARSE_SCALE);
+        Assert.assertEquals(3, records.size());
+        Assert.assertEquals(STANDALONE[0], records.get(1).getStartIndex().intValue());
+        Assert.assertEquals(STANDALONE[1], records.get(1).getEndIndex().intValue());
+
+        // a standalone feature, that starts before the interval, but overlaps it, is found
+        List<BedRecord> overlapping = load(file, STANDALONE[0] + 1, END, COARSE_SCALE);
+        Assert.assertEquals(2, overlapping.size());
+        Assert.assertEquals(STANDALONE[0], overlapping.get(0).getStartIndex().intValue());
+        assertRecord(overlapping.get(1), 4);
+    }
+
+    @Test
+    public void testExtendingFeatures() throws IOException {
+        FeatureSummary.Builder builder = new FeatureSummary.Builder(LEVELS);
+        for (int i = 0; i < FEATURES.length; i++) {
+            builder.addExtending(makeRecord(i));
+        }
+        File file = write(builder);
+
+        // features, not shorter than a bin, are not grouped
+        List<BedRecord> coarse = load(file, 1, END, COARSE_SCALE);
+        Assert.assertEquals(4, coarse.size());
+        assertGroup(coarse.get(0), 2, FEATURES[0][0], FEATURES[1][1]);
+        assertRecord(coarse.get(1), 2);
+        assertRecord(coarse.get(2), 3);
+
+        List<BedRecord> fine = load(file, 1, END, FINE_SCALE);
+        Assert.assertEquals(FEATURES.length, fine.size());
+        for (int i = 0; i < FEATURES.length; i++) {
+            assertRecord(fine.get(i), i);
+        }
+
+        List<BedRecord> window = load(file, WINDOW_START, END, COARSE_SCALE);
+        Assert.assertEquals(3, window.size());
+        assertRecord(window.get(0), 2);
+        assertRecord(window.get(1), 3);
+        assertRecord(window.get(2), 4);
+    }
+
+    @Test
+    public void testVariationRoundTrip() throws IOException {
+        Variation variation = new Variation(FEATURES[0][0], FEATURES[0][1], "A", Collections.singletonList("T"));
+        variation.setType(VariationType.SNV);
+        variation.setIdentifier("rs1");
+        variation.setQuality(QUALITY);
+        variation.setGenotypeData(new GenotypeData(OrganismType.HETEROZYGOUS, new int[] {0, 1}, "A/T"));
+
+        FeatureSummary.Builder builder = new FeatureSummary.Builder(LEVELS);
+        builder.add(variation);
+        File file = write(builder);
+
+        List<Variation> loaded = FeatureSummary.load(file, 1, END, COARSE_SCALE, Variation.class,
+            (first, count, maxEnd) -> first);
+        Assert.assertEquals(1, loaded.size());
+        Variation result = loaded.get(0);
+        Assert.assertEquals(variation.getStartIndex(), result.getStartIndex());
+        Assert.assertEquals(variation.getEndIndex(), result.getEndIndex());
+        Assert.assertEquals(variation.getAlternativeAlleles(), result.getAlternativeAlleles());
+        Assert.assertEquals(VariationType.SNV, result.getType());
+        Assert.assertEquals("rs1", result.getIdentifier());
+        Assert.assertEquals(OrganismType.HETEROZYGOUS, result.getGenotypeData().getOrganismType());
+        Assert.assertArrayEquals(new int[] {0, 1}, result.getGenotypeData().getGenotype());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedFeaturesAreRejected() throws IOException {
+        FeatureSummary.Builder builder = new FeatureSummary.Builder(LEVELS);
+        builder.add(makeRecord(1));
+        builder.add(makeRecord(0));
+    }
+
+    private File writeSummary() throws IOException {
+        FeatureSummary.Builder builder = new FeatureSummary.Builder(LEVELS);
+        for (int i = 0; i < FEATURES.length; i++) {
+            builder.add(makeRecord(i));
+        }
+        return write(builder);
+    }
+
+    private File write(FeatureSummary.Builder builder) throws IOException {
+        File file = folder.newFile();
+        try (DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(file))) {
+            builder.write(outputStream);
+        }
+        return file;
+    }
+
+    private List<BedRecord> load(File file, int start, int end, double scaleFactor) throws IOException {
+        return FeatureSummary.load(file, start, end, scaleFactor, BedRecord.class, (first, count, maxEnd) -> {
+            if (count > 1) {
+                first.setName(count + " Features");
+                first.setEndIndex(maxEnd);
+            }
+            return first;
+        });
+    }
+
+    private BedRecord makeRecord(int number) {
+        BedRecord record = new BedRecord();
+        record.setStartIndex(FEATURES[number][0]);
+        record.setEndIndex(FEATURES[number][1]);
+        record.setName(NAMES[number]);
+        record.setBlockSizes(new int[] {1, 2});
+        return record;
+    }
+
+    private void assertRecord(BedRecord record, int number) {
+        Assert.assertEquals(FEATURES[number][0], record.getStartIndex().intValue());
+        Assert.assertEquals(FEATURES[number][1], record.getEndIndex().intValue());
+        Assert.assertEquals(NAMES[number], record.getName());
+        Assert.assertEquals(Arrays.toString(new int[] {1, 2}), Arrays.toString(record.getBlockSizes()));
+    }
+
+    private void assertGroup(BedRecord record, int count, int start, int end) {
+        Assert.assertEquals(count + " Features", record.getName());
+        Assert.assertEquals(start, record.getStartIndex().intValue());
+        Assert.assertEquals(end, record.getEndIndex().intValue());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.epam.catgenome.entity.wig.Wig;
+
+public class HistogramFileTest {
+
+    private static final int BLOCKS_COUNT = 100;
+    private static final int BLOCK_SIZE = 1000;
+    private static final int WINDOW_START = 10500;
+    private static final int WINDOW_END = 20000;
+    private static final float DELTA = 0.0001f;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndReadWindow() throws IOException {
+        List<Wig> histogram = makeHistogram();
+        Collections.reverse(histogram);
+        File file = folder.newFile("chr1.hg");
+
+        HistogramFile.write(file, histogram);
+        Assert.assertFalse(HistogramFile.isLegacy(file));
+
+        List<Wig> all = HistogramFile.read(file, 0, Integer.MAX_VALUE);
+        Assert.assertEquals(BLOCKS_COUNT, all.size());
+        for (int i = 0; i < BLOCKS_COUNT; i++) {
+            Assert.assertEquals(i * BLOCK_SIZE, all.get(i).getStartIndex().intValue());
+        }
+
+        // blocks, that overlap the window, including partially overlapping first one
+        List<Wig> window = HistogramFile.read(file, WINDOW_START, WINDOW_END);
+        Assert.assertEquals(WINDOW_END / BLOCK_SIZE - WINDOW_START / BLOCK_SIZE + 1, window.size());
+        Assert.assertEquals(WINDOW_START / BLOCK_SIZE * BLOCK_SIZE, window.get(0).getStartIndex().intValue());
+        Assert.assertEquals(WINDOW_END, window.get(window.size() - 1).getStartIndex().intValue());
+        Assert.assertEquals(WINDOW_START / BLOCK_SIZE, window.get(0).getValue(), DELTA);
+
+        Assert.assertTrue(HistogramFile.read(file, BLOCKS_COUNT * BLOCK_SIZE + 1, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testLegacyFileIsMigrated() throws IOException {
+        List<Wig> histogram = makeHistogram();
+        File file = folder.newFile("chr2.hg");
+        try (DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(file))) {
+            for (Wig wig : histogram) {
+                outputStream.writeInt(wig.getStartIndex());
+                outputStream.writeInt(wig.getEndIndex());
+                outputStream.writeFloat(wig.getValue());
+            }
+        }
+        Assert.assertTrue(HistogramFile.isLegacy(file));
+
+        List<Wig> loaded = HistogramFile.read(file, 0, Integer.MAX_VALUE);
+        Assert.assertFalse(HistogramFile.isLegacy(file));
+        Assert.assertEquals(histogram.size(), loaded.size());
+        for (int i = 0; i < histogram.size(); i++) {
+            Assert.assertEquals(histogram.get(i).getStartIndex(), loaded.get(i).getStartIndex());
+            Assert.assertEquals(histogram.get(i).getEndIndex(), loaded.get(i).getEndIndex());
+            Assert.assertEquals(histogram.get(i).getValue(), loaded.get(i).getValue(), DELTA);
+        }
+
+        File empty = folder.newFile("chr3.hg");
+        Assert.assertTrue(HistogramFile.read(empty, 0, Integer.MAX_VALUE).isEmpty());
+        Assert.assertFalse(HistogramFile.isLegacy(empty));
+    }
+
+    private List<Wig> makeHistogram() {
+        List<Wig> histogram = new ArrayList<>(BLOCKS_COUNT);
+        for (int i = 0; i < BLOCKS_COUNT; i++) {
+            Wig wig = new Wig();
+            wig.setStartIndex(i * BLOCK_SIZE);
+            wig.setEndIndex((i + 1) * BLOCK_SIZE);
+            wig.setValue((float) i);
+            histogram.add(wig);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntervalIndexTest {
+
+    private static final int INTERVALS_COUNT = 5000;
+    private static final int QUERIES_COUNT = 1000;
+    private static final int CHROMOSOME_LENGTH = 1000000;
+    private static final int MAX_INTERVAL_LENGTH = 50000;
+    private static final int MAX_QUERY_LENGTH = 1000;
+    private static final long SEED = 42L;
+    private static final int GENE_END = 10;
+    private static final int OTHER_START = 20;
+    private static final int OTHER_END = 30;
+
+    @Test
+    public void testQueryMatchesLinearScan() {
+        Random random = new Random(SEED);
+        List<int[]> intervals = new ArrayList<>(INTERVALS_COUNT);
+        IntervalIndex.Builder<Integer> first = IntervalIndex.builder();
+        IntervalIndex.Builder<Integer> second = IntervalIndex.builder();
+        for (int i = 0; i < INTERVALS_COUNT; i++) {
+            int start = random.nextInt(CHROMOSOME_LENGTH);
+            int end = start + random.nextInt(MAX_INTERVAL_LENGTH);
+            intervals.add(new int[] {start, end});
+            (i % 2 == 0 ? first : second).add(start, end, i);
+        }
+
+        IntervalIndex<Integer> index = first.addAll(second).build();
+        Assert.assertEquals(INTERVALS_COUNT, index.size());
+
+        for (int q = 0; q < QUERIES_COUNT; q++) {
+            int start = random.nextInt(CHROMOSOME_LENGTH);
+            int end = start + random.nextInt(MAX_QUERY_LENGTH);
+
+            List<Integer> found = index.query(start, end);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < intervals.size(); i++) {
+                if (intervals.get(i)[0] <= end && intervals.get(i)[1] >= start) {
+                    expected.add(i);
+                }
+            }
+
+            Assert.assertEquals(expected.size(), found.size());
+            Assert.assertTrue(found.containsAll(expected));
+            for (int i = 1; i < found.size(); i++) {
+                Assert.assertTrue(intervals.get(found.get(i - 1))[0] <= intervals.get(found.get(i))[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallAndEmptyIndex() {
+        IntervalIndex<String> empty = IntervalIndex.<String>builder().build();
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertTrue(empty.query(0, CHROMOSOME_LENGTH).isEmpty());
+
+        IntervalIndex<String> index = IntervalIndex.<String>builder()
+                .add(1, GENE_END, "gene")
+                .add(1, GENE_END, "exon")
+                .add(OTHER_START, OTHER_END, "other")
+                .build();
+        Assert.assertEquals(1, index.getMinStart());
+        Assert.assertEquals(OTHER_END, index.getMaxEnd());
+        Assert.assertEquals(2, index.query(GENE_END, GENE_END).size());
+        Assert.assertEquals("gene", index.query(5, 5).get(0));
+        Assert.assertTrue(index.query(GENE_END + 1, OTHER_START - 1).isEmpty());
+        Assert.assertEquals(3, index.query(0, OTHER_START).size());
+    }
+}
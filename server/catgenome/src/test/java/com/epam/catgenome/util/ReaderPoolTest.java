@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReaderPoolTest {
+
+    private static final int POOL_SIZE = 4;
+    private static final long TIMEOUT = 60000L;
+    private static final String FIRST_FILE = "1|file.gff";
+    private static final String SECOND_FILE = "2|file.gff";
+
+    @Test
+    public void testReaderIsReused() throws IOException {
+        ReaderPool<TestReader> pool = new ReaderPool<>("Test", POOL_SIZE, TIMEOUT, TIMEOUT);
+
+        TestReader reader;
+        try (ReaderPool<TestReader>.Handle handle = pool.acquire(FIRST_FILE, TestReader::new)) {
+            reader = handle.getReader();
+        }
+        Assert.assertFalse(reader.closed);
+
+        try (ReaderPool<TestReader>.Handle handle = pool.acquire(FIRST_FILE, TestReader::new)) {
+            Assert.assertSame(reader, handle.getReader());
+        }
+        Assert.assertEquals(1, pool.getHitCount());
+        Assert.assertEquals(1, pool.getMissCount());
+
+        pool.close();
+        Assert.assertTrue(reader.closed);
+        Assert.assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testInvalidateClosesIdleAndBorrowedReaders() throws IOException {
+        ReaderPool<TestReader> pool = new ReaderPool<>("Test", POOL_SIZE, TIMEOUT, TIMEOUT);
+
+        TestReader idle;
+        try (ReaderPool<TestReader>.Handle handle = pool.acquire(FIRST_FILE, TestReader::new)) {
+            idle = handle.getReader();
+        }
+        TestReader other;
+        try (ReaderPool<TestReader>.Handle handle = pool.acquire(SECOND_FILE, TestReader::new)) {
+            other = handle.getReader();
+        }
+
+        ReaderPool<TestReader>.Handle borrowed = pool.acquire(FIRST_FILE, TestReader::new);
+        ReaderPool<TestReader>.Handle borrowedToo = pool.acquire(FIRST_FILE, TestReader::new);
+        Assert.assertSame(idle, borrowed.getReader());
+
+        Assert.assertEquals(0, pool.invalidate(key -> key.startsWith("1|")));
+        borrowed.close();
+        borrowedToo.close();
+        Assert.assertTrue(idle.closed);
+        Assert.assertTrue(borrowedToo.getReader().closed);
+        Assert.assertFalse(other.closed);
+        Assert.assertEquals(1, pool.size());
+
+        try (ReaderPool<TestReader>.Handle handle = pool.acquire(FIRST_FILE, TestReader::new)) {
+            Assert.assertNotSame(idle, handle.getReader());
+        }
+        Assert.assertEquals(1, pool.invalidate(key -> key.startsWith("1|")));
+        Assert.assertEquals(1, pool.idleSize());
+        pool.close();
+    }
+
+    @Test
+    public void testReaderOpenedDuringInvalidationIsNotReused() throws IOException {
+        ReaderPool<TestReader> pool = new ReaderPool<>("Test", POOL_SIZE, TIMEOUT, TIMEOUT);
+
+        TestReader reader;
+        try (ReaderPool<TestReader>.Handle handle = pool.acquire(FIRST_FILE, () -> {
+            pool.invalidate(key -> key.startsWith("1|"));
+            return new TestReader();
+        })) {
+            reader = handle.getReader();
+        }
+        Assert.assertTrue(reader.closed);
+        Assert.assertEquals(0, pool.size());
+        pool.close();
+    }
+
+    private static final class TestReader implements Closeable {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.catgenome.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.epam.catgenome.entity.reference.Chromosome;
+import com.epam.catgenome.entity.wig.Wig;
+
+public class StreamingHistogramBuilderTest {
+
+    private static final int CHROMOSOME_SIZE = 1000000;
+    private static final int BLOCKS_COUNT = 25;
+    private static final int BLOCK_LENGTH = CHROMOSOME_SIZE / BLOCKS_COUNT;
+    private static final int FEATURES_COUNT = 500;
+    private static final int FEATURE_STEP = 1500;
+    private static final int FEATURE_LENGTH = 700;
+    private static final int LONG_FEATURE_START = 100;
+    private static final int LONG_FEATURE_END = 130000;
+    private static final float DELTA = 0.0001f;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Chromosome chromosome;
+    private Map<String, Chromosome> chromosomeMap;
+
+    @Before
+    public void setUp() {
+        chromosome = new Chromosome("chr1", CHROMOSOME_SIZE);
+        chromosomeMap = new HashMap<>();
+        chromosomeMap.put(chromosome.getName(), chromosome);
+    }
+
+    @Test
+    public void testAddCountsOverlappedBlocks() {
+        StreamingHistogramBuilder builder = new StreamingHistogramBuilder(chromosomeMap);
+        builder.add("1", LONG_FEATURE_START, LONG_FEATURE_END);
+        builder.add("chrUn", LONG_FEATURE_START, LONG_FEATURE_END);
+
+        Assert.assertEquals(2, builder.getFeaturesCount());
+        List<Wig> histogram = builder.getHistogram(chromosome);
+        Assert.assertEquals(LONG_FEATURE_END / BLOCK_LENGTH + 1, histogram.size());
+        histogram.forEach(wig -> Assert.assertEquals(1, wig.getValue(), DELTA));
+    }
+
+    @Test
+    public void testScanGffAndBed() throws IOException {
+        File gff = folder.newFile("genes.gff.gz");
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new GZIPOutputStream(
+                new FileOutputStream(gff)), StandardCharsets.UTF_8))) {
+            writer.println("##gff-version 3");
+            for (int i = 0; i < FEATURES_COUNT; i++) {
+                int start = i * FEATURE_STEP + 1;
+                writer.println(String.join("\t", "chr1", "test", "gene", String.valueOf(start),
+                                           String.valueOf(start + FEATURE_LENGTH), ".", "+", ".", "ID=g" + i));
+            }
+        }
+
+        File bed = folder.newFile("genes.bed");
+        try (PrintWriter writer = new PrintWriter(bed, StandardCharsets.UTF_8.name())) {
+            writer.println("track name=genes");
+            for (int i = 0; i < FEATURES_COUNT; i++) {
+                int start = i * FEATURE_STEP;
+                writer.println(String.join("\t", "1", String.valueOf(start),
+                                           String.valueOf(start + FEATURE_LENGTH + 1), "g" + i));
+            }
+        }
+
+        List<Wig> expected = countNaively();
+        assertHistogram(expected, new StreamingHistogramBuilder(chromosomeMap)
+                .scan(gff, StreamingHistogramBuilder.LineFormat.GFF).getHistogram(chromosome));
+        assertHistogram(expected, new StreamingHistogramBuilder(chromosomeMap)
+                .scan(bed, StreamingHistogramBuilder.LineFormat.BED).getHistogram(chromosome));
+        Assert.assertEquals(Collections.emptyList(), new StreamingHistogramBuilder(Collections.emptyMap())
+                .scan(bed, StreamingHistogramBuilder.LineFormat.BED).getHistogram(chromosome));
+    }
+
+    private List<Wig> countNaively() {
+        StreamingHistogramBuilder builder = new StreamingHistogramBuilder(chromosomeMap);
+        for (int i = 0; i < FEATURES_COUNT; i++) {
+            int start = i * FEATURE_STEP + 1;
+            builder.add(chromosome.getName(), start, start + FEATURE_LENGTH);
+        }
+
+        List<Wig> histogram = builder.getHistogram(chromosome);
+        for (Wig wig : histogram) {
+            int count = 0;
+            for (int i = 0; i < FEATURES_COUNT; i++) {
+                int start = i * FEATURE_STEP + 1;
+                if (start / BLOCK_LENGTH <= wig.getStartIndex() / BLOCK_LENGTH
+                        && (start + FEATURE_LENGTH) / BLOCK_LENGTH >= wig.getStartIndex() / BLOCK_LENGTH) {
+                    count++;
+                }
+            }
+            Assert.assertEquals(count, wig.getValue(), DELTA);
+        }
+        return histogram;
+    }
+
+    private void assertHistogram(List<Wig> expected, List<Wig> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getStartIndex(), actual.get(i).getStartIndex());
+            Assert.assertEquals(expected.get(i).getEndIndex(), actual.get(i).getEndIndex());
+            Assert.assertEquals(expected.get(i).getValue(), actual.get(i).getValue(), DELTA);
+        }
+    }
+}
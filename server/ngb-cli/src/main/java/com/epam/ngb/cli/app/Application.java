@@ -152,6 +152,10 @@ public class Application {
             aliases = {"--pretty"})
     private String prettyName;
 
+    @Option(name = "-async", usage = "registers files in parallel by background jobs on the server",
+            aliases = {"--async"})
+    private boolean async = false;
+
 
     @Argument
     private List<String> arguments;
@@ -237,6 +241,7 @@ public class Application {
         options.setNoGCContent(noGCContent);
         options.setForceDeletion(forceDeletion);
         options.setPrettyName(prettyName);
+        options.setAsync(async);
         if (doNotIndex) {
             options.setDoIndex(false);
         }
@@ -81,6 +81,12 @@ public class ApplicationOptions {
 
     private String prettyName;
 
+    /**
+     * Option for file registration, if true, files are registered by background jobs on the server in
+     * parallel, and the command waits for all jobs to finish
+     */
+    private boolean async = false;
+
     /**
      * Creates object with default option's values
      */
@@ -183,4 +189,12 @@ public class ApplicationOptions {
     public String getPrettyName() {
         return prettyName;
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 EPAM Systems
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.epam.ngb.cli.entity;
+
+/**
+ * {@code RegistrationJob} represents a registration of a file, running on NGB server in the background
+ */
+public class RegistrationJob {
+
+    private Long id;
+    private String path;
+    /**
+     * Status of the job: QUEUED, RUNNING, COMPLETED, FAILED or CANCELLED
+     */
+    private String status;
+    /**
+     * Registered file, returned for completed jobs only
+     */
+    private BiologicalDataItem item;
+    private String errorMessage;
+    private long recordsParsed;
+    private long chromosomesIndexed;
+
+    /**
+     * @return true if the job won't change its status anymore
+     */
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status) || "CANCELLED".equals(status);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public BiologicalDataItem getItem() {
+        return item;
+    }
+
+    public void setItem(BiologicalDataItem item) {
+        this.item = item;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public long getRecordsParsed() {
+        return recordsParsed;
+    }
+
+    public void setRecordsParsed(long recordsParsed) {
+        this.recordsParsed = recordsParsed;
+    }
+
+    public long getChromosomesIndexed() {
+        return chromosomesIndexed;
+    }
+
+    public void setChromosomesIndexed(long chromosomesIndexed) {
+        this.chromosomesIndexed = chromosomesIndexed;
+    }
+}
@@ -62,6 +62,8 @@ public class CommandManager {
     public static final String SERVER_VERSION_PROPERTY = "version";
     private static final String HANDLER_PACKAGE = "com.epam.ngb.cli.manager.command.handler";
     public static final String GET_EXISTING_INDEX_URL_PROPERTY = "get_existing_index_url";
+    private static final String JOB_REGISTRATION_URL_PROPERTY = "job_register_url";
+    private static final String JOB_STATUS_URL_PROPERTY = "job_status_url";
 
 
     /**
@@ -146,6 +148,8 @@ public class CommandManager {
         parameters.setServerVersion(serverProperties.getProperty(SERVER_VERSION_PROPERTY));
         parameters.setProjectTreeUrl(serverProperties.getProperty(PROJECT_TREE_URL_PROPERTY));
         parameters.setExistingIndexSearchUrl(serverProperties.getProperty(GET_EXISTING_INDEX_URL_PROPERTY));
+        parameters.setJobRegistrationUrl(serverProperties.getProperty(JOB_REGISTRATION_URL_PROPERTY));
+        parameters.setJobStatusUrl(serverProperties.getProperty(JOB_STATUS_URL_PROPERTY));
         return parameters;
     }
 
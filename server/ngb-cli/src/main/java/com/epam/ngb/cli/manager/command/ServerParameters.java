@@ -42,6 +42,8 @@ public class ServerParameters {
     private String fileFindUrl;
     private String serverVersion;
     private String existingIndexSearchUrl;
+    private String jobRegistrationUrl;
+    private String jobStatusUrl;
 
     public String getServerUrl() {
         return serverUrl;
@@ -138,4 +140,20 @@ public class ServerParameters {
     public void setExistingIndexSearchUrl(String existingIndexSearchUrl) {
         this.existingIndexSearchUrl = existingIndexSearchUrl;
     }
+
+    public String getJobRegistrationUrl() {
+        return jobRegistrationUrl;
+    }
+
+    public void setJobRegistrationUrl(String jobRegistrationUrl) {
+        this.jobRegistrationUrl = jobRegistrationUrl;
+    }
+
+    public String getJobStatusUrl() {
+        return jobStatusUrl;
+    }
+
+    public void setJobStatusUrl(String jobStatusUrl) {
+        this.jobStatusUrl = jobStatusUrl;
+    }
 }
@@ -28,20 +28,30 @@ import static com.epam.ngb.cli.constants.MessageConstants.ERROR_FILES_NOT_REGIST
 import static com.epam.ngb.cli.constants.MessageConstants.MINIMUM_COMMAND_ARGUMENTS;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.epam.ngb.cli.entity.*;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.StringEntity;
 
 import com.epam.ngb.cli.app.ApplicationOptions;
 import com.epam.ngb.cli.constants.MessageConstants;
 import com.epam.ngb.cli.exception.ApplicationException;
 import com.epam.ngb.cli.manager.command.handler.Command;
 import com.epam.ngb.cli.manager.printer.AbstractResultPrinter;
+import com.epam.ngb.cli.manager.request.RequestManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +64,8 @@ import org.slf4j.LoggerFactory;
  * delimited by a '?' symbol.
  * By default the command doesn't produce any output, but it can be turned on by setting {@code true}
  * value to {@code printJson} or {@code printTable} fields.
+ * If {@code async} option is set, all files are submitted to NGB server as background registration jobs at once,
+ * so that they are registered in parallel, and the command polls the status of all jobs until they are finished.
  */
 @Command(type = Command.Type.REQUEST, command = {"register_file"})
 public class FileRegistrationHandler extends AbstractHTTPCommandHandler {
@@ -91,6 +103,18 @@ public class FileRegistrationHandler extends AbstractHTTPCommandHandler {
      */
     private boolean doIndex;
 
+    /**
+     * Specifies if files should be registered by background jobs on NGB server
+     */
+    private boolean async;
+
+    private static final long JOB_POLL_INTERVAL_MS = 1000L;
+    /**
+     * Formats, that NGB server registers by background jobs
+     */
+    private static final Set<BiologicalDataItemFormat> ASYNC_FORMATS = EnumSet.of(BiologicalDataItemFormat.VCF,
+            BiologicalDataItemFormat.GENE, BiologicalDataItemFormat.BED, BiologicalDataItemFormat.MAF);
+
     private static final Logger LOGGER = LoggerFactory.getLogger(FileRegistrationHandler.class);
 
     /**
@@ -119,6 +143,7 @@ public class FileRegistrationHandler extends AbstractHTTPCommandHandler {
         this.printTable = options.isPrintTable();
         this.doIndex = options.isDoIndex();
         this.prettyName = options.getPrettyName();
+        this.async = options.isAsync();
     }
 
     /**
@@ -150,6 +175,7 @@ public class FileRegistrationHandler extends AbstractHTTPCommandHandler {
         printTable = options.isPrintTable();
         doIndex = options.isDoIndex();
         prettyName = options.getPrettyName();
+        async = options.isAsync();
     }
 
     /**
@@ -173,8 +199,19 @@ public class FileRegistrationHandler extends AbstractHTTPCommandHandler {
     protected List<BiologicalDataItem> registerItems() {
         List<BiologicalDataItem> items = new ArrayList<>(files.size());
         List<Pair<String, String>> failed = new ArrayList<>(files.size());
+        Map<Long, Pair<String, String>> jobFiles = new LinkedHashMap<>();
         for (Pair<String, String> file : files) {
             BiologicalDataItemFormat format = BiologicalDataItemFormat.getByFilePath(file.getLeft());
+            if (async && ASYNC_FORMATS.contains(format)) {
+                Long jobId = submitRegistrationJob(file, format);
+                if (jobId != null) {
+                    jobFiles.put(jobId, file);
+                } else {
+                    failed.add(file);
+                }
+                continue;
+            }
+
             String url = String.format(getRequestUrl(), format.name().toLowerCase());
             HttpRequestBase request = getRequest(url);
             setDefaultHeader(request);
@@ -199,6 +236,21 @@ public class FileRegistrationHandler extends AbstractHTTPCommandHandler {
                 throw new ApplicationException(e.getMessage(), e);
             }
         }
+
+        // jobs are run by the server in parallel, while other files are registered synchronously
+        if (!jobFiles.isEmpty()) {
+            Map<Long, RegistrationJob> jobs = waitForJobs(new ArrayList<>(jobFiles.keySet()));
+            jobFiles.forEach((jobId, file) -> {
+                RegistrationJob job = jobs.get(jobId);
+                if (job != null && job.getItem() != null) {
+                    items.add(job.getItem());
+                } else {
+                    LOGGER.error(job != null ? job.getErrorMessage() : "Registration job " + jobId + " is lost");
+                    failed.add(file);
+                }
+            });
+        }
+
         if (!failed.isEmpty()) {
             LOGGER.error(MessageConstants.getMessage(ERROR_FILES_NOT_REGISTERED,
                     failed.stream().map(Pair::getLeft).collect(Collectors.joining(","))));
@@ -206,6 +258,90 @@ public class FileRegistrationHandler extends AbstractHTTPCommandHandler {
         return items;
     }
 
+    /**
+     * Submits a file registration job to NGB server
+     * @return ID of a submitted job or null, if the server has rejected the job
+     */
+    private Long submitRegistrationJob(Pair<String, String> file, BiologicalDataItemFormat format) {
+        String url = String.format(serverParameters.getJobRegistrationUrl(), format.name());
+        HttpPost request = new HttpPost(serverParameters.getServerUrl() + url);
+        setDefaultHeader(request);
+        if (isSecure()) {
+            addAuthorizationToRequest(request);
+        }
+
+        String result = getPostResult(createRegistrationRequest(file, format), request);
+        ResponseResult<RegistrationJob> responseResult = readJobResult(result, RegistrationJob.class);
+        if (ERROR_STATUS.equals(responseResult.getStatus())) {
+            LOGGER.error(responseResult.getMessage());
+            return null;
+        }
+        return responseResult.getPayload().getId();
+    }
+
+    /**
+     * Polls the status of all jobs with a single request until every job is finished
+     * @param jobIds IDs of registration jobs
+     * @return finished jobs mapped by ID
+     */
+    private Map<Long, RegistrationJob> waitForJobs(List<Long> jobIds) {
+        Map<Long, RegistrationJob> finished = new HashMap<>();
+        List<Long> pending = new ArrayList<>(jobIds);
+        while (!pending.isEmpty()) {
+            List<Long> running = new ArrayList<>(pending.size());
+            for (RegistrationJob job : loadJobs(pending)) {
+                if (job.isFinished()) {
+                    finished.put(job.getId(), job);
+                } else {
+                    running.add(job.getId());
+                    LOGGER.debug("Registering {}: {} records parsed, {} chromosomes indexed", job.getPath(),
+                            job.getRecordsParsed(), job.getChromosomesIndexed());
+                }
+            }
+
+            pending = running;
+            if (!pending.isEmpty()) {
+                try {
+                    Thread.sleep(JOB_POLL_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApplicationException(e.getMessage(), e);
+                }
+            }
+        }
+        return finished;
+    }
+
+    private List<RegistrationJob> loadJobs(List<Long> jobIds) {
+        HttpPost request = new HttpPost(serverParameters.getServerUrl() + serverParameters.getJobStatusUrl());
+        setDefaultHeader(request);
+        try {
+            request.setEntity(new StringEntity(getMapper().writeValueAsString(jobIds)));
+        } catch (UnsupportedEncodingException | JsonProcessingException e) {
+            throw new ApplicationException(e.getMessage(), e);
+        }
+
+        ResponseResult<List<RegistrationJob>> responseResult = readJobResult(RequestManager.executeRequest(request),
+                getMapper().getTypeFactory().constructCollectionType(List.class, RegistrationJob.class));
+        if (ERROR_STATUS.equals(responseResult.getStatus())) {
+            throw new ApplicationException(responseResult.getMessage());
+        }
+        return responseResult.getPayload();
+    }
+
+    private <T> ResponseResult<T> readJobResult(String result, Class<?> payloadClass) {
+        return readJobResult(result, getMapper().getTypeFactory().constructType(payloadClass));
+    }
+
+    private <T> ResponseResult<T> readJobResult(String result, JavaType payloadType) {
+        try {
+            return getMapper().readValue(result, getMapper().getTypeFactory()
+                    .constructParametrizedType(ResponseResult.class, ResponseResult.class, payloadType));
+        } catch (IOException e) {
+            throw new ApplicationException(e.getMessage(), e);
+        }
+    }
+
     private RegistrationRequest createRegistrationRequest(Pair<String, String> file, BiologicalDataItemFormat format) {
         RegistrationRequest registration = new RegistrationRequest();
         registration.setName(fileName);